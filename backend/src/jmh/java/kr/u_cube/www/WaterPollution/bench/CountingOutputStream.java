@@ -0,0 +1,25 @@
+package kr.u_cube.www.WaterPollution.bench;
+
+import java.io.OutputStream;
+
+/**
+ * 바이트 수만 세고 버리는 출력 스트림 (디스크/네트워크를 뺀 생성 비용만 측정)
+ */
+public final class CountingOutputStream extends OutputStream {
+
+    private long count;
+
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public void write(int b) {
+        count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        count += len;
+    }
+}
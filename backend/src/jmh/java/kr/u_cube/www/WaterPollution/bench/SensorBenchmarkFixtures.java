@@ -0,0 +1,141 @@
+package kr.u_cube.www.WaterPollution.bench;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Random;
+import java.util.function.IntFunction;
+import java.util.function.IntToLongFunction;
+import java.util.stream.Stream;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import kr.u_cube.www.WaterPollution.dto.HistoryDataDto;
+import kr.u_cube.www.WaterPollution.service.sensor.SensorParameter;
+
+/**
+ * JMH 벤치마크 공용 입력 데이터
+ * - 고정 seed로 만들어 실행마다 같은 입력을 사용
+ * - DB가 필요한 벤치마크는 seedSensorData로 sensor_data를 채움 (행 배치는 벤치마크가 지정)
+ */
+public final class SensorBenchmarkFixtures {
+
+    public static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private static final int INSERT_BATCH = 5_000;
+
+    private SensorBenchmarkFixtures() {
+    }
+
+    /**
+     * 센서가 보내는 형태의 JSON 페이로드
+     * - measuredAt은 ISO 문자열, 끝에 Z 붙은 문자열, 배열 형식을 메시지마다 돌아가며 사용
+     */
+    public static byte[][] payloads(int count, int devices) {
+        Random random = new Random(42);
+        byte[][] payloads = new byte[count][];
+        for (int i = 0; i < count; i++) {
+            LocalDateTime measuredAt = START.plusSeconds(i);
+            String measuredAtJson = switch (i % 3) {
+                case 0 -> "\"" + measuredAt + "\"";
+                case 1 -> "\"" + measuredAt + "Z\"";
+                default -> "[%d,%d,%d,%d,%d,%d]".formatted(measuredAt.getYear(), measuredAt.getMonthValue(),
+                        measuredAt.getDayOfMonth(), measuredAt.getHour(), measuredAt.getMinute(), measuredAt.getSecond());
+            };
+            String json = String.format(Locale.ROOT,
+                    "{\"deviceId\":\"BENCH-%04d\",\"ph\":%.2f,\"doValue\":%.2f,\"temperature\":%.2f,\"ec\":%.1f,"
+                            + "\"turbidity\":%.2f,\"bod\":%.2f,\"cod\":%.2f,\"tp\":%.3f,\"tn\":%.2f,\"ss\":%.2f,"
+                            + "\"chlorophyllA\":%.2f,\"no3n\":%.2f,\"measuredAt\":%s}",
+                    i % devices,
+                    6.5 + random.nextDouble() * 2, 5 + random.nextDouble() * 6, 5 + random.nextDouble() * 20,
+                    100 + random.nextDouble() * 500, 1 + random.nextDouble() * 19, 0.5 + random.nextDouble() * 3.5,
+                    2 + random.nextDouble() * 6, 0.01 + random.nextDouble() * 0.19, 1 + random.nextDouble() * 4,
+                    1 + random.nextDouble() * 29, 1 + random.nextDouble() * 39, 0.5 + random.nextDouble() * 3.5,
+                    measuredAtJson);
+            payloads[i] = json.getBytes(StandardCharsets.UTF_8);
+        }
+        return payloads;
+    }
+
+    /**
+     * 다운로드 조회 결과 형태의 이력 행 (디바이스가 돌아가며 1분 간격, 위치에 따옴표 포함)
+     */
+    public static HistoryDataDto[] historyRows(int count, int devices) {
+        Random random = new Random(42);
+        HistoryDataDto[] rows = new HistoryDataDto[count];
+        for (int i = 0; i < count; i++) {
+            int device = i % devices;
+            HistoryDataDto data = new HistoryDataDto();
+            data.setDeviceId("BENCH-%03d".formatted(device));
+            data.setPtno("P%06d".formatted(device));
+            data.setName("한강-측정소 %d".formatted(device));
+            data.setType("하천");
+            data.setLat(37.5 + device * 0.001);
+            data.setLon(127.0 + device * 0.001);
+            data.setLocation("서울특별시 테스트구 측정로 %d, \"수변\"".formatted(device));
+            data.setMeasuredAt(START.plusMinutes(i / devices));
+            for (SensorParameter parameter : SensorParameter.values()) {
+                parameter.set(data, random.nextDouble() * 100);
+            }
+            rows[i] = data;
+        }
+        return rows;
+    }
+
+    /**
+     * sensor_data에 rows행 추가 (측정값 11개는 0~100 난수, created_at = measured_at)
+     *
+     * @param deviceIdOf   행 번호 → sensor_info.id
+     * @param measuredAtOf 행 번호 → 측정 시각
+     */
+    public static void seedSensorData(JdbcTemplate jdbcTemplate, String table, int rows,
+            IntToLongFunction deviceIdOf, IntFunction<LocalDateTime> measuredAtOf) {
+        Random random = new Random(42);
+        for (int offset = 0; offset < rows; offset += INSERT_BATCH) {
+            int base = offset;
+            int size = Math.min(INSERT_BATCH, rows - offset);
+            jdbcTemplate.batchUpdate("""
+                    INSERT INTO %s (device_id, ph, do_value, temperature, ec, bod, cod,
+                        tp, tn, ss, chlorophylla, no3n, measured_at, created_at)
+                    VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+                    """.formatted(table), new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    int row = base + i;
+                    Timestamp measuredAt = Timestamp.valueOf(measuredAtOf.apply(row));
+                    ps.setLong(1, deviceIdOf.applyAsLong(row));
+                    for (int column = 2; column <= 12; column++) {
+                        ps.setDouble(column, random.nextDouble() * 100);
+                    }
+                    ps.setTimestamp(13, measuredAt);
+                    ps.setTimestamp(14, measuredAt);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return size;
+                }
+            });
+        }
+    }
+
+    /**
+     * 임시 디렉터리 삭제 (하위 파일 포함)
+     */
+    public static void deleteRecursively(Path dir) throws IOException {
+        if (dir == null || !Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
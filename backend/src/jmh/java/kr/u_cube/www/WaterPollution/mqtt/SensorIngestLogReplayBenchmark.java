@@ -0,0 +1,184 @@
+package kr.u_cube.www.WaterPollution.mqtt;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import kr.u_cube.www.WaterPollution.bench.SensorBenchmarkFixtures;
+import kr.u_cube.www.WaterPollution.service.monitoring.CustomMetricsService;
+import kr.u_cube.www.WaterPollution.service.sensor.SensorDataBatchWriter;
+
+/**
+ * WAL replay 단계별 처리 시간 (DB 없이, ./gradlew jmh -Pjmh.includes=SensorIngestLogReplayBenchmark)
+ * - 임시 디렉터리에 records건을 기록해 두고 단계별로 전체 로그를 한 번 처리하는 시간 측정 (ms/op)
+ *   - append: 빈 로그에 기록 (반복마다 새 디렉터리)
+ *   - open: 세그먼트 매핑 + checkpoint 읽기
+ *   - scan: 레코드 읽기 + CRC 확인만
+ *   - scanDecode: scan + SensorPayloadDecoder 디코딩
+ *   - replayOnStartup: 실제 SensorIngestLogReplayer 경로 (디코딩 + 파이프라인 전달, 파이프라인이 빌 때까지)
+ * - replayOnStartup의 메시지 처리(SensorMessageHandler)는 mock이라 DB 저장 비용은 포함하지 않음 (SensorIngestLoadTest 참고)
+ * - 레코드 수 등은 @Param (예: -Pjmh.params=records=1000000)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+public class SensorIngestLogReplayBenchmark {
+
+    private static final int SEGMENT_BYTES = 64 * 1024 * 1024;
+
+    @Param("500000")
+    private int records;
+
+    @Param("200")
+    private int devices;
+
+    @Param("4")
+    private int workers;
+
+    private byte[][] payloads;
+    private Path walDir;
+    private SensorIngestLog ingestLog;
+    private long from;
+
+    private final SensorPayloadDecoder decoder = new SensorPayloadDecoder();
+    private final SensorReading reading = new SensorReading();
+    private SensorIngestPipeline pipeline;
+    private SensorIngestLogReplayer replayer;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        payloads = SensorBenchmarkFixtures.payloads(records, devices);
+        walDir = Files.createTempDirectory("wal-replay-bench");
+        SensorIngestLog writeLog = openLog(walDir);
+        append(writeLog, payloads);
+        writeLog.close();
+
+        ingestLog = openLog(walDir);
+        from = ingestLog.getCheckpoint();
+
+        // 호출 기록을 남기지 않는 mock (반복마다 records건씩 쌓이지 않게)
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        pipeline = new SensorIngestPipeline(mock(SensorMessageHandler.class, withSettings().stubOnly()), ingestLog,
+                mock(CustomMetricsService.class, withSettings().stubOnly()), meterRegistry, workers, 1024, SensorIngestPipeline.OverloadPolicy.BLOCK, 5000);
+        pipeline.start();
+        replayer = new SensorIngestLogReplayer(ingestLog, pipeline, decoder,
+                mock(SensorDataBatchWriter.class), meterRegistry, 60_000, 10, 1000);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        pipeline.shutdown();
+        ingestLog.close();
+        SensorBenchmarkFixtures.deleteRecursively(walDir);
+    }
+
+    /**
+     * append 측정용 빈 로그 (반복마다 새로)
+     */
+    @State(Scope.Thread)
+    public static class EmptyLog {
+        private Path dir;
+        private SensorIngestLog log;
+
+        @Setup(Level.Iteration)
+        public void open() throws IOException {
+            dir = Files.createTempDirectory("wal-append-bench");
+            log = openLog(dir);
+        }
+
+        @TearDown(Level.Iteration)
+        public void close() throws IOException {
+            log.close();
+            SensorBenchmarkFixtures.deleteRecursively(dir);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    public long append(EmptyLog empty) throws IOException {
+        return append(empty.log, payloads);
+    }
+
+    @Benchmark
+    public long open() throws IOException {
+        SensorIngestLog reopened = openLog(walDir);
+        try {
+            return reopened.getEndOffset();
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Benchmark
+    public long scan() {
+        long[] count = {0};
+        ingestLog.replayFrom(from, (offset, payload) -> count[0]++);
+        return verified(count[0]);
+    }
+
+    @Benchmark
+    public long scanDecode() {
+        long[] count = {0};
+        ingestLog.replayFrom(from, (offset, payload) -> {
+            try {
+                decoder.decode(payload, reading);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            count[0]++;
+        });
+        return verified(count[0]);
+    }
+
+    @Benchmark
+    public int replayOnStartup() {
+        replayer.replayOnStartup();
+        while (pipeline.getQueueDepth() > 0) {
+            Thread.onSpinWait();
+        }
+        return records;
+    }
+
+    private static SensorIngestLog openLog(Path dir) throws IOException {
+        SensorIngestLog log = new SensorIngestLog(new SimpleMeterRegistry(), dir.toString(), SEGMENT_BYTES, false);
+        log.open();
+        return log;
+    }
+
+    private static long append(SensorIngestLog log, byte[][] payloads) throws IOException {
+        long end = 0;
+        for (byte[] payload : payloads) {
+            end = log.append(payload);
+        }
+        return end;
+    }
+
+    private long verified(long count) {
+        if (count != records) {
+            throw new IllegalStateException("WAL 레코드 수 불일치: " + count + " != " + records);
+        }
+        return count;
+    }
+}
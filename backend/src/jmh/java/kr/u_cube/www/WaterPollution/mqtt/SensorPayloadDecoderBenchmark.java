@@ -0,0 +1,76 @@
+package kr.u_cube.www.WaterPollution.mqtt;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import kr.u_cube.www.WaterPollution.bench.SensorBenchmarkFixtures;
+import kr.u_cube.www.WaterPollution.dto.sensor.SensorDataDto;
+
+/**
+ * MQTT 페이로드 디코딩 (./gradlew jmh -Pjmh.includes=SensorPayloadDecoderBenchmark)
+ * - 기존 방식: new String(payload) + ObjectMapper(JavaTimeModule).readValue → SensorDataDto
+ * - SensorPayloadDecoder: byte[]를 스트리밍 파서로 읽어 재사용 SensorReading에 채움
+ * - 호출마다 다음 페이로드 1건 디코딩 (measuredAt 형식이 섞인 1024건 순환), gc 프로파일러로 메시지당 할당량 확인
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class SensorPayloadDecoderBenchmark {
+
+    private static final int PAYLOADS = 1024;
+
+    private final ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final SensorPayloadDecoder decoder = new SensorPayloadDecoder();
+    private final SensorReading reading = new SensorReading();
+
+    private byte[][] payloads;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        payloads = SensorBenchmarkFixtures.payloads(PAYLOADS, 200);
+    }
+
+    private byte[] nextPayload() {
+        byte[] payload = payloads[next];
+        next = (next + 1) & (PAYLOADS - 1);
+        return payload;
+    }
+
+    @Benchmark
+    public SensorDataDto objectMapperString() throws Exception {
+        return mapper.readValue(new String(nextPayload(), StandardCharsets.UTF_8), SensorDataDto.class);
+    }
+
+    @Benchmark
+    public SensorDataDto objectMapperBytes() throws Exception {
+        return mapper.readValue(nextPayload(), SensorDataDto.class);
+    }
+
+    @Benchmark
+    public SensorReading decoder() throws Exception {
+        decoder.decode(nextPayload(), reading);
+        return reading;
+    }
+
+    @Benchmark
+    public SensorDataDto decoderToDto() throws Exception {
+        decoder.decode(nextPayload(), reading);
+        return reading.toDto();
+    }
+}
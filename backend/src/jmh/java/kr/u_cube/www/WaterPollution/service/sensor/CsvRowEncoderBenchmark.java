@@ -0,0 +1,90 @@
+package kr.u_cube.www.WaterPollution.service.sensor;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.opencsv.CSVWriter;
+
+import kr.u_cube.www.WaterPollution.bench.CountingOutputStream;
+import kr.u_cube.www.WaterPollution.bench.SensorBenchmarkFixtures;
+import kr.u_cube.www.WaterPollution.dto.HistoryDataDto;
+
+/**
+ * CSV 행 인코딩 (DB 없이 인코딩 비용만, ./gradlew jmh -Pjmh.includes=CsvRowEncoderBenchmark)
+ * - 기존 방식: String[20] + String.format("%.2f") + DateTimeFormatter + OpenCSV
+ * - CsvRowEncoder: 재사용 바이트 버퍼에 UTF-8 바이트 직접 기록
+ * - 호출마다 한 페이지(4096행)를 새 writer로 인코딩, 결과는 행 단위 (gc.alloc.rate.norm = 행당 할당 바이트)
+ * - 두 방식의 출력이 같은지는 CsvRowEncoderTest에서 확인
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class CsvRowEncoderBenchmark {
+
+    private static final int ROWS = 4096;
+    private static final int DEVICES = 50;
+
+    private static final DateTimeFormatter MEASURED_AT_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final CountingOutputStream out = new CountingOutputStream();
+    private HistoryDataDto[] rows;
+
+    @Setup
+    public void setUp() {
+        rows = SensorBenchmarkFixtures.historyRows(ROWS, DEVICES);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long openCsvFormat() throws IOException {
+        CSVWriter csvWriter = new CSVWriter(new BufferedWriter(
+                new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024));
+        String[] row = new String[20];
+        for (int i = 0; i < rows.length; i++) {
+            HistoryDataDto data = rows[i];
+            row[0] = String.valueOf(i + 1);
+            row[1] = data.getDeviceId();
+            row[2] = data.getPtno();
+            row[3] = data.getName();
+            row[4] = data.getType();
+            row[5] = String.valueOf(data.getLat());
+            row[6] = String.valueOf(data.getLon());
+            row[7] = data.getLocation();
+            row[8] = data.getMeasuredAt().format(MEASURED_AT_FORMATTER);
+            for (SensorParameter parameter : SensorParameter.values()) {
+                row[9 + parameter.ordinal()] = String.format("%.2f", parameter.get(data));
+            }
+            csvWriter.writeNext(row);
+        }
+        csvWriter.flush();
+        return out.getCount();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long csvRowEncoder() throws IOException {
+        CsvRowEncoder encoder = new CsvRowEncoder(out, 64 * 1024);
+        for (int i = 0; i < rows.length; i++) {
+            encoder.writeRow(i + 1, rows[i]);
+        }
+        encoder.flush();
+        return out.getCount();
+    }
+}
@@ -0,0 +1,247 @@
+package kr.u_cube.www.WaterPollution.service.sensor;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import kr.u_cube.www.WaterPollution.bench.SensorBenchmarkFixtures;
+
+/**
+ * sensor_data 월 파티션 성능 비교 (MySQL 필요)
+ * - 실행: ./gradlew jmh -Pjmh.includes=SensorDataPartitionBenchmark -Pjmh.params="url=jdbc:mysql://localhost:3306/partition_bench;password=..."
+ * - url은 벤치마크 전용 스키마 (테이블을 지우고 다시 만듦, H2는 파티션을 지원하지 않음)
+ * - 최근 months개월 데이터를 파티션 없는 sensor_data_flat에 한 번 채워 두고 (행 수가 같으면 다음 실행에서 재사용)
+ *   sensor_data는 그 복사본을 SensorDataPartitionManager로 변환해 사용
+ * - 한 달 범위 조회(전체 / 디바이스 1개): flat vs 파티션 (파티션 pruning 효과, ms/op)
+ * - 1회성 작업은 SingleShotTime, 반복마다 테이블을 다시 만든 뒤 측정
+ *   - convert: 파티션 없는 sensor_data → 월 파티션 변환
+ *   - retentionDelete: 파티션 없는 테이블에서 보존 기간 지난 행 DELETE
+ *   - retentionArchive: maintainPartitions()의 ARCHIVE (EXCHANGE + DROP PARTITION)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class SensorDataPartitionBenchmark {
+
+    // 보존 기간 정리로 지울 가장 오래된 개월 수
+    private static final int EXPIRED_MONTHS = 2;
+
+    private static final String CREATE_TABLE = """
+            CREATE TABLE %s (
+                id BIGINT NOT NULL AUTO_INCREMENT,
+                device_id BIGINT,
+                ph DOUBLE, do_value DOUBLE, temperature DOUBLE, ec DOUBLE, bod DOUBLE, cod DOUBLE,
+                tp DOUBLE, tn DOUBLE, ss DOUBLE, chlorophylla DOUBLE, no3n DOUBLE,
+                measured_at DATETIME(6) NOT NULL,
+                created_at DATETIME(6),
+                PRIMARY KEY (id),
+                UNIQUE KEY uk_sensor_data_device_measured (device_id, measured_at),
+                KEY idx_sensor_data_measured_at (measured_at)
+            )
+            """;
+
+    private static final String MONTH_SQL =
+            "SELECT COUNT(*), AVG(ph) FROM %s WHERE measured_at >= ? AND measured_at < ?";
+    private static final String DEVICE_MONTH_SQL =
+            "SELECT COUNT(*), AVG(ph) FROM %s WHERE device_id = ? AND measured_at >= ? AND measured_at < ?";
+
+    @Param("")
+    private String url;
+
+    @Param("root")
+    private String username;
+
+    @Param("")
+    private String password;
+
+    @Param("2000000")
+    private int rows;
+
+    @Param("24")
+    private int months;
+
+    @Param("50")
+    private int devices;
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private SensorDataUniqueKeyMigration uniqueKeyMigration;
+    private YearMonth firstMonth;
+    private Timestamp monthFrom;
+    private Timestamp monthTo;
+    private Timestamp expiredBefore;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if (url.isBlank()) {
+            throw new IllegalStateException("MySQL 접속 정보 필요: -Pjmh.params=\"url=jdbc:mysql://...;password=...\"");
+        }
+        dataSource = new DriverManagerDataSource(url, username, password);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        YearMonth currentMonth = YearMonth.now();
+        firstMonth = currentMonth.minusMonths(months - 1);
+        YearMonth queryMonth = currentMonth.minusMonths(months / 2);
+        monthFrom = Timestamp.valueOf(queryMonth.atDay(1).atStartOfDay());
+        monthTo = Timestamp.valueOf(queryMonth.plusMonths(1).atDay(1).atStartOfDay());
+        expiredBefore = Timestamp.valueOf(firstMonth.plusMonths(EXPIRED_MONTHS).atDay(1).atStartOfDay());
+
+        seedFlatTable();
+        uniqueKeyMigration = new SensorDataUniqueKeyMigration(jdbcTemplate, dataSource, true);
+        copyFlatToSensorData();
+        uniqueKeyMigration.migrate();
+        partitionManager(0).initialize();
+        jdbcTemplate.execute("ANALYZE TABLE sensor_data, sensor_data_flat");
+    }
+
+    // === 한 달 범위 조회 ===
+
+    @Benchmark
+    public Map<String, Object> monthFlat() {
+        return jdbcTemplate.queryForMap(MONTH_SQL.formatted("sensor_data_flat"), monthFrom, monthTo);
+    }
+
+    @Benchmark
+    public Map<String, Object> monthPartitioned() {
+        return jdbcTemplate.queryForMap(MONTH_SQL.formatted("sensor_data"), monthFrom, monthTo);
+    }
+
+    @Benchmark
+    public Map<String, Object> deviceMonthFlat() {
+        return jdbcTemplate.queryForMap(DEVICE_MONTH_SQL.formatted("sensor_data_flat"), 1L, monthFrom, monthTo);
+    }
+
+    @Benchmark
+    public Map<String, Object> deviceMonthPartitioned() {
+        return jdbcTemplate.queryForMap(DEVICE_MONTH_SQL.formatted("sensor_data"), 1L, monthFrom, monthTo);
+    }
+
+    // === 1회성 작업 (반복마다 테이블 준비) ===
+
+    /**
+     * convert 측정용 - 파티션 없는 sensor_data
+     */
+    @State(Scope.Thread)
+    public static class Unpartitioned {
+        @Setup(Level.Iteration)
+        public void prepare(SensorDataPartitionBenchmark bench) {
+            bench.copyFlatToSensorData();
+        }
+    }
+
+    /**
+     * retentionDelete 측정용 - 파티션 없는 테이블 복사본
+     */
+    @State(Scope.Thread)
+    public static class FlatCopy {
+        @Setup(Level.Iteration)
+        public void prepare(SensorDataPartitionBenchmark bench) {
+            bench.jdbcTemplate.execute("DROP TABLE IF EXISTS sensor_data_flat_copy");
+            bench.jdbcTemplate.execute("CREATE TABLE sensor_data_flat_copy LIKE sensor_data_flat");
+            bench.jdbcTemplate.execute("INSERT INTO sensor_data_flat_copy SELECT * FROM sensor_data_flat");
+        }
+    }
+
+    /**
+     * retentionArchive 측정용 - 보존 기간 지난 달이 남아 있는 파티션 sensor_data
+     */
+    @State(Scope.Thread)
+    public static class ExpiredPartitions {
+        @Setup(Level.Iteration)
+        public void prepare(SensorDataPartitionBenchmark bench) {
+            bench.copyFlatToSensorData();
+            bench.partitionManager(0).initialize();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    public int convert(Unpartitioned table) {
+        partitionManager(0).initialize();
+        return partitionCount();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    public int retentionDelete(FlatCopy table) {
+        return jdbcTemplate.update("DELETE FROM sensor_data_flat_copy WHERE measured_at < ?", expiredBefore);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    public int retentionArchive(ExpiredPartitions table) {
+        // 현재 달 포함 months개월 중 가장 오래된 EXPIRED_MONTHS개월이 보존 기간을 벗어나도록 설정
+        partitionManager(months - 1 - EXPIRED_MONTHS).initialize(); // 파티션 확인 후 maintainPartitions() 실행
+        return partitionCount();
+    }
+
+    // === 준비 ===
+
+    private SensorDataPartitionManager partitionManager(int retentionMonths) {
+        return new SensorDataPartitionManager(jdbcTemplate, dataSource, uniqueKeyMigration,
+                true, retentionMonths, SensorDataPartitionManager.RetentionPolicy.ARCHIVE, 3, Long.MAX_VALUE);
+    }
+
+    /**
+     * sensor_data_flat에 rows행 채움 (이미 같은 행 수면 재사용)
+     */
+    private void seedFlatTable() {
+        Integer existing = jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM information_schema.TABLES
+                WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'sensor_data_flat'
+                """, Integer.class);
+        if (existing != null && existing > 0
+                && jdbcTemplate.queryForObject("SELECT COUNT(*) FROM sensor_data_flat", Long.class) == rows) {
+            return;
+        }
+
+        jdbcTemplate.execute("DROP TABLE IF EXISTS sensor_data_flat");
+        jdbcTemplate.execute(CREATE_TABLE.formatted("sensor_data_flat"));
+        LocalDateTime start = firstMonth.atDay(1).atStartOfDay();
+        long spanSeconds = Duration.between(start, LocalDateTime.now()).getSeconds();
+        long stepSeconds = Math.max(1, spanSeconds * devices / rows);
+        SensorBenchmarkFixtures.seedSensorData(jdbcTemplate, "sensor_data_flat", rows,
+                row -> row % devices + 1, row -> start.plusSeconds((row / devices) * stepSeconds));
+    }
+
+    /**
+     * sensor_data를 파티션 없는 flat 복사본으로 다시 만듦 (아카이브 테이블도 삭제)
+     */
+    private void copyFlatToSensorData() {
+        for (String table : jdbcTemplate.queryForList("""
+                SELECT TABLE_NAME FROM information_schema.TABLES
+                WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME LIKE 'sensor\\_data\\_archive\\_%'
+                """, String.class)) {
+            jdbcTemplate.execute("DROP TABLE " + table);
+        }
+        jdbcTemplate.execute("DROP TABLE IF EXISTS sensor_data");
+        jdbcTemplate.execute("CREATE TABLE sensor_data LIKE sensor_data_flat");
+        jdbcTemplate.execute("INSERT INTO sensor_data SELECT * FROM sensor_data_flat");
+    }
+
+    private int partitionCount() {
+        return jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM information_schema.PARTITIONS
+                WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'sensor_data' AND PARTITION_NAME IS NOT NULL
+                """, Integer.class);
+    }
+}
@@ -0,0 +1,168 @@
+package kr.u_cube.www.WaterPollution.service.sensor;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import kr.u_cube.www.WaterPollution.WaterPollutionApplication;
+import kr.u_cube.www.WaterPollution.bench.CountingOutputStream;
+import kr.u_cube.www.WaterPollution.bench.SensorBenchmarkFixtures;
+
+/**
+ * 다운로드(내보내기) 방식별 생성 시간 (./gradlew jmh -Pjmh.includes=SensorExportBenchmark)
+ * - H2(MySQL 호환 모드)로 애플리케이션을 띄우고 디바이스 x 측정값을 채운 뒤 같은 기간을 각 방식으로 내보냄 (ms/op = 내보내기 1회)
+ * - 출력은 바이트 수만 세고 버림 (디스크/네트워크 제외한 생성 비용만 측정)
+ * - gc 프로파일러의 gc.alloc.rate.norm = 내보내기 1회의 할당 바이트 (XSSF와 SXSSF의 메모리 차이 확인)
+ * - 병렬 내보내기는 parallelism 값별로 따로 측정 (예: -Pjmh.params=parallelism=1,8, 코어 수에 따른 확장성은 JVM 옵션 -XX:ActiveProcessorCount=N 으로 다시 실행)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+public class SensorExportBenchmark {
+
+    private static final LocalDateTime START = SensorBenchmarkFixtures.START;
+
+    @Param("50000")
+    private int rows;
+
+    @Param("50")
+    private int devices;
+
+    private LocalDateTime end;
+    private Path walDir;
+    private ConfigurableApplicationContext context;
+    private SensorDownloadService sensorDownloadService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        walDir = Files.createTempDirectory("export-bench-wal");
+        // 명령행 인자로 넘김 (builder.properties()는 기본값이라 application.yml의 MySQL 설정에 덮임)
+        context = new SpringApplicationBuilder(WaterPollutionApplication.class).run(args(
+                "spring.datasource.url=jdbc:h2:mem:export-bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                "spring.datasource.driver-class-name=org.h2.Driver",
+                "spring.datasource.username=sa",
+                "spring.datasource.password=",
+                "spring.jpa.hibernate.ddl-auto=create-drop",
+                "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "server.port=0",
+                "MAIL_HOST=localhost",
+                "MAIL_PORT=2525",
+                "MAIL_USERNAME=export-bench",
+                "MAIL_PASSWORD=export-bench",
+                "MQTT_BROKER=tcp://localhost:1883",
+                "MQTT_TOPIC=bench/sensor",
+                "AI_SERVER_URL=http://localhost:9",
+                "mqtt.enabled=false",
+                "rollup.enabled=false",
+                "download.cache.enabled=false",
+                "download.parallel-slice-rows=5000",
+                "ingest.wal.dir=" + walDir,
+                "logging.level.kr.u_cube.www.WaterPollution=WARN"));
+        sensorDownloadService = context.getBean(SensorDownloadService.class);
+        seed(context.getBean(JdbcTemplate.class));
+        end = START.plusMinutes(rows / devices + 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        SensorBenchmarkFixtures.deleteRecursively(walDir);
+    }
+
+    private void seed(JdbcTemplate jdbcTemplate) {
+        for (int d = 0; d < devices; d++) {
+            jdbcTemplate.update("""
+                    INSERT INTO sensor_info (device_id, ptno, name, type, lat, lon, location)
+                    VALUES (?, ?, ?, '하천', ?, ?, ?)
+                    """,
+                    "BENCH-%03d".formatted(d), "P%06d".formatted(d), "한강-측정소 %d".formatted(d),
+                    37.5 + d * 0.001, 127.0 + d * 0.001, "서울특별시 테스트구 측정로 %d, \"수변\"".formatted(d));
+        }
+        List<Long> sensorIds = jdbcTemplate.queryForList("SELECT id FROM sensor_info ORDER BY id", Long.class);
+        SensorBenchmarkFixtures.seedSensorData(jdbcTemplate, "sensor_data", rows,
+                row -> sensorIds.get(row % devices), row -> START.plusMinutes(row / devices));
+    }
+
+    /**
+     * 병렬 내보내기의 조각 동시 처리 수
+     */
+    @State(Scope.Benchmark)
+    public static class ParallelExport {
+        @Param({"1", "2", "4", "8"})
+        private int parallelism;
+    }
+
+    @Benchmark
+    public int excelXssf() throws Exception {
+        return sensorDownloadService.generateExcelData(START, end).length;
+    }
+
+    @Benchmark
+    public long excelSxssf() throws Exception {
+        CountingOutputStream out = new CountingOutputStream();
+        return verified(sensorDownloadService.writeExcel(START, end, out), out);
+    }
+
+    @Benchmark
+    public long csv() throws Exception {
+        CountingOutputStream out = new CountingOutputStream();
+        return verified(sensorDownloadService.writeCSV(START, end, out, null, 1), out);
+    }
+
+    @Benchmark
+    public long csvGzip() throws Exception {
+        CountingOutputStream out = new CountingOutputStream();
+        return verified(sensorDownloadService.writeCSVGzip(START, end, null, out, null), out);
+    }
+
+    @Benchmark
+    public long parquet() throws Exception {
+        CountingOutputStream out = new CountingOutputStream();
+        return verified(sensorDownloadService.writeParquet(START, end, null, out, null), out);
+    }
+
+    @Benchmark
+    public long csvParallel(ParallelExport parallel) throws Exception {
+        CountingOutputStream out = new CountingOutputStream();
+        return verified(sensorDownloadService.writeCSV(START, end, out, null, parallel.parallelism), out);
+    }
+
+    @Benchmark
+    public long excelParallel(ParallelExport parallel) throws Exception {
+        CountingOutputStream out = new CountingOutputStream();
+        return verified(sensorDownloadService.writeExcel(START, end, out, null, parallel.parallelism), out);
+    }
+
+    private long verified(long exported, CountingOutputStream out) {
+        if (exported != rows) {
+            throw new IllegalStateException("내보낸 행 수 불일치: " + exported + " != " + rows);
+        }
+        return out.getCount();
+    }
+
+    private static String[] args(String... properties) {
+        return Stream.of(properties).map(property -> "--" + property).toArray(String[]::new);
+    }
+}
@@ -0,0 +1,64 @@
+package kr.u_cube.www.WaterPollution.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import io.netty.channel.ChannelOption;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * AI 서버 전용 WebClient (Reactor Netty, 논블로킹)
+ * - 연결 풀 크기, 시간 제한은 RestTemplate 연결 풀과 같은 ai.http.* 설정 사용
+ * - 응답을 기다리는 동안 스레드를 잡지 않음 → 동시 요청 수가 스레드 수에 묶이지 않음
+ */
+@Configuration
+public class AiWebClientConfig {
+
+    @Value("${ai.server.timeout:10000}")
+    private int aiServerTimeout;
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider aiConnectionProvider(
+            @Value("${ai.http.max-per-route:20}") int maxConnections,
+            @Value("${ai.http.pool-acquire-timeout-ms:1000}") long poolAcquireTimeoutMs,
+            @Value("${ai.http.idle-evict-seconds:30}") long idleEvictSeconds,
+            @Value("${ai.http.time-to-live-seconds:300}") long timeToLiveSeconds) {
+
+        return ConnectionProvider.builder("ai-server")
+                .maxConnections(maxConnections)
+                .pendingAcquireTimeout(Duration.ofMillis(poolAcquireTimeoutMs))
+                .maxIdleTime(Duration.ofSeconds(idleEvictSeconds))
+                .maxLifeTime(Duration.ofSeconds(timeToLiveSeconds))
+                .evictInBackground(Duration.ofSeconds(idleEvictSeconds))
+                .build();
+    }
+
+    @Bean
+    public WebClient aiWebClient(
+            ObjectProvider<WebClient.Builder> builderProvider,
+            ConnectionProvider aiConnectionProvider,
+            @Value("${AI_SERVER_URL}") String aiServerUrl,
+            @Value("${ai.http.connect-timeout-ms:2000}") int connectTimeoutMs,
+            @Value("${ai.http.read-timeout-ms:-1}") long readTimeoutMs) {
+
+        // 응답 대기 시간은 따로 지정하지 않으면 기존 ai.server.timeout 사용
+        long responseTimeoutMs = readTimeoutMs > 0 ? readTimeoutMs : aiServerTimeout;
+
+        HttpClient httpClient = HttpClient.create(aiConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .responseTimeout(Duration.ofMillis(responseTimeoutMs));
+
+        // Boot가 만든 Builder(공용 Jackson 설정)를 쓰고, 없으면 기본 Builder
+        return builderProvider.getIfAvailable(WebClient::builder)
+                .baseUrl(aiServerUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+}
@@ -1,23 +1,99 @@
 package kr.u_cube.www.WaterPollution.config;
 
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * AI 서버 전용 HTTP 클라이언트
+ * - 연결 풀(HTTP/1.1 keep-alive)을 재사용 → 예측마다 새 연결을 맺지 않음 (TIME_WAIT 누적, 연결 수립 시간 제거)
+ * - 연결 / 응답 대기 / 풀에서 연결 얻기 시간 제한을 따로 설정
+ * - 오래 쉬는 연결은 주기적으로 정리, 재사용 전 일정 시간 이상 쉰 연결은 검사
+ */
 @Configuration
 public class RestTemplateConfig {
 
     @Value("${ai.server.timeout:10000}")
     private int aiServerTimeout;
 
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager aiConnectionManager(
+            MeterRegistry meterRegistry,
+            @Value("${ai.http.max-connections:50}") int maxConnections,
+            @Value("${ai.http.max-per-route:20}") int maxPerRoute,
+            @Value("${ai.http.connect-timeout-ms:2000}") long connectTimeoutMs,
+            @Value("${ai.http.read-timeout-ms:-1}") long readTimeoutMs,
+            @Value("${ai.http.validate-after-inactivity-ms:2000}") long validateAfterInactivityMs,
+            @Value("${ai.http.time-to-live-seconds:300}") long timeToLiveSeconds) {
+
+        // 응답 대기 시간은 따로 지정하지 않으면 기존 ai.server.timeout 사용
+        long socketTimeoutMs = readTimeoutMs > 0 ? readTimeoutMs : aiServerTimeout;
+
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setSocketTimeout(Timeout.ofMilliseconds(socketTimeoutMs))
+                        .setValidateAfterInactivity(TimeValue.ofMilliseconds(validateAfterInactivityMs))
+                        .setTimeToLive(TimeValue.ofSeconds(timeToLiveSeconds))
+                        .build())
+                .build();
+
+        Gauge.builder("ai_http_pool_connections", connectionManager, m -> m.getTotalStats().getLeased())
+                .description("AI 서버 연결 풀 연결 수")
+                .tag("state", "leased")
+                .register(meterRegistry);
+
+        Gauge.builder("ai_http_pool_connections", connectionManager, m -> m.getTotalStats().getAvailable())
+                .description("AI 서버 연결 풀 연결 수")
+                .tag("state", "available")
+                .register(meterRegistry);
+
+        Gauge.builder("ai_http_pool_pending", connectionManager, m -> m.getTotalStats().getPending())
+                .description("AI 서버 연결 풀에서 연결을 기다리는 요청 수")
+                .register(meterRegistry);
+
+        Gauge.builder("ai_http_pool_max", connectionManager, m -> m.getTotalStats().getMax())
+                .description("AI 서버 연결 풀 최대 연결 수")
+                .register(meterRegistry);
+
+        return connectionManager;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient aiHttpClient(
+            PoolingHttpClientConnectionManager aiConnectionManager,
+            @Value("${ai.http.pool-acquire-timeout-ms:1000}") long poolAcquireTimeoutMs,
+            @Value("${ai.http.idle-evict-seconds:30}") long idleEvictSeconds) {
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.ofMilliseconds(poolAcquireTimeoutMs))
+                .build();
+
+        return HttpClients.custom()
+                .setConnectionManager(aiConnectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofSeconds(idleEvictSeconds))
+                .build();
+    }
+
     @Bean
-    public RestTemplate restTemplate() {
-        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
-        factory.setConnectTimeout(aiServerTimeout);
-        factory.setReadTimeout(aiServerTimeout);
-        
-        return new RestTemplate(factory);
+    public RestTemplate restTemplate(CloseableHttpClient aiHttpClient) {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(aiHttpClient));
     }
-}
\ No newline at end of file
+}
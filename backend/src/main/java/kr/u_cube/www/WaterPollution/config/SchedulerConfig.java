@@ -1,5 +1,6 @@
 package kr.u_cube.www.WaterPollution.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
@@ -41,6 +42,40 @@ public class SchedulerConfig {
         return executor;
     }
     
+    /**
+     * 다운로드 스트리밍용 스레드 풀 (StreamingResponseBody 본문 생성)
+     * 요청 스레드를 붙잡지 않고, 동시에 도는 대용량 다운로드 수를 제한
+     */
+    @Bean(name = "downloadTaskExecutor")
+    public ThreadPoolTaskExecutor downloadTaskExecutor(
+            @Value("${download.max-concurrent:4}") int maxConcurrent,
+            @Value("${download.queue-capacity:20}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrent);
+        executor.setMaxPoolSize(maxConcurrent);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("Download-");
+        executor.initialize();
+        return executor;
+    }
+    
+    /**
+     * 비동기 내보내기 작업용 스레드 풀 (스풀 파일 생성)
+     * 동시에 생성하는 파일 수를 제한하고, 넘치는 요청은 대기열 크기만큼만 받음
+     */
+    @Bean(name = "exportTaskExecutor")
+    public ThreadPoolTaskExecutor exportTaskExecutor(
+            @Value("${export.job.workers:2}") int workers,
+            @Value("${export.job.queue-capacity:20}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("Export-");
+        executor.initialize();
+        return executor;
+    }
+    
     /**
      * 스케줄러용 스레드 풀 설정 (선택사항)
      */
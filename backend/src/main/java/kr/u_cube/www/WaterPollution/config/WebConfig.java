@@ -1,18 +1,42 @@
 package kr.u_cube.www.WaterPollution.config;
 
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
+
+    private final ThreadPoolTaskExecutor downloadTaskExecutor;
+    private final long asyncTimeoutMs;
+
+    public WebConfig(@Qualifier("downloadTaskExecutor") ThreadPoolTaskExecutor downloadTaskExecutor,
+            @Value("${download.async-timeout-ms:1800000}") long asyncTimeoutMs) {
+        this.downloadTaskExecutor = downloadTaskExecutor;
+        this.asyncTimeoutMs = asyncTimeoutMs;
+    }
+
+    /**
+     * 스트리밍 다운로드 본문은 전용 스레드 풀에서 생성, 대용량 파일을 위해 타임아웃을 길게
+     */
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(downloadTaskExecutor);
+        configurer.setDefaultTimeout(asyncTimeoutMs);
+    }
+
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**")
                 .allowedOrigins("*") // 테스트용 전체 허용
                 .allowedMethods("*")
                 .allowedHeaders("*")
-                .exposedHeaders("Content-Disposition", "Content-Type", "Content-Length", "X-Error-Message") // 🔧 다운로드 관련 헤더 노출
+                .exposedHeaders("Content-Disposition", "Content-Type", "Content-Length", "X-Error-Message",
+                        "Content-Range", "Accept-Ranges", "Location", "ETag") // 🔧 다운로드 관련 헤더 노출
                 .allowCredentials(false); // allowedOrigins("*")와 함께 사용할 때는 false
     }
 }
@@ -20,7 +20,7 @@ public class AiPredictionController {
     private final AiPredictionService aiPredictionService;
     
     /**
-     * AI 서버 상태 확인
+     * AI 서버 상태 확인 (백그라운드 상태 확인 결과 + 회로 차단기 상태)
      */
     @GetMapping("/health")
     public ResponseEntity<Map<String, Object>> checkAiServerHealth() {
@@ -29,6 +29,7 @@ public class AiPredictionController {
         return ResponseEntity.ok(Map.of(
             "status", isHealthy ? "UP" : "DOWN",
             "service", "ai-prediction-server",
+            "circuit", aiPredictionService.getCircuitState().name(),
             "timestamp", LocalDateTime.now(),
             "message", isHealthy ? "AI 서버가 정상 작동 중입니다" : "AI 서버에 연결할 수 없습니다"
         ));
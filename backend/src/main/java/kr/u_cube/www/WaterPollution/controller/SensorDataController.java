@@ -4,9 +4,15 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 import kr.u_cube.www.WaterPollution.dto.HistoryDataDto;
+import kr.u_cube.www.WaterPollution.dto.HistoryRollupDto;
 import kr.u_cube.www.WaterPollution.dto.LatestSensorDto;
+import kr.u_cube.www.WaterPollution.dto.sensor.ChartSeriesDto;
 import kr.u_cube.www.WaterPollution.dto.sensor.SensorInfoDto;
+import kr.u_cube.www.WaterPollution.service.sensor.HistoryResolution;
+import kr.u_cube.www.WaterPollution.service.sensor.SensorChartService;
 import kr.u_cube.www.WaterPollution.service.sensor.SensorDataService;
+import kr.u_cube.www.WaterPollution.service.sensor.SensorParameter;
+import kr.u_cube.www.WaterPollution.service.sensor.SensorRollupService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -21,6 +27,8 @@ import org.springframework.web.bind.annotation.*;
 public class SensorDataController {
 
     private final SensorDataService sensorDataService;
+    private final SensorRollupService sensorRollupService;
+    private final SensorChartService sensorChartService;
 
     @GetMapping("/latest/all")
     public ResponseEntity<List<SensorInfoDto>> getLatestDataPerDevice() {
@@ -40,11 +48,62 @@ public class SensorDataController {
     @GetMapping("/history")
     public ResponseEntity<List<HistoryDataDto>> getHistory(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) Integer maxPoints) {
 
-        log.info("history query startDate={}, endDate={}", startDate, endDate); // 파라미터 확인
-        List<HistoryDataDto> result = sensorDataService.getHistory(startDate, endDate);
-        return ResponseEntity.ok(result);
+        log.info("history query startDate={}, endDate={}, maxPoints={}", startDate, endDate, maxPoints); // 파라미터 확인
+
+        // maxPoints가 있으면 디바이스당 포인트 수가 그 안에 들어오는 해상도로 조회 (없으면 원본)
+        HistoryResolution resolution = maxPoints != null
+                ? sensorRollupService.chooseResolution(startDate, endDate, maxPoints)
+                : HistoryResolution.RAW;
+
+        List<HistoryDataDto> result = resolution == HistoryResolution.RAW
+                ? sensorDataService.getHistory(startDate, endDate)
+                : sensorRollupService.getHistory(startDate, endDate, resolution);
+        return ResponseEntity.ok()
+                .header("X-History-Resolution", resolution.name())
+                .body(result);
+    }
+
+    /**
+     * 집계 이력 (버킷별 항목 min/max/avg/count)
+     */
+    @GetMapping("/history/rollup")
+    public ResponseEntity<List<HistoryRollupDto>> getHistoryRollup(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(defaultValue = "HOUR") HistoryResolution resolution,
+            @RequestParam(required = false) String deviceId) {
+
+        if (resolution == HistoryResolution.RAW) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(sensorRollupService.getRollups(startDate, endDate, resolution, deviceId));
+    }
+
+    /**
+     * 차트용 시계열 (디바이스 x 항목마다 LTTB로 최대 maxPoints개)
+     * - parameter를 생략하면 전체 항목
+     */
+    @GetMapping("/chart")
+    public ResponseEntity<List<ChartSeriesDto>> getChartSeries(
+            @RequestParam List<String> deviceId,
+            @RequestParam(required = false) List<SensorParameter> parameter,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(defaultValue = "500") int maxPoints) {
+
+        if (maxPoints < 3) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<SensorParameter> parameters = parameter != null && !parameter.isEmpty()
+                ? parameter
+                : List.of(SensorParameter.values());
+
+        log.info("chart query deviceId={}, parameter={}, startDate={}, endDate={}, maxPoints={}",
+                deviceId, parameters, startDate, endDate, maxPoints);
+        return ResponseEntity.ok(sensorChartService.getSeries(deviceId, parameters, startDate, endDate, maxPoints));
     }
 
 }
@@ -1,15 +1,23 @@
 package kr.u_cube.www.WaterPollution.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Optional;
 
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import kr.u_cube.www.WaterPollution.service.sensor.ExportFormat;
 import kr.u_cube.www.WaterPollution.service.sensor.SensorDownloadService;
+import kr.u_cube.www.WaterPollution.service.sensor.SensorExportCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -17,85 +25,180 @@ import lombok.extern.slf4j.Slf4j;
 @RequestMapping("/api/sensor/download")
 @RequiredArgsConstructor
 @Slf4j
-@CrossOrigin(origins = "*", exposedHeaders = {"Content-Disposition", "Content-Type", "Content-Length"})
+@CrossOrigin(origins = "*", exposedHeaders = {"Content-Disposition", "Content-Type", "Content-Length", "ETag"})
 public class SensorDownloadController {
 
     private final SensorDownloadService sensorDownloadService;
+    private final SensorExportCache sensorExportCache;
 
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
 
     /**
-     * CSV 다운로드
+     * CSV 다운로드 (스트리밍 - 행을 읽는 대로 응답에 씀)
+     * - compression=gzip이면 .csv.gz로 압축하면서 전송
+     * - 지난 기간은 디스크 캐시에서 바로 제공 (ETag, If-None-Match → 304)
      */
     @GetMapping("/csv")
-    public ResponseEntity<byte[]> downloadCSV(
+    public ResponseEntity<StreamingResponseBody> downloadCSV(
             @RequestParam String startDate,
-            @RequestParam String endDate) {
+            @RequestParam String endDate,
+            @RequestParam(required = false) String deviceId,
+            @RequestParam(defaultValue = "none") String compression,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
 
+        ExportFormat format = "gzip".equalsIgnoreCase(compression) ? ExportFormat.CSV_GZIP : ExportFormat.CSV;
+        return download(format, startDate, endDate, deviceId, ifNoneMatch);
+    }
+
+    /**
+     * Parquet 다운로드 - 분석용 컬럼 형식 (pandas, DuckDB, Spark에서 바로 읽음)
+     */
+    @GetMapping("/parquet")
+    public ResponseEntity<StreamingResponseBody> downloadParquet(
+            @RequestParam String startDate,
+            @RequestParam String endDate,
+            @RequestParam(required = false) String deviceId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        return download(ExportFormat.PARQUET, startDate, endDate, deviceId, ifNoneMatch);
+    }
+
+    /**
+     * Excel 다운로드 (SXSSF 스트리밍)
+     * - 지난 기간은 디스크 캐시에서 바로 제공 (ETag, If-None-Match → 304)
+     */
+    @GetMapping("/excel")
+    public ResponseEntity<StreamingResponseBody> downloadExcel(
+            @RequestParam String startDate,
+            @RequestParam String endDate,
+            @RequestParam(required = false) String deviceId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        return download(ExportFormat.EXCEL, startDate, endDate, deviceId, ifNoneMatch);
+    }
+
+    private ResponseEntity<StreamingResponseBody> download(ExportFormat format, String startDate, String endDate,
+            String deviceId, String ifNoneMatch) {
+
+        String label = switch (format) {
+            case CSV -> "CSV";
+            case CSV_GZIP -> "CSV(gzip)";
+            case PARQUET -> "Parquet";
+            case EXCEL -> "Excel";
+        };
         try {
             LocalDateTime start = LocalDateTime.parse(startDate, FORMATTER);
             LocalDateTime end = LocalDateTime.parse(endDate, FORMATTER);
+            String device = deviceId != null && !deviceId.isBlank() ? deviceId : null;
+
+            log.info("📥 {} 다운로드 요청: {} ~ {}, device={}", label, start, end, device != null ? device : "전체");
+
+            String fileName = sensorDownloadService.generateFileName(format, start, end);
+            boolean cacheable = sensorExportCache.isCacheable(end);
+            String cacheKey = sensorExportCache.key(format, start, end, device);
+
+            if (cacheable) {
+                Optional<ResponseEntity<StreamingResponseBody>> cached =
+                        serveCached(cacheKey, format, fileName, ifNoneMatch);
+                if (cached.isPresent()) {
+                    return cached.get();
+                }
+            }
+
+            if (!sensorDownloadService.hasData(start, end, device)) {
+                throw new IllegalStateException("지정된 기간에 데이터가 없습니다.");
+            }
+
+            HttpHeaders headers = createDownloadHeaders(format.getContentType(), fileName);
+            if (cacheable) {
+                applyRevalidateHeaders(headers);
+            }
+
+            // 응답 헤더는 바로 보내고 본문은 MVC 비동기 스레드에서 생성 (헤더 전송 후 실패하면 연결이 끊김)
+            // 캐시 대상 기간이면 보내는 내용을 캐시 파일에도 기록
+            StreamingResponseBody body = out -> {
+                try {
+                    if (cacheable) {
+                        try (SensorExportCache.PendingEntry pending =
+                                sensorExportCache.begin(cacheKey, format, start, end, device)) {
+                            writeExport(format, start, end, device, pending.tee(out));
+                            pending.commit();
+                        }
+                    } else {
+                        writeExport(format, start, end, device, out);
+                    }
+                    log.info("✅ {} 다운로드 성공: {}", label, fileName);
+                } catch (Exception e) {
+                    log.error("❌ {} 다운로드 중 실패: {}", label, fileName, e);
+                    throw e;
+                }
+            };
 
-            log.info("📥 CSV 다운로드 요청: {} ~ {}", start, end);
-
-            byte[] csvBytes = sensorDownloadService.generateCSVData(start, end);
-            String fileName = sensorDownloadService.generateFileName("csv", start, end);
-            HttpHeaders headers = createDownloadHeaders("text/csv; charset=UTF-8", fileName);
-
-            log.info("✅ CSV 다운로드 성공: {} ({} bytes)", fileName, csvBytes.length);
             return ResponseEntity.ok()
                     .headers(headers)
-                    .body(csvBytes);
+                    .body(body);
 
         } catch (IllegalStateException e) {
-            log.warn("⚠️ CSV 다운로드 - 데이터 없음: {}", e.getMessage());
+            log.warn("⚠️ {} 다운로드 - 데이터 없음: {}", label, e.getMessage());
             return ResponseEntity.noContent()
                     .header("X-Error-Message", e.getMessage())
                     .build();
 
         } catch (Exception e) {
-            log.error("❌ CSV 다운로드 실패", e);
+            log.error("❌ {} 다운로드 실패", label, e);
+            byte[] message = String.valueOf(e.getMessage()).getBytes();
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .header("X-Error-Message", "요청 파라미터 확인 필요: " + e.getMessage())
-                    .body(e.getMessage().getBytes());
+                    .body(out -> out.write(message));
         }
     }
 
     /**
-     * Excel 다운로드
+     * 캐시된 파일 응답 (없으면 empty → 새로 생성)
      */
-    @GetMapping("/excel")
-    public ResponseEntity<byte[]> downloadExcel(
-            @RequestParam String startDate,
-            @RequestParam String endDate) {
+    private Optional<ResponseEntity<StreamingResponseBody>> serveCached(String cacheKey, ExportFormat format,
+            String fileName, String ifNoneMatch) throws IOException {
 
-        try {
-            LocalDateTime start = LocalDateTime.parse(startDate, FORMATTER);
-            LocalDateTime end = LocalDateTime.parse(endDate, FORMATTER);
-
-            log.info("📥 Excel 다운로드 요청: {} ~ {}", start, end);
+        SensorExportCache.Entry entry = sensorExportCache.get(cacheKey).orElse(null);
+        if (entry == null) {
+            return Optional.empty();
+        }
 
-            byte[] excelBytes = sensorDownloadService.generateExcelData(start, end);
-            String fileName = sensorDownloadService.generateFileName("excel", start, end);
-            HttpHeaders headers = createDownloadHeaders(
-                    "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", fileName);
+        if (entry.matches(ifNoneMatch)) {
+            log.info("📦 다운로드 캐시 - 변경 없음 (304): {}", fileName);
+            HttpHeaders headers = new HttpHeaders();
+            applyRevalidateHeaders(headers);
+            headers.setETag(entry.etag());
+            return Optional.of(ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(headers).build());
+        }
 
-            log.info("✅ Excel 다운로드 성공: {} ({} bytes)", fileName, excelBytes.length);
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(excelBytes);
+        // 응답 전에 파일을 열어 둠 (전송 중 축출되어도 끝까지 읽힘)
+        InputStream input = sensorExportCache.open(entry).orElse(null);
+        if (input == null) {
+            return Optional.empty();
+        }
 
-        } catch (IllegalStateException e) {
-            log.warn("⚠️ Excel 다운로드 - 데이터 없음: {}", e.getMessage());
-            return ResponseEntity.noContent()
-                    .header("X-Error-Message", e.getMessage())
-                    .build();
+        HttpHeaders headers = createDownloadHeaders(format.getContentType(), fileName);
+        applyRevalidateHeaders(headers);
+        headers.setETag(entry.etag());
+        headers.setContentLength(entry.sizeBytes());
+
+        log.info("📦 다운로드 캐시 적중: {} ({} bytes)", fileName, entry.sizeBytes());
+        StreamingResponseBody body = out -> {
+            try (input) {
+                input.transferTo(out);
+            }
+        };
+        return Optional.of(ResponseEntity.ok().headers(headers).body(body));
+    }
 
-        } catch (Exception e) {
-            log.error("❌ Excel 다운로드 실패", e);
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .header("X-Error-Message", "요청 파라미터 확인 필요: " + e.getMessage())
-                    .body(e.getMessage().getBytes());
+    private void writeExport(ExportFormat format, LocalDateTime start, LocalDateTime end, String deviceId,
+            OutputStream out) throws IOException {
+        switch (format) {
+            case CSV -> sensorDownloadService.writeCSV(start, end, deviceId, out);
+            case CSV_GZIP -> sensorDownloadService.writeCSVGzip(start, end, deviceId, out, null);
+            case PARQUET -> sensorDownloadService.writeParquet(start, end, deviceId, out, null);
+            case EXCEL -> sensorDownloadService.writeExcel(start, end, deviceId, out);
         }
     }
 
@@ -103,10 +206,19 @@ public class SensorDownloadController {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.parseMediaType(contentType));
         headers.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
-        headers.set(HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS, "Content-Disposition, Content-Type, Content-Length");
+        headers.set(HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS, "Content-Disposition, Content-Type, Content-Length, ETag");
         headers.set(HttpHeaders.CACHE_CONTROL, "no-cache, no-store, must-revalidate");
         headers.set(HttpHeaders.PRAGMA, "no-cache");
         headers.set(HttpHeaders.EXPIRES, "0");
         return headers;
     }
+
+    /**
+     * 바뀌지 않는 지난 기간 - 브라우저가 보관하되 매번 ETag로 재확인
+     */
+    private void applyRevalidateHeaders(HttpHeaders headers) {
+        headers.setCacheControl(CacheControl.noCache().cachePrivate());
+        headers.remove(HttpHeaders.PRAGMA);
+        headers.remove(HttpHeaders.EXPIRES);
+    }
 }
@@ -0,0 +1,131 @@
+package kr.u_cube.www.WaterPollution.controller;
+
+import java.net.URI;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import jakarta.servlet.http.HttpServletRequest;
+import kr.u_cube.www.WaterPollution.dto.ExportJobDto;
+import kr.u_cube.www.WaterPollution.service.sensor.ExportFormat;
+import kr.u_cube.www.WaterPollution.service.sensor.ExportJob;
+import kr.u_cube.www.WaterPollution.service.sensor.SensorDownloadService;
+import kr.u_cube.www.WaterPollution.service.sensor.SensorExportJobService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 비동기 내보내기 작업 API
+ * - POST   /api/sensor/export/jobs            작업 등록 (202 + 작업 ID)
+ * - GET    /api/sensor/export/jobs/{id}       진행 상태 (쓴 행 수, 진행률)
+ * - GET    /api/sensor/export/jobs/{id}/file  완성된 파일 다운로드 (Content-Length, Range 지원)
+ * - DELETE /api/sensor/export/jobs/{id}       취소 또는 파일 삭제
+ */
+@RestController
+@RequestMapping("/api/sensor/export/jobs")
+@RequiredArgsConstructor
+@Slf4j
+public class SensorExportJobController {
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    private final SensorExportJobService sensorExportJobService;
+    private final SensorDownloadService sensorDownloadService;
+
+    @PostMapping
+    public ResponseEntity<ExportJobDto> submit(
+            @RequestParam String startDate,
+            @RequestParam String endDate,
+            @RequestParam(defaultValue = "CSV") ExportFormat format,
+            @RequestHeader(value = "X-User-Id", required = false) String userId,
+            HttpServletRequest request) {
+
+        LocalDateTime start;
+        LocalDateTime end;
+        try {
+            start = LocalDateTime.parse(startDate, FORMATTER);
+            end = LocalDateTime.parse(endDate, FORMATTER);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .header("X-Error-Message", "요청 파라미터 확인 필요: " + e.getMessage())
+                    .build();
+        }
+
+        if (!sensorDownloadService.hasData(start, end)) {
+            return ResponseEntity.noContent()
+                    .header("X-Error-Message", "지정된 기간에 데이터가 없습니다.")
+                    .build();
+        }
+
+        // 로그인 기능이 없으므로 X-User-Id 헤더, 없으면 클라이언트 IP 기준으로 제한
+        String owner = userId != null && !userId.isBlank() ? userId : request.getRemoteAddr();
+
+        try {
+            ExportJob job = sensorExportJobService.submit(owner, format, start, end);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/sensor/export/jobs/" + job.getId()))
+                    .body(ExportJobDto.from(job));
+
+        } catch (IllegalStateException e) {
+            log.warn("⚠️ 내보내기 작업 제한 초과: owner={}", owner);
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header("X-Error-Message", e.getMessage())
+                    .build();
+
+        } catch (RejectedExecutionException e) {
+            log.warn("⚠️ 내보내기 대기열 포화: owner={}", owner);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header("X-Error-Message", e.getMessage())
+                    .build();
+        }
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<ExportJobDto> getStatus(@PathVariable String jobId) {
+        return sensorExportJobService.getJob(jobId)
+                .map(job -> ResponseEntity.ok(ExportJobDto.from(job)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * 완성된 파일 (Range 헤더가 있으면 206 부분 응답 - 이어받기)
+     */
+    @GetMapping("/{jobId}/file")
+    public ResponseEntity<Resource> download(@PathVariable String jobId) {
+        ExportJob job = sensorExportJobService.getJob(jobId).orElse(null);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (job.getStatus() != ExportJob.Status.COMPLETED) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .header("X-Error-Message", "작업이 완료되지 않았습니다: " + job.getStatus())
+                    .build();
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(job.getFormat().getContentType()));
+        headers.setContentDisposition(ContentDisposition.attachment().filename(job.getFileName()).build());
+
+        log.info("📤 내보내기 파일 다운로드: id={}, {} ({} bytes)", jobId, job.getFileName(), job.getSizeBytes());
+        // Content-Length, Accept-Ranges, 206/Content-Range는 Resource 변환기가 설정
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(new FileSystemResource(job.getFile()));
+    }
+
+    @DeleteMapping("/{jobId}")
+    public ResponseEntity<Void> cancel(@PathVariable String jobId) {
+        return sensorExportJobService.cancel(jobId)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+}
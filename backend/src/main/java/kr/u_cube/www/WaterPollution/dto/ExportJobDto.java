@@ -0,0 +1,46 @@
+package kr.u_cube.www.WaterPollution.dto;
+
+import java.time.LocalDateTime;
+
+import kr.u_cube.www.WaterPollution.service.sensor.ExportJob;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+/* 
+ * 내보내기 작업 상태 조회 시 사용
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExportJobDto {
+    private String jobId;
+    private String status;
+    private String format;
+    private LocalDateTime startDate;
+    private LocalDateTime endDate;
+    private long rowsWritten;
+    private long totalRows;
+    private int percent;
+    private String fileName;
+    private long sizeBytes;
+    private LocalDateTime createdAt;
+    private LocalDateTime finishedAt;
+    private String error;
+
+    public static ExportJobDto from(ExportJob job) {
+        return new ExportJobDto(
+                job.getId(),
+                job.getStatus().name(),
+                job.getFormat().name(),
+                job.getStartDate(),
+                job.getEndDate(),
+                job.getRowsWritten(),
+                job.getTotalRows(),
+                job.getPercent(),
+                job.getFileName(),
+                job.getSizeBytes(),
+                job.getCreatedAt(),
+                job.getFinishedAt(),
+                job.getError());
+    }
+}
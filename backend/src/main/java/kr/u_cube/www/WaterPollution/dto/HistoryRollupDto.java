@@ -0,0 +1,26 @@
+package kr.u_cube.www.WaterPollution.dto;
+
+import java.time.LocalDateTime;
+
+import kr.u_cube.www.WaterPollution.service.sensor.HistoryResolution;
+import kr.u_cube.www.WaterPollution.service.sensor.SensorParameter;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+/* 
+ * 집계 이력 조회 시 사용 (버킷별 항목 min/max/avg/count)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistoryRollupDto {
+    private String deviceId;
+    private String name;
+    private HistoryResolution resolution;
+    private LocalDateTime bucketStart;
+    private SensorParameter parameter;
+    private double min;
+    private double max;
+    private double avg;
+    private long count;
+}
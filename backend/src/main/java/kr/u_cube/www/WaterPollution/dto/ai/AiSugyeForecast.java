@@ -0,0 +1,38 @@
+package kr.u_cube.www.WaterPollution.dto.ai;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * AI 서버 응답의 수계 하나에 대한 결과 (WebClient에서 바로 디코딩)
+ * - 정상: 날짜별 WQI 예측 배열 → forecasts
+ * - 오류: 에러 메시지 문자열 → errorMessage
+ */
+public record AiSugyeForecast(List<WqiForecast> forecasts, String errorMessage) {
+
+    /**
+     * 날짜별 WQI 예측 한 건
+     */
+    public record WqiForecast(
+            String ds,                                  // 예측 날짜
+            Double yhat,                                // 예측된 WQI 값
+            @JsonProperty("WQI_등급") String wqiGrade   // WQI 등급
+    ) {
+    }
+
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public static AiSugyeForecast of(List<WqiForecast> forecasts) {
+        return new AiSugyeForecast(forecasts, null);
+    }
+
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public static AiSugyeForecast error(String errorMessage) {
+        return new AiSugyeForecast(null, errorMessage);
+    }
+
+    public boolean isError() {
+        return forecasts == null;
+    }
+}
@@ -0,0 +1,21 @@
+package kr.u_cube.www.WaterPollution.dto.sensor;
+
+import kr.u_cube.www.WaterPollution.service.sensor.SensorParameter;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 차트용 시계열 (디바이스 x 측정 항목, LTTB 다운샘플링 결과)
+ * - timestamps: 측정 시각 (epoch millis, 서버 시간대 기준), values: 측정값
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChartSeriesDto {
+    private String deviceId;
+    private SensorParameter parameter;
+    private int rawCount; // 다운샘플링 전 점 수
+    private long[] timestamps;
+    private double[] values;
+}
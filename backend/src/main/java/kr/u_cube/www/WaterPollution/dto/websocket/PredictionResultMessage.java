@@ -25,6 +25,9 @@ public class PredictionResultMessage {
     
     // 센서 측정값
     private SensorValues sensorValues;
+
+    // 측정 시각 (어느 측정값에 대한 예측인지 구분)
+    private LocalDateTime measuredAt;
     
     // AI 예측 결과
     private PredictionData predictionData;
@@ -44,8 +44,9 @@ public class SensorAlert {
     private String predictionResult;  // AI 예측 결과 원본
     
     // 센서 데이터 참조 (선택사항)
+    // sensor_data는 파티션 테이블이라 FK 없이 참조 (보존 기간이 지나 정리된 데이터일 수 있음)
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "sensor_data_id")
+    @JoinColumn(name = "sensor_data_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private SensorData sensorData;
     
     // 편의 메소드: deviceId 접근
@@ -2,13 +2,18 @@ package kr.u_cube.www.WaterPollution.entity;
 
 import java.time.LocalDateTime;
 
+import jakarta.persistence.Column;
+import jakarta.persistence.ConstraintMode;
 import jakarta.persistence.Entity;
+import jakarta.persistence.ForeignKey;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -16,7 +21,13 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Entity
-@Table(name = "sensor_data")
+@Table(name = "sensor_data", uniqueConstraints = {
+        // 같은 디바이스의 같은 측정 시각은 한 번만 저장 (재전송 중복 방지) - 디바이스별 기간 조회 인덱스 겸용
+        @UniqueConstraint(name = "uk_sensor_data_device_measured", columnNames = {"device_id", "measured_at"})
+}, indexes = {
+        // 전체 디바이스 기간 조회 (history, 다운로드)
+        @Index(name = "idx_sensor_data_measured_at", columnList = "measured_at")
+})
 @Getter 
 @Setter 
 @NoArgsConstructor 
@@ -28,8 +39,9 @@ public class SensorData {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // 월 단위 파티션 테이블은 FK를 가질 수 없음 (SensorDataPartitionManager)
     @ManyToOne
-    @JoinColumn(name = "device_id")
+    @JoinColumn(name = "device_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private SensorInfo sensorInfo;
 
     private Double ph;           // pH
@@ -44,7 +56,8 @@ public class SensorData {
     private Double chlorophyllA; // Chlorophyll-a (엽록소-a)
     private Double no3n;         // NO3-N (질산성 질소)
 
-    private LocalDateTime measuredAt; // 측정 시각
+    @Column(nullable = false)
+    private LocalDateTime measuredAt; // 측정 시각 (파티션 키)
     private LocalDateTime createdAt;  // 저장 시각
 
     public String getDeviceId() {
@@ -0,0 +1,52 @@
+package kr.u_cube.www.WaterPollution.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+import kr.u_cube.www.WaterPollution.service.sensor.HistoryResolution;
+import kr.u_cube.www.WaterPollution.service.sensor.SensorParameter;
+import lombok.*;
+
+/**
+ * 센서 데이터 집계 (디바이스 x 해상도 x 버킷 x 측정 항목)
+ * - MINUTE는 sensor_data, HOUR는 MINUTE, DAY는 HOUR 집계에서 다시 계산 (SensorRollupService)
+ * - 평균 = sumValue / sampleCount
+ */
+@Entity
+@Table(name = "sensor_data_rollup", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_sensor_data_rollup", columnNames = {"device_id", "resolution", "bucket_start", "parameter"})
+}, indexes = {
+        // 전체 디바이스 기간 조회
+        @Index(name = "idx_sensor_data_rollup_bucket", columnList = "resolution, bucket_start")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SensorDataRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "device_id", nullable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    private SensorInfo sensorInfo;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 10, nullable = false)
+    private HistoryResolution resolution;
+
+    @Column(nullable = false)
+    private LocalDateTime bucketStart; // 버킷 시작 시각
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20, nullable = false)
+    private SensorParameter parameter;
+
+    private double minValue;
+    private double maxValue;
+    private double sumValue;
+    private long sampleCount;
+}
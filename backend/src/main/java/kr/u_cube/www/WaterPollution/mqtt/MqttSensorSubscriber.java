@@ -1,17 +1,33 @@
 package kr.u_cube.www.WaterPollution.mqtt;
 
+import java.nio.charset.StandardCharsets;
+
+import org.eclipse.paho.client.mqttv3.IMqttDeliveryToken;
+import org.eclipse.paho.client.mqttv3.MqttCallbackExtended;
 import org.eclipse.paho.client.mqttv3.MqttClient;
-import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.eclipse.paho.client.mqttv3.persist.MqttDefaultFilePersistence;
 import org.springframework.stereotype.Component;
 import org.springframework.beans.factory.annotation.Value;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 
 @Component
 @RequiredArgsConstructor
-public class MqttSensorSubscriber {
-    private final SensorMessageHandler messageHandler;
+@Slf4j
+public class MqttSensorSubscriber implements MqttCallbackExtended {
+    // 파싱 실패 로그에 남길 페이로드 앞부분 최대 길이 (byte)
+    private static final int PAYLOAD_LOG_PREFIX_BYTES = 200;
+
+    private final SensorPayloadDecoder payloadDecoder;
+    private final SensorIngestPipeline ingestPipeline;
+    private final SensorIngestLog ingestLog;
+    private final SensorIngestLogReplayer ingestLogReplayer;
 
     @Value("${mqtt.broker}")
     private String brokerUrl;
@@ -19,25 +35,130 @@ public class MqttSensorSubscriber {
     @Value("${mqtt.topic}")
     private String topic;
 
+    // 세션 유지(clean session = false)를 위해 고정된 클라이언트 ID 사용
+    @Value("${mqtt.client-id:water-monitor-backend}")
+    private String clientId;
+
+    @Value("${mqtt.qos:1}")
+    private int qos;
+
+    @Value("${mqtt.persistence-dir:./data/mqtt}")
+    private String persistenceDir;
+
+    // false면 브로커에 연결하지 않음 (부하 테스트 등에서 messageArrived를 직접 호출할 때)
+    @Value("${mqtt.enabled:true}")
+    private boolean enabled;
+
     private MqttClient client;
 
+    // Paho 콜백 스레드 전용 디코딩 버퍼 (파이프라인이 값을 복사해 가므로 매 메시지 재사용)
+    private final SensorReading reading = new SensorReading();
+
     @PostConstruct
     public void subscribe() {
+        // 지난 실행에서 DB에 반영되지 못한 데이터부터 처리
+        ingestLogReplayer.replayOnStartup();
+
+        if (!enabled) {
+            log.info("⏸️ MQTT 비활성화 (mqtt.enabled=false), 브로커 연결 생략");
+            return;
+        }
+
         try {
-            client = new MqttClient(brokerUrl, MqttClient.generateClientId(), new MemoryPersistence());
-            client.connect();
-            System.out.println("✅ MQTT 연결됨: " + brokerUrl);
+            client = new MqttClient(brokerUrl, clientId, new MqttDefaultFilePersistence(persistenceDir));
+            client.setCallback(this);
+            // WAL 기록이 끝난 뒤에 직접 ACK
+            client.setManualAcks(true);
 
-            client.subscribe(topic, (t, msg) -> {
-                String payload = new String(msg.getPayload());
-                System.out.println("📥 MQTT 수신: " + payload);
+            MqttConnectOptions options = new MqttConnectOptions();
+            options.setCleanSession(false);
+            options.setAutomaticReconnect(true);
+            client.connect(options);
+            log.info("✅ MQTT 연결됨: {}", brokerUrl);
+
+            client.subscribe(topic, qos);
+        } catch (Exception e) {
+            log.error("❌ MQTT 연결 실패: {}", brokerUrl, e);
+        }
+    }
+
+    /**
+     * 메시지 수신: WAL 기록 → ACK → 디코딩 후 파이프라인 전달
+     */
+    @Override
+    public void messageArrived(String t, MqttMessage msg) {
+        byte[] bytes = msg.getPayload();
+
+        long offset;
+        try {
+            offset = ingestLog.append(bytes);
+        } catch (Exception e) {
+            // 기록하지 못한 메시지는 ACK 하지 않아 브로커가 다시 보내도록 둔다
+            log.error("❌ WAL 기록 실패, ACK 보류: {} bytes", bytes.length, e);
+            return;
+        }
+        acknowledge(msg);
 
-                messageHandler.handle(payload);
-            });
+        // 콜백 스레드에서는 디코딩까지만 하고 나머지 처리는 파이프라인 워커에 넘긴다
+        try {
+            payloadDecoder.decode(bytes, reading);
+            ingestPipeline.publish(reading, offset);
         } catch (Exception e) {
-            System.err.println("❌ MQTT 연결 실패:");
-            e.printStackTrace();
+            log.warn("❌ MQTT 페이로드 파싱 실패: {} ({} bytes, 앞부분={})", e.toString(), bytes.length, payloadPrefix(bytes));
+            ingestLog.markApplied(offset);
+        }
+    }
+
+    /**
+     * 로그용 페이로드 앞부분 (큰 페이로드나 잘못된 바이트가 로그를 채우지 않도록 잘라서 남김)
+     */
+    private static String payloadPrefix(byte[] bytes) {
+        int length = Math.min(bytes.length, PAYLOAD_LOG_PREFIX_BYTES);
+        String prefix = new String(bytes, 0, length, StandardCharsets.UTF_8);
+        return length < bytes.length ? prefix + "…" : prefix;
+    }
 
+    private void acknowledge(MqttMessage msg) {
+        try {
+            if (client != null && client.isConnected()) {
+                client.messageArrivedComplete(msg.getId(), msg.getQos());
+            }
+        } catch (MqttException e) {
+            log.warn("❌ MQTT ACK 실패: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void connectComplete(boolean reconnect, String serverURI) {
+        if (!reconnect) {
+            return;
+        }
+        try {
+            client.subscribe(topic, qos);
+            log.info("🔄 MQTT 재연결 후 재구독: {}", serverURI);
+        } catch (MqttException e) {
+            log.error("❌ MQTT 재구독 실패: {}", serverURI, e);
+        }
+    }
+
+    @Override
+    public void connectionLost(Throwable cause) {
+        log.warn("⚠️ MQTT 연결 끊김 (자동 재연결 시도): {}", cause.getMessage());
+    }
+
+    @Override
+    public void deliveryComplete(IMqttDeliveryToken token) {
+        // 구독 전용 클라이언트라 발행 완료 이벤트는 사용하지 않음
+    }
+
+    @PreDestroy
+    public void disconnect() {
+        try {
+            if (client != null && client.isConnected()) {
+                client.disconnect();
+            }
+        } catch (MqttException e) {
+            log.warn("❌ MQTT 연결 종료 실패: {}", e.getMessage());
         }
     }
 }
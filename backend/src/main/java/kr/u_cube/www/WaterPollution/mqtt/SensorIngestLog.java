@@ -0,0 +1,411 @@
+package kr.u_cube.www.WaterPollution.mqtt;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * MQTT 수신 데이터 write-ahead log (append-only, memory-mapped 세그먼트)
+ * - 수신한 페이로드를 ACK 전에 로컬 디스크에 먼저 기록
+ * - 오프셋 = 세그먼트 시작 오프셋 + 세그먼트 내 위치 (전체 로그에서 단조 증가)
+ * - 레코드 형식: [int 길이][int CRC32C][payload], 길이 0은 데이터 끝
+ * - DB 저장이 끝난 오프셋은 markApplied로 표시하고, 아직 처리되지 않은 가장 작은 오프셋을 checkpoint로 기록
+ * - checkpoint 아래로 완전히 내려간 세그먼트는 삭제
+ * - 종료 시 마지막 checkpoint는 배치 저장기가 버퍼를 비운 뒤에 기록 (SensorDataBatchWriter가 이 빈에 @DependsOn)
+ */
+@Component
+@Slf4j
+public class SensorIngestLog {
+
+    private static final int HEADER_BYTES = 8;
+    private static final String SEGMENT_SUFFIX = ".wal";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final boolean forceOnAppend;
+
+    // 세그먼트 시작 오프셋 -> 세그먼트
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+
+    // 기록됐지만 아직 DB 반영이 확인되지 않은 오프셋 -> 처리 상태
+    private final ConcurrentSkipListMap<Long, PendingEntry> pending = new ConcurrentSkipListMap<>();
+
+    private final Counter appendedCounter;
+    private final Counter appliedCounter;
+
+    private Segment active;
+    private volatile long checkpoint;
+
+    public SensorIngestLog(MeterRegistry meterRegistry,
+            @Value("${ingest.wal.dir:./data/wal}") String directory,
+            @Value("${ingest.wal.segment-bytes:67108864}") int segmentBytes,
+            @Value("${ingest.wal.force-on-append:false}") boolean forceOnAppend) {
+        this.directory = Paths.get(directory);
+        this.segmentBytes = segmentBytes;
+        this.forceOnAppend = forceOnAppend;
+
+        this.appendedCounter = Counter.builder("sensor_wal_appended_total")
+                .description("WAL에 기록된 MQTT 페이로드 수")
+                .register(meterRegistry);
+
+        this.appliedCounter = Counter.builder("sensor_wal_applied_total")
+                .description("DB 반영이 확인된 WAL 레코드 수")
+                .register(meterRegistry);
+
+        Gauge.builder("sensor_wal_pending", pending, Map::size)
+                .description("DB 반영을 기다리는 WAL 레코드 수")
+                .register(meterRegistry);
+
+        Gauge.builder("sensor_wal_segments", segments, Map::size)
+                .description("디스크에 남아 있는 WAL 세그먼트 수")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 기존 세그먼트와 checkpoint를 읽어 로그 상태 복구
+     */
+    @PostConstruct
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+
+        List<Long> bases = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .forEach(name -> bases.add(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()))));
+        }
+        bases.sort(Long::compare);
+
+        for (Long base : bases) {
+            Segment segment = Segment.open(segmentPath(base), base, segmentBytes);
+            segments.put(base, segment);
+        }
+
+        if (segments.isEmpty()) {
+            active = Segment.open(segmentPath(0L), 0L, segmentBytes);
+            segments.put(0L, active);
+        } else {
+            active = segments.lastEntry().getValue();
+        }
+
+        checkpoint = readCheckpoint();
+        log.info("✅ WAL 열림: dir={}, segments={}, checkpoint={}, end={}",
+                directory, segments.size(), checkpoint, getEndOffset());
+    }
+
+    /**
+     * 페이로드를 로그 끝에 추가하고 오프셋을 반환 (MQTT ACK 전에 호출)
+     */
+    public synchronized long append(byte[] payload) throws IOException {
+        int recordBytes = HEADER_BYTES + payload.length;
+        if (recordBytes > segmentBytes) {
+            throw new IOException("WAL 세그먼트보다 큰 페이로드입니다: " + payload.length + " bytes");
+        }
+        if (active.end + recordBytes > segmentBytes) {
+            roll();
+        }
+
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+
+        int position = active.end;
+        MappedByteBuffer buffer = active.buffer;
+        buffer.putInt(position, payload.length);
+        buffer.putInt(position + 4, (int) crc.getValue());
+        buffer.put(position + HEADER_BYTES, payload);
+        if (position + recordBytes + 4 <= segmentBytes) {
+            buffer.putInt(position + recordBytes, 0); // 다음 레코드 자리를 데이터 끝으로 표시
+        }
+        if (forceOnAppend) {
+            buffer.force(position, recordBytes);
+        }
+
+        long offset = active.base + position;
+        active.end = position + recordBytes;
+        pending.put(offset, new PendingEntry(System.nanoTime()));
+        appendedCounter.increment();
+        return offset;
+    }
+
+    /**
+     * 해당 오프셋의 데이터가 DB에 반영되었음을 표시
+     */
+    public void markApplied(long offset) {
+        if (pending.remove(offset) != null) {
+            appliedCounter.increment();
+        }
+    }
+
+    /**
+     * 오프셋 위치의 레코드 페이로드 조회 (없거나 손상됐으면 null)
+     */
+    public byte[] read(long offset) {
+        Map.Entry<Long, Segment> entry = segments.floorEntry(offset);
+        if (entry == null) {
+            return null;
+        }
+        Segment segment = entry.getValue();
+        return segment.readPayload((int) (offset - segment.base));
+    }
+
+    /**
+     * fromOffset 이후의 모든 레코드를 순서대로 전달 (재시작 시 replay용)
+     * - 전달된 레코드는 다시 처리 대기 상태로 등록된다
+     */
+    public void replayFrom(long fromOffset, RecordConsumer consumer) {
+        Long firstBase = segments.floorKey(fromOffset);
+        ConcurrentNavigableMap<Long, Segment> range = firstBase != null
+                ? segments.tailMap(firstBase, true)
+                : segments;
+
+        for (Segment segment : range.values()) {
+            int position = (int) Math.max(0, fromOffset - segment.base);
+            int end = segment.end;
+            while (position < end) {
+                byte[] payload = segment.readPayload(position);
+                if (payload == null) {
+                    break;
+                }
+                long offset = segment.base + position;
+                pending.putIfAbsent(offset, new PendingEntry(System.nanoTime()));
+                consumer.accept(offset, payload);
+                position += HEADER_BYTES + payload.length;
+            }
+        }
+    }
+
+    /**
+     * 처리 대기 중인 레코드 목록 (오프셋 순)
+     */
+    public ConcurrentNavigableMap<Long, PendingEntry> getPending() {
+        return pending;
+    }
+
+    public long getCheckpoint() {
+        return checkpoint;
+    }
+
+    public synchronized long getEndOffset() {
+        return active.base + active.end;
+    }
+
+    /**
+     * checkpoint 갱신 및 처리 완료된 세그먼트 삭제
+     * - checkpoint = 아직 반영되지 않은 가장 작은 오프셋 (없으면 로그 끝)
+     * - 대기 목록과 로그 끝은 append와 같은 락 안에서 함께 읽음: 따로 읽으면 그 사이 추가된 레코드를
+     *   반영 전에 checkpoint가 넘어가 버려 장애 시 replay되지 않음
+     */
+    @Scheduled(fixedDelayString = "${ingest.wal.checkpoint-interval-ms:5000}")
+    public void checkpoint() {
+        try {
+            long newCheckpoint;
+            synchronized (this) {
+                Map.Entry<Long, PendingEntry> first = pending.firstEntry();
+                newCheckpoint = first != null ? first.getKey() : active.base + active.end;
+            }
+            if (newCheckpoint != checkpoint) {
+                writeCheckpoint(newCheckpoint);
+                checkpoint = newCheckpoint;
+            }
+            deleteAppliedSegments(newCheckpoint);
+        } catch (Exception e) {
+            log.error("❌ WAL checkpoint 갱신 실패", e);
+        }
+    }
+
+    private synchronized void deleteAppliedSegments(long upTo) throws IOException {
+        // 다음 세그먼트의 시작이 checkpoint 이하이면 이전 세그먼트는 전부 반영된 것
+        while (segments.size() > 1) {
+            Map.Entry<Long, Segment> first = segments.firstEntry();
+            Long nextBase = segments.higherKey(first.getKey());
+            if (nextBase == null || nextBase > upTo) {
+                break;
+            }
+            segments.remove(first.getKey());
+            first.getValue().delete();
+            log.info("🧹 WAL 세그먼트 삭제: base={}", first.getKey());
+        }
+    }
+
+    private void roll() throws IOException {
+        active.force();
+        long nextBase = active.base + active.end;
+        Segment next = Segment.open(segmentPath(nextBase), nextBase, segmentBytes);
+        segments.put(nextBase, next);
+        active = next;
+        log.info("📁 WAL 세그먼트 교체: base={}", nextBase);
+    }
+
+    private long readCheckpoint() throws IOException {
+        Path path = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(path)) {
+            return segments.firstKey();
+        }
+        long value = Long.parseLong(Files.readString(path, StandardCharsets.UTF_8).trim());
+        // 삭제된 세그먼트를 가리키지 않도록 보정
+        return Math.max(value, segments.firstKey());
+    }
+
+    private void writeCheckpoint(long value) throws IOException {
+        Path tmp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        Files.writeString(tmp, Long.toString(value), StandardCharsets.UTF_8);
+        Files.move(tmp, directory.resolve(CHECKPOINT_FILE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path segmentPath(long base) {
+        return directory.resolve(String.format("%020d%s", base, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * 마지막 checkpoint 기록 후 세그먼트 닫기
+     * - 배치 저장기가 이 빈에 의존하므로 저장기 종료(버퍼 비우기, markApplied)가 끝난 뒤에 호출됨
+     */
+    @PreDestroy
+    public void close() {
+        checkpoint();
+        synchronized (this) {
+            for (Segment segment : segments.values()) {
+                segment.close();
+            }
+        }
+        log.info("✅ WAL 닫힘: checkpoint={}", checkpoint);
+    }
+
+    /**
+     * replay 시 레코드를 받는 콜백
+     */
+    @FunctionalInterface
+    public interface RecordConsumer {
+        void accept(long offset, byte[] payload);
+    }
+
+    /**
+     * 처리 대기 중인 레코드의 재시도 상태
+     */
+    public static final class PendingEntry {
+        private volatile long lastAttemptNanos;
+        private volatile int attempts;
+
+        PendingEntry(long lastAttemptNanos) {
+            this.lastAttemptNanos = lastAttemptNanos;
+        }
+
+        public long getLastAttemptNanos() {
+            return lastAttemptNanos;
+        }
+
+        public int getAttempts() {
+            return attempts;
+        }
+
+        public void markRetried(long nowNanos) {
+            this.lastAttemptNanos = nowNanos;
+            this.attempts++;
+        }
+    }
+
+    /**
+     * memory-mapped 세그먼트 파일 1개
+     */
+    private static final class Segment {
+        final long base;
+        final Path path;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        volatile int end; // 유효한 데이터의 끝 위치
+
+        private Segment(long base, Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.base = base;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        static Segment open(Path path, long base, int segmentBytes) throws IOException {
+            FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+            Segment segment = new Segment(base, path, channel, buffer);
+            segment.end = segment.recoverEnd();
+            return segment;
+        }
+
+        /**
+         * 마지막으로 온전히 기록된 레코드 뒤까지 스캔 (중간에 끊긴 레코드는 버림)
+         */
+        private int recoverEnd() {
+            int position = 0;
+            while (true) {
+                byte[] payload = readPayload(position);
+                if (payload == null) {
+                    return position;
+                }
+                position += HEADER_BYTES + payload.length;
+            }
+        }
+
+        byte[] readPayload(int position) {
+            int capacity = buffer.capacity();
+            if (position < 0 || position + HEADER_BYTES > capacity) {
+                return null;
+            }
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + HEADER_BYTES + length > capacity) {
+                return null;
+            }
+            int expectedCrc = buffer.getInt(position + 4);
+
+            byte[] payload = new byte[length];
+            buffer.get(position + HEADER_BYTES, payload);
+
+            CRC32C crc = new CRC32C();
+            crc.update(payload);
+            return (int) crc.getValue() == expectedCrc ? payload : null;
+        }
+
+        void force() {
+            buffer.force();
+        }
+
+        void close() {
+            try {
+                buffer.force();
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void delete() throws IOException {
+            channel.close();
+            Files.deleteIfExists(path);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package kr.u_cube.www.WaterPollution.mqtt;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import kr.u_cube.www.WaterPollution.service.sensor.SensorDataBatchWriter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * WAL replay 담당
+ * - 재시작 시 checkpoint 이후의 레코드를 수집 파이프라인으로 다시 흘려보냄
+ * - 운영 중에는 오래도록 DB 반영이 확인되지 않은 레코드(DB 장애, 과부하로 버려진 데이터)를 주기적으로 재처리
+ */
+@Component
+@Slf4j
+public class SensorIngestLogReplayer {
+
+    private final SensorIngestLog ingestLog;
+    private final SensorIngestPipeline ingestPipeline;
+    private final SensorPayloadDecoder payloadDecoder;
+    private final SensorDataBatchWriter sensorDataBatchWriter;
+
+    private final long replayAfterNanos;
+    private final int maxAttempts;
+    private final int maxPerRun;
+
+    private final Counter replayedCounter;
+    private final Counter abandonedCounter;
+    private final Timer startupReplayTimer;
+
+    public SensorIngestLogReplayer(SensorIngestLog ingestLog,
+            SensorIngestPipeline ingestPipeline,
+            SensorPayloadDecoder payloadDecoder,
+            SensorDataBatchWriter sensorDataBatchWriter,
+            MeterRegistry meterRegistry,
+            @Value("${ingest.wal.replay-after-ms:60000}") long replayAfterMs,
+            @Value("${ingest.wal.max-replay-attempts:10}") int maxAttempts,
+            @Value("${ingest.wal.replay-batch:1000}") int maxPerRun) {
+        this.ingestLog = ingestLog;
+        this.ingestPipeline = ingestPipeline;
+        this.payloadDecoder = payloadDecoder;
+        this.sensorDataBatchWriter = sensorDataBatchWriter;
+        this.replayAfterNanos = TimeUnit.MILLISECONDS.toNanos(replayAfterMs);
+        this.maxAttempts = maxAttempts;
+        this.maxPerRun = maxPerRun;
+
+        this.replayedCounter = Counter.builder("sensor_wal_replayed_total")
+                .description("WAL에서 다시 처리한 레코드 수")
+                .register(meterRegistry);
+
+        this.abandonedCounter = Counter.builder("sensor_wal_abandoned_total")
+                .description("재시도 한도를 넘어 포기한 WAL 레코드 수")
+                .register(meterRegistry);
+
+        this.startupReplayTimer = Timer.builder("sensor_wal_startup_replay")
+                .description("재시작 시 WAL replay 소요 시간")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 재시작 시 checkpoint 이후 레코드 전체 replay (MQTT 연결 전에 호출)
+     */
+    public void replayOnStartup() {
+        long from = ingestLog.getCheckpoint();
+        long end = ingestLog.getEndOffset();
+        if (from >= end) {
+            log.info("✅ WAL replay 대상 없음: checkpoint={}", from);
+            return;
+        }
+
+        log.info("🔁 WAL replay 시작: {} ~ {}", from, end);
+        long start = System.nanoTime();
+        long[] count = {0};
+        SensorReading reading = new SensorReading();
+
+        ingestLog.replayFrom(from, (offset, payload) -> {
+            submit(offset, payload, reading);
+            count[0]++;
+        });
+
+        long elapsed = System.nanoTime() - start;
+        startupReplayTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        double seconds = Math.max(elapsed / 1_000_000_000.0, 1e-9);
+        log.info("✅ WAL replay 완료: {}건, {}ms, {} records/sec",
+                count[0], TimeUnit.NANOSECONDS.toMillis(elapsed), String.format("%.0f", count[0] / seconds));
+    }
+
+    /**
+     * 오래 반영되지 않은 레코드 재처리 (DB가 정상이고 파이프라인에 여유가 있을 때만)
+     */
+    @Scheduled(fixedDelayString = "${ingest.wal.replay-interval-ms:10000}")
+    public void replayStale() {
+        if (!sensorDataBatchWriter.canAcceptReplay()
+                || ingestPipeline.getQueueDepth() > ingestPipeline.getCapacity() / 2) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        int replayed = 0;
+        SensorReading reading = new SensorReading();
+
+        for (Map.Entry<Long, SensorIngestLog.PendingEntry> entry : ingestLog.getPending().entrySet()) {
+            if (replayed >= maxPerRun) {
+                break;
+            }
+
+            SensorIngestLog.PendingEntry pendingEntry = entry.getValue();
+            if (now - pendingEntry.getLastAttemptNanos() < replayAfterNanos) {
+                continue;
+            }
+
+            long offset = entry.getKey();
+            if (pendingEntry.getAttempts() >= maxAttempts) {
+                log.error("❌ WAL 레코드 재시도 한도 초과로 포기: offset={}, attempts={}", offset, pendingEntry.getAttempts());
+                ingestLog.markApplied(offset);
+                abandonedCounter.increment();
+                continue;
+            }
+
+            pendingEntry.markRetried(now);
+            byte[] payload = ingestLog.read(offset);
+            if (payload == null) {
+                ingestLog.markApplied(offset);
+                continue;
+            }
+            submit(offset, payload, reading);
+            replayed++;
+        }
+
+        if (replayed > 0) {
+            log.info("🔁 미반영 WAL 레코드 재처리: {}건", replayed);
+        }
+    }
+
+    private void submit(long offset, byte[] payload, SensorReading reading) {
+        try {
+            payloadDecoder.decode(payload, reading);
+            reading.replayed = true;
+            ingestPipeline.publish(reading, offset);
+            replayedCounter.increment();
+        } catch (Exception e) {
+            // 파싱할 수 없는 레코드는 다시 처리해도 소용없으므로 반영 완료로 처리
+            log.warn("⚠️ WAL 레코드 파싱 실패로 건너뜀: offset={}", offset, e);
+            ingestLog.markApplied(offset);
+        }
+    }
+}
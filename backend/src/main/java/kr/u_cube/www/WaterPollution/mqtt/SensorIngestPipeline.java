@@ -0,0 +1,382 @@
+package kr.u_cube.www.WaterPollution.mqtt;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import kr.u_cube.www.WaterPollution.service.monitoring.CustomMetricsService;
+import kr.u_cube.www.WaterPollution.service.monitoring.SensorMessageStage;
+import kr.u_cube.www.WaterPollution.service.monitoring.SensorMessageTrace;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * MQTT 콜백 스레드와 센서 데이터 처리를 분리하는 수집 파이프라인
+ * - deviceId 기준으로 파티션을 나누어 디바이스별 순서를 보장
+ * - 파티션마다 미리 할당된 슬롯으로 구성된 링 버퍼와 전용 워커 스레드 1개
+ * - 버퍼가 가득 찼을 때의 동작은 OverloadPolicy로 지정
+ */
+@Component
+@Slf4j
+public class SensorIngestPipeline {
+
+    /**
+     * 링 버퍼 포화 시 처리 정책
+     */
+    public enum OverloadPolicy {
+        BLOCK,              // 자리가 날 때까지 MQTT 콜백 스레드 대기 (block-timeout-ms 초과 시 버림)
+        DROP_OLDEST,        // 가장 오래된 데이터를 버리고 새 데이터 추가
+        SHED_LOW_PRIORITY   // 정상 범위 데이터부터 버리고 이상 데이터는 유지
+    }
+
+    private final SensorMessageHandler messageHandler;
+    private final SensorIngestLog ingestLog;
+    private final CustomMetricsService customMetricsService;
+    private final OverloadPolicy overloadPolicy;
+    private final long blockTimeoutNanos;
+    private final Partition[] partitions;
+
+    // 메트릭
+    private final Timer queueWaitTimer;
+    private final Timer processTimer;
+    private final Counter droppedOldestCounter;
+    private final Counter shedLowPriorityCounter;
+    private final Counter blockTimeoutCounter;
+    private final Counter rejectedOnShutdownCounter;
+
+    private volatile boolean running = true;
+
+    public SensorIngestPipeline(SensorMessageHandler messageHandler,
+            SensorIngestLog ingestLog,
+            CustomMetricsService customMetricsService,
+            MeterRegistry meterRegistry,
+            @Value("${ingest.pipeline.workers:4}") int workers,
+            @Value("${ingest.pipeline.ring-size:1024}") int ringSize,
+            @Value("${ingest.pipeline.overload-policy:BLOCK}") OverloadPolicy overloadPolicy,
+            @Value("${ingest.pipeline.block-timeout-ms:5000}") long blockTimeoutMs) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("ingest.pipeline.workers는 1 이상이어야 합니다: " + workers);
+        }
+        if (ringSize < 2 || Integer.bitCount(ringSize) != 1) {
+            throw new IllegalArgumentException("ingest.pipeline.ring-size는 2의 거듭제곱이어야 합니다: " + ringSize);
+        }
+
+        this.messageHandler = messageHandler;
+        this.ingestLog = ingestLog;
+        this.customMetricsService = customMetricsService;
+        this.overloadPolicy = overloadPolicy;
+        this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(blockTimeoutMs);
+
+        this.queueWaitTimer = Timer.builder("sensor_pipeline_stage_latency")
+                .description("수집 파이프라인 단계별 소요 시간")
+                .tag("stage", "queue_wait")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        this.processTimer = Timer.builder("sensor_pipeline_stage_latency")
+                .description("수집 파이프라인 단계별 소요 시간")
+                .tag("stage", "process")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        this.droppedOldestCounter = droppedCounter(meterRegistry, "drop_oldest");
+        this.shedLowPriorityCounter = droppedCounter(meterRegistry, "shed_low_priority");
+        this.blockTimeoutCounter = droppedCounter(meterRegistry, "block_timeout");
+        this.rejectedOnShutdownCounter = droppedCounter(meterRegistry, "shutdown");
+
+        this.partitions = new Partition[workers];
+        for (int i = 0; i < workers; i++) {
+            Partition partition = new Partition(i, ringSize);
+            partitions[i] = partition;
+
+            Gauge.builder("sensor_pipeline_queue_depth", partition, Partition::size)
+                    .description("파티션별 처리 대기 중인 센서 데이터 수")
+                    .tag("partition", String.valueOf(i))
+                    .register(meterRegistry);
+        }
+    }
+
+    private static Counter droppedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("sensor_pipeline_dropped_total")
+                .description("수집 파이프라인 과부하로 버려진 센서 데이터 수")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        for (Partition partition : partitions) {
+            partition.worker.start();
+        }
+        log.info("✅ 센서 수집 파이프라인 시작: workers={}, ringSize={}, policy={}",
+                partitions.length, partitions[0].slots.length, overloadPolicy);
+    }
+
+    /**
+     * 센서 데이터를 deviceId 파티션의 링 버퍼에 추가 (MQTT 콜백 스레드에서 호출)
+     * - 값은 슬롯에 미리 할당된 SensorReading으로 복사되므로 호출자는 reading을 바로 재사용해도 된다
+     *
+     * @return 버퍼에 들어갔으면 true, 정책에 따라 버려졌으면 false
+     */
+    public boolean publish(SensorReading reading) {
+        return publish(reading, -1L);
+    }
+
+    /**
+     * WAL 오프셋과 함께 추가 - DB 저장이 끝나면 해당 오프셋을 반영 완료로 표시
+     * (버려진 데이터는 WAL에 남아 있다가 replay 된다)
+     */
+    public boolean publish(SensorReading reading, long walOffset) {
+        if (!running) {
+            rejectedOnShutdownCounter.increment();
+            return false;
+        }
+        return partitions[partitionOf(reading.getDeviceId())].publish(reading, walOffset, reading.isAbnormal());
+    }
+
+    /**
+     * 전체 파티션의 링 버퍼 용량
+     */
+    public int getCapacity() {
+        return partitions.length * partitions[0].slots.length;
+    }
+
+    /**
+     * 전체 파티션의 처리 대기 건수
+     */
+    public int getQueueDepth() {
+        int total = 0;
+        for (Partition partition : partitions) {
+            total += partition.size();
+        }
+        return total;
+    }
+
+    private int partitionOf(String deviceId) {
+        if (deviceId == null) {
+            return 0;
+        }
+        return (deviceId.hashCode() & Integer.MAX_VALUE) % partitions.length;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        log.info("🛑 센서 수집 파이프라인 종료 중: 남은 데이터 {}건", getQueueDepth());
+
+        for (Partition partition : partitions) {
+            partition.wakeUp();
+        }
+        for (Partition partition : partitions) {
+            try {
+                partition.worker.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        log.info("✅ 센서 수집 파이프라인 종료 완료");
+    }
+
+    /**
+     * 링 버퍼 슬롯 (미리 할당해 두고 재사용)
+     */
+    private static final class Slot {
+        final SensorReading reading = new SensorReading();
+        long walOffset;
+        boolean highPriority;
+        long enqueuedAt;
+
+        void copyFrom(Slot other) {
+            this.reading.copyFrom(other.reading);
+            this.walOffset = other.walOffset;
+            this.highPriority = other.highPriority;
+            this.enqueuedAt = other.enqueuedAt;
+        }
+
+        void clear() {
+            this.reading.reset();
+        }
+    }
+
+    /**
+     * 파티션 하나 = 링 버퍼 1개 + 워커 스레드 1개
+     */
+    private final class Partition {
+        private final Slot[] slots;
+        private final int mask;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition notEmpty = lock.newCondition();
+        private final Condition notFull = lock.newCondition();
+        private final Thread worker;
+
+        private long head; // 다음에 꺼낼 위치
+        private long tail; // 다음에 넣을 위치
+
+        Partition(int index, int ringSize) {
+            this.slots = new Slot[ringSize];
+            for (int i = 0; i < ringSize; i++) {
+                slots[i] = new Slot();
+            }
+            this.mask = ringSize - 1;
+            this.worker = new Thread(this::runLoop, "Ingest-Worker-" + index);
+            this.worker.setDaemon(true);
+        }
+
+        int size() {
+            lock.lock();
+            try {
+                return (int) (tail - head);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void wakeUp() {
+            lock.lock();
+            try {
+                notEmpty.signalAll();
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        boolean publish(SensorReading reading, long walOffset, boolean highPriority) {
+            lock.lock();
+            try {
+                if (tail - head == slots.length && !makeRoom(highPriority)) {
+                    return false;
+                }
+
+                Slot slot = slots[(int) (tail & mask)];
+                slot.reading.copyFrom(reading);
+                slot.walOffset = walOffset;
+                slot.highPriority = highPriority;
+                slot.enqueuedAt = System.nanoTime();
+                tail++;
+                notEmpty.signal();
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                blockTimeoutCounter.increment();
+                return false;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * 버퍼가 가득 찼을 때 정책에 따라 자리를 만든다 (lock 보유 상태에서 호출)
+         *
+         * @return 새 데이터를 넣을 자리가 생겼으면 true
+         */
+        private boolean makeRoom(boolean incomingHighPriority) throws InterruptedException {
+            switch (overloadPolicy) {
+                case DROP_OLDEST -> {
+                    slots[(int) (head & mask)].clear();
+                    head++;
+                    droppedOldestCounter.increment();
+                    return true;
+                }
+                case SHED_LOW_PRIORITY -> {
+                    if (!incomingHighPriority) {
+                        shedLowPriorityCounter.increment();
+                        return false;
+                    }
+                    evictOldestLowPriority();
+                    shedLowPriorityCounter.increment();
+                    return true;
+                }
+                default -> {
+                    long remaining = blockTimeoutNanos;
+                    while (tail - head == slots.length) {
+                        if (!running || remaining <= 0) {
+                            if (running) {
+                                blockTimeoutCounter.increment();
+                            } else {
+                                rejectedOnShutdownCounter.increment();
+                            }
+                            return false;
+                        }
+                        remaining = notFull.awaitNanos(remaining);
+                    }
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * 가장 오래된 정상 범위 데이터를 제거 (없으면 가장 오래된 데이터 제거)
+         * - 제거 위치 앞쪽 슬롯들을 한 칸씩 밀어 순서를 유지
+         */
+        private void evictOldestLowPriority() {
+            long victim = head;
+            for (long i = head; i < tail; i++) {
+                if (!slots[(int) (i & mask)].highPriority) {
+                    victim = i;
+                    break;
+                }
+            }
+            for (long i = victim; i > head; i--) {
+                slots[(int) (i & mask)].copyFrom(slots[(int) ((i - 1) & mask)]);
+            }
+            slots[(int) (head & mask)].clear();
+            head++;
+        }
+
+        private void runLoop() {
+            // 슬롯 값을 lock 안에서 옮겨 두는 워커 전용 버퍼
+            SensorReading current = new SensorReading();
+
+            while (true) {
+                long walOffset;
+                long enqueuedAt;
+
+                lock.lock();
+                try {
+                    while (head == tail) {
+                        if (!running) {
+                            return;
+                        }
+                        notEmpty.await();
+                    }
+                    Slot slot = slots[(int) (head & mask)];
+                    current.copyFrom(slot.reading);
+                    walOffset = slot.walOffset;
+                    enqueuedAt = slot.enqueuedAt;
+                    slot.clear();
+                    head++;
+                    notFull.signal();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } finally {
+                    lock.unlock();
+                }
+
+                long dequeuedAt = System.nanoTime();
+                queueWaitTimer.record(dequeuedAt - enqueuedAt, TimeUnit.NANOSECONDS);
+                final long offset = walOffset;
+                Runnable onPersisted = offset >= 0 ? () -> ingestLog.markApplied(offset) : null;
+                try {
+                    SensorMessageTrace trace = current.newTrace();
+                    customMetricsService.recordStage(trace, SensorMessageStage.PARSE, current.getDecodeNanos());
+                    messageHandler.process(current.toDto(), trace, onPersisted);
+                } catch (Exception e) {
+                    log.error("❌ 수집 파이프라인 처리 실패: deviceId={}", current.getDeviceId(), e);
+                } finally {
+                    processTimer.record(System.nanoTime() - dequeuedAt, TimeUnit.NANOSECONDS);
+                }
+            }
+        }
+    }
+}
@@ -1,21 +1,29 @@
 package kr.u_cube.www.WaterPollution.mqtt;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import kr.u_cube.www.WaterPollution.dto.ai.AiPredictionResponse;
+import kr.u_cube.www.WaterPollution.dto.ai.AiSugyeForecast;
 import kr.u_cube.www.WaterPollution.dto.sensor.SensorDataDto;
 import kr.u_cube.www.WaterPollution.dto.websocket.PredictionResultMessage;
-import kr.u_cube.www.WaterPollution.entity.SensorInfo;
-import kr.u_cube.www.WaterPollution.repository.SensorInfoRepository;
+import kr.u_cube.www.WaterPollution.service.ai.AiPredictionBatcher;
+import kr.u_cube.www.WaterPollution.service.ai.AiPredictionCache;
+import kr.u_cube.www.WaterPollution.service.ai.AiPredictionExecutor;
 import kr.u_cube.www.WaterPollution.service.ai.AiPredictionService;
+import kr.u_cube.www.WaterPollution.service.ai.ReactiveAiPredictionService;
+import kr.u_cube.www.WaterPollution.service.monitoring.CustomMetricsService;
+import kr.u_cube.www.WaterPollution.service.monitoring.SensorMessageStage;
+import kr.u_cube.www.WaterPollution.service.monitoring.SensorMessageTrace;
 import kr.u_cube.www.WaterPollution.service.sensor.SensorDataService;
+import kr.u_cube.www.WaterPollution.service.sensor.SensorInfoRegistry;
+import kr.u_cube.www.WaterPollution.service.sensor.SensorReadingDeduplicator;
 import kr.u_cube.www.WaterPollution.websocket.PredictionResultPublisher;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 @Component
@@ -23,138 +31,289 @@ import java.util.stream.Collectors;
 @Slf4j
 public class SensorMessageHandler {
 
-    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final SensorPayloadDecoder payloadDecoder;
     private final SensorDataService sensorDataService;
     private final SensorAlertPublisher sensorAlertPublisher;
     private final AiPredictionService aiPredictionService;
+    private final AiPredictionExecutor aiPredictionExecutor;
+    private final AiPredictionBatcher aiPredictionBatcher;
+    private final ReactiveAiPredictionService reactiveAiPredictionService;
+    private final AiPredictionCache aiPredictionCache;
     private final PredictionResultPublisher predictionResultPublisher;
-    private final SensorInfoRepository sensorInfoRepository;
+    private final SensorInfoRegistry sensorInfoRegistry;
+    private final CustomMetricsService customMetricsService;
+    private final SensorReadingDeduplicator sensorReadingDeduplicator;
 
     /**
-     * MQTT로 수신된 센서 데이터 처리
+     * 사용 중인 AI 예측 경로 기록
+     * - 우선순위: 묶음 전송(ai.batch) → 논블로킹 단건(ai.reactive) → AI 전용 실행기(ai.prediction)
+     * - 실행기는 앞의 두 경로가 모두 꺼졌을 때만 쓰는 대체 경로 (기본 설정에서는 ai.prediction.* 한도가 적용되지 않음)
+     */
+    @PostConstruct
+    void logAiPredictionPath() {
+        if (aiPredictionBatcher.isEnabled()) {
+            log.info("🤖 AI 예측 경로: 묶음 전송 (ai.batch, 논블로킹={}) - ai.prediction.* 실행기 미사용",
+                    reactiveAiPredictionService.isEnabled());
+        } else if (reactiveAiPredictionService.isEnabled()) {
+            log.info("🤖 AI 예측 경로: 논블로킹 단건 요청 (ai.reactive) - ai.prediction.* 실행기 미사용");
+        } else {
+            log.info("🤖 AI 예측 경로: AI 전용 실행기 (ai.prediction)");
+        }
+    }
+
+    /**
+     * MQTT로 수신된 센서 데이터 처리 (파싱 + 처리를 한 번에)
      * 1. 센서 데이터를 DB에 저장
      * 2. AI 서버에 예측 요청
      * 3. 예측 결과를 WebSocket으로 전송
      */
-    public void handle(String payload) {
+    public void handle(byte[] payload) {
         try {
-            log.info("📥 MQTT 센서 데이터 수신: {}", payload);
-            
-            // 1. JSON 파싱
-            SensorDataDto dto = objectMapper.readValue(payload, SensorDataDto.class);
-            
-            // 2. 데이터 검증
+            SensorReading reading = new SensorReading();
+            payloadDecoder.decode(payload, reading);
+            customMetricsService.recordStage(null, SensorMessageStage.PARSE, reading.getDecodeNanos());
+            process(reading.toDto(), reading.newTrace(), null);
+        } catch (Exception e) {
+            log.error("❌ MQTT 센서 데이터 처리 실패: payload={}", new String(payload, StandardCharsets.UTF_8), e);
+        }
+    }
+
+    /**
+     * 파싱된 센서 데이터 처리 (수집 파이프라인 워커 스레드에서 호출)
+     */
+    public void process(SensorDataDto dto) {
+        process(dto, null);
+    }
+
+    /**
+     * 파싱된 센서 데이터 처리
+     *
+     * @param onPersisted DB 저장이 끝났을 때(또는 저장할 필요가 없을 때) 호출할 콜백 - WAL 반영 표시용
+     */
+    public void process(SensorDataDto dto, Runnable onPersisted) {
+        process(dto, null, onPersisted);
+    }
+
+    /**
+     * 파싱된 센서 데이터 처리 - 단계별 소요 시간을 trace에 이어서 기록
+     *
+     * @param trace 수신 시점부터의 단계별 기록 (없으면 이 시점부터 새로 기록)
+     * @param onPersisted DB 저장이 끝났을 때(또는 저장할 필요가 없을 때) 호출할 콜백 - WAL 반영 표시용
+     */
+    public void process(SensorDataDto dto, SensorMessageTrace trace, Runnable onPersisted) {
+        try {
+            // 1. 데이터 검증
             if (!isValidSensorData(dto)) {
-                            log.warn("⚠️ 유효하지 않은 센서 데이터: deviceId={}", dto.getDeviceId());
-                            return;
+                log.warn("⚠️ 유효하지 않은 센서 데이터: deviceId={}", dto != null ? dto.getDeviceId() : null);
+                runCallback(onPersisted);
+                return;
+            }
+
+            // 2. 중복 제거 (재전송된 데이터는 DB 저장, 알림, AI 요청 전에 버림)
+            boolean replayed = trace != null && trace.isReplayed();
+            if (replayed) {
+                // WAL replay는 DB 반영이 확인되지 않은 데이터라 버리지 않고 upsert에 맡김
+                sensorReadingDeduplicator.record(dto.getDeviceId(), dto.getMeasuredAt());
+            } else if (sensorReadingDeduplicator.checkAndRecord(dto.getDeviceId(), dto.getMeasuredAt())) {
+                runCallback(onPersisted);
+                return;
+            }
+
+            SensorMessageTrace messageTrace = trace != null
+                    ? trace
+                    : new SensorMessageTrace(dto.getDeviceId(), dto.getMeasuredAt(), System.nanoTime());
+
+            // 3. 센서 정보 조회 (없으면 자동 등록)
+            long started = System.nanoTime();
+            SensorInfoRegistry.Entry sensor = sensorInfoRegistry.getOrRegister(dto.getDeviceId());
+            started = recordStage(messageTrace, SensorMessageStage.LOOKUP, started);
+
+            // 4. DB에 센서 데이터 저장 (배치 저장기로 전달)
+            sensorDataService.save(dto, sensor.sensorInfo(), onPersisted);
+            started = recordStage(messageTrace, SensorMessageStage.PERSIST, started);
+            log.info("💾 센서 데이터 저장 완료: deviceId={}", dto.getDeviceId());
+
+            // WAL replay는 처음 수신했을 때 이미 알림/AI 단계를 거쳤으므로 DB 반영(upsert)만 함
+            if (replayed) {
+                log.debug("🔁 replay 데이터는 알림/AI 예측 생략: deviceId={}, measuredAt={}",
+                        dto.getDeviceId(), dto.getMeasuredAt());
+                return;
+            }
+
+            // 5. 기존 알림 로직 (동기)
+            checkAndSendAlert(dto);
+            recordStage(messageTrace, SensorMessageStage.ALERT, started);
+
+            // 6. AI 예측 요청 및 결과 전송 (묶음 전송, 논블로킹 WebClient 순으로 선택)
+            //    AI 전용 실행기는 두 경로가 모두 꺼졌을 때만 쓰는 대체 경로
+            if (aiPredictionBatcher.isEnabled()) {
+                submitBatchedPrediction(dto, messageTrace);
+            } else if (reactiveAiPredictionService.isEnabled()) {
+                submitReactivePrediction(dto, messageTrace);
+            } else if (!aiPredictionExecutor.submit(() -> processAiPrediction(dto, messageTrace))) {
+                log.warn("⚠️ AI 예측 대기 작업이 가득 차 예측 생략: deviceId={}", dto.getDeviceId());
+            }
+
+        } catch (Exception e) {
+            log.error("❌ 센서 데이터 처리 실패: deviceId={}", dto.getDeviceId(), e);
+        }
+    }
+
+    /**
+     * 단계 소요 시간 기록 후 현재 시각 반환 (다음 단계 시작 시각)
+     */
+    private long recordStage(SensorMessageTrace trace, SensorMessageStage stage, long startedNanos) {
+        long now = System.nanoTime();
+        customMetricsService.recordStage(trace, stage, now - startedNanos);
+        return now;
+    }
+
+    private void runCallback(Runnable callback) {
+        if (callback != null) {
+            callback.run();
+        }
+    }
+
+    /**
+     * 센서 데이터 유효성 검증
+     */
+    private boolean isValidSensorData(SensorDataDto dto) {
+        if (dto == null || dto.getDeviceId() == null || dto.getDeviceId().trim().isEmpty()) {
+            return false;
+        }
+
+        // 필수 센서 값 중 최소 하나는 있어야 함
+        return dto.getPh() != 0 || dto.getDoValue() != 0 ||
+               dto.getBod() != 0 || dto.getCod() != 0;
+    }
+
+    /**
+     * 기존 알림 체크 로직
+     */
+    private void checkAndSendAlert(SensorDataDto dto) {
+        try {
+            if (isAbnormal(dto)) {
+                sensorAlertPublisher.sendAlert(dto);
+            }
+        } catch (Exception e) {
+            log.error("❌ 센서 알림 체크 실패: deviceId={}", dto.getDeviceId(), e);
+        }
+    }
+
+    /**
+     * 임계값 기준 이상 데이터 여부 (pH 5~9 범위 밖 또는 DO 2.0 미만)
+     * - 수집 파이프라인 과부하 시 우선순위 판단에도 사용
+     */
+    public static boolean isAbnormal(SensorDataDto dto) {
+        return isAbnormal(dto.getPh(), dto.getDoValue());
+    }
+
+    static boolean isAbnormal(double ph, double doValue) {
+        if (ph != 0 && (ph < 5.0 || ph > 9.0)) {
+            return true;
+        }
+        return doValue != 0 && doValue < 2.0;
+    }
+
+    /**
+     * AI 예측 요청 및 결과 처리 (AiPredictionExecutor 가상 스레드에서 실행)
+     * - ai.batch.enabled, ai.reactive.enabled가 모두 false일 때만 사용
+     */
+    void processAiPrediction(SensorDataDto sensorData, SensorMessageTrace trace) {
+        log.info("🤖 AI 예측 처리 시작: deviceId={}", sensorData.getDeviceId());
+
+        // 1. AI 서버에 예측 요청
+        long started = System.nanoTime();
+        AiPredictionResponse aiResponse = aiPredictionService.requestPrediction(sensorData);
+
+        // 2. 결과 전송
+        publishPrediction(sensorData, trace, aiResponse, started);
+    }
+
+    /**
+     * 묶음 전송기에 예측 요청 (응답이 오면 묶음 전송 가상 스레드에서 결과 전송, 캐시 적중이면 바로 전송)
+     */
+    private void submitBatchedPrediction(SensorDataDto sensorData, SensorMessageTrace trace) {
+        long started = System.nanoTime();
+        try {
+            aiPredictionCache.get(sensorData, () -> aiPredictionBatcher.submit(sensorData))
+                    .whenComplete((aiResponse, error) -> {
+                        if (error != null) {
+                            publishFailure(sensorData, error);
+                        } else {
+                            publishPrediction(sensorData, trace, aiResponse, started);
                         }
-                        
-                        // 3. DB에 센서 데이터 저장 (동기)
-                        sensorDataService.save(dto);
-                        log.info("💾 센서 데이터 저장 완료: deviceId={}", dto.getDeviceId());
-                        
-                        // 4. 기존 알림 로직 (동기)
-                        checkAndSendAlert(dto);
-                                                
-                                                // 5. AI 예측 요청 및 결과 전송 (비동기)
-                                                processAiPredictionAsync(dto);
-                                                
-                                            } catch (Exception e) {
-                                                log.error("❌ MQTT 센서 데이터 처리 실패: payload={}", payload, e);
-                                            }
-                                        }
-                                    
-                                        private void checkAndSendAlert(SensorDataDto dto) {
-                                // TODO Auto-generated method stub
-                                throw new UnsupportedOperationException("Unimplemented method 'checkAndSendAlert'");
-                            }
-                        
-                                        private boolean isValidSensorData(SensorDataDto dto) {
-                    // TODO Auto-generated method stub
-                    throw new UnsupportedOperationException("Unimplemented method 'isValidSensorData'");
-                }
-            
-                /**
-     * AI 예측 요청 및 결과 처리 (비동기)
+                    });
+        } catch (RejectedExecutionException e) {
+            log.warn("⚠️ AI 묶음 전송 대기가 가득 차 예측 생략: deviceId={}", sensorData.getDeviceId());
+        }
+    }
+
+    /**
+     * 논블로킹 예측 요청 (응답이 오면 Netty 이벤트 루프에서 결과 전송, 대기 중 스레드를 잡지 않음, 캐시 적중이면 바로 전송)
+     */
+    private void submitReactivePrediction(SensorDataDto sensorData, SensorMessageTrace trace) {
+        long started = System.nanoTime();
+        aiPredictionCache.get(sensorData, () -> reactiveAiPredictionService.requestPrediction(sensorData).toFuture())
+                .whenComplete((aiResponse, error) -> {
+                    if (error != null) {
+                        publishFailure(sensorData, error);
+                    } else {
+                        publishPrediction(sensorData, trace, aiResponse, started);
+                    }
+                });
+    }
+
+    /**
+     * AI 응답을 WebSocket 메시지로 변환해 전송하고 단계 시간 기록
+     *
+     * @param started AI 요청 시작 시각 (AI 단계 = 요청 ~ 응답)
      */
-    @Async("emailTaskExecutor")
-    public void processAiPredictionAsync(SensorDataDto sensorData) {
+    private void publishPrediction(SensorDataDto sensorData, SensorMessageTrace trace,
+                                   AiPredictionResponse aiResponse, long started) {
         try {
-            log.info("🤖 AI 예측 처리 시작: deviceId={}", sensorData.getDeviceId());
-            
-            // 1. AI 서버에 예측 요청
-            AiPredictionResponse aiResponse = aiPredictionService.requestPrediction(sensorData);
-            
-            // 2. 예측 결과를 WebSocket 메시지로 변환
+            started = recordStage(trace, SensorMessageStage.AI, started);
+
+            // 1. 예측 결과를 WebSocket 메시지로 변환
             PredictionResultMessage wsMessage = convertToWebSocketMessage(sensorData, aiResponse);
-            
-            // 3. WebSocket으로 결과 전송
+            wsMessage.setMeasuredAt(sensorData.getMeasuredAt());
+
+            // 2. WebSocket으로 결과 전송
             predictionResultPublisher.publishPredictionResult(wsMessage);
-            
-            log.info("✅ AI 예측 처리 완료: deviceId={}, success={}", 
+            recordStage(trace, SensorMessageStage.PUBLISH, started);
+            customMetricsService.completeMessage(trace, sensorInfoRegistry.getSugyeName(sensorData.getDeviceId()));
+
+            log.info("✅ AI 예측 처리 완료: deviceId={}, success={}",
                     sensorData.getDeviceId(), aiResponse.isSuccess());
-            
+
         } catch (Exception e) {
-            log.error("❌ AI 예측 처리 실패: deviceId={}", sensorData.getDeviceId(), e);
-            
-            // 실패 메시지를 WebSocket으로 전송
-            PredictionResultMessage failureMessage = PredictionResultMessage.failure(
-                    sensorData.getDeviceId(), 
-                    "AI 예측 처리 중 오류 발생: " + e.getMessage()
-            );
-            predictionResultPublisher.publishPredictionResult(failureMessage);
+            publishFailure(sensorData, e);
         }
     }
 
-    // /**
-    //  * 센서 데이터 유효성 검증
-    //  */
-    // private boolean isValidSensorData(SensorDataDto dto) {
-    //     if (dto == null || dto.getDeviceId() == null || dto.getDeviceId().trim().isEmpty()) {
-    //         return false;
-    //     }
-        
-    //     // 필수 센서 값 중 최소 하나는 있어야 함
-    //     return dto.getPh() != null || dto.getDoValue() != null ||
-    //            dto.getBod() != null || dto.getCod() != null;
-    // }
-
-    // /**
-    //  * 기존 알림 체크 로직
-    //  */
-    // private void checkAndSendAlert(SensorDataDto dto) {
-    //     try {
-    //         // 기존 임계값 체크 로직
-    //         if (dto.getPh() != null && (dto.getPh() < 5.0 || dto.getPh() > 9.0)) {
-    //             sensorAlertPublisher.sendAlert(dto);
-    //         } else if (dto.getDoValue() != null && dto.getDoValue() < 2.0) {
-    //             sensorAlertPublisher.sendAlert(dto);
-    //         }
-    //     } catch (Exception e) {
-    //         log.error("❌ 센서 알림 체크 실패: deviceId={}", dto.getDeviceId(), e);
-    //     }
-    // }
+    /**
+     * 실패 메시지를 WebSocket으로 전송
+     */
+    private void publishFailure(SensorDataDto sensorData, Throwable e) {
+        log.error("❌ AI 예측 처리 실패: deviceId={}", sensorData.getDeviceId(), e);
+
+        PredictionResultMessage failureMessage = PredictionResultMessage.failure(
+                sensorData.getDeviceId(),
+                "AI 예측 처리 중 오류 발생: " + e.getMessage()
+        );
+        failureMessage.setMeasuredAt(sensorData.getMeasuredAt());
+        predictionResultPublisher.publishPredictionResult(failureMessage);
+    }
 
     /**
      * AI 예측 결과를 WebSocket 메시지로 변환
      */
     private PredictionResultMessage convertToWebSocketMessage(SensorDataDto sensorData, 
                                                               AiPredictionResponse aiResponse) {
-        // 센서 정보 조회
-        String sensorName = "Unknown";
-        String sugyeName = sensorData.getDeviceId();
-        
-        try {
-            Optional<SensorInfo> sensorInfo = sensorInfoRepository.findByDeviceId(sensorData.getDeviceId());
-            if (sensorInfo.isPresent()) {
-                sensorName = sensorInfo.get().getName() != null ? sensorInfo.get().getName() : "Unknown";
-                if (sensorName.contains("-")) {
-                    sugyeName = sensorName.split("-")[0];
-                }
-            }
-        } catch (Exception e) {
-            log.warn("⚠️ 센서 정보 조회 실패: deviceId={}", sensorData.getDeviceId(), e);
-        }
+        // 센서 정보 조회 (레지스트리, AI 요청 시와 같은 수계명 사용)
+        Optional<SensorInfoRegistry.Entry> sensorInfo = sensorInfoRegistry.find(sensorData.getDeviceId());
+        String sensorName = sensorInfo.map(SensorInfoRegistry.Entry::displayName).orElse("Unknown");
+        String sugyeName = sensorInfo.map(SensorInfoRegistry.Entry::sugyeName).orElse(sensorData.getDeviceId());
 
         // 센서 측정값 변환
         PredictionResultMessage.SensorValues sensorValues = PredictionResultMessage.SensorValues.builder()
@@ -200,7 +359,8 @@ public class SensorMessageHandler {
             Object sugyeData = predictions.get(sugyeName);
             
             if (sugyeData instanceof List) {
-                List<Map<String, Object>> predictionList = (List<Map<String, Object>>) sugyeData;
+                // 블로킹 경로는 Map, 논블로킹 경로는 AiSugyeForecast.WqiForecast 레코드
+                List<Object> predictionList = (List<Object>) sugyeData;
                 
                 List<PredictionResultMessage.WqiPrediction> wqiPredictions = predictionList.stream()
                         .map(this::convertToWqiPrediction)
@@ -239,10 +399,20 @@ public class SensorMessageHandler {
     }
 
     /**
-     * Map 데이터를 WqiPrediction 객체로 변환
+     * 예측 항목(Map 또는 WqiForecast 레코드)을 WqiPrediction 객체로 변환
      */
-    private PredictionResultMessage.WqiPrediction convertToWqiPrediction(Map<String, Object> predictionMap) {
+    @SuppressWarnings("unchecked")
+    private PredictionResultMessage.WqiPrediction convertToWqiPrediction(Object prediction) {
         try {
+            if (prediction instanceof AiSugyeForecast.WqiForecast forecast) {
+                return PredictionResultMessage.WqiPrediction.builder()
+                        .date(forecast.ds())
+                        .wqiScore(forecast.yhat())
+                        .wqiGrade(forecast.wqiGrade() != null ? forecast.wqiGrade() : "보통")
+                        .build();
+            }
+
+            Map<String, Object> predictionMap = (Map<String, Object>) prediction;
             String ds = (String) predictionMap.get("ds");
             Object yhatObj = predictionMap.get("yhat");
             String wqiGrade = (String) predictionMap.get("WQI_등급");
@@ -0,0 +1,150 @@
+package kr.u_cube.www.WaterPollution.mqtt;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * MQTT 센서 페이로드 디코더
+ * - 원본 byte[]를 Jackson 스트리밍 파서로 읽어 SensorReading에 바로 채움 (중간 String, DTO 생성 없음)
+ * - JSON 필드명 → 필드 매핑은 클래스 로딩 시 한 번만 구성
+ * - 모르는 필드는 건너뜀
+ */
+@Component
+public class SensorPayloadDecoder {
+
+    /**
+     * 페이로드 필드 (JSON 이름은 SensorDataDto 직렬화 이름과 동일)
+     */
+    private enum Field {
+        DEVICE_ID("deviceId"),
+        PH("ph"),
+        DO_VALUE("doValue"),
+        TEMPERATURE("temperature"),
+        EC("ec"),
+        TURBIDITY("turbidity"),
+        BOD("bod"),
+        COD("cod"),
+        TP("tp"),
+        TN("tn"),
+        SS("ss"),
+        CHLOROPHYLL_A("chlorophyllA"),
+        NO3N("no3n"),
+        MEASURED_AT("measuredAt");
+
+        private final String jsonName;
+
+        Field(String jsonName) {
+            this.jsonName = jsonName;
+        }
+    }
+
+    private static final Map<String, Field> FIELDS = new HashMap<>();
+
+    static {
+        for (Field field : Field.values()) {
+            FIELDS.put(field.jsonName, field);
+        }
+    }
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    /**
+     * 페이로드를 target에 디코딩 (target은 먼저 초기화됨)
+     *
+     * @throws IOException JSON 형식이 아니거나 값 타입이 맞지 않는 경우
+     */
+    public void decode(byte[] payload, SensorReading target) throws IOException {
+        long started = System.nanoTime();
+        target.reset();
+
+        try (JsonParser parser = jsonFactory.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "센서 페이로드는 JSON 객체여야 합니다");
+            }
+
+            String name;
+            while ((name = parser.nextFieldName()) != null) {
+                JsonToken token = parser.nextToken();
+                Field field = FIELDS.get(name);
+                if (field == null) {
+                    parser.skipChildren();
+                    continue;
+                }
+
+                switch (field) {
+                    case DEVICE_ID -> target.deviceId = token == JsonToken.VALUE_NULL ? null : parser.getText();
+                    case MEASURED_AT -> target.measuredAt = readDateTime(parser, token);
+                    case PH -> target.ph = readDouble(parser, token);
+                    case DO_VALUE -> target.doValue = readDouble(parser, token);
+                    case TEMPERATURE -> target.temperature = readDouble(parser, token);
+                    case EC -> target.ec = readDouble(parser, token);
+                    case TURBIDITY -> target.turbidity = readDouble(parser, token);
+                    case BOD -> target.bod = readDouble(parser, token);
+                    case COD -> target.cod = readDouble(parser, token);
+                    case TP -> target.tp = readDouble(parser, token);
+                    case TN -> target.tn = readDouble(parser, token);
+                    case SS -> target.ss = readDouble(parser, token);
+                    case CHLOROPHYLL_A -> target.chlorophyllA = readDouble(parser, token);
+                    case NO3N -> target.no3n = readDouble(parser, token);
+                }
+            }
+        }
+
+        target.receivedNanos = started;
+        target.decodeNanos = System.nanoTime() - started;
+    }
+
+    private double readDouble(JsonParser parser, JsonToken token) throws IOException {
+        return switch (token) {
+            case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> parser.getDoubleValue();
+            case VALUE_NULL -> 0.0;
+            case VALUE_STRING -> parser.getText().isBlank() ? 0.0 : Double.parseDouble(parser.getText().trim());
+            default -> throw new JsonParseException(parser, "숫자 값이 필요합니다: " + parser.currentName());
+        };
+    }
+
+    /**
+     * ISO 문자열("2025-08-27T10:15:30") 또는 배열([2025,8,27,10,15,30]) 형식 지원
+     * - 끝의 'Z'("2025-08-27T10:15:30Z")는 떼고 그대로 읽음 (기존 ObjectMapper + JavaTimeModule과 같게 시간대 변환 없음)
+     * - 빈 문자열은 null (기존과 같음)
+     */
+    private LocalDateTime readDateTime(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            String text = parser.getText().trim();
+            if (text.isEmpty()) {
+                return null;
+            }
+            if (text.endsWith("Z")) {
+                text = text.substring(0, text.length() - 1);
+            }
+            return LocalDateTime.parse(text);
+        }
+        if (token == JsonToken.START_ARRAY) {
+            int[] parts = new int[7];
+            int count = 0;
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                if (count < parts.length) {
+                    parts[count] = parser.getIntValue();
+                }
+                count++;
+            }
+            if (count < 5) {
+                throw new JsonParseException(parser, "measuredAt 배열 형식이 올바르지 않습니다");
+            }
+            return LocalDateTime.of(parts[0], parts[1], parts[2], parts[3], parts[4], parts[5], parts[6]);
+        }
+        throw new JsonParseException(parser, "measuredAt 형식이 올바르지 않습니다");
+    }
+}
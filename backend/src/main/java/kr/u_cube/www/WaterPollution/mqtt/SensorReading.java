@@ -0,0 +1,125 @@
+package kr.u_cube.www.WaterPollution.mqtt;
+
+import java.time.LocalDateTime;
+
+import kr.u_cube.www.WaterPollution.dto.sensor.SensorDataDto;
+import kr.u_cube.www.WaterPollution.service.monitoring.SensorMessageTrace;
+
+/**
+ * 수집 경로에서 재사용하는 센서 측정값 (primitive 필드)
+ * - SensorPayloadDecoder가 바이트 페이로드를 바로 채워 넣음
+ * - 수집 파이프라인 링 버퍼 슬롯마다 1개씩 미리 할당되어 값만 복사됨
+ * - 스레드 간 공유하지 않고 소유 스레드(콜백 스레드, 워커)에서만 사용
+ */
+public final class SensorReading {
+
+    String deviceId;
+    double ph;
+    double doValue;
+    double temperature;
+    double ec;
+    double turbidity;
+    double bod;
+    double cod;
+    double tp;
+    double tn;
+    double ss;
+    double chlorophyllA;
+    double no3n;
+    LocalDateTime measuredAt;
+
+    // 디코딩 시작 시각과 디코딩 소요 시간 (단계별 지연 측정용)
+    long receivedNanos;
+    long decodeNanos;
+
+    // WAL replay로 다시 들어온 데이터 여부 (중복 제거 창 검사 생략)
+    boolean replayed;
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public LocalDateTime getMeasuredAt() {
+        return measuredAt;
+    }
+
+    public long getDecodeNanos() {
+        return decodeNanos;
+    }
+
+    /**
+     * 이 측정값의 단계별 처리 기록 시작 (수신 시각 기준)
+     */
+    public SensorMessageTrace newTrace() {
+        return new SensorMessageTrace(deviceId, measuredAt, receivedNanos, replayed);
+    }
+
+    /**
+     * 임계값 기준 이상 데이터 여부 (수집 파이프라인 우선순위 판단용)
+     */
+    public boolean isAbnormal() {
+        return SensorMessageHandler.isAbnormal(ph, doValue);
+    }
+
+    void reset() {
+        deviceId = null;
+        ph = 0;
+        doValue = 0;
+        temperature = 0;
+        ec = 0;
+        turbidity = 0;
+        bod = 0;
+        cod = 0;
+        tp = 0;
+        tn = 0;
+        ss = 0;
+        chlorophyllA = 0;
+        no3n = 0;
+        measuredAt = null;
+        receivedNanos = 0;
+        decodeNanos = 0;
+        replayed = false;
+    }
+
+    void copyFrom(SensorReading other) {
+        deviceId = other.deviceId;
+        ph = other.ph;
+        doValue = other.doValue;
+        temperature = other.temperature;
+        ec = other.ec;
+        turbidity = other.turbidity;
+        bod = other.bod;
+        cod = other.cod;
+        tp = other.tp;
+        tn = other.tn;
+        ss = other.ss;
+        chlorophyllA = other.chlorophyllA;
+        no3n = other.no3n;
+        measuredAt = other.measuredAt;
+        receivedNanos = other.receivedNanos;
+        decodeNanos = other.decodeNanos;
+        replayed = other.replayed;
+    }
+
+    /**
+     * 서비스 계층에서 쓰는 DTO로 변환 (워커 스레드에서 처리 직전에 1회)
+     */
+    public SensorDataDto toDto() {
+        return SensorDataDto.builder()
+                .deviceId(deviceId)
+                .ph(ph)
+                .doValue(doValue)
+                .temperature(temperature)
+                .ec(ec)
+                .turbidity(turbidity)
+                .bod(bod)
+                .cod(cod)
+                .tp(tp)
+                .tn(tn)
+                .ss(ss)
+                .chlorophyllA(chlorophyllA)
+                .no3n(no3n)
+                .measuredAt(measuredAt)
+                .build();
+    }
+}
@@ -0,0 +1,49 @@
+package kr.u_cube.www.WaterPollution.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import kr.u_cube.www.WaterPollution.dto.HistoryRollupDto;
+import kr.u_cube.www.WaterPollution.entity.SensorDataRollup;
+import kr.u_cube.www.WaterPollution.service.sensor.HistoryResolution;
+
+@Repository
+public interface SensorDataRollupRepository extends JpaRepository<SensorDataRollup, Long> {
+
+    @Query("""
+            SELECT new kr.u_cube.www.WaterPollution.dto.HistoryRollupDto(
+                si.deviceId,
+                si.name,
+                r.resolution,
+                r.bucketStart,
+                r.parameter,
+                r.minValue,
+                r.maxValue,
+                r.sumValue / r.sampleCount,
+                r.sampleCount
+            )
+            FROM SensorDataRollup r
+            JOIN r.sensorInfo si
+            WHERE r.resolution = :resolution
+              AND r.bucketStart BETWEEN :start AND :end
+              AND (:deviceId IS NULL OR si.deviceId = :deviceId)
+              AND r.sampleCount > 0
+            ORDER BY r.bucketStart, si.deviceId, r.parameter
+            """)
+    List<HistoryRollupDto> findRollups(HistoryResolution resolution, LocalDateTime start, LocalDateTime end, String deviceId);
+
+    /**
+     * 디바이스별 기간 내 원본 측정 건수 추정 (HOUR 집계 기준, 항목 중 최대)
+     */
+    @Query("""
+            SELECT COALESCE(MAX(r.sampleCount), 0)
+            FROM SensorDataRollup r
+            WHERE r.resolution = kr.u_cube.www.WaterPollution.service.sensor.HistoryResolution.HOUR
+              AND r.bucketStart BETWEEN :start AND :end
+            """)
+    long findMaxHourlySampleCount(LocalDateTime start, LocalDateTime end);
+}
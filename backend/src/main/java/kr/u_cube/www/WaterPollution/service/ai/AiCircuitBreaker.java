@@ -0,0 +1,320 @@
+package kr.u_cube.www.WaterPollution.service.ai;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import kr.u_cube.www.WaterPollution.dto.ai.AiPredictionResponse;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * AI 서버 회로 차단기 + 벌크헤드
+ * - CLOSED: 최근 window-size건의 결과 중 실패율이 failure-rate-threshold% 이상이면 OPEN (최소 minimum-calls건 이후)
+ * - OPEN: 호출하지 않고 바로 CallNotPermittedException (대체 응답), open-duration-ms가 지나면 HALF_OPEN
+ * - HALF_OPEN: half-open-calls건만 시험 호출, 모두 성공하면 CLOSED, 하나라도 실패하면 다시 OPEN
+ * - 벌크헤드: 모든 경로(블로킹/묶음/논블로킹)를 합친 동시 호출 수를 max-concurrent로 제한, 자리가 없으면 기다리지 않고 거절
+ * - 상태 확인(AiHealthProber)이 probe-failure-threshold번 연속 실패하면 OPEN → AI 서버가 꺼져 있을 때 요청마다 시간 제한까지 기다리지 않음
+ *   - 한 번의 일시적인 /health 실패로는 차단하지 않음
+ *   - 상태 확인이 정상이어도 open-duration-ms 전에는 HALF_OPEN으로 가지 않음 (/health만 살아 있고 예측은 실패하는 경우 차단 유지)
+ */
+@Component
+@Slf4j
+public class AiCircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    public static final String FALLBACK_MESSAGE = "AI 서버 일시 중단으로 예측을 생략했습니다";
+
+    /**
+     * 호출 거절 (스택 트레이스 없이 만들어 거절 비용을 최소화)
+     */
+    public static class CallNotPermittedException extends RuntimeException {
+        public CallNotPermittedException(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    /**
+     * 호출 1건의 허가 - 결과를 onSuccess / onFailure로 한 번만 알림
+     */
+    public final class Permit {
+        private final long generation;
+        private final boolean bulkheadHeld;
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        private Permit(long generation, boolean bulkheadHeld) {
+            this.generation = generation;
+            this.bulkheadHeld = bulkheadHeld;
+        }
+
+        public void onSuccess() {
+            complete(true);
+        }
+
+        public void onFailure() {
+            complete(false);
+        }
+
+        private void complete(boolean success) {
+            if (!done.compareAndSet(false, true)) {
+                return;
+            }
+            if (bulkheadHeld) {
+                bulkhead.release();
+            }
+            record(generation, success);
+        }
+    }
+
+    private final boolean enabled;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openDurationNanos;
+    private final int halfOpenCalls;
+    private final int probeFailureThreshold;
+    private final int maxConcurrent;
+    private final Semaphore bulkhead;
+
+    // 상태 (lock으로 보호, state는 읽기 전용 조회를 위해 volatile)
+    private final Object lock = new Object();
+    private volatile State state = State.CLOSED;
+    private long generation;
+    private long openedAt;
+    private final boolean[] outcomes;
+    private int outcomeCount;
+    private int outcomeIndex;
+    private int failureCount;
+    private int halfOpenIssued;
+    private int halfOpenSucceeded;
+    private int consecutiveProbeFailures;
+
+    private final Counter successCounter;
+    private final Counter failureCounter;
+    private final Counter rejectedOpenCounter;
+    private final Counter rejectedBulkheadCounter;
+    private final Map<State, Counter> transitionCounters = new EnumMap<>(State.class);
+
+    public AiCircuitBreaker(MeterRegistry meterRegistry,
+            @Value("${ai.circuit.enabled:true}") boolean enabled,
+            @Value("${ai.circuit.window-size:20}") int windowSize,
+            @Value("${ai.circuit.minimum-calls:10}") int minimumCalls,
+            @Value("${ai.circuit.failure-rate-threshold:50}") double failureRateThreshold,
+            @Value("${ai.circuit.open-duration-ms:30000}") long openDurationMs,
+            @Value("${ai.circuit.half-open-calls:3}") int halfOpenCalls,
+            @Value("${ai.circuit.probe-failure-threshold:3}") int probeFailureThreshold,
+            @Value("${ai.bulkhead.max-concurrent:32}") int maxConcurrent) {
+        this.enabled = enabled;
+        this.windowSize = windowSize;
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDurationNanos = openDurationMs * 1_000_000L;
+        this.halfOpenCalls = halfOpenCalls;
+        this.probeFailureThreshold = Math.max(1, probeFailureThreshold);
+        this.maxConcurrent = maxConcurrent;
+        this.bulkhead = new Semaphore(maxConcurrent);
+        this.outcomes = new boolean[windowSize];
+
+        this.successCounter = callCounter(meterRegistry, "success");
+        this.failureCounter = callCounter(meterRegistry, "failure");
+        this.rejectedOpenCounter = callCounter(meterRegistry, "not_permitted");
+        this.rejectedBulkheadCounter = callCounter(meterRegistry, "bulkhead_full");
+
+        for (State value : State.values()) {
+            String tag = value.name().toLowerCase();
+            Gauge.builder("ai_circuit_state", this, b -> b.state == value ? 1 : 0)
+                    .description("AI 회로 차단기 현재 상태 (해당 상태면 1)")
+                    .tag("state", tag)
+                    .register(meterRegistry);
+            transitionCounters.put(value, Counter.builder("ai_circuit_transitions_total")
+                    .description("AI 회로 차단기 상태 전환 수")
+                    .tag("to", tag)
+                    .register(meterRegistry));
+        }
+
+        Gauge.builder("ai_circuit_failure_rate", this, AiCircuitBreaker::getFailureRate)
+                .description("AI 회로 차단기 최근 호출 실패율 (%)")
+                .register(meterRegistry);
+
+        Gauge.builder("ai_bulkhead_in_use", this, b -> b.maxConcurrent - b.bulkhead.availablePermits())
+                .description("AI 서버 동시 호출 수 (벌크헤드 사용량)")
+                .register(meterRegistry);
+    }
+
+    private static Counter callCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("ai_circuit_calls_total")
+                .description("AI 회로 차단기를 거친 호출 수")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * 호출 허가 (거절이면 바로 CallNotPermittedException)
+     */
+    public Permit acquire() {
+        if (!enabled) {
+            return new Permit(-1, false);
+        }
+
+        long permitGeneration;
+        boolean halfOpenTrial = false;
+        synchronized (lock) {
+            if (state == State.OPEN) {
+                if (System.nanoTime() - openedAt < openDurationNanos) {
+                    rejectedOpenCounter.increment();
+                    throw new CallNotPermittedException("AI 회로 차단 중 (OPEN)");
+                }
+                transition(State.HALF_OPEN, "차단 시간 경과");
+            }
+            if (state == State.HALF_OPEN) {
+                if (halfOpenIssued >= halfOpenCalls) {
+                    rejectedOpenCounter.increment();
+                    throw new CallNotPermittedException("AI 회로 시험 호출 중 (HALF_OPEN)");
+                }
+                halfOpenIssued++;
+                halfOpenTrial = true;
+            }
+            permitGeneration = generation;
+        }
+
+        if (!bulkhead.tryAcquire()) {
+            if (halfOpenTrial) {
+                synchronized (lock) {
+                    if (generation == permitGeneration) {
+                        halfOpenIssued--;
+                    }
+                }
+            }
+            rejectedBulkheadCounter.increment();
+            throw new CallNotPermittedException("AI 동시 호출 한도 초과 (벌크헤드)");
+        }
+        return new Permit(permitGeneration, true);
+    }
+
+    /**
+     * 상태 확인 결과 반영 (AiHealthProber)
+     * - 실패: 연속 probe-failure-threshold번째에 OPEN
+     * - 정상: 연속 실패 수 초기화, OPEN이면 차단 시간이 지난 경우에만 HALF_OPEN (시험 호출로 실제 예측을 확인)
+     */
+    public void recordProbe(boolean healthy) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (lock) {
+            if (!healthy) {
+                consecutiveProbeFailures++;
+                if (consecutiveProbeFailures >= probeFailureThreshold && state != State.OPEN) {
+                    transition(State.OPEN, "상태 확인 " + consecutiveProbeFailures + "회 연속 실패");
+                }
+                return;
+            }
+
+            consecutiveProbeFailures = 0;
+            if (state == State.OPEN && System.nanoTime() - openedAt >= openDurationNanos) {
+                transition(State.HALF_OPEN, "차단 시간 경과, 상태 확인 정상");
+            }
+        }
+    }
+
+    /**
+     * 회로 차단 / 벌크헤드 거절 시 대체 응답 (AI 서버를 호출하지 않음)
+     */
+    public static AiPredictionResponse fallback(CallNotPermittedException e) {
+        return AiPredictionResponse.builder()
+                .success(false)
+                .errorMessage(FALLBACK_MESSAGE + " (" + e.getMessage() + ")")
+                .predictions(new HashMap<>())
+                .build();
+    }
+
+    /**
+     * 최근 호출 실패율 (%)
+     */
+    public double getFailureRate() {
+        synchronized (lock) {
+            return outcomeCount == 0 ? 0 : failureCount * 100.0 / outcomeCount;
+        }
+    }
+
+    private void record(long permitGeneration, boolean success) {
+        (success ? successCounter : failureCounter).increment();
+        if (permitGeneration < 0) {
+            return;
+        }
+
+        synchronized (lock) {
+            // 상태가 바뀌기 전에 허가된 호출의 결과는 새 상태 판단에 쓰지 않음
+            if (permitGeneration != generation) {
+                return;
+            }
+
+            if (state == State.HALF_OPEN) {
+                if (!success) {
+                    transition(State.OPEN, "시험 호출 실패");
+                } else if (++halfOpenSucceeded >= halfOpenCalls) {
+                    transition(State.CLOSED, "시험 호출 성공");
+                }
+                return;
+            }
+
+            if (state == State.CLOSED) {
+                if (outcomeCount == windowSize) {
+                    if (!outcomes[outcomeIndex]) {
+                        failureCount--;
+                    }
+                } else {
+                    outcomeCount++;
+                }
+                outcomes[outcomeIndex] = success;
+                if (!success) {
+                    failureCount++;
+                }
+                outcomeIndex = (outcomeIndex + 1) % windowSize;
+
+                if (outcomeCount >= minimumCalls && failureCount * 100.0 / outcomeCount >= failureRateThreshold) {
+                    transition(State.OPEN, "실패율 " + failureCount + "/" + outcomeCount);
+                }
+            }
+        }
+    }
+
+    /**
+     * 상태 전환 (lock 안에서 호출)
+     */
+    private void transition(State to, String reason) {
+        State from = state;
+        state = to;
+        generation++;
+        halfOpenIssued = 0;
+        halfOpenSucceeded = 0;
+        if (to == State.OPEN) {
+            openedAt = System.nanoTime();
+        }
+        if (to == State.CLOSED) {
+            outcomeCount = 0;
+            outcomeIndex = 0;
+            failureCount = 0;
+        }
+        transitionCounters.get(to).increment();
+
+        if (to == State.OPEN) {
+            log.warn("🚫 AI 회로 차단: {} → {} ({})", from, to, reason);
+        } else {
+            log.info("🔁 AI 회로 상태 변경: {} → {} ({})", from, to, reason);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package kr.u_cube.www.WaterPollution.service.ai;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * AI 서버 상태 주기 확인 (/health)
+ * - 요청 때마다 확인하지 않고 마지막 확인 결과를 보관 (isAiServerHealthy는 이 값을 반환)
+ * - 결과는 회로 차단기에 전달 → 꺼져 있으면 바로 차단, 살아나면 시험 호출 시작
+ * - WebClient로 보내고 기다리지 않음 → 스케줄러 스레드를 잡지 않음
+ */
+@Component
+@Slf4j
+public class AiHealthProber {
+
+    private final WebClient aiWebClient;
+    private final AiCircuitBreaker aiCircuitBreaker;
+    private final Duration timeout;
+
+    private final AtomicBoolean probing = new AtomicBoolean();
+    private volatile boolean healthy = true;
+    private volatile LocalDateTime lastCheckedAt;
+
+    public AiHealthProber(@Qualifier("aiWebClient") WebClient aiWebClient,
+            AiCircuitBreaker aiCircuitBreaker,
+            MeterRegistry meterRegistry,
+            @Value("${ai.health.timeout-ms:2000}") long timeoutMs) {
+        this.aiWebClient = aiWebClient;
+        this.aiCircuitBreaker = aiCircuitBreaker;
+        this.timeout = Duration.ofMillis(timeoutMs);
+
+        Gauge.builder("ai_server_healthy", this, p -> p.healthy ? 1 : 0)
+                .description("마지막 AI 서버 상태 확인 결과 (정상이면 1)")
+                .register(meterRegistry);
+    }
+
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    public LocalDateTime getLastCheckedAt() {
+        return lastCheckedAt;
+    }
+
+    @Scheduled(fixedDelayString = "${ai.health.probe-interval-ms:5000}")
+    public void probe() {
+        // 이전 확인이 아직 끝나지 않았으면 건너뜀
+        if (!probing.compareAndSet(false, true)) {
+            return;
+        }
+
+        aiWebClient.get()
+                .uri("/health")
+                .retrieve()
+                .toBodilessEntity()
+                .timeout(timeout)
+                .subscribe(
+                        response -> update(response.getStatusCode().is2xxSuccessful(), null),
+                        error -> update(false, error));
+    }
+
+    private void update(boolean result, Throwable error) {
+        try {
+            if (result != healthy) {
+                if (result) {
+                    log.info("💚 AI 서버 상태 정상으로 회복");
+                } else {
+                    log.warn("🔍 AI 서버 상태 확인 실패: {}", error != null ? error.getMessage() : "비정상 응답");
+                }
+            }
+            healthy = result;
+            lastCheckedAt = LocalDateTime.now();
+            aiCircuitBreaker.recordProbe(result);
+        } finally {
+            probing.set(false);
+        }
+    }
+}
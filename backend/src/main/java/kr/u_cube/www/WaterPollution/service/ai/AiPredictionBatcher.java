@@ -0,0 +1,298 @@
+package kr.u_cube.www.WaterPollution.service.ai;
+
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import kr.u_cube.www.WaterPollution.dto.ai.AiPredictionRequest;
+import kr.u_cube.www.WaterPollution.dto.ai.AiPredictionResponse;
+import kr.u_cube.www.WaterPollution.dto.sensor.SensorDataDto;
+import kr.u_cube.www.WaterPollution.service.sensor.SensorInfoRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * AI 예측 요청 묶음 전송
+ * - 짧은 시간(window-ms) 동안 들어온 측정값을 모아 수계 여러 개를 담은 요청 1건으로 전송
+ * - 대기 건수가 max-size에 도달하면 시간을 기다리지 않고 바로 전송
+ * - 응답의 수계별 결과를 해당 측정값을 기다리는 호출자에게 나눠 줌
+ * - 한 요청에는 수계당 측정값 1개만 담음 (같은 수계의 다음 측정값은 다음 요청으로) → 예측 입력은 단건 요청과 같음
+ * - 동시에 나가는 묶음 요청 수는 max-in-flight로 제한 (ai.reactive.enabled면 WebClient로 보내고 그쪽 동시 요청 제한을 따름)
+ */
+@Component
+@Slf4j
+public class AiPredictionBatcher {
+
+    private final AiPredictionService aiPredictionService;
+    private final ReactiveAiPredictionService reactiveAiPredictionService;
+    private final SensorInfoRegistry sensorInfoRegistry;
+
+    private final boolean enabled;
+    private final long windowMs;
+    private final int maxBatchSize;
+    private final int maxPending;
+
+    private final ScheduledExecutorService timer;
+    private final ExecutorService sender;
+    private final Semaphore inFlight;
+
+    // 전송 대기 (lock으로 보호)
+    private final Object lock = new Object();
+    private final ArrayDeque<PendingPrediction> queue = new ArrayDeque<>();
+    private ScheduledFuture<?> scheduledFlush;
+
+    // 대기 + 전송 중인 측정값 수
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final DistributionSummary batchSizeSummary;
+    private final Counter rejectedCounter;
+
+    private record PendingPrediction(String sugyeName, AiPredictionRequest.SensorDataPoint point,
+            CompletableFuture<AiPredictionResponse> result) {
+    }
+
+    public AiPredictionBatcher(AiPredictionService aiPredictionService,
+            ReactiveAiPredictionService reactiveAiPredictionService,
+            SensorInfoRegistry sensorInfoRegistry,
+            MeterRegistry meterRegistry,
+            @Value("${ai.batch.enabled:true}") boolean enabled,
+            @Value("${ai.batch.window-ms:200}") long windowMs,
+            @Value("${ai.batch.max-size:100}") int maxBatchSize,
+            @Value("${ai.batch.max-in-flight:4}") int maxInFlight,
+            @Value("${ai.batch.max-pending:5000}") int maxPending) {
+        this.aiPredictionService = aiPredictionService;
+        this.reactiveAiPredictionService = reactiveAiPredictionService;
+        this.sensorInfoRegistry = sensorInfoRegistry;
+        this.enabled = enabled;
+        this.windowMs = windowMs;
+        this.maxBatchSize = maxBatchSize;
+        this.maxPending = maxPending;
+
+        this.timer = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("AiBatch-timer").daemon(true).factory());
+        this.sender = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("AiBatch-", 0).factory());
+        this.inFlight = new Semaphore(maxInFlight);
+
+        this.batchSizeSummary = DistributionSummary.builder("ai_prediction_batch_size")
+                .description("AI 묶음 요청 1건에 담긴 수계(측정값) 수")
+                .register(meterRegistry);
+
+        // AiPredictionExecutor와 같은 지표 (reason만 다름)
+        this.rejectedCounter = Counter.builder("ai_prediction_rejected_total")
+                .description("AI 예측 실행기에서 거절된 작업 수")
+                .tag("reason", "batch_full")
+                .register(meterRegistry);
+
+        Gauge.builder("ai_prediction_batch_pending", pending, AtomicInteger::get)
+                .description("묶음 전송 대기 + 전송 중인 AI 예측 수")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    /**
+     * 측정값 예측 요청 (바로 반환, 결과는 묶음 응답이 오면 완료)
+     * - AI 서버 오류는 예외 대신 success=false 응답으로 완료 (단건 requestPrediction과 같음)
+     *
+     * @throws RejectedExecutionException 대기 건수가 max-pending을 넘음
+     */
+    public CompletableFuture<AiPredictionResponse> submit(SensorDataDto sensorData) {
+        // 변환 중 예외가 나도 대기 건수가 새지 않도록 자리 확보 전에 먼저 만듦
+        PendingPrediction prediction = new PendingPrediction(
+                sensorInfoRegistry.getSugyeName(sensorData.getDeviceId()),
+                aiPredictionService.toDataPoint(sensorData),
+                new CompletableFuture<>());
+
+        if (pending.incrementAndGet() > maxPending) {
+            pending.decrementAndGet();
+            rejectedCounter.increment();
+            throw new RejectedExecutionException("AI 묶음 전송 대기 건수 초과: " + maxPending);
+        }
+
+        boolean flushNow;
+        synchronized (lock) {
+            queue.add(prediction);
+            flushNow = queue.size() >= maxBatchSize;
+            if (!flushNow && scheduledFlush == null) {
+                scheduledFlush = timer.schedule(this::flush, windowMs, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (flushNow) {
+            sender.execute(this::flush);
+        }
+        return prediction.result();
+    }
+
+    /**
+     * 대기 중인 측정값을 묶음으로 나눠 전송 (수계당 1개, 묶음당 최대 maxBatchSize개)
+     */
+    private void flush() {
+        List<List<PendingPrediction>> batches = new ArrayList<>();
+        synchronized (lock) {
+            if (scheduledFlush != null) {
+                scheduledFlush.cancel(false);
+                scheduledFlush = null;
+            }
+            while (!queue.isEmpty()) {
+                List<PendingPrediction> batch = new ArrayList<>();
+                Set<String> sugyeNames = new HashSet<>();
+                Iterator<PendingPrediction> it = queue.iterator();
+                while (it.hasNext() && batch.size() < maxBatchSize) {
+                    PendingPrediction prediction = it.next();
+                    if (sugyeNames.add(prediction.sugyeName())) {
+                        batch.add(prediction);
+                        it.remove();
+                    }
+                }
+                batches.add(batch);
+            }
+        }
+
+        for (List<PendingPrediction> batch : batches) {
+            try {
+                sender.execute(() -> send(batch));
+            } catch (RejectedExecutionException e) {
+                // 종료 중
+                batch.forEach(p -> finish(p, failure("AI 예측 전송기가 종료되었습니다")));
+            }
+        }
+    }
+
+    /**
+     * 묶음 요청 1건 전송 후 수계별 결과를 호출자에게 전달 (전송 가상 스레드)
+     */
+    private void send(List<PendingPrediction> batch) {
+        Map<String, List<AiPredictionRequest.SensorDataPoint>> allSensorData = new LinkedHashMap<>();
+        for (PendingPrediction prediction : batch) {
+            allSensorData.put(prediction.sugyeName(), List.of(prediction.point()));
+        }
+        AiPredictionRequest request = AiPredictionRequest.builder()
+                .all_sensor_data(allSensorData)
+                .build();
+
+        if (reactiveAiPredictionService.isEnabled()) {
+            // 논블로킹 전송 - 동시 요청 수는 ReactiveAiPredictionService가 제한, 실패도 응답으로 옴
+            batchSizeSummary.record(batch.size());
+            reactiveAiPredictionService.predict(request)
+                    .subscribe(response -> deliver(batch, response));
+            return;
+        }
+
+        boolean acquired = false;
+        try {
+            inFlight.acquire();
+            acquired = true;
+            batchSizeSummary.record(batch.size());
+
+            deliver(batch, aiPredictionService.sendPredictionRequest(request));
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            batch.forEach(p -> finish(p, failure("AI 예측 전송 중단")));
+
+        } catch (AiCircuitBreaker.CallNotPermittedException e) {
+            // 회로 차단 중 - AI 서버를 기다리지 않고 바로 대체 응답
+            log.debug("🚫 AI 묶음 예측 생략: {}개 수계, {}", batch.size(), e.getMessage());
+            deliver(batch, AiCircuitBreaker.fallback(e));
+
+        } catch (Exception e) {
+            log.error("❌ AI 묶음 예측 실패: {}개 수계", batch.size(), e);
+            batch.forEach(p -> finish(p, failure("AI 서버 통신 오류: " + e.getMessage())));
+
+        } finally {
+            if (acquired) {
+                inFlight.release();
+            }
+        }
+    }
+
+    private void deliver(List<PendingPrediction> batch, AiPredictionResponse response) {
+        log.debug("📦 AI 묶음 예측 완료: {}개 수계, success={}", batch.size(), response.isSuccess());
+        for (PendingPrediction prediction : batch) {
+            finish(prediction, sliceFor(prediction.sugyeName(), response));
+        }
+    }
+
+    /**
+     * 결과 전달 후 대기 건수 감소 (호출자의 후속 처리(결과 전송)까지 끝난 뒤 줄어듦)
+     */
+    private void finish(PendingPrediction prediction, AiPredictionResponse response) {
+        if (prediction.result().complete(response)) {
+            pending.decrementAndGet();
+        }
+    }
+
+    /**
+     * 묶음 응답에서 한 수계의 결과만 담은 응답
+     */
+    private AiPredictionResponse sliceFor(String sugyeName, AiPredictionResponse response) {
+        if (!response.isSuccess()) {
+            return failure(response.getErrorMessage());
+        }
+        Map<String, Object> predictions = response.getPredictions();
+        if (predictions == null || !predictions.containsKey(sugyeName)) {
+            return failure("AI 응답에 수계 결과가 없습니다: " + sugyeName);
+        }
+        Map<String, Object> single = new HashMap<>();
+        single.put(sugyeName, predictions.get(sugyeName));
+        return AiPredictionResponse.builder()
+                .success(true)
+                .predictions(single)
+                .build();
+    }
+
+    private AiPredictionResponse failure(String message) {
+        return AiPredictionResponse.builder()
+                .success(false)
+                .errorMessage(message)
+                .predictions(new HashMap<>())
+                .build();
+    }
+
+    /**
+     * 종료 시 남은 측정값 전송 후 정리
+     */
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        timer.shutdownNow();
+        sender.shutdown();
+        try {
+            if (!sender.awaitTermination(15, TimeUnit.SECONDS)) {
+                log.warn("⚠️ AI 묶음 전송 종료 대기 시간 초과: 남은 예측 {}건", pending.get());
+                sender.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            sender.shutdownNow();
+        }
+    }
+}
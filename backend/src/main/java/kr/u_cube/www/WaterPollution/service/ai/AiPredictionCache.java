@@ -0,0 +1,164 @@
+package kr.u_cube.www.WaterPollution.service.ai;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import kr.u_cube.www.WaterPollution.dto.ai.AiPredictionResponse;
+import kr.u_cube.www.WaterPollution.dto.sensor.SensorDataDto;
+import kr.u_cube.www.WaterPollution.service.monitoring.CustomMetricsService;
+import kr.u_cube.www.WaterPollution.service.sensor.SensorInfoRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * AI 예측 결과 캐시
+ * - 예측은 수계, 예측 기준 날짜, 측정값에만 달라짐 → (수계, 날짜, precision 단위로 반올림한 측정값 11개)를 키로 사용
+ * - 몇 초 간격으로 거의 같은 값이 들어오면 원격 예측 없이 저장된 결과 재사용
+ * - 같은 키의 요청이 진행 중이면 새로 보내지 않고 그 결과를 함께 받음 (single-flight)
+ * - ttl-seconds가 지나면 다시 예측, max-entries를 넘으면 오래 안 쓴 것부터 제거 (LRU)
+ * - 실패 응답은 저장하지 않음 (기다리던 호출에는 그대로 전달)
+ */
+@Component
+@Slf4j
+public class AiPredictionCache {
+
+    private final SensorInfoRegistry sensorInfoRegistry;
+    private final CustomMetricsService customMetricsService;
+
+    private final boolean enabled;
+    private final double precision;
+    private final long ttlNanos;
+
+    // 접근 순서 LinkedHashMap (entries로 동기화)
+    private final Map<String, Entry> entries;
+
+    private record Entry(CompletableFuture<AiPredictionResponse> result, long createdNanos) {
+    }
+
+    public AiPredictionCache(SensorInfoRegistry sensorInfoRegistry,
+            CustomMetricsService customMetricsService,
+            MeterRegistry meterRegistry,
+            @Value("${ai.cache.enabled:true}") boolean enabled,
+            @Value("${ai.cache.precision:0.01}") double precision,
+            @Value("${ai.cache.ttl-seconds:300}") long ttlSeconds,
+            @Value("${ai.cache.max-entries:10000}") int maxEntries) {
+        this.sensorInfoRegistry = sensorInfoRegistry;
+        this.customMetricsService = customMetricsService;
+        this.enabled = enabled;
+        this.precision = precision;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+
+        Gauge.builder("ai_prediction_cache_entries", this, AiPredictionCache::size)
+                .description("AI 예측 캐시에 저장된 결과 수 (진행 중 포함)")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 캐시된 결과 또는 진행 중인 같은 요청의 결과, 없으면 loader로 예측
+     *
+     * @param loader 실제 예측 요청 (캐시 미적중일 때만 호출, 던진 예외는 그대로 전달)
+     */
+    public CompletableFuture<AiPredictionResponse> get(SensorDataDto sensorData,
+            Supplier<CompletableFuture<AiPredictionResponse>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        String key = key(sensorData);
+        long now = System.nanoTime();
+        CompletableFuture<AiPredictionResponse> placeholder;
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && now - entry.createdNanos() < ttlNanos) {
+                if (entry.result().isDone()) {
+                    customMetricsService.recordPredictionCacheHit();
+                } else {
+                    customMetricsService.recordPredictionCacheShared();
+                }
+                return entry.result();
+            }
+            placeholder = new CompletableFuture<>();
+            entries.put(key, new Entry(placeholder, now));
+        }
+        customMetricsService.recordPredictionCacheMiss();
+
+        CompletableFuture<AiPredictionResponse> loaded;
+        try {
+            loaded = loader.get();
+        } catch (RuntimeException e) {
+            remove(key, placeholder);
+            placeholder.completeExceptionally(e);
+            throw e;
+        }
+
+        loaded.whenComplete((response, error) -> {
+            if (error != null || response == null || !response.isSuccess()) {
+                remove(key, placeholder);
+            }
+            if (error != null) {
+                placeholder.completeExceptionally(error);
+            } else {
+                placeholder.complete(response);
+            }
+        });
+        return placeholder;
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * 수계|날짜|반올림한 측정값 (AI 요청의 ds와 같은 오늘 날짜)
+     */
+    private String key(SensorDataDto data) {
+        StringBuilder sb = new StringBuilder(128)
+                .append(sensorInfoRegistry.getSugyeName(data.getDeviceId()))
+                .append('|').append(LocalDate.now())
+                .append('|');
+        appendQuantized(sb, data.getSs());
+        appendQuantized(sb, data.getBod());
+        appendQuantized(sb, data.getPh());
+        appendQuantized(sb, data.getTemperature());
+        appendQuantized(sb, data.getDoValue());
+        appendQuantized(sb, data.getEc());
+        appendQuantized(sb, data.getNo3n());
+        appendQuantized(sb, data.getTp());
+        appendQuantized(sb, data.getTn());
+        appendQuantized(sb, data.getChlorophyllA());
+        appendQuantized(sb, data.getCod());
+        return sb.toString();
+    }
+
+    private void appendQuantized(StringBuilder sb, double value) {
+        sb.append(Math.round(value / precision)).append(',');
+    }
+
+    /**
+     * 같은 항목일 때만 제거 (그 사이 새로 저장된 결과는 유지)
+     */
+    private void remove(String key, CompletableFuture<AiPredictionResponse> result) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.result() == result) {
+                entries.remove(key);
+            }
+        }
+    }
+}
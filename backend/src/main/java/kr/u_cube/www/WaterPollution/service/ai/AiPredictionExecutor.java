@@ -0,0 +1,150 @@
+package kr.u_cube.www.WaterPollution.service.ai;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * AI 예측 전용 실행기 (가상 스레드)
+ * - 이메일 발송 스레드 풀(emailTaskExecutor)과 완전히 분리
+ * - 작업마다 가상 스레드 1개, AI 서버로 동시에 나가는 요청 수는 Semaphore로 제한
+ * - 대기 중인 작업이 max-pending을 넘으면 바로 거절 (메모리 보호)
+ * - 묶음 전송(ai.batch)과 논블로킹 요청(ai.reactive)이 모두 꺼졌을 때만 쓰는 대체 경로
+ *   (둘 중 하나라도 켜져 있으면 작업이 들어오지 않아 ai.prediction.* 한도는 적용되지 않음)
+ */
+@Component
+@Slf4j
+public class AiPredictionExecutor {
+
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final int maxConcurrency;
+    private final int maxPending;
+    private final long acquireTimeoutMs;
+    private final long shutdownTimeoutMs;
+
+    private final AtomicInteger pending = new AtomicInteger();
+
+    // 메트릭
+    private final Timer queueWaitTimer;
+    private final Counter rejectedFullCounter;
+    private final Counter rejectedTimeoutCounter;
+
+    public AiPredictionExecutor(MeterRegistry meterRegistry,
+            @Value("${ai.prediction.max-concurrency:8}") int maxConcurrency,
+            @Value("${ai.prediction.max-pending:1000}") int maxPending,
+            @Value("${ai.prediction.acquire-timeout-ms:30000}") long acquireTimeoutMs,
+            @Value("${ai.prediction.shutdown-timeout-ms:15000}") long shutdownTimeoutMs) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("ai.prediction.max-concurrency는 1 이상이어야 합니다: " + maxConcurrency);
+        }
+
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("AiPredict-", 0).factory());
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.maxConcurrency = maxConcurrency;
+        this.maxPending = maxPending;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+
+        this.queueWaitTimer = Timer.builder("ai_prediction_queue_wait")
+                .description("AI 예측 작업이 동시 요청 제한 때문에 대기한 시간")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        this.rejectedFullCounter = Counter.builder("ai_prediction_rejected_total")
+                .description("AI 예측 실행기에서 거절된 작업 수")
+                .tag("reason", "pending_full")
+                .register(meterRegistry);
+
+        this.rejectedTimeoutCounter = Counter.builder("ai_prediction_rejected_total")
+                .description("AI 예측 실행기에서 거절된 작업 수")
+                .tag("reason", "acquire_timeout")
+                .register(meterRegistry);
+
+        Gauge.builder("ai_prediction_pending", pending, AtomicInteger::get)
+                .description("대기 + 실행 중인 AI 예측 작업 수")
+                .register(meterRegistry);
+
+        Gauge.builder("ai_prediction_in_flight", this, e -> e.maxConcurrency - e.permits.availablePermits())
+                .description("AI 서버로 요청 중인 작업 수")
+                .register(meterRegistry);
+    }
+
+    /**
+     * AI 예측 작업 제출 (호출 스레드는 바로 반환)
+     *
+     * @return 접수되면 true, 대기 작업이 가득 차서 거절되면 false
+     */
+    public boolean submit(Runnable task) {
+        if (pending.incrementAndGet() > maxPending) {
+            pending.decrementAndGet();
+            rejectedFullCounter.increment();
+            return false;
+        }
+
+        long submittedAt = System.nanoTime();
+        try {
+            executor.execute(() -> run(task, submittedAt));
+            return true;
+        } catch (RejectedExecutionException e) {
+            // 종료 중
+            pending.decrementAndGet();
+            rejectedFullCounter.increment();
+            return false;
+        }
+    }
+
+    private void run(Runnable task, long submittedAt) {
+        boolean acquired = false;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+            queueWaitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+            if (!acquired) {
+                rejectedTimeoutCounter.increment();
+                log.warn("⚠️ AI 예측 대기 시간 초과로 작업 거절 ({}ms)", acquireTimeoutMs);
+                return;
+            }
+            task.run();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("❌ AI 예측 작업 실행 실패", e);
+        } finally {
+            if (acquired) {
+                permits.release();
+            }
+            pending.decrementAndGet();
+        }
+    }
+
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(shutdownTimeoutMs, TimeUnit.MILLISECONDS)) {
+                log.warn("⚠️ AI 예측 작업 종료 대기 시간 초과: 남은 작업 {}건", pending.get());
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+    }
+}
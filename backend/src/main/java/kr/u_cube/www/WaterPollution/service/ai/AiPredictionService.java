@@ -4,8 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import kr.u_cube.www.WaterPollution.dto.ai.AiPredictionRequest;
 import kr.u_cube.www.WaterPollution.dto.ai.AiPredictionResponse;
 import kr.u_cube.www.WaterPollution.dto.sensor.SensorDataDto;
-import kr.u_cube.www.WaterPollution.entity.SensorInfo;
-import kr.u_cube.www.WaterPollution.repository.SensorInfoRepository;
+import kr.u_cube.www.WaterPollution.service.sensor.SensorInfoRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -17,6 +16,7 @@ import org.springframework.web.client.ResourceAccessException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @RequiredArgsConstructor
@@ -24,8 +24,11 @@ import java.util.*;
 public class AiPredictionService {
 
     private final RestTemplate restTemplate;
-    private final SensorInfoRepository sensorInfoRepository;
+    private final SensorInfoRegistry sensorInfoRegistry;
     private final ObjectMapper objectMapper;
+    private final AiCircuitBreaker aiCircuitBreaker;
+    private final AiHealthProber aiHealthProber;
+    private final AiPredictionCache aiPredictionCache;
 
     @Value("${AI_SERVER_URL}")
     private String aiServerUrl;
@@ -38,8 +41,14 @@ public class AiPredictionService {
 
     /**
      * 센서 데이터를 AI 서버로 보내서 예측값을 받아온다
+     * - 같은 수계/날짜/측정값(반올림 기준)의 결과가 캐시에 있거나 진행 중이면 그 결과 사용
      */
     public AiPredictionResponse requestPrediction(SensorDataDto sensorData) {
+        return aiPredictionCache.get(sensorData,
+                () -> CompletableFuture.completedFuture(fetchPrediction(sensorData))).join();
+    }
+
+    private AiPredictionResponse fetchPrediction(SensorDataDto sensorData) {
         try {
             log.info("🤖 AI 예측 요청 시작: deviceId={}", sensorData.getDeviceId());
             
@@ -54,6 +63,11 @@ public class AiPredictionService {
             
             return response;
             
+        } catch (AiCircuitBreaker.CallNotPermittedException e) {
+            // 회로 차단 중 - AI 서버를 기다리지 않고 바로 대체 응답
+            log.debug("🚫 AI 예측 생략: deviceId={}, {}", sensorData.getDeviceId(), e.getMessage());
+            return AiCircuitBreaker.fallback(e);
+
         } catch (Exception e) {
             log.error("❌ AI 예측 요청 실패: deviceId={}", sensorData.getDeviceId(), e);
             
@@ -70,13 +84,28 @@ public class AiPredictionService {
      */
     private AiPredictionRequest convertToAiRequest(SensorDataDto sensorData) {
         // 수계 정보 조회 (없으면 deviceId 사용)
-        String sugyeName = getSugyeName(sensorData.getDeviceId());
+        String sugyeName = sensorInfoRegistry.getSugyeName(sensorData.getDeviceId());
         
+        // 센서 데이터 포인트 생성
+        AiPredictionRequest.SensorDataPoint dataPoint = toDataPoint(sensorData);
+
+        // 수계별 데이터 맵 생성
+        Map<String, List<AiPredictionRequest.SensorDataPoint>> allSensorData = new HashMap<>();
+        allSensorData.put(sugyeName, Arrays.asList(dataPoint));
+
+        return AiPredictionRequest.builder()
+                .all_sensor_data(allSensorData)
+                .build();
+    }
+
+    /**
+     * 센서 데이터 1건을 AI 요청의 데이터 포인트로 변환 (ds = 오늘 날짜)
+     */
+    AiPredictionRequest.SensorDataPoint toDataPoint(SensorDataDto sensorData) {
         // 현재 날짜를 문자열로 변환
         String currentDate = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-        
-        // 센서 데이터 포인트 생성
-        AiPredictionRequest.SensorDataPoint dataPoint = AiPredictionRequest.SensorDataPoint.builder()
+
+        return AiPredictionRequest.SensorDataPoint.builder()
                 .ds(currentDate)
                 .ss(sensorData.getSs())
                 .bod(sensorData.getBod())
@@ -90,20 +119,27 @@ public class AiPredictionService {
                 .chlorophyll_a(sensorData.getChlorophyllA())
                 .cod(sensorData.getCod())
                 .build();
-
-        // 수계별 데이터 맵 생성
-        Map<String, List<AiPredictionRequest.SensorDataPoint>> allSensorData = new HashMap<>();
-        allSensorData.put(sugyeName, Arrays.asList(dataPoint));
-
-        return AiPredictionRequest.builder()
-                .all_sensor_data(allSensorData)
-                .build();
     }
 
     /**
-     * AI 서버로 예측 요청 전송
+     * AI 서버로 예측 요청 전송 (수계 여러 개를 담은 묶음 요청도 같은 엔드포인트)
+     * - 회로 차단기 허가를 받은 뒤 호출하고 결과를 알림
+     *
+     * @throws AiCircuitBreaker.CallNotPermittedException 회로 차단 중이거나 동시 호출 한도 초과
      */
-    private AiPredictionResponse sendPredictionRequest(AiPredictionRequest request) {
+    AiPredictionResponse sendPredictionRequest(AiPredictionRequest request) {
+        AiCircuitBreaker.Permit permit = aiCircuitBreaker.acquire();
+        try {
+            AiPredictionResponse response = exchange(request);
+            permit.onSuccess();
+            return response;
+        } catch (RuntimeException e) {
+            permit.onFailure();
+            throw e;
+        }
+    }
+
+    private AiPredictionResponse exchange(AiPredictionRequest request) {
         try {
             // HTTP 헤더 설정
             HttpHeaders headers = new HttpHeaders();
@@ -150,37 +186,16 @@ public class AiPredictionService {
     }
 
     /**
-     * deviceId로부터 수계명을 조회 (기본값: deviceId)
+     * AI 서버 상태 (AiHealthProber가 주기적으로 확인한 마지막 결과)
      */
-    private String getSugyeName(String deviceId) {
-        try {
-            Optional<SensorInfo> sensorInfo = sensorInfoRepository.findByDeviceId(deviceId);
-            if (sensorInfo.isPresent()) {
-                String name = sensorInfo.get().getName();
-                // 수계명 추출 로직 (예: "한강-서울" -> "한강")
-                if (name != null && name.contains("-")) {
-                    return name.split("-")[0];
-                }
-                return name != null ? name : deviceId;
-            }
-            return deviceId;
-        } catch (Exception e) {
-            log.warn("⚠️ 수계명 조회 실패, deviceId 사용: {}", deviceId, e);
-            return deviceId;
-        }
+    public boolean isAiServerHealthy() {
+        return aiHealthProber.isHealthy();
     }
 
     /**
-     * AI 서버 상태 확인
+     * AI 회로 차단기 상태
      */
-    public boolean isAiServerHealthy() {
-        try {
-            String healthUrl = aiServerUrl + "/health";
-            ResponseEntity<String> response = restTemplate.getForEntity(healthUrl, String.class);
-            return response.getStatusCode() == HttpStatus.OK;
-        } catch (Exception e) {
-            log.warn("🔍 AI 서버 상태 확인 실패: {}", e.getMessage());
-            return false;
-        }
+    public AiCircuitBreaker.State getCircuitState() {
+        return aiCircuitBreaker.getState();
     }
 }
\ No newline at end of file
@@ -0,0 +1,231 @@
+package kr.u_cube.www.WaterPollution.service.ai;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import kr.u_cube.www.WaterPollution.dto.ai.AiPredictionRequest;
+import kr.u_cube.www.WaterPollution.dto.ai.AiPredictionResponse;
+import kr.u_cube.www.WaterPollution.dto.ai.AiSugyeForecast;
+import kr.u_cube.www.WaterPollution.dto.sensor.SensorDataDto;
+import kr.u_cube.www.WaterPollution.service.sensor.SensorInfoRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+
+/**
+ * AI 예측 요청 (WebClient, 논블로킹)
+ * - 요청은 하나의 대기열(Sink)로 모이고 flatMap(maxConcurrency)로 동시 요청 수를 제한
+ * - 요청마다 timeout 적용, 응답은 AiSugyeForecast 레코드로 바로 디코딩
+ * - 응답을 기다리는 동안 스레드를 잡지 않음 (결과 처리는 Netty 이벤트 루프에서 이어서 실행)
+ * - 실패는 에러 신호 대신 success=false 응답으로 전달 (블로킹 requestPrediction과 같음)
+ */
+@Service
+@Slf4j
+public class ReactiveAiPredictionService {
+
+    private static final ParameterizedTypeReference<Map<String, AiSugyeForecast>> RESPONSE_TYPE =
+            new ParameterizedTypeReference<>() {
+            };
+
+    private final WebClient aiWebClient;
+    private final AiPredictionService aiPredictionService;
+    private final SensorInfoRegistry sensorInfoRegistry;
+    private final AiCircuitBreaker aiCircuitBreaker;
+
+    private final boolean enabled;
+    private final String predictionEndpoint;
+    private final Duration requestTimeout;
+
+    private final Sinks.Many<PendingCall> calls;
+    private final Disposable pipeline;
+
+    // 대기 + 요청 중인 예측 수
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final Counter rejectedCounter;
+
+    private record PendingCall(AiPredictionRequest request, MonoSink<AiPredictionResponse> sink) {
+    }
+
+    public ReactiveAiPredictionService(@Qualifier("aiWebClient") WebClient aiWebClient,
+            AiPredictionService aiPredictionService,
+            SensorInfoRegistry sensorInfoRegistry,
+            AiCircuitBreaker aiCircuitBreaker,
+            MeterRegistry meterRegistry,
+            @Value("${ai.reactive.enabled:true}") boolean enabled,
+            @Value("${AI_PREDICTION_ENDPOINT:/predict/all_with_sensors}") String predictionEndpoint,
+            @Value("${ai.reactive.max-concurrency:16}") int maxConcurrency,
+            @Value("${ai.reactive.max-pending:4096}") int maxPending,
+            @Value("${ai.reactive.timeout-ms:${ai.server.timeout:10000}}") long timeoutMs) {
+        this.aiWebClient = aiWebClient;
+        this.aiPredictionService = aiPredictionService;
+        this.sensorInfoRegistry = sensorInfoRegistry;
+        this.aiCircuitBreaker = aiCircuitBreaker;
+        this.enabled = enabled;
+        this.predictionEndpoint = predictionEndpoint;
+        this.requestTimeout = Duration.ofMillis(timeoutMs);
+
+        // 여러 스레드에서 넣으므로 emit은 synchronized로 직렬화 (용량 초과 시 거절)
+        this.calls = Sinks.many().unicast().onBackpressureBuffer(Queues.<PendingCall>get(maxPending).get());
+        this.pipeline = calls.asFlux()
+                .flatMap(this::execute, maxConcurrency)
+                .subscribe();
+
+        this.rejectedCounter = Counter.builder("ai_prediction_rejected_total")
+                .description("AI 예측 실행기에서 거절된 작업 수")
+                .tag("reason", "reactive_full")
+                .register(meterRegistry);
+
+        Gauge.builder("ai_reactive_pending", pending, AtomicInteger::get)
+                .description("대기 + 요청 중인 논블로킹 AI 예측 수")
+                .register(meterRegistry);
+
+        Gauge.builder("ai_reactive_in_flight", inFlight, AtomicInteger::get)
+                .description("AI 서버로 요청 중인 논블로킹 예측 수")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    /**
+     * 센서 데이터 1건 예측
+     */
+    public Mono<AiPredictionResponse> requestPrediction(SensorDataDto sensorData) {
+        Map<String, List<AiPredictionRequest.SensorDataPoint>> allSensorData = new HashMap<>();
+        allSensorData.put(sensorInfoRegistry.getSugyeName(sensorData.getDeviceId()),
+                List.of(aiPredictionService.toDataPoint(sensorData)));
+
+        return predict(AiPredictionRequest.builder()
+                .all_sensor_data(allSensorData)
+                .build());
+    }
+
+    /**
+     * 요청 그대로 예측 (묶음 요청 포함) - 구독 시점에 대기열에 들어감
+     */
+    public Mono<AiPredictionResponse> predict(AiPredictionRequest request) {
+        return Mono.create(sink -> {
+            pending.incrementAndGet();
+            Sinks.EmitResult result;
+            synchronized (calls) {
+                result = calls.tryEmitNext(new PendingCall(request, sink));
+            }
+            if (result.isFailure()) {
+                pending.decrementAndGet();
+                rejectedCounter.increment();
+                log.warn("⚠️ 논블로킹 AI 예측 대기열이 가득 참: {}", result);
+                sink.success(failure("AI 예측 대기 건수 초과"));
+            }
+        });
+    }
+
+    /**
+     * AI 서버 호출 1건 (flatMap 안에서 실행, 오류는 실패 응답으로 바꿔 파이프라인을 끊지 않음)
+     * - 회로 차단 중이면 호출하지 않고 바로 대체 응답
+     */
+    private Mono<Void> execute(PendingCall call) {
+        AiCircuitBreaker.Permit permit;
+        try {
+            permit = aiCircuitBreaker.acquire();
+        } catch (AiCircuitBreaker.CallNotPermittedException e) {
+            deliver(call, AiCircuitBreaker.fallback(e));
+            return Mono.empty();
+        }
+
+        inFlight.incrementAndGet();
+        AtomicReference<AiPredictionResponse> received = new AtomicReference<>();
+        return aiWebClient.post()
+                .uri(predictionEndpoint)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .bodyValue(call.request())
+                .retrieve()
+                .bodyToMono(RESPONSE_TYPE)
+                .timeout(requestTimeout)
+                .map(this::toResponse)
+                .defaultIfEmpty(failure("AI 서버 응답이 비어 있습니다"))
+                .doOnNext(response -> permit.onSuccess())
+                .onErrorResume(e -> {
+                    permit.onFailure();
+                    log.error("❌ 논블로킹 AI 예측 요청 실패: {}", e.toString());
+                    return Mono.just(failure("AI 서버 통신 오류: " + e.getMessage()));
+                })
+                .doOnNext(received::set)
+                .doFinally(signal -> {
+                    // 완료/오류/취소(파이프라인 종료 등) 모두 여기서 한 번만 정리 - 호출자는 항상 응답을 받음
+                    inFlight.decrementAndGet();
+                    AiPredictionResponse response = received.get();
+                    if (response == null) {
+                        // 응답 전에 끝남 (취소) - 회로 차단기 결과도 아직 기록되지 않음
+                        permit.onFailure();
+                        response = failure("AI 예측 요청이 취소되었습니다: " + signal);
+                    }
+                    deliver(call, response);
+                })
+                .then();
+    }
+
+    private void deliver(PendingCall call, AiPredictionResponse response) {
+        try {
+            call.sink().success(response);
+        } finally {
+            // 호출자의 후속 처리(결과 전송)까지 끝난 뒤 줄어듦
+            pending.decrementAndGet();
+        }
+    }
+
+    /**
+     * 수계별 레코드 → 기존 응답 형식 (정상: List<WqiForecast>, 오류: 에러 메시지 String)
+     */
+    private AiPredictionResponse toResponse(Map<String, AiSugyeForecast> body) {
+        Map<String, Object> predictions = new LinkedHashMap<>();
+        body.forEach((sugyeName, forecast) -> predictions.put(sugyeName,
+                forecast.isError() ? forecast.errorMessage() : forecast.forecasts()));
+        return AiPredictionResponse.builder()
+                .success(true)
+                .predictions(predictions)
+                .build();
+    }
+
+    private AiPredictionResponse failure(String message) {
+        return AiPredictionResponse.builder()
+                .success(false)
+                .errorMessage(message)
+                .predictions(new HashMap<>())
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        synchronized (calls) {
+            calls.tryEmitComplete();
+        }
+        pipeline.dispose();
+    }
+}
@@ -9,7 +9,7 @@ import kr.u_cube.www.WaterPollution.entity.SensorData;
 import kr.u_cube.www.WaterPollution.entity.SensorInfo;
 import kr.u_cube.www.WaterPollution.repository.SensorAlertRepository;
 import kr.u_cube.www.WaterPollution.repository.SensorDataRepository;
-import kr.u_cube.www.WaterPollution.repository.SensorInfoRepository;
+import kr.u_cube.www.WaterPollution.service.sensor.SensorInfoRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -23,7 +23,7 @@ public class AlertManagementService {
     
     private final SensorAlertRepository sensorAlertRepository;
     private final SensorDataRepository sensorDataRepository;
-    private final SensorInfoRepository sensorInfoRepository;
+    private final SensorInfoRegistry sensorInfoRegistry;
     private final BatchEmailService batchEmailService;
     
     /**
@@ -83,7 +83,8 @@ public class AlertManagementService {
      */
     private void createNewAlert(SensorDataDto sensorData, String aiPrediction, AlertLevel alertLevel) {
         // SensorInfo 조회 (필수)
-        SensorInfo sensorInfo = sensorInfoRepository.findByDeviceId(sensorData.getDeviceId())
+        SensorInfo sensorInfo = sensorInfoRegistry.find(sensorData.getDeviceId())
+                .map(SensorInfoRegistry.Entry::sensorInfo)
                 .orElseThrow(() -> new RuntimeException("센서 정보를 찾을 수 없습니다: " + sensorData.getDeviceId()));
         
         // 최근 저장된 SensorData 조회 (참조용)
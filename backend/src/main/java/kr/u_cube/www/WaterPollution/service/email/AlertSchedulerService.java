@@ -3,6 +3,8 @@ package kr.u_cube.www.WaterPollution.service.email;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import kr.u_cube.www.WaterPollution.service.sensor.SensorDataPartitionManager;
+import kr.u_cube.www.WaterPollution.service.sensor.SensorRollupService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -12,6 +14,8 @@ import lombok.extern.slf4j.Slf4j;
 public class AlertSchedulerService {
     
     private final BatchEmailService batchEmailService;
+    private final SensorDataPartitionManager sensorDataPartitionManager;
+    private final SensorRollupService sensorRollupService;
     
     /**
      * 매 시간 0분에 주의 단계 센서들의 배치 이메일 발송
@@ -65,6 +69,20 @@ public class AlertSchedulerService {
     public void dailyAlertCleanup() {
         log.info("🧹 [스케줄러] 일일 알림 정리 작업 시작");
         
+        // sensor_data 파티션 관리: 미래 파티션 생성 + 보존 기간 지난 파티션 삭제/아카이브
+        try {
+            sensorDataPartitionManager.maintainPartitions();
+        } catch (Exception e) {
+            log.error("❌ [스케줄러] sensor_data 파티션 관리 실패", e);
+        }
+        
+        // 보존 기간 지난 1분 집계 정리
+        try {
+            sensorRollupService.purgeExpired();
+        } catch (Exception e) {
+            log.error("❌ [스케줄러] 센서 데이터 집계 정리 실패", e);
+        }
+        
         // TODO: 필요시 구현
         // - 30일 이상 된 해결된 알림들 아카이브
         // - 통계 데이터 생성
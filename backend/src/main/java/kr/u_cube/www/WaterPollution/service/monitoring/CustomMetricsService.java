@@ -3,12 +3,25 @@ package kr.u_cube.www.WaterPollution.service.monitoring;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import kr.u_cube.www.WaterPollution.repository.SensorDataRepository;
 import kr.u_cube.www.WaterPollution.repository.SensorAlertRepository;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
 @Service
+@Slf4j
 // @RequiredArgsConstructor 제거 - 수동 생성자 사용
 public class CustomMetricsService {
 
@@ -20,15 +33,39 @@ public class CustomMetricsService {
     private final Counter sensorDataReceivedCounter;
     private final Counter csvDownloadCounter;
     private final Counter excelDownloadCounter;
+    private final Counter parquetDownloadCounter;
     private final Counter emailSentCounter;
 
+    // 센서 메시지 단계별 지연 시간
+    private final Map<SensorMessageStage, Timer> stageTimers = new EnumMap<>(SensorMessageStage.class);
+    private final Timer messageTotalTimer;
+    private final Counter slowMessageCounter;
+
+    // AI 예측 캐시 (적중 = 저장된 결과, 공유 = 같은 요청이 진행 중이라 결과를 함께 받음)
+    private final Counter predictionCacheHitCounter;
+    private final Counter predictionCacheSharedCounter;
+    private final Counter predictionCacheMissCounter;
+
+    // 수계별 측정 → WebSocket 전송 지연 (밀리초)
+    private final Map<String, AtomicLong> publishLagBySugye = new ConcurrentHashMap<>();
+
+    // 느린 메시지 샘플링 (임계값 초과 시 단계별 내역 로그, 로그 간격 제한)
+    private final long slowThresholdNanos;
+    private final long slowLogIntervalNanos;
+    private final AtomicLong lastSlowLogNanos = new AtomicLong();
+
     // 수동 생성자만 사용
     public CustomMetricsService(MeterRegistry meterRegistry,
             SensorDataRepository sensorDataRepository,
-            SensorAlertRepository sensorAlertRepository) {
+            SensorAlertRepository sensorAlertRepository,
+            @Value("${monitoring.slow-message.threshold-ms:2000}") long slowThresholdMs,
+            @Value("${monitoring.slow-message.log-interval-ms:1000}") long slowLogIntervalMs) {
         this.meterRegistry = meterRegistry;
         this.sensorDataRepository = sensorDataRepository;
         this.sensorAlertRepository = sensorAlertRepository;
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMs);
+        this.slowLogIntervalNanos = TimeUnit.MILLISECONDS.toNanos(slowLogIntervalMs);
+        this.lastSlowLogNanos.set(System.nanoTime() - slowLogIntervalNanos);
 
         // 카운터 초기화
         this.sensorDataReceivedCounter = Counter.builder("sensor_data_received_total")
@@ -43,10 +80,36 @@ public class CustomMetricsService {
                 .description("Excel 다운로드 총 횟수")
                 .register(meterRegistry);
 
+        this.parquetDownloadCounter = Counter.builder("parquet_download_total")
+                .description("Parquet 다운로드 총 횟수")
+                .register(meterRegistry);
+
         this.emailSentCounter = Counter.builder("email_sent_total")
                 .description("발송된 이메일 총 수")
                 .register(meterRegistry);
 
+        // 단계별 타이머 초기화
+        for (SensorMessageStage stage : SensorMessageStage.values()) {
+            stageTimers.put(stage, Timer.builder("sensor_message_stage_latency")
+                    .description("센서 메시지 처리 단계별 소요 시간")
+                    .tag("stage", stage.getTag())
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+
+        this.messageTotalTimer = Timer.builder("sensor_message_total_latency")
+                .description("센서 메시지 수신부터 예측 결과 전송까지 소요 시간")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        this.slowMessageCounter = Counter.builder("sensor_message_slow_total")
+                .description("처리 시간이 임계값을 넘은 센서 메시지 수")
+                .register(meterRegistry);
+
+        this.predictionCacheHitCounter = predictionCacheCounter("hit");
+        this.predictionCacheSharedCounter = predictionCacheCounter("shared");
+        this.predictionCacheMissCounter = predictionCacheCounter("miss");
+
         // 게이지 메트릭 등록
         registerGaugeMetrics();
     }
@@ -69,6 +132,18 @@ public class CustomMetricsService {
         Gauge.builder("unresolved_alert_count", this, CustomMetricsService::getUnresolvedAlertCount)
                 .description("해결되지 않은 알림 수")
                 .register(meterRegistry);
+
+        // AI 예측 캐시 적중률 (공유 포함)
+        Gauge.builder("ai_prediction_cache_hit_ratio", this, CustomMetricsService::getPredictionCacheHitRatio)
+                .description("AI 예측 중 원격 호출 없이 처리된 비율 (캐시 적중 + 진행 중 요청 공유)")
+                .register(meterRegistry);
+    }
+
+    private Counter predictionCacheCounter(String result) {
+        return Counter.builder("ai_prediction_cache_requests_total")
+                .description("AI 예측 캐시 조회 수")
+                .tag("result", result)
+                .register(meterRegistry);
     }
 
     // === 카운터 메트릭 증가 메서드들 ===
@@ -85,10 +160,100 @@ public class CustomMetricsService {
         excelDownloadCounter.increment();
     }
 
+    public void incrementParquetDownload() {
+        parquetDownloadCounter.increment();
+    }
+
     public void incrementEmailSent() {
         emailSentCounter.increment();
     }
 
+    // === AI 예측 캐시 ===
+
+    public void recordPredictionCacheHit() {
+        predictionCacheHitCounter.increment();
+    }
+
+    public void recordPredictionCacheShared() {
+        predictionCacheSharedCounter.increment();
+    }
+
+    public void recordPredictionCacheMiss() {
+        predictionCacheMissCounter.increment();
+    }
+
+    /**
+     * AI 예측 캐시 적중률 (0 ~ 1, 조회가 없으면 0)
+     */
+    public double getPredictionCacheHitRatio() {
+        double served = predictionCacheHitCounter.count() + predictionCacheSharedCounter.count();
+        double total = served + predictionCacheMissCounter.count();
+        return total == 0 ? 0 : served / total;
+    }
+
+    // === 센서 메시지 단계별 지연 시간 ===
+
+    /**
+     * 단계 소요 시간 기록 (타이머 + 메시지별 기록)
+     */
+    public void recordStage(SensorMessageTrace trace, SensorMessageStage stage, long nanos) {
+        stageTimers.get(stage).record(nanos, TimeUnit.NANOSECONDS);
+        if (trace != null) {
+            trace.record(stage, nanos);
+        }
+    }
+
+    /**
+     * 메시지 처리 완료 (예측 결과 전송 후 호출)
+     * - 수계별 측정 → 전송 지연 갱신
+     * - 전체 소요 시간이 임계값을 넘으면 단계별 내역 로그 (로그 간격 제한)
+     */
+    public void completeMessage(SensorMessageTrace trace, String sugyeName) {
+        if (trace == null) {
+            return;
+        }
+
+        if (trace.getMeasuredAt() != null && sugyeName != null) {
+            long lagMillis = Duration.between(trace.getMeasuredAt(), LocalDateTime.now()).toMillis();
+            publishLagBySugye.computeIfAbsent(sugyeName, this::registerPublishLagGauge).set(lagMillis);
+        }
+
+        long totalNanos = System.nanoTime() - trace.getReceivedNanos();
+        messageTotalTimer.record(totalNanos, TimeUnit.NANOSECONDS);
+
+        if (totalNanos >= slowThresholdNanos) {
+            slowMessageCounter.increment();
+            logSlowMessage(trace, totalNanos);
+        }
+    }
+
+    private AtomicLong registerPublishLagGauge(String sugyeName) {
+        AtomicLong lagMillis = new AtomicLong();
+        Gauge.builder("sensor_measured_to_published_lag_seconds", lagMillis, v -> v.get() / 1000.0)
+                .description("수계별 측정 시각부터 예측 결과 전송까지의 지연 (최근 메시지 기준)")
+                .tag("sugye", sugyeName)
+                .register(meterRegistry);
+        return lagMillis;
+    }
+
+    private void logSlowMessage(SensorMessageTrace trace, long totalNanos) {
+        long now = System.nanoTime();
+        long last = lastSlowLogNanos.get();
+        if (now - last < slowLogIntervalNanos || !lastSlowLogNanos.compareAndSet(last, now)) {
+            return;
+        }
+
+        StringBuilder breakdown = new StringBuilder();
+        for (SensorMessageStage stage : SensorMessageStage.values()) {
+            breakdown.append(stage.getTag()).append('=')
+                    .append(TimeUnit.NANOSECONDS.toMillis(trace.getStageNanos(stage))).append("ms ");
+        }
+        breakdown.append("wait=").append(TimeUnit.NANOSECONDS.toMillis(totalNanos - trace.getStageTotalNanos())).append("ms");
+
+        log.warn("🐢 느린 센서 메시지: deviceId={}, total={}ms, {}",
+                trace.getDeviceId(), TimeUnit.NANOSECONDS.toMillis(totalNanos), breakdown);
+    }
+
     // === 게이지 메트릭 값 제공 메서드들 ===
 
     private double getTotalSensorDataCount() {
@@ -0,0 +1,23 @@
+package kr.u_cube.www.WaterPollution.service.monitoring;
+
+/**
+ * 센서 메시지 처리 단계 (단계별 지연 시간 메트릭 태그)
+ */
+public enum SensorMessageStage {
+    PARSE("parse"),       // 페이로드 디코딩 (MQTT 콜백 스레드)
+    LOOKUP("lookup"),     // 센서 정보 조회 (레지스트리)
+    PERSIST("persist"),   // DB 저장 요청 (배치 저장기 버퍼 투입, 버퍼 포화 시 직접 저장)
+    ALERT("alert"),       // 임계값 알림 체크
+    AI("ai"),             // AI 서버 예측 왕복
+    PUBLISH("publish");   // WebSocket 메시지 변환 + 전송
+
+    private final String tag;
+
+    SensorMessageStage(String tag) {
+        this.tag = tag;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+}
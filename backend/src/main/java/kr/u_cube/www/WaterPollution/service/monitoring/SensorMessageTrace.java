@@ -0,0 +1,66 @@
+package kr.u_cube.www.WaterPollution.service.monitoring;
+
+import java.time.LocalDateTime;
+
+/**
+ * 센서 메시지 1건의 단계별 소요 시간 기록
+ * - 수신(디코딩 시작) 시각부터 WebSocket 전송까지 스레드를 넘겨 가며 이어서 기록
+ * - 단계는 순서대로 한 스레드씩만 기록하므로 별도 동기화 없음 (큐/실행기 전달이 가시성 보장)
+ */
+public class SensorMessageTrace {
+
+    private final String deviceId;
+    private final LocalDateTime measuredAt;
+    private final long receivedNanos;
+    private final boolean replayed;
+    private final long[] stageNanos = new long[SensorMessageStage.values().length];
+
+    public SensorMessageTrace(String deviceId, LocalDateTime measuredAt, long receivedNanos) {
+        this(deviceId, measuredAt, receivedNanos, false);
+    }
+
+    public SensorMessageTrace(String deviceId, LocalDateTime measuredAt, long receivedNanos, boolean replayed) {
+        this.deviceId = deviceId;
+        this.measuredAt = measuredAt;
+        this.receivedNanos = receivedNanos;
+        this.replayed = replayed;
+    }
+
+    void record(SensorMessageStage stage, long nanos) {
+        stageNanos[stage.ordinal()] += nanos;
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public LocalDateTime getMeasuredAt() {
+        return measuredAt;
+    }
+
+    public long getReceivedNanos() {
+        return receivedNanos;
+    }
+
+    /**
+     * WAL replay로 다시 들어온 메시지인지 여부
+     */
+    public boolean isReplayed() {
+        return replayed;
+    }
+
+    public long getStageNanos(SensorMessageStage stage) {
+        return stageNanos[stage.ordinal()];
+    }
+
+    /**
+     * 단계 합계 (나머지는 큐 대기, 실행기 대기 등 단계 사이의 시간)
+     */
+    public long getStageTotalNanos() {
+        long total = 0;
+        for (long nanos : stageNanos) {
+            total += nanos;
+        }
+        return total;
+    }
+}
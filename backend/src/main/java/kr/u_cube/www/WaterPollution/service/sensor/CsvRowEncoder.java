@@ -0,0 +1,321 @@
+package kr.u_cube.www.WaterPollution.service.sensor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import kr.u_cube.www.WaterPollution.dto.HistoryDataDto;
+
+/**
+ * 이력 CSV 행 인코더 (다운로드 전용)
+ * - 재사용 바이트 버퍼에 UTF-8 바이트를 바로 씀 → 행마다 String/String[] 생성 없음
+ * - 출력은 OpenCSV 기본 설정(모든 필드 따옴표, 따옴표는 두 번, 줄끝 \n) + String.format("%.2f")와 같음
+ * - 측정소 메타데이터(디바이스ID ~ 위치)는 디바이스별로 따옴표 처리한 바이트를 한 번만 만들어 재사용
+ * - 측정 시각은 직전 행과 같은 분이면 앞부분(yyyy-MM-dd HH:mm:)을 재사용하고 초만 씀
+ * - 스레드 안전하지 않음 (내보내기 한 건 / 조각 하나당 하나씩 사용)
+ */
+final class CsvRowEncoder {
+
+    private static final byte QUOTE = '"';
+    private static final byte SEPARATOR = ',';
+    private static final byte LINE_END = '\n';
+
+    // 이 범위 안에서는 x100 곱셈 오차가 반올림 경계 판정 허용치보다 작음
+    private static final double FAST_FORMAT_LIMIT = 1e7;
+    private static final double HALF_TOLERANCE = 1e-6;
+
+    // "yyyy-MM-dd HH:mm:" 길이
+    private static final int MINUTE_PREFIX_LENGTH = 17;
+
+    private final OutputStream out;
+    private final byte[] buffer;
+    private int position;
+    private long flushed; // out으로 보낸 바이트 수
+
+    private final Map<String, byte[]> stationFields = new HashMap<>();
+
+    private final byte[] minutePrefix = new byte[MINUTE_PREFIX_LENGTH];
+    private int prefixYear = -1;
+    private int prefixMonth;
+    private int prefixDay;
+    private int prefixHour;
+    private int prefixMinute;
+
+    CsvRowEncoder(OutputStream out, int bufferSize) {
+        this.out = out;
+        this.buffer = new byte[bufferSize];
+    }
+
+    /**
+     * 헤더처럼 임의 문자열 필드로 된 행 (행마다 쓰는 용도가 아님)
+     */
+    void writeFields(String[] fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                put(SEPARATOR);
+            }
+            writeBytes(quote(fields[i]));
+        }
+        put(LINE_END);
+    }
+
+    /**
+     * 이력 한 행 (번호, 측정소 정보, 측정 시각, 측정 항목 11개)
+     */
+    void writeRow(long rowNumber, HistoryDataDto data) throws IOException {
+        writeRowNumber(rowNumber);
+        writeRowTail(data);
+    }
+
+    /**
+     * 번호 컬럼 + writeRowTail로 미리 인코딩해 둔 한 행 (병렬 조각을 이어 쓸 때 번호를 여기서 매김)
+     */
+    void writeNumberedRow(long rowNumber, byte[] tail, int offset, int length) throws IOException {
+        writeRowNumber(rowNumber);
+        writeBytes(tail, offset, length);
+    }
+
+    /**
+     * 번호 컬럼을 뺀 나머지 (,측정소 정보,측정 시각,측정 항목 11개 + 줄끝)
+     */
+    void writeRowTail(HistoryDataDto data) throws IOException {
+        put(SEPARATOR);
+        writeBytes(stationFields(data));
+
+        put(QUOTE);
+        if (data.getMeasuredAt() != null) {
+            writeTimestamp(data.getMeasuredAt());
+        }
+        put(QUOTE);
+
+        writeValue(data.getPh());
+        writeValue(data.getDoValue());
+        writeValue(data.getTemperature());
+        writeValue(data.getEc());
+        writeValue(data.getBod());
+        writeValue(data.getCod());
+        writeValue(data.getTp());
+        writeValue(data.getTn());
+        writeValue(data.getSs());
+        writeValue(data.getChlorophyllA());
+        writeValue(data.getNo3n());
+        put(LINE_END);
+    }
+
+    /**
+     * 지금까지 인코딩한 바이트 수 (버퍼에 남은 것 포함)
+     */
+    long written() {
+        return flushed + position;
+    }
+
+    /**
+     * 버퍼에 남은 바이트를 출력 스트림으로 보냄
+     */
+    void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    private void writeRowNumber(long rowNumber) throws IOException {
+        put(QUOTE);
+        writeLong(rowNumber);
+        put(QUOTE);
+    }
+
+    // === 필드별 인코딩 ===
+
+    /**
+     * "디바이스ID","측정소코드","측정소명","측정망종류","위도","경도","위치", (끝 구분자 포함)
+     */
+    private byte[] stationFields(HistoryDataDto data) {
+        String deviceId = data.getDeviceId() != null ? data.getDeviceId() : "";
+        byte[] fields = stationFields.get(deviceId);
+        if (fields == null) {
+            StringBuilder sb = new StringBuilder(128);
+            appendQuoted(sb, deviceId).append(',');
+            appendQuoted(sb, data.getPtno()).append(',');
+            appendQuoted(sb, data.getName()).append(',');
+            appendQuoted(sb, data.getType()).append(',');
+            appendQuoted(sb, String.valueOf(data.getLat())).append(',');
+            appendQuoted(sb, String.valueOf(data.getLon())).append(',');
+            appendQuoted(sb, data.getLocation()).append(',');
+            fields = sb.toString().getBytes(StandardCharsets.UTF_8);
+            stationFields.put(deviceId, fields);
+        }
+        return fields;
+    }
+
+    /**
+     * yyyy-MM-dd HH:mm:ss
+     */
+    private void writeTimestamp(LocalDateTime measuredAt) throws IOException {
+        if (measuredAt.getYear() != prefixYear || measuredAt.getMonthValue() != prefixMonth
+                || measuredAt.getDayOfMonth() != prefixDay || measuredAt.getHour() != prefixHour
+                || measuredAt.getMinute() != prefixMinute) {
+            prefixYear = measuredAt.getYear();
+            prefixMonth = measuredAt.getMonthValue();
+            prefixDay = measuredAt.getDayOfMonth();
+            prefixHour = measuredAt.getHour();
+            prefixMinute = measuredAt.getMinute();
+
+            // 4자리 연도 기준 (측정 데이터 범위)
+            int year = prefixYear;
+            minutePrefix[0] = digit(year / 1000 % 10);
+            minutePrefix[1] = digit(year / 100 % 10);
+            minutePrefix[2] = digit(year / 10 % 10);
+            minutePrefix[3] = digit(year % 10);
+            minutePrefix[4] = '-';
+            twoDigits(minutePrefix, 5, prefixMonth);
+            minutePrefix[7] = '-';
+            twoDigits(minutePrefix, 8, prefixDay);
+            minutePrefix[10] = ' ';
+            twoDigits(minutePrefix, 11, prefixHour);
+            minutePrefix[13] = ':';
+            twoDigits(minutePrefix, 14, prefixMinute);
+            minutePrefix[16] = ':';
+        }
+
+        ensure(MINUTE_PREFIX_LENGTH + 2);
+        System.arraycopy(minutePrefix, 0, buffer, position, MINUTE_PREFIX_LENGTH);
+        position += MINUTE_PREFIX_LENGTH;
+        twoDigits(buffer, position, measuredAt.getSecond());
+        position += 2;
+    }
+
+    /**
+     * ,"12.34" - String.format("%.2f")와 같은 결과 (반올림 경계나 범위 밖 값만 느린 경로)
+     */
+    private void writeValue(double value) throws IOException {
+        put(SEPARATOR);
+        put(QUOTE);
+
+        if (!(Math.abs(value) < FAST_FORMAT_LIMIT)) {
+            // NaN, Infinity, 아주 큰 값
+            writeAscii(String.format("%.2f", value));
+            put(QUOTE);
+            return;
+        }
+
+        double magnitude = Math.abs(value);
+        double scaled = magnitude * 100;
+        long whole = (long) scaled;
+        double fraction = scaled - whole;
+
+        long cents;
+        if (Math.abs(fraction - 0.5) < HALF_TOLERANCE) {
+            // 반올림 경계 - Formatter처럼 최단 10진 표현에 HALF_UP 적용
+            cents = new BigDecimal(Double.toString(magnitude)).setScale(2, RoundingMode.HALF_UP)
+                    .unscaledValue().longValue();
+        } else {
+            cents = fraction > 0.5 ? whole + 1 : whole;
+        }
+
+        // -0.001 → "-0.00" (Formatter와 같게 부호 비트 기준)
+        if (Double.doubleToRawLongBits(value) < 0) {
+            put((byte) '-');
+        }
+        writeLong(cents / 100);
+        ensure(4);
+        buffer[position++] = '.';
+        twoDigits(buffer, position, (int) (cents % 100));
+        position += 2;
+        buffer[position++] = QUOTE;
+    }
+
+    // === 바이트 버퍼 ===
+
+    private void writeLong(long value) throws IOException {
+        if (value < 0) {
+            writeAscii(Long.toString(value));
+            return;
+        }
+        ensure(20);
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        int end = position + digits;
+        for (int i = end - 1; i >= position; i--) {
+            buffer[i] = digit((int) (value % 10));
+            value /= 10;
+        }
+        position = end;
+    }
+
+    private void writeAscii(String value) throws IOException {
+        ensure(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            buffer[position++] = (byte) value.charAt(i);
+        }
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        writeBytes(bytes, 0, bytes.length);
+    }
+
+    private void writeBytes(byte[] bytes, int offset, int length) throws IOException {
+        if (length > buffer.length) {
+            flushBuffer();
+            out.write(bytes, offset, length);
+            flushed += length;
+            return;
+        }
+        ensure(length);
+        System.arraycopy(bytes, offset, buffer, position, length);
+        position += length;
+    }
+
+    private void put(byte b) throws IOException {
+        if (position == buffer.length) {
+            flushBuffer();
+        }
+        buffer[position++] = b;
+    }
+
+    private void ensure(int length) throws IOException {
+        if (position + length > buffer.length) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            flushed += position;
+            position = 0;
+        }
+    }
+
+    private static void twoDigits(byte[] target, int offset, int value) {
+        target[offset] = digit(value / 10);
+        target[offset + 1] = digit(value % 10);
+    }
+
+    private static byte digit(int value) {
+        return (byte) ('0' + value);
+    }
+
+    private static byte[] quote(String value) {
+        return appendQuoted(new StringBuilder(), value).toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static StringBuilder appendQuoted(StringBuilder sb, String value) {
+        sb.append('"');
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    sb.append('"');
+                }
+                sb.append(c);
+            }
+        }
+        return sb.append('"');
+    }
+}
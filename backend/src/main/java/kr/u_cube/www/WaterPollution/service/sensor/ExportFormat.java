@@ -0,0 +1,29 @@
+package kr.u_cube.www.WaterPollution.service.sensor;
+
+/**
+ * 내보내기 파일 형식
+ */
+public enum ExportFormat {
+    CSV("csv", "text/csv; charset=UTF-8"),
+    // CSV를 gzip으로 압축 (내용은 CSV와 같음)
+    CSV_GZIP("csv.gz", "application/gzip"),
+    // 분석용 컬럼 형식 (측정소 정보 컬럼은 사전 인코딩)
+    PARQUET("parquet", "application/vnd.apache.parquet"),
+    EXCEL("xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+
+    private final String extension;
+    private final String contentType;
+
+    ExportFormat(String extension, String contentType) {
+        this.extension = extension;
+        this.contentType = contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+}
@@ -0,0 +1,142 @@
+package kr.u_cube.www.WaterPollution.service.sensor;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+import lombok.Getter;
+
+/**
+ * 비동기 내보내기 작업 상태 (SensorExportJobService가 관리)
+ * - 진행 중 값은 작업 스레드가 쓰고 조회 요청 스레드가 읽으므로 volatile
+ * - 상태 전이는 compare-and-set (취소 요청과 완료/실패가 겹쳐도 한쪽만 반영)
+ *   QUEUED → RUNNING → COMPLETED / FAILED
+ *   QUEUED, RUNNING → CANCELLING (취소 요청, 작업 스레드가 끝날 때까지 active) → CANCELLED
+ */
+@Getter
+public class ExportJob {
+
+    public enum Status {
+        QUEUED, RUNNING, CANCELLING, COMPLETED, FAILED, CANCELLED
+    }
+
+    private static final AtomicReferenceFieldUpdater<ExportJob, Status> STATUS =
+            AtomicReferenceFieldUpdater.newUpdater(ExportJob.class, Status.class, "status");
+
+    private final String id;
+    private final String owner;
+    private final ExportFormat format;
+    private final LocalDateTime startDate;
+    private final LocalDateTime endDate;
+    private final String fileName;
+    private final long totalRows; // 요청 시점 행 수 (진행률 계산용)
+    private final LocalDateTime createdAt = LocalDateTime.now();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile long rowsWritten;
+    private volatile Path file;
+    private volatile long sizeBytes;
+    private volatile LocalDateTime finishedAt;
+    private volatile String error;
+
+    public ExportJob(String id, String owner, ExportFormat format,
+            LocalDateTime startDate, LocalDateTime endDate, String fileName, long totalRows) {
+        this.id = id;
+        this.owner = owner;
+        this.format = format;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.fileName = fileName;
+        this.totalRows = totalRows;
+    }
+
+    /**
+     * 진행률 (0~100, 완료 전에는 최대 99)
+     */
+    public int getPercent() {
+        if (status == Status.COMPLETED) {
+            return 100;
+        }
+        if (totalRows <= 0) {
+            return 0;
+        }
+        return (int) Math.min(99, rowsWritten * 100 / totalRows);
+    }
+
+    public boolean isActive() {
+        Status current = status;
+        return current == Status.QUEUED || current == Status.RUNNING || current == Status.CANCELLING;
+    }
+
+    public boolean isCancelRequested() {
+        return status == Status.CANCELLING;
+    }
+
+    public boolean isFinished() {
+        return !isActive();
+    }
+
+    /**
+     * @return 실행 전에 취소 요청되었으면 false
+     */
+    boolean markRunning() {
+        return STATUS.compareAndSet(this, Status.QUEUED, Status.RUNNING);
+    }
+
+    void updateProgress(long rows) {
+        rowsWritten = rows;
+    }
+
+    /**
+     * @return 직전에 취소 요청되어 완료로 바꾸지 못했으면 false
+     */
+    boolean markCompleted(Path file, long sizeBytes, long rows) {
+        // 상태보다 먼저 써 둠 → COMPLETED를 본 스레드는 파일 정보도 봄
+        this.file = file;
+        this.sizeBytes = sizeBytes;
+        this.rowsWritten = rows;
+        this.finishedAt = LocalDateTime.now();
+        if (STATUS.compareAndSet(this, Status.RUNNING, Status.COMPLETED)) {
+            return true;
+        }
+        this.file = null;
+        return false;
+    }
+
+    /**
+     * @return 취소 요청 중이라 실패로 바꾸지 못했으면 false
+     */
+    boolean markFailed(String error) {
+        this.error = error;
+        this.finishedAt = LocalDateTime.now();
+        return STATUS.compareAndSet(this, Status.RUNNING, Status.FAILED);
+    }
+
+    /**
+     * 취소 요청 (실제 중단과 CANCELLED 전환은 작업 스레드가 함)
+     *
+     * @return 이미 끝난 작업이면 false
+     */
+    boolean requestCancel() {
+        while (true) {
+            Status current = status;
+            if (current == Status.CANCELLING) {
+                return true;
+            }
+            if (current != Status.QUEUED && current != Status.RUNNING) {
+                return false;
+            }
+            if (STATUS.compareAndSet(this, current, Status.CANCELLING)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 작업 스레드가 중단을 마친 뒤 호출
+     */
+    void markCancelled() {
+        this.finishedAt = LocalDateTime.now();
+        STATUS.compareAndSet(this, Status.CANCELLING, Status.CANCELLED);
+    }
+}
@@ -0,0 +1,105 @@
+package kr.u_cube.www.WaterPollution.service.sensor;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 내보내기 기간을 시간 조각으로 나눠 병렬 처리
+ * - 조각별 작업(조회 + 인코딩)을 가상 스레드에서 최대 parallelism개까지 동시에 실행
+ * - 결과는 조각 순서대로 호출 스레드의 consumer에 넘김 → 출력 순서는 순차 처리와 같음
+ * - 동시에 들고 있는 결과는 최대 parallelism개 (메모리 = 조각 크기 x parallelism)
+ */
+final class ExportSlices {
+
+    /**
+     * 시간 조각 [from, to) - 마지막 조각만 [from, to]
+     */
+    record Slice(int index, LocalDateTime from, LocalDateTime to, boolean toInclusive) {
+    }
+
+    @FunctionalInterface
+    interface SliceTask<T> {
+        T run(Slice slice) throws Exception;
+    }
+
+    @FunctionalInterface
+    interface SliceConsumer<T> {
+        void accept(Slice slice, T result) throws IOException;
+    }
+
+    private ExportSlices() {
+    }
+
+    /**
+     * [start, end]를 초 단위 경계의 count개 조각으로 균등 분할 (기간이 짧으면 조각 수를 줄임)
+     */
+    static List<Slice> split(LocalDateTime start, LocalDateTime end, int count) {
+        long seconds = Math.max(0, Duration.between(start, end).getSeconds());
+        int sliceCount = (int) Math.max(1, Math.min(count, seconds));
+
+        List<Slice> slices = new ArrayList<>(sliceCount);
+        LocalDateTime from = start;
+        for (int i = 1; i <= sliceCount; i++) {
+            boolean last = i == sliceCount;
+            LocalDateTime to = last ? end : start.plusSeconds(seconds * i / sliceCount);
+            slices.add(new Slice(i - 1, from, to, last));
+            from = to;
+        }
+        return slices;
+    }
+
+    /**
+     * 조각별 작업을 병렬로 실행하고 결과를 조각 순서대로 consumer에 넘김
+     * - 작업이나 consumer가 실패하면 남은 작업을 취소하고 예외를 그대로 던짐
+     */
+    static <T> void runInOrder(List<Slice> slices, int parallelism, SliceTask<T> task,
+            SliceConsumer<T> consumer) throws IOException {
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        Deque<Future<T>> inFlight = new ArrayDeque<>();
+        int next = 0;
+
+        try {
+            for (Slice slice : slices) {
+                while (next < slices.size() && inFlight.size() < parallelism) {
+                    Slice submitted = slices.get(next++);
+                    inFlight.add(executor.submit(() -> task.run(submitted)));
+                }
+                consumer.accept(slice, await(inFlight.poll()));
+            }
+        } finally {
+            inFlight.forEach(future -> future.cancel(true));
+            executor.shutdownNow();
+        }
+    }
+
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("내보내기 조각 대기 중 인터럽트");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IOException("내보내기 조각 처리 실패", cause);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package kr.u_cube.www.WaterPollution.service.sensor;
+
+import java.time.Duration;
+
+/**
+ * 이력 조회 해상도
+ * - RAW: sensor_data 원본
+ * - MINUTE/HOUR/DAY: sensor_data_rollup 집계 (버킷 시작 시각 기준)
+ */
+public enum HistoryResolution {
+    RAW(Duration.ZERO),
+    MINUTE(Duration.ofMinutes(1)),
+    HOUR(Duration.ofHours(1)),
+    DAY(Duration.ofDays(1));
+
+    private final Duration step;
+
+    HistoryResolution(Duration step) {
+        this.step = step;
+    }
+
+    public Duration getStep() {
+        return step;
+    }
+
+    /**
+     * 기간 안의 디바이스당 버킷 수 (RAW는 알 수 없으므로 -1)
+     */
+    public long bucketCount(Duration range) {
+        if (this == RAW) {
+            return -1;
+        }
+        long steps = range.toMillis() / step.toMillis();
+        return range.toMillis() % step.toMillis() == 0 ? steps + 1 : steps + 2;
+    }
+}
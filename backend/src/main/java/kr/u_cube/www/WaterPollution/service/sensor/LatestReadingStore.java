@@ -0,0 +1,112 @@
+package kr.u_cube.www.WaterPollution.service.sensor;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import kr.u_cube.www.WaterPollution.dto.LatestSensorDto;
+import kr.u_cube.www.WaterPollution.entity.SensorData;
+import kr.u_cube.www.WaterPollution.repository.SensorDataRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 디바이스별 최신 측정값 저장소 (메모리)
+ * - 시작 시 findLatestEachDevice()로 채우고, 이후에는 수집 경로에서 디바이스별로 갱신
+ * - /api/sensor/latest/all, /api/sensor/{deviceid} 조회를 DB 없이 O(디바이스 수)로 처리
+ * - 늦게 도착한(측정 시각이 더 이른) 데이터로는 덮어쓰지 않음
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LatestReadingStore {
+
+    /**
+     * 최신 측정값 (불변, 갱신 시 교체)
+     */
+    public record Reading(
+            String deviceId,
+            double ph,
+            double doValue,
+            double temperature,
+            double ec,
+            double bod,
+            double cod,
+            double tp,
+            double tn,
+            double ss,
+            double chlorophyllA,
+            double no3n,
+            LocalDateTime measuredAt) {
+
+        public LatestSensorDto toDto() {
+            return new LatestSensorDto(deviceId, ph, doValue, temperature, ec, bod, cod,
+                    tp, tn, ss, chlorophyllA, no3n, measuredAt);
+        }
+    }
+
+    private final SensorDataRepository sensorDataRepository;
+
+    private final ConcurrentHashMap<String, Reading> latest = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void warmUp() {
+        for (SensorData data : sensorDataRepository.findLatestEachDevice()) {
+            update(data);
+        }
+        log.info("✅ 최신 측정값 저장소 로드 완료: {}개 디바이스", latest.size());
+    }
+
+    /**
+     * 측정값 반영 (더 최신이거나 같은 시각일 때만 교체)
+     */
+    public void update(SensorData data) {
+        String deviceId = data.getDeviceId();
+        if (deviceId == null) {
+            return;
+        }
+
+        Reading reading = new Reading(
+                deviceId,
+                valueOf(data.getPh()),
+                valueOf(data.getDoValue()),
+                valueOf(data.getTemperature()),
+                valueOf(data.getEc()),
+                valueOf(data.getBod()),
+                valueOf(data.getCod()),
+                valueOf(data.getTp()),
+                valueOf(data.getTn()),
+                valueOf(data.getSs()),
+                valueOf(data.getChlorophyllA()),
+                valueOf(data.getNo3n()),
+                data.getMeasuredAt());
+
+        latest.merge(deviceId, reading, (existing, incoming) -> isOlder(incoming, existing) ? existing : incoming);
+    }
+
+    public Reading get(String deviceId) {
+        return deviceId != null ? latest.get(deviceId) : null;
+    }
+
+    public Collection<Reading> getAll() {
+        return latest.values();
+    }
+
+    public void evict(String deviceId) {
+        latest.remove(deviceId);
+    }
+
+    private static boolean isOlder(Reading incoming, Reading existing) {
+        if (existing.measuredAt() == null) {
+            return false;
+        }
+        return incoming.measuredAt() == null || incoming.measuredAt().isBefore(existing.measuredAt());
+    }
+
+    private static double valueOf(Double value) {
+        return value != null ? value : 0.0;
+    }
+}
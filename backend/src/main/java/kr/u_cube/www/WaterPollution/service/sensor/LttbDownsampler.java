@@ -0,0 +1,87 @@
+package kr.u_cube.www.WaterPollution.service.sensor;
+
+/**
+ * Largest-Triangle-Three-Buckets 다운샘플링
+ * - 시계열을 threshold개 버킷으로 나누고, 버킷마다 이전 선택점과 다음 버킷 평균점으로 만드는 삼각형 넓이가
+ *   가장 큰 점을 고름 → DO 급감, pH 급등 같은 피크가 살아남음
+ * - 입력/출력 모두 기본형 배열, 입력을 한 번만 훑음 (박싱 없음)
+ */
+public final class LttbDownsampler {
+
+    private LttbDownsampler() {
+    }
+
+    /**
+     * 다운샘플링 결과 (x: epoch millis, y: 측정값)
+     */
+    public record Series(long[] x, double[] y) {
+    }
+
+    /**
+     * @param x         시각 (오름차순)
+     * @param y         값
+     * @param length    x, y 중 유효한 길이
+     * @param threshold 최대 출력 점 수 (3 미만이거나 length 이상이면 원본 그대로)
+     */
+    public static Series downsample(long[] x, double[] y, int length, int threshold) {
+        if (threshold < 3 || threshold >= length) {
+            long[] outX = new long[length];
+            double[] outY = new double[length];
+            System.arraycopy(x, 0, outX, 0, length);
+            System.arraycopy(y, 0, outY, 0, length);
+            return new Series(outX, outY);
+        }
+
+        long[] outX = new long[threshold];
+        double[] outY = new double[threshold];
+
+        // 첫 점은 항상 포함, 시각은 첫 점 기준 상대값(double)으로 계산
+        long origin = x[0];
+        double bucketSize = (double) (length - 2) / (threshold - 2);
+
+        int a = 0;
+        outX[0] = x[0];
+        outY[0] = y[0];
+
+        for (int i = 0; i < threshold - 2; i++) {
+            // 다음 버킷 평균점
+            int avgStart = (int) Math.floor((i + 1) * bucketSize) + 1;
+            int avgEnd = Math.min((int) Math.floor((i + 2) * bucketSize) + 1, length);
+            double avgX = 0;
+            double avgY = 0;
+            for (int j = avgStart; j < avgEnd; j++) {
+                avgX += x[j] - origin;
+                avgY += y[j];
+            }
+            int avgCount = avgEnd - avgStart;
+            avgX /= avgCount;
+            avgY /= avgCount;
+
+            // 현재 버킷에서 삼각형 넓이가 가장 큰 점
+            int rangeStart = (int) Math.floor(i * bucketSize) + 1;
+            int rangeEnd = (int) Math.floor((i + 1) * bucketSize) + 1;
+            double pointAX = x[a] - origin;
+            double pointAY = y[a];
+
+            double maxArea = -1;
+            int selected = rangeStart;
+            for (int j = rangeStart; j < rangeEnd; j++) {
+                double area = Math.abs((pointAX - avgX) * (y[j] - pointAY)
+                        - (pointAX - (x[j] - origin)) * (avgY - pointAY));
+                if (area > maxArea) {
+                    maxArea = area;
+                    selected = j;
+                }
+            }
+
+            outX[i + 1] = x[selected];
+            outY[i + 1] = y[selected];
+            a = selected;
+        }
+
+        // 마지막 점은 항상 포함
+        outX[threshold - 1] = x[length - 1];
+        outY[threshold - 1] = y[length - 1];
+        return new Series(outX, outY);
+    }
+}
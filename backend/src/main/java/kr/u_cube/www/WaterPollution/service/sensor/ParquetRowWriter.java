@@ -0,0 +1,685 @@
+package kr.u_cube.www.WaterPollution.service.sensor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import kr.u_cube.www.WaterPollution.dto.HistoryDataDto;
+
+/**
+ * 이력 Parquet 인코더 (다운로드 전용, parquet-hadoop 없이 파일 형식을 직접 씀)
+ * - 행을 컬럼별 배열에 모았다가 rowGroupRows마다 row group 하나로 내보냄 → 메모리는 row group 크기만큼
+ * - 측정소 메타데이터(디바이스ID, 측정소코드, 측정소명, 측정망종류, 위치, 위도, 경도)는 사전 인코딩
+ *   (row group마다 사전 페이지 1개 + 데이터 페이지에는 비트 패킹한 사전 번호만)
+ * - 측정 시각은 INT64 TIMESTAMP(MILLIS, 로컬 시각), 측정 항목은 DOUBLE 원래 값 그대로 (반올림 없음)
+ * - 페이지는 GZIP 코덱으로 압축, 컬럼 청크당 데이터 페이지 1개 (v1)
+ * - 스레드 안전하지 않음 (내보내기 한 건당 하나씩 사용)
+ * - 형식 호환성은 ParquetRowWriterTest에서 다른 구현(DuckDB)으로 다시 읽어 확인
+ */
+final class ParquetRowWriter {
+
+    private static final byte[] MAGIC = {'P', 'A', 'R', '1'};
+    private static final String CREATED_BY = "water-monitor export";
+
+    // parquet.thrift 상수
+    private static final int TYPE_INT64 = 2;
+    private static final int TYPE_DOUBLE = 5;
+    private static final int TYPE_BYTE_ARRAY = 6;
+    private static final int REQUIRED = 0;
+    private static final int OPTIONAL = 1;
+    private static final int CONVERTED_UTF8 = 0;
+    private static final int ENCODING_PLAIN = 0;
+    private static final int ENCODING_PLAIN_DICTIONARY = 2;
+    private static final int ENCODING_RLE = 3;
+    private static final int CODEC_GZIP = 2;
+    private static final int PAGE_DATA = 0;
+    private static final int PAGE_DICTIONARY = 2;
+
+    private static final SensorParameter[] PARAMETERS = SensorParameter.values();
+
+    private final OutputStream out;
+    private final int rowGroupRows;
+    private final int compressionLevel;
+    private long position;
+
+    private final List<Column> columns = new ArrayList<>();
+    private final DictionaryColumn deviceId;
+    private final DictionaryColumn ptno;
+    private final DictionaryColumn name;
+    private final DictionaryColumn type;
+    private final DictionaryColumn location;
+    private final DictionaryColumn lat;
+    private final DictionaryColumn lon;
+    private final TimestampColumn measuredAt;
+    private final DoubleColumn[] values;
+
+    private int rows; // 현재 row group에 모은 행 수
+    private long totalRows;
+    private final List<List<ChunkMeta>> rowGroups = new ArrayList<>();
+
+    // 페이지 인코딩/압축용 재사용 버퍼
+    private final PageBuffer page = new PageBuffer(64 * 1024);
+    private final PageBuffer compressed = new PageBuffer(64 * 1024);
+    private final PageBuffer header = new PageBuffer(256);
+
+    ParquetRowWriter(OutputStream out, int rowGroupRows, int compressionLevel) throws IOException {
+        this.out = out;
+        this.rowGroupRows = rowGroupRows;
+        this.compressionLevel = compressionLevel;
+
+        this.deviceId = add(new DictionaryColumn("device_id", TYPE_BYTE_ARRAY, OPTIONAL, rowGroupRows));
+        this.ptno = add(new DictionaryColumn("ptno", TYPE_BYTE_ARRAY, OPTIONAL, rowGroupRows));
+        this.name = add(new DictionaryColumn("name", TYPE_BYTE_ARRAY, OPTIONAL, rowGroupRows));
+        this.type = add(new DictionaryColumn("type", TYPE_BYTE_ARRAY, OPTIONAL, rowGroupRows));
+        this.location = add(new DictionaryColumn("location", TYPE_BYTE_ARRAY, OPTIONAL, rowGroupRows));
+        this.lat = add(new DictionaryColumn("lat", TYPE_DOUBLE, REQUIRED, rowGroupRows));
+        this.lon = add(new DictionaryColumn("lon", TYPE_DOUBLE, REQUIRED, rowGroupRows));
+        this.measuredAt = add(new TimestampColumn("measured_at", rowGroupRows));
+        this.values = new DoubleColumn[PARAMETERS.length];
+        for (SensorParameter parameter : PARAMETERS) {
+            values[parameter.ordinal()] = add(new DoubleColumn(parameter.getColumn(), rowGroupRows));
+        }
+
+        write(MAGIC, 0, MAGIC.length);
+    }
+
+    /**
+     * 이력 한 행 (row group이 차면 바로 출력)
+     */
+    void write(HistoryDataDto data) throws IOException {
+        deviceId.add(data.getDeviceId(), rows);
+        ptno.add(data.getPtno(), rows);
+        name.add(data.getName(), rows);
+        type.add(data.getType(), rows);
+        location.add(data.getLocation(), rows);
+        lat.add(data.getLat(), rows);
+        lon.add(data.getLon(), rows);
+        measuredAt.add(data.getMeasuredAt(), rows);
+        for (SensorParameter parameter : PARAMETERS) {
+            values[parameter.ordinal()].add(parameter.get(data), rows);
+        }
+
+        rows++;
+        totalRows++;
+        if (rows == rowGroupRows) {
+            flushRowGroup();
+        }
+    }
+
+    /**
+     * 남은 행과 파일 메타데이터(footer)를 씀 - out은 닫지 않음
+     */
+    void finish() throws IOException {
+        if (rows > 0) {
+            flushRowGroup();
+        }
+        header.reset();
+        writeFileMetaData(new ThriftWriter(header));
+        int footerLength = header.size();
+        write(header.buffer(), 0, footerLength);
+
+        page.reset();
+        page.writeIntLE(footerLength);
+        page.write(MAGIC, 0, MAGIC.length);
+        write(page.buffer(), 0, page.size());
+        out.flush();
+    }
+
+    /**
+     * 지금까지 출력한 바이트 수
+     */
+    long written() {
+        return position;
+    }
+
+    // === row group ===
+
+    private void flushRowGroup() throws IOException {
+        List<ChunkMeta> chunks = new ArrayList<>(columns.size());
+        for (Column column : columns) {
+            chunks.add(column.writeChunk(rows));
+        }
+        rowGroups.add(chunks);
+        rows = 0;
+    }
+
+    /**
+     * 페이지 하나 출력 (page 버퍼 내용을 압축해 헤더와 함께 씀)
+     *
+     * @return 헤더 포함 [압축 전 크기, 압축 후 크기]
+     */
+    private long[] writePage(int pageType, int numValues, int encoding) throws IOException {
+        int uncompressedSize = page.size();
+        compressed.reset();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed, 8 * 1024) {
+            {
+                def.setLevel(compressionLevel);
+            }
+        }) {
+            gzip.write(page.buffer(), 0, uncompressedSize);
+        }
+        int compressedSize = compressed.size();
+
+        header.reset();
+        ThriftWriter thrift = new ThriftWriter(header);
+        thrift.fieldI32(1, pageType);
+        thrift.fieldI32(2, uncompressedSize);
+        thrift.fieldI32(3, compressedSize);
+        if (pageType == PAGE_DICTIONARY) {
+            thrift.beginStruct(7); // DictionaryPageHeader
+            thrift.fieldI32(1, numValues);
+            thrift.fieldI32(2, encoding);
+            thrift.endStruct();
+        } else {
+            thrift.beginStruct(5); // DataPageHeader
+            thrift.fieldI32(1, numValues);
+            thrift.fieldI32(2, encoding);
+            thrift.fieldI32(3, ENCODING_RLE);
+            thrift.fieldI32(4, ENCODING_RLE);
+            thrift.endStruct();
+        }
+        thrift.stop();
+        int headerSize = header.size();
+
+        write(header.buffer(), 0, headerSize);
+        write(compressed.buffer(), 0, compressedSize);
+        return new long[] {headerSize + uncompressedSize, headerSize + compressedSize};
+    }
+
+    private void write(byte[] bytes, int offset, int length) throws IOException {
+        out.write(bytes, offset, length);
+        position += length;
+    }
+
+    // === footer ===
+
+    private void writeFileMetaData(ThriftWriter thrift) {
+        thrift.fieldI32(1, 1);
+
+        // 스키마 (루트 + 컬럼)
+        thrift.beginList(2, ThriftWriter.STRUCT, columns.size() + 1);
+        thrift.beginElement();
+        thrift.fieldString(4, "sensor_data");
+        thrift.fieldI32(5, columns.size());
+        thrift.endElement();
+        for (Column column : columns) {
+            thrift.beginElement();
+            column.writeSchema(thrift);
+            thrift.endElement();
+        }
+
+        thrift.fieldI64(3, totalRows);
+
+        thrift.beginList(4, ThriftWriter.STRUCT, rowGroups.size());
+        for (List<ChunkMeta> chunks : rowGroups) {
+            long totalUncompressed = 0;
+            long totalCompressed = 0;
+            for (ChunkMeta chunk : chunks) {
+                totalUncompressed += chunk.uncompressedSize();
+                totalCompressed += chunk.compressedSize();
+            }
+
+            thrift.beginElement();
+            thrift.beginList(1, ThriftWriter.STRUCT, chunks.size());
+            for (int i = 0; i < chunks.size(); i++) {
+                thrift.beginElement();
+                writeColumnChunk(thrift, columns.get(i), chunks.get(i));
+                thrift.endElement();
+            }
+            thrift.fieldI64(2, totalUncompressed);
+            thrift.fieldI64(3, chunks.get(0).numValues());
+            thrift.fieldI64(5, chunks.get(0).startOffset());
+            thrift.fieldI64(6, totalCompressed);
+            thrift.endElement();
+        }
+
+        thrift.fieldString(6, CREATED_BY);
+        thrift.stop();
+    }
+
+    private void writeColumnChunk(ThriftWriter thrift, Column column, ChunkMeta chunk) {
+        thrift.fieldI64(2, chunk.startOffset());
+        thrift.beginStruct(3); // ColumnMetaData
+        thrift.fieldI32(1, column.physicalType);
+        thrift.beginList(2, ThriftWriter.I32, 2);
+        thrift.i32(chunk.dictionary() ? ENCODING_PLAIN_DICTIONARY : ENCODING_PLAIN);
+        thrift.i32(ENCODING_RLE);
+        thrift.beginList(3, ThriftWriter.BINARY, 1);
+        thrift.string(column.name);
+        thrift.fieldI32(4, CODEC_GZIP);
+        thrift.fieldI64(5, chunk.numValues());
+        thrift.fieldI64(6, chunk.uncompressedSize());
+        thrift.fieldI64(7, chunk.compressedSize());
+        thrift.fieldI64(9, chunk.dataPageOffset());
+        if (chunk.dictionary()) {
+            thrift.fieldI64(11, chunk.startOffset());
+        }
+        thrift.endStruct();
+    }
+
+    private <C extends Column> C add(C column) {
+        columns.add(column);
+        return column;
+    }
+
+    /**
+     * 출력한 컬럼 청크 정보 (footer에 씀)
+     */
+    private record ChunkMeta(long numValues, long startOffset, long dataPageOffset, boolean dictionary,
+            long uncompressedSize, long compressedSize) {
+    }
+
+    // === 컬럼 ===
+
+    private abstract class Column {
+        final String name;
+        final int physicalType;
+        final int repetition;
+
+        // OPTIONAL 컬럼의 정의 레벨 (1 = 값 있음, 0 = null)
+        final boolean[] present;
+        int nonNull;
+
+        Column(String name, int physicalType, int repetition, int capacity) {
+            this.name = name;
+            this.physicalType = physicalType;
+            this.repetition = repetition;
+            this.present = repetition == OPTIONAL ? new boolean[capacity] : null;
+        }
+
+        void writeSchema(ThriftWriter thrift) {
+            thrift.fieldI32(1, physicalType);
+            thrift.fieldI32(3, repetition);
+            thrift.fieldString(4, name);
+            if (physicalType == TYPE_BYTE_ARRAY) {
+                thrift.fieldI32(6, CONVERTED_UTF8);
+                thrift.beginStruct(10); // LogicalType
+                thrift.beginStruct(1); // STRING
+                thrift.endStruct();
+                thrift.endStruct();
+            }
+        }
+
+        abstract ChunkMeta writeChunk(int rowCount) throws IOException;
+
+        /**
+         * 데이터 페이지 앞부분 - OPTIONAL이면 정의 레벨 (4바이트 길이 + RLE)
+         */
+        void writeDefinitionLevels(int rowCount) {
+            if (present == null) {
+                return;
+            }
+            int lengthAt = page.size();
+            page.writeIntLE(0);
+            int run = 0;
+            boolean runValue = false;
+            for (int i = 0; i < rowCount; i++) {
+                if (run > 0 && present[i] != runValue) {
+                    page.writeRleRun(run, runValue ? 1 : 0);
+                    run = 0;
+                }
+                runValue = present[i];
+                run++;
+            }
+            if (run > 0) {
+                page.writeRleRun(run, runValue ? 1 : 0);
+            }
+            page.setIntLE(lengthAt, page.size() - lengthAt - 4);
+        }
+
+        /**
+         * PLAIN 데이터 페이지 하나로 된 청크
+         */
+        ChunkMeta writePlainChunk(int rowCount, PlainValues plainValues) throws IOException {
+            long start = position;
+            page.reset();
+            writeDefinitionLevels(rowCount);
+            plainValues.write();
+            long[] sizes = writePage(PAGE_DATA, rowCount, ENCODING_PLAIN);
+            nonNull = 0;
+            return new ChunkMeta(rowCount, start, start, false, sizes[0], sizes[1]);
+        }
+    }
+
+    @FunctionalInterface
+    private interface PlainValues {
+        void write();
+    }
+
+    /**
+     * 사전 인코딩 컬럼 (문자열 또는 DOUBLE) - 사전은 row group마다 새로 만듦
+     */
+    private final class DictionaryColumn extends Column {
+        private final Map<Object, Integer> dictionary = new HashMap<>();
+        private final PageBuffer entries = new PageBuffer(1024); // PLAIN 인코딩한 사전 값
+        private final int[] indices;
+
+        DictionaryColumn(String name, int physicalType, int repetition, int capacity) {
+            super(name, physicalType, repetition, capacity);
+            this.indices = new int[capacity];
+        }
+
+        void add(String value, int row) {
+            present[row] = value != null;
+            if (value != null) {
+                indices[nonNull++] = indexOf(value);
+            }
+        }
+
+        void add(double value, int row) {
+            indices[nonNull++] = indexOf(value);
+        }
+
+        private int indexOf(Object value) {
+            Integer index = dictionary.get(value);
+            if (index == null) {
+                index = dictionary.size();
+                dictionary.put(value, index);
+                if (value instanceof String text) {
+                    byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+                    entries.writeIntLE(bytes.length);
+                    entries.write(bytes, 0, bytes.length);
+                } else {
+                    entries.writeLongLE(Double.doubleToRawLongBits((Double) value));
+                }
+            }
+            return index;
+        }
+
+        @Override
+        ChunkMeta writeChunk(int rowCount) throws IOException {
+            try {
+                if (dictionary.isEmpty()) {
+                    // 전부 null - 사전 없이 정의 레벨만
+                    return writePlainChunk(rowCount, () -> { });
+                }
+
+                long start = position;
+                page.reset();
+                page.write(entries.buffer(), 0, entries.size());
+                long[] dictionarySizes = writePage(PAGE_DICTIONARY, dictionary.size(), ENCODING_PLAIN_DICTIONARY);
+
+                long dataPageOffset = position;
+                page.reset();
+                writeDefinitionLevels(rowCount);
+                int bitWidth = Math.max(1, 32 - Integer.numberOfLeadingZeros(dictionary.size() - 1));
+                page.put(bitWidth);
+                page.writeBitPacked(indices, nonNull, bitWidth);
+                long[] dataSizes = writePage(PAGE_DATA, rowCount, ENCODING_PLAIN_DICTIONARY);
+
+                return new ChunkMeta(rowCount, start, dataPageOffset, true,
+                        dictionarySizes[0] + dataSizes[0], dictionarySizes[1] + dataSizes[1]);
+            } finally {
+                dictionary.clear();
+                entries.reset();
+                nonNull = 0;
+            }
+        }
+    }
+
+    /**
+     * 측정 시각 - INT64 TIMESTAMP(MILLIS, isAdjustedToUTC=false), null 허용
+     */
+    private final class TimestampColumn extends Column {
+        private final long[] millis;
+
+        TimestampColumn(String name, int capacity) {
+            super(name, TYPE_INT64, OPTIONAL, capacity);
+            this.millis = new long[capacity];
+        }
+
+        void add(LocalDateTime value, int row) {
+            present[row] = value != null;
+            if (value != null) {
+                // 로컬 시각 그대로 (시간대 변환 없음)
+                millis[nonNull++] = value.toInstant(ZoneOffset.UTC).toEpochMilli();
+            }
+        }
+
+        @Override
+        void writeSchema(ThriftWriter thrift) {
+            super.writeSchema(thrift);
+            thrift.beginStruct(10); // LogicalType
+            thrift.beginStruct(8); // TIMESTAMP
+            thrift.fieldBool(1, false);
+            thrift.beginStruct(2); // TimeUnit
+            thrift.beginStruct(1); // MILLIS
+            thrift.endStruct();
+            thrift.endStruct();
+            thrift.endStruct();
+            thrift.endStruct();
+        }
+
+        @Override
+        ChunkMeta writeChunk(int rowCount) throws IOException {
+            int count = nonNull;
+            return writePlainChunk(rowCount, () -> {
+                for (int i = 0; i < count; i++) {
+                    page.writeLongLE(millis[i]);
+                }
+            });
+        }
+    }
+
+    /**
+     * 측정 항목 - DOUBLE, 필수
+     */
+    private final class DoubleColumn extends Column {
+        private final double[] doubles;
+
+        DoubleColumn(String name, int capacity) {
+            super(name, TYPE_DOUBLE, REQUIRED, capacity);
+            this.doubles = new double[capacity];
+        }
+
+        void add(double value, int row) {
+            doubles[row] = value;
+        }
+
+        @Override
+        ChunkMeta writeChunk(int rowCount) throws IOException {
+            return writePlainChunk(rowCount, () -> {
+                for (int i = 0; i < rowCount; i++) {
+                    page.writeLongLE(Double.doubleToRawLongBits(doubles[i]));
+                }
+            });
+        }
+    }
+
+    // === 바이트 인코딩 ===
+
+    /**
+     * 리틀 엔디언 / varint / RLE·비트 패킹 하이브리드 인코딩을 지원하는 재사용 버퍼
+     * - 바이트 단위 쓰기는 동기화된 write(int) 대신 put()으로 배열에 바로 씀
+     */
+    private static final class PageBuffer extends ByteArrayOutputStream {
+
+        PageBuffer(int size) {
+            super(size);
+        }
+
+        byte[] buffer() {
+            return buf;
+        }
+
+        void put(int b) {
+            if (count == buf.length) {
+                buf = Arrays.copyOf(buf, buf.length * 2);
+            }
+            buf[count++] = (byte) b;
+        }
+
+        void writeIntLE(int value) {
+            put(value);
+            put(value >>> 8);
+            put(value >>> 16);
+            put(value >>> 24);
+        }
+
+        void setIntLE(int offset, int value) {
+            buf[offset] = (byte) value;
+            buf[offset + 1] = (byte) (value >>> 8);
+            buf[offset + 2] = (byte) (value >>> 16);
+            buf[offset + 3] = (byte) (value >>> 24);
+        }
+
+        void writeLongLE(long value) {
+            for (int i = 0; i < 8; i++) {
+                put((int) (value >>> (i * 8)));
+            }
+        }
+
+        void writeVarInt(long value) {
+            while ((value & ~0x7FL) != 0) {
+                put((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            put((int) value);
+        }
+
+        /**
+         * RLE 런 (비트 폭 1 이하 값 - 정의 레벨)
+         */
+        void writeRleRun(int count, int value) {
+            writeVarInt((long) count << 1);
+            put(value);
+        }
+
+        /**
+         * 비트 패킹 런 하나 (8개 단위로 채우고 남는 자리는 0, 읽는 쪽은 num_values까지만 읽음)
+         */
+        void writeBitPacked(int[] values, int count, int bitWidth) {
+            int groups = (count + 7) / 8;
+            writeVarInt(((long) groups << 1) | 1);
+            long accumulator = 0;
+            int bits = 0;
+            for (int i = 0; i < groups * 8; i++) {
+                long value = i < count ? values[i] & 0xFFFFFFFFL : 0;
+                accumulator |= value << bits;
+                bits += bitWidth;
+                while (bits >= 8) {
+                    put((int) accumulator);
+                    accumulator >>>= 8;
+                    bits -= 8;
+                }
+            }
+        }
+    }
+
+    /**
+     * Thrift compact protocol 쓰기 (parquet.thrift 메타데이터 전용 최소 구현)
+     */
+    private static final class ThriftWriter {
+        static final int BOOLEAN_TRUE = 1;
+        static final int BOOLEAN_FALSE = 2;
+        static final int I32 = 5;
+        static final int I64 = 6;
+        static final int BINARY = 8;
+        static final int LIST = 9;
+        static final int STRUCT = 12;
+
+        private final PageBuffer out;
+        // 구조체 중첩별 마지막 필드 번호 (필드 번호는 직전 필드와의 차이로 씀)
+        private final int[] lastFieldIds = new int[16];
+        private int depth;
+
+        ThriftWriter(PageBuffer out) {
+            this.out = out;
+        }
+
+        void fieldI32(int id, int value) {
+            fieldHeader(id, I32);
+            i32(value);
+        }
+
+        void fieldI64(int id, long value) {
+            fieldHeader(id, I64);
+            out.writeVarInt(zigzag(value));
+        }
+
+        void fieldBool(int id, boolean value) {
+            fieldHeader(id, value ? BOOLEAN_TRUE : BOOLEAN_FALSE);
+        }
+
+        void fieldString(int id, String value) {
+            fieldHeader(id, BINARY);
+            string(value);
+        }
+
+        void beginStruct(int id) {
+            fieldHeader(id, STRUCT);
+            lastFieldIds[++depth] = 0;
+        }
+
+        void endStruct() {
+            out.put(0);
+            depth--;
+        }
+
+        /**
+         * 목록 필드 시작 - 원소는 바로 이어서 씀 (구조체 원소는 beginElement/endElement로 감쌈)
+         */
+        void beginList(int id, int elementType, int size) {
+            fieldHeader(id, LIST);
+            if (size < 15) {
+                out.put((size << 4) | elementType);
+            } else {
+                out.put(0xF0 | elementType);
+                out.writeVarInt(size);
+            }
+        }
+
+        void beginElement() {
+            lastFieldIds[++depth] = 0;
+        }
+
+        void endElement() {
+            endStruct();
+        }
+
+        void i32(int value) {
+            out.writeVarInt(zigzag(value) & 0xFFFFFFFFL);
+        }
+
+        void string(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeVarInt(bytes.length);
+            out.write(bytes, 0, bytes.length);
+        }
+
+        /**
+         * 최상위 구조체 끝
+         */
+        void stop() {
+            out.put(0);
+        }
+
+        private void fieldHeader(int id, int type) {
+            int delta = id - lastFieldIds[depth];
+            if (delta > 0 && delta <= 15) {
+                out.put((delta << 4) | type);
+            } else {
+                out.put(type);
+                out.writeVarInt(zigzag(id) & 0xFFFFFFFFL);
+            }
+            lastFieldIds[depth] = id;
+        }
+
+        private static int zigzag(int value) {
+            return (value << 1) ^ (value >> 31);
+        }
+
+        private static long zigzag(long value) {
+            return (value << 1) ^ (value >> 63);
+        }
+    }
+}
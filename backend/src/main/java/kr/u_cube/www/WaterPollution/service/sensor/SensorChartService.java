@@ -0,0 +1,129 @@
+package kr.u_cube.www.WaterPollution.service.sensor;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import kr.u_cube.www.WaterPollution.dto.sensor.ChartSeriesDto;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 차트용 시계열 조회
+ * - 디바이스마다 요청한 항목 컬럼만 시간순으로 읽어 항목별 기본형 배열에 담고 LTTB로 maxPoints 이하로 줄임
+ * - 행마다 DTO/Double 객체를 만들지 않으므로 수백만 점도 배열 크기만큼의 메모리로 처리
+ * - MySQL은 결과를 스트리밍으로 읽음 (fetchSize = Integer.MIN_VALUE) → 드라이버가 결과 전체를 먼저 버퍼링하지 않음
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SensorChartService {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    // MySQL 이외 DB(H2 등)에서 쓰는 일반 fetch 크기
+    private static final int DEFAULT_FETCH_SIZE = 5000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SensorInfoRegistry sensorInfoRegistry;
+
+    /**
+     * 디바이스 x 항목 시계열 (등록되지 않은 디바이스는 건너뜀)
+     */
+    public List<ChartSeriesDto> getSeries(List<String> deviceIds, List<SensorParameter> parameters,
+            LocalDateTime start, LocalDateTime end, int maxPoints) {
+        List<ChartSeriesDto> result = new ArrayList<>(deviceIds.size() * parameters.size());
+
+        for (String deviceId : deviceIds) {
+            Optional<SensorInfoRegistry.Entry> entry = sensorInfoRegistry.find(deviceId);
+            if (entry.isEmpty()) {
+                log.warn("⚠️ 차트 조회: 등록되지 않은 디바이스 {}", deviceId);
+                continue;
+            }
+
+            SeriesBuffer[] buffers = readSeries(entry.get().sensorInfo().getId(), parameters, start, end);
+            for (int k = 0; k < parameters.size(); k++) {
+                SeriesBuffer buffer = buffers[k];
+                LttbDownsampler.Series series = LttbDownsampler.downsample(buffer.x, buffer.y, buffer.size, maxPoints);
+                result.add(new ChartSeriesDto(deviceId, parameters.get(k), buffer.size, series.x(), series.y()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 한 디바이스의 기간 데이터를 항목별 버퍼로 읽음 (값이 없는 행은 해당 항목에서만 제외)
+     */
+    private SeriesBuffer[] readSeries(Long sensorInfoId, List<SensorParameter> parameters,
+            LocalDateTime start, LocalDateTime end) {
+        SeriesBuffer[] buffers = new SeriesBuffer[parameters.size()];
+        Arrays.setAll(buffers, i -> new SeriesBuffer());
+
+        String columns = parameters.stream()
+                .map(SensorParameter::getColumn)
+                .collect(Collectors.joining(", "));
+
+        String sql = "SELECT measured_at, " + columns + """
+                 FROM sensor_data
+                WHERE device_id = ? AND measured_at BETWEEN ? AND ?
+                ORDER BY measured_at
+                """;
+
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(streamingFetchSize(connection));
+            ps.setLong(1, sensorInfoId);
+            ps.setTimestamp(2, Timestamp.valueOf(start));
+            ps.setTimestamp(3, Timestamp.valueOf(end));
+            return ps;
+        }, rs -> {
+            long time = rs.getTimestamp(1).getTime();
+            for (int k = 0; k < buffers.length; k++) {
+                double value = rs.getDouble(k + 2);
+                if (!rs.wasNull()) {
+                    buffers[k].add(time, value);
+                }
+            }
+        });
+
+        return buffers;
+    }
+
+    /**
+     * MySQL Connector/J는 forward-only + read-only + Integer.MIN_VALUE일 때만 행 단위 스트리밍
+     * (그 외 값은 무시하고 결과 전체를 메모리에 올림), 다른 DB는 일반 fetch 크기
+     */
+    private static int streamingFetchSize(Connection connection) throws SQLException {
+        String product = connection.getMetaData().getDatabaseProductName();
+        return product != null && product.toLowerCase().contains("mysql") ? Integer.MIN_VALUE : DEFAULT_FETCH_SIZE;
+    }
+
+    /**
+     * 크기가 늘어나는 (시각, 값) 기본형 배열
+     */
+    private static final class SeriesBuffer {
+        private long[] x = new long[INITIAL_CAPACITY];
+        private double[] y = new double[INITIAL_CAPACITY];
+        private int size;
+
+        void add(long time, double value) {
+            if (size == x.length) {
+                x = Arrays.copyOf(x, size * 2);
+                y = Arrays.copyOf(y, size * 2);
+            }
+            x[size] = time;
+            y[size] = value;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package kr.u_cube.www.WaterPollution.service.sensor;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import kr.u_cube.www.WaterPollution.entity.SensorData;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 센서 데이터 write-behind 저장기
+ * - 수신된 SensorData를 제한된 버퍼에 모았다가 배치 크기 또는 시간 창 기준으로 한 번에 INSERT
+ * - IDENTITY 전략 때문에 Hibernate 배치가 막히므로 JDBC 배치(rewriteBatchedStatements)로 직접 저장
+ * - 애플리케이션 종료 시 버퍼에 남은 데이터를 모두 저장한 뒤 종료
+ * - (device_id, measured_at) 유니크 키 기준 upsert - 재전송/replay로 같은 측정값이 다시 와도 한 행만 유지
+ */
+@Component
+// WAL에 의존 → 종료 시 이 저장기가 먼저 버퍼를 비우고(markApplied) 그 뒤에 WAL이 마지막 checkpoint를 기록
+@DependsOn({"sensorDataPartitionManager", "sensorIngestLog"})
+@Slf4j
+public class SensorDataBatchWriter {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO sensor_data (
+                device_id, ph, do_value, temperature, ec, bod, cod,
+                tp, tn, ss, chlorophylla, no3n, measured_at, created_at
+            ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE
+                ph = VALUES(ph), do_value = VALUES(do_value), temperature = VALUES(temperature),
+                ec = VALUES(ec), bod = VALUES(bod), cod = VALUES(cod), tp = VALUES(tp), tn = VALUES(tn),
+                ss = VALUES(ss), chlorophylla = VALUES(chlorophylla), no3n = VALUES(no3n)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final BlockingQueue<PendingRow> buffer;
+    private final int capacity;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final long offerTimeoutMs;
+    private final long shutdownTimeoutMs;
+
+    // 메트릭
+    private final DistributionSummary batchSizeSummary;
+    private final Timer flushTimer;
+    private final Counter writtenCounter;
+    private final Counter failedCounter;
+    private final Counter rejectedCounter;
+
+    private volatile boolean running = true;
+    private volatile boolean lastFlushSucceeded = true;
+    private Thread writerThread;
+
+    public SensorDataBatchWriter(JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${ingest.batch.capacity:10000}") int capacity,
+            @Value("${ingest.batch.size:500}") int batchSize,
+            @Value("${ingest.batch.flush-interval-ms:200}") long flushIntervalMs,
+            @Value("${ingest.batch.offer-timeout-ms:1000}") long offerTimeoutMs,
+            @Value("${ingest.batch.shutdown-timeout-ms:30000}") long shutdownTimeoutMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+
+        this.batchSizeSummary = DistributionSummary.builder("sensor_ingest_batch_size")
+                .description("한 번에 저장된 센서 데이터 배치 크기")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        this.flushTimer = Timer.builder("sensor_ingest_flush_latency")
+                .description("센서 데이터 배치 저장 소요 시간")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        this.writtenCounter = Counter.builder("sensor_ingest_rows_written_total")
+                .description("배치로 저장된 센서 데이터 수")
+                .register(meterRegistry);
+
+        this.failedCounter = Counter.builder("sensor_ingest_rows_failed_total")
+                .description("배치 저장에 실패한 센서 데이터 수")
+                .register(meterRegistry);
+
+        this.rejectedCounter = Counter.builder("sensor_ingest_rows_rejected_total")
+                .description("버퍼가 가득 차서 거부된 센서 데이터 수")
+                .register(meterRegistry);
+
+        Gauge.builder("sensor_ingest_buffer_size", buffer, BlockingQueue::size)
+                .description("저장 대기 중인 센서 데이터 수")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        writerThread = new Thread(this::runLoop, "SensorBatchWriter");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        log.info("✅ 센서 데이터 배치 저장기 시작: batchSize={}, flushIntervalMs={}, capacity={}",
+                batchSize, flushIntervalMs, capacity);
+    }
+
+    /**
+     * 저장 대기 중인 행과 저장 완료 콜백
+     */
+    private record PendingRow(SensorData row, Runnable onPersisted) {
+    }
+
+    /**
+     * 저장 대기열에 추가 (버퍼가 가득 차면 offerTimeoutMs 동안 대기)
+     *
+     * @return 대기열에 들어갔으면 true, 시간 내에 자리가 나지 않으면 false
+     */
+    public boolean enqueue(SensorData row) {
+        return enqueue(row, null);
+    }
+
+    /**
+     * 저장 대기열에 추가 - 배치 저장이 성공하면 onPersisted 호출 (실패 시 호출하지 않음)
+     */
+    public boolean enqueue(SensorData row, Runnable onPersisted) {
+        if (!running) {
+            rejectedCounter.increment();
+            log.warn("⚠️ 배치 저장기가 종료 중이라 데이터를 받을 수 없습니다: deviceId={}", row.getDeviceId());
+            return false;
+        }
+
+        try {
+            if (buffer.offer(new PendingRow(row, onPersisted), offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        rejectedCounter.increment();
+        log.warn("⚠️ 저장 버퍼 포화로 센서 데이터 거부: deviceId={}, bufferSize={}", row.getDeviceId(), buffer.size());
+        return false;
+    }
+
+    /**
+     * 저장 대기 중인 데이터 수
+     */
+    public int getPendingCount() {
+        return buffer.size();
+    }
+
+    /**
+     * WAL replay를 받아도 되는 상태인지 (직전 배치 저장 성공 + 버퍼 절반 이하)
+     */
+    public boolean canAcceptReplay() {
+        return running && lastFlushSucceeded && buffer.size() < capacity / 2;
+    }
+
+    /**
+     * 배치 크기 또는 시간 창이 찰 때까지 모았다가 저장
+     */
+    private void runLoop() {
+        List<PendingRow> batch = new ArrayList<>(batchSize);
+
+        while (running || !buffer.isEmpty()) {
+            try {
+                PendingRow first = buffer.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    buffer.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                        break;
+                    }
+                    PendingRow next = buffer.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                flush(batch);
+            } catch (InterruptedException e) {
+                // 종료 신호: 남은 데이터는 아래 루프 조건에서 계속 비운다
+                running = false;
+            } catch (Exception e) {
+                log.error("❌ 센서 데이터 배치 저장 루프 오류", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 모인 데이터를 하나의 JDBC 배치로 저장
+     */
+    private void flush(List<PendingRow> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            // 메모리 창을 벗어난 재전송은 여기서 upsert로 흡수됨
+            // (rewriteBatchedStatements + ON DUPLICATE KEY는 행별 결과가 SUCCESS_NO_INFO라 중복 수는 알 수 없음)
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(),
+                    (ps, pendingRow) -> bindRow(ps, pendingRow.row()));
+            lastFlushSucceeded = true;
+            writtenCounter.increment(batch.size());
+            log.debug("💾 센서 데이터 배치 저장: {} rows", batch.size());
+
+            for (PendingRow pendingRow : batch) {
+                if (pendingRow.onPersisted() != null) {
+                    pendingRow.onPersisted().run();
+                }
+            }
+        } catch (Exception e) {
+            // 실패한 행은 WAL에 남아 있다가 DB 복구 후 replay 된다
+            lastFlushSucceeded = false;
+            failedCounter.increment(batch.size());
+            log.error("❌ 센서 데이터 배치 저장 실패: {} rows", batch.size(), e);
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            batchSizeSummary.record(batch.size());
+        }
+    }
+
+    private void bindRow(PreparedStatement ps, SensorData row) throws SQLException {
+        ps.setLong(1, row.getSensorInfo().getId());
+        setDouble(ps, 2, row.getPh());
+        setDouble(ps, 3, row.getDoValue());
+        setDouble(ps, 4, row.getTemperature());
+        setDouble(ps, 5, row.getEc());
+        setDouble(ps, 6, row.getBod());
+        setDouble(ps, 7, row.getCod());
+        setDouble(ps, 8, row.getTp());
+        setDouble(ps, 9, row.getTn());
+        setDouble(ps, 10, row.getSs());
+        setDouble(ps, 11, row.getChlorophyllA());
+        setDouble(ps, 12, row.getNo3n());
+        ps.setTimestamp(13, row.getMeasuredAt() != null ? Timestamp.valueOf(row.getMeasuredAt()) : null);
+        ps.setTimestamp(14, row.getCreatedAt() != null ? Timestamp.valueOf(row.getCreatedAt()) : null);
+    }
+
+    private void setDouble(PreparedStatement ps, int index, Double value) throws SQLException {
+        if (value != null) {
+            ps.setDouble(index, value);
+        } else {
+            ps.setNull(index, Types.DOUBLE);
+        }
+    }
+
+    /**
+     * 종료 시 버퍼에 남은 데이터를 모두 저장
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        log.info("🛑 센서 데이터 배치 저장기 종료 중: 남은 데이터 {}건", buffer.size());
+
+        try {
+            writerThread.join(shutdownTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (writerThread.isAlive()) {
+            log.warn("⚠️ 배치 저장기가 {}ms 안에 종료되지 않았습니다: 남은 데이터 {}건", shutdownTimeoutMs, buffer.size());
+        } else {
+            log.info("✅ 센서 데이터 배치 저장기 종료 완료");
+        }
+    }
+}
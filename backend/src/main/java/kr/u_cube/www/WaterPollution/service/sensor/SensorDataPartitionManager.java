@@ -0,0 +1,333 @@
+package kr.u_cube.www.WaterPollution.service.sensor;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * sensor_data 월 단위 파티션 관리 (MySQL 전용)
+ * - measured_at 기준 RANGE COLUMNS 파티션 (pYYYYMM + 나머지를 받는 pmax)
+ * - 시작 시 파티션이 없는 테이블이면 한 번 변환 (FK 제거, PK를 (id, measured_at)으로 변경)
+ *   - Hibernate ddl-auto가 테이블을 만든 뒤 실행 (entityManagerFactory에 의존)
+ *   - (device_id, measured_at) 유니크 키가 확인된 경우에만 변환 (SensorDataUniqueKeyMigration 이후 실행)
+ *   - 변환은 테이블 전체 복사라 그동안 쓰기가 막힘 → 추정 행 수가 convert-max-rows를 넘으면 시작 시 변환하지 않고
+ *     error 로그만 남김 (점검 시간에 값을 올려 재시작하거나 pt-online-schema-change 등으로 직접 변환)
+ * - 매일 미래 파티션을 미리 만들고, 보존 기간이 지난 파티션은 삭제하거나 별도 테이블로 아카이브
+ * - MySQL이 아니거나(H2 등) storage.sensor-data.partitioning=false면 아무것도 하지 않음
+ */
+@Component
+@DependsOn({"entityManagerFactory", "sensorDataUniqueKeyMigration"})
+@Slf4j
+public class SensorDataPartitionManager {
+
+    /**
+     * 보존 기간이 지난 파티션 처리 방식
+     */
+    public enum RetentionPolicy {
+        DROP,    // 파티션 삭제
+        ARCHIVE  // sensor_data_archive_pYYYYMM 테이블로 교환(EXCHANGE PARTITION) 후 삭제
+    }
+
+    private static final String TABLE = "sensor_data";
+    private static final String MAX_PARTITION = "pmax";
+    private static final Pattern MONTH_PARTITION = Pattern.compile("p(\\d{6})");
+    private static final DateTimeFormatter PARTITION_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final SensorDataUniqueKeyMigration uniqueKeyMigration;
+    private final boolean enabled;
+    private final int retentionMonths;
+    private final RetentionPolicy retentionPolicy;
+    private final int futurePartitions;
+    private final long convertMaxRows;
+
+    private boolean active;
+
+    public SensorDataPartitionManager(JdbcTemplate jdbcTemplate,
+            DataSource dataSource,
+            SensorDataUniqueKeyMigration uniqueKeyMigration,
+            @Value("${storage.sensor-data.partitioning:true}") boolean enabled,
+            @Value("${storage.sensor-data.retention-months:24}") int retentionMonths,
+            @Value("${storage.sensor-data.retention-policy:ARCHIVE}") RetentionPolicy retentionPolicy,
+            @Value("${storage.sensor-data.future-partitions:3}") int futurePartitions,
+            @Value("${storage.sensor-data.convert-max-rows:1000000}") long convertMaxRows) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+        this.uniqueKeyMigration = uniqueKeyMigration;
+        this.enabled = enabled;
+        this.retentionMonths = retentionMonths;
+        this.retentionPolicy = retentionPolicy;
+        this.futurePartitions = futurePartitions;
+        this.convertMaxRows = convertMaxRows;
+    }
+
+    /**
+     * 수집 경로(배치 저장기)보다 먼저, Hibernate 스키마 생성보다는 뒤에 실행되어 테이블 구조를 맞춘다
+     * - 파티션 관리가 켜진 것은 파티션 구조가 확인되었을 때만 (아니면 매일 관리 작업도 하지 않음)
+     */
+    @PostConstruct
+    public void initialize() {
+        if (!enabled) {
+            log.info("⏸️ sensor_data 파티션 관리 비활성화");
+            return;
+        }
+        if (!isMySql()) {
+            log.info("⏸️ MySQL이 아니므로 sensor_data 파티션 관리 생략");
+            return;
+        }
+
+        try {
+            Long estimatedRows = getEstimatedRows();
+            if (estimatedRows == null) {
+                log.error("❌ sensor_data 테이블이 없어 파티션 관리를 하지 않습니다 (ddl-auto 설정 확인 필요)");
+                return;
+            }
+
+            List<String> partitionNames = getPartitionNames();
+            if (partitionNames.isEmpty()) {
+                if (!uniqueKeyMigration.isUniqueKeyPresent()) {
+                    // upsert 중복 방지가 전제이므로 키가 없는 테이블은 변환하지 않음
+                    log.error("❌ sensor_data 파티션 변환 생략: 유니크 키 {} 없음", SensorDataUniqueKeyMigration.UNIQUE_KEY);
+                    return;
+                }
+                if (estimatedRows > convertMaxRows) {
+                    log.error("❌ sensor_data 파티션 변환 생략: 추정 {}행 > convert-max-rows {} (변환 중 쓰기가 막히므로 "
+                            + "점검 시간에 storage.sensor-data.convert-max-rows를 올려 재시작하거나 직접 변환 필요)",
+                            estimatedRows, convertMaxRows);
+                    return;
+                }
+                convertToPartitionedTable();
+            } else if (!partitionNames.contains(MAX_PARTITION)) {
+                log.error("❌ sensor_data가 다른 방식으로 파티션되어 있어 관리하지 않습니다: {}", partitionNames);
+                return;
+            }
+
+            active = true;
+            maintainPartitions();
+        } catch (Exception e) {
+            log.error("❌ sensor_data 파티션 초기화 실패 (기존 테이블 그대로 사용)", e);
+        }
+    }
+
+    /**
+     * 미래 파티션 생성 + 보존 기간 지난 파티션 정리 (매일 스케줄러에서 호출)
+     */
+    public void maintainPartitions() {
+        if (!active) {
+            return;
+        }
+        createFuturePartitions();
+        applyRetention();
+    }
+
+    /**
+     * 파티션 없는 기존 테이블을 월 단위 파티션 테이블로 변환
+     * - 파티션 테이블은 FK를 가질 수 없고, 모든 유니크 키에 파티션 컬럼이 포함되어야 함
+     */
+    private void convertToPartitionedTable() {
+        log.warn("🔧 sensor_data 파티션 변환 시작 (데이터 양에 따라 오래 걸릴 수 있음)");
+        long start = System.currentTimeMillis();
+
+        // 1. measured_at이 없는 행은 저장 시각으로 채움 (PK 컬럼이 되므로 NOT NULL)
+        jdbcTemplate.update("UPDATE sensor_data SET measured_at = COALESCE(created_at, NOW()) WHERE measured_at IS NULL");
+
+        // 2. sensor_data에 걸린 FK, sensor_data를 참조하는 FK 제거
+        List<Map<String, Object>> foreignKeys = jdbcTemplate.queryForList("""
+                SELECT TABLE_NAME, CONSTRAINT_NAME
+                FROM information_schema.REFERENTIAL_CONSTRAINTS
+                WHERE CONSTRAINT_SCHEMA = DATABASE()
+                  AND (TABLE_NAME = ? OR REFERENCED_TABLE_NAME = ?)
+                """, TABLE, TABLE);
+        for (Map<String, Object> fk : foreignKeys) {
+            jdbcTemplate.execute("ALTER TABLE `" + fk.get("TABLE_NAME") + "` DROP FOREIGN KEY `" + fk.get("CONSTRAINT_NAME") + "`");
+            log.info("🔧 FK 제거: {}.{}", fk.get("TABLE_NAME"), fk.get("CONSTRAINT_NAME"));
+        }
+
+        // 3. PK에 파티션 컬럼 포함
+        jdbcTemplate.execute("""
+                ALTER TABLE sensor_data
+                    MODIFY measured_at DATETIME(6) NOT NULL,
+                    DROP PRIMARY KEY,
+                    ADD PRIMARY KEY (id, measured_at)
+                """);
+
+        // 4. 가장 오래된 데이터의 달부터 미래 파티션까지 생성
+        Timestamp oldest = jdbcTemplate.queryForObject("SELECT MIN(measured_at) FROM sensor_data", Timestamp.class);
+        YearMonth from = oldest != null ? YearMonth.from(oldest.toLocalDateTime()) : YearMonth.now();
+        YearMonth to = YearMonth.now().plusMonths(futurePartitions);
+
+        StringBuilder partitions = new StringBuilder();
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            partitions.append(partitionDefinition(month)).append(",\n");
+        }
+        partitions.append("PARTITION ").append(MAX_PARTITION).append(" VALUES LESS THAN (MAXVALUE)");
+
+        jdbcTemplate.execute("ALTER TABLE sensor_data PARTITION BY RANGE COLUMNS(measured_at) (\n" + partitions + "\n)");
+
+        log.info("✅ sensor_data 파티션 변환 완료: {} ~ {}, {}ms", from, to, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 현재 달 + future-partitions 개월까지 파티션이 있도록 pmax를 나눔
+     */
+    private void createFuturePartitions() {
+        TreeMap<YearMonth, String> existing = getMonthPartitions();
+        YearMonth target = YearMonth.now().plusMonths(futurePartitions);
+        YearMonth next = existing.isEmpty() ? YearMonth.now() : existing.lastKey().plusMonths(1);
+
+        if (next.isAfter(target)) {
+            return;
+        }
+
+        StringBuilder partitions = new StringBuilder();
+        for (YearMonth month = next; !month.isAfter(target); month = month.plusMonths(1)) {
+            partitions.append(partitionDefinition(month)).append(",\n");
+        }
+        partitions.append("PARTITION ").append(MAX_PARTITION).append(" VALUES LESS THAN (MAXVALUE)");
+
+        jdbcTemplate.execute("ALTER TABLE sensor_data REORGANIZE PARTITION " + MAX_PARTITION + " INTO (\n" + partitions + "\n)");
+        log.info("✅ sensor_data 미래 파티션 생성: {} ~ {}", next, target);
+    }
+
+    /**
+     * 보존 기간이 지난 월 파티션 삭제 또는 아카이브
+     */
+    private void applyRetention() {
+        if (retentionMonths <= 0) {
+            return;
+        }
+
+        YearMonth oldestKept = YearMonth.now().minusMonths(retentionMonths);
+        for (Map.Entry<YearMonth, String> partition : getMonthPartitions().headMap(oldestKept).entrySet()) {
+            String name = partition.getValue();
+            try {
+                if (retentionPolicy == RetentionPolicy.ARCHIVE) {
+                    archivePartition(name);
+                }
+                jdbcTemplate.execute("ALTER TABLE sensor_data DROP PARTITION " + name);
+                log.info("🧹 sensor_data 파티션 정리 ({}): {}", retentionPolicy, name);
+            } catch (Exception e) {
+                log.error("❌ sensor_data 파티션 정리 실패: {}", name, e);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 파티션 데이터를 같은 구조의 별도 테이블로 옮김 (EXCHANGE PARTITION은 메타데이터 교환이라 복사 없음)
+     * - 여러 번 실행해도 안전: 아카이브 테이블이 이미 있으면 새로 만들지 않고, 파티션된 경우에만 REMOVE PARTITIONING
+     * - 이전 실행이 교환 뒤 DROP 전에 실패했다면 (아카이브에 행 있음 + 파티션 비어 있음) 다시 교환하지 않음
+     *   (다시 교환하면 아카이브 데이터가 파티션으로 돌아와 DROP으로 지워짐)
+     */
+    private void archivePartition(String partitionName) {
+        String archiveTable = TABLE + "_archive_" + partitionName;
+
+        if (!tableExists(archiveTable)) {
+            jdbcTemplate.execute("CREATE TABLE " + archiveTable + " LIKE " + TABLE);
+            jdbcTemplate.execute("ALTER TABLE " + archiveTable + " REMOVE PARTITIONING");
+        } else {
+            if (!getPartitionNames(archiveTable).isEmpty()) {
+                jdbcTemplate.execute("ALTER TABLE " + archiveTable + " REMOVE PARTITIONING");
+            }
+            if (hasRows(archiveTable)) {
+                if (hasRows(TABLE + " PARTITION (" + partitionName + ")")) {
+                    throw new IllegalStateException("아카이브 테이블 " + archiveTable + "과 파티션 " + partitionName
+                            + "에 모두 데이터가 있어 아카이브할 수 없습니다");
+                }
+                log.info("📦 sensor_data 파티션은 이미 아카이브됨: {} -> {}", partitionName, archiveTable);
+                return;
+            }
+        }
+
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " EXCHANGE PARTITION " + partitionName + " WITH TABLE " + archiveTable);
+        log.info("📦 sensor_data 파티션 아카이브: {} -> {}", partitionName, archiveTable);
+    }
+
+    private String partitionDefinition(YearMonth month) {
+        LocalDate upperBound = month.plusMonths(1).atDay(1);
+        return "PARTITION p" + month.format(PARTITION_FORMAT)
+                + " VALUES LESS THAN ('" + upperBound + " 00:00:00')";
+    }
+
+    /**
+     * 현재 월 파티션 목록 (월 → 파티션 이름)
+     */
+    private TreeMap<YearMonth, String> getMonthPartitions() {
+        TreeMap<YearMonth, String> partitions = new TreeMap<>();
+        for (String name : getPartitionNames()) {
+            Matcher matcher = MONTH_PARTITION.matcher(name);
+            if (matcher.matches()) {
+                partitions.put(YearMonth.parse(matcher.group(1), PARTITION_FORMAT), name);
+            }
+        }
+        return partitions;
+    }
+
+    private List<String> getPartitionNames() {
+        return getPartitionNames(TABLE);
+    }
+
+    private List<String> getPartitionNames(String table) {
+        return jdbcTemplate.queryForList("""
+                SELECT PARTITION_NAME
+                FROM information_schema.PARTITIONS
+                WHERE TABLE_SCHEMA = DATABASE()
+                  AND TABLE_NAME = ?
+                  AND PARTITION_NAME IS NOT NULL
+                ORDER BY PARTITION_ORDINAL_POSITION
+                """, String.class, table);
+    }
+
+    /**
+     * 통계상 추정 행 수 (COUNT(*) 없이 information_schema에서 읽음, 테이블이 없으면 null)
+     */
+    private Long getEstimatedRows() {
+        List<Long> rows = jdbcTemplate.queryForList("""
+                SELECT COALESCE(TABLE_ROWS, 0)
+                FROM information_schema.TABLES
+                WHERE TABLE_SCHEMA = DATABASE()
+                  AND TABLE_NAME = ?
+                """, Long.class, TABLE);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private boolean tableExists(String table) {
+        Integer count = jdbcTemplate.queryForObject("""
+                SELECT COUNT(*)
+                FROM information_schema.TABLES
+                WHERE TABLE_SCHEMA = DATABASE()
+                  AND TABLE_NAME = ?
+                """, Integer.class, table);
+        return count != null && count > 0;
+    }
+
+    private boolean hasRows(String tableExpression) {
+        return !jdbcTemplate.queryForList("SELECT 1 FROM " + tableExpression + " LIMIT 1", Integer.class).isEmpty();
+    }
+
+    private boolean isMySql() {
+        try (var connection = dataSource.getConnection()) {
+            return connection.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql");
+        } catch (Exception e) {
+            log.error("❌ DB 종류 확인 실패, 파티션 관리 생략", e);
+            return false;
+        }
+    }
+}
@@ -2,9 +2,9 @@ package kr.u_cube.www.WaterPollution.service.sensor;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Objects;
 
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
 import kr.u_cube.www.WaterPollution.dto.HistoryDataDto;
@@ -14,7 +14,6 @@ import kr.u_cube.www.WaterPollution.dto.sensor.SensorInfoDto;
 import kr.u_cube.www.WaterPollution.entity.SensorData;
 import kr.u_cube.www.WaterPollution.entity.SensorInfo;
 import kr.u_cube.www.WaterPollution.repository.SensorDataRepository;
-import kr.u_cube.www.WaterPollution.repository.SensorInfoRepository;
 import kr.u_cube.www.WaterPollution.service.monitoring.CustomMetricsService;
 import lombok.RequiredArgsConstructor;
 
@@ -22,23 +21,35 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class SensorDataService {
         private final SensorDataRepository sensorDataRepository;
-        private final SensorInfoRepository sensorInfoRepository;
+        private final SensorInfoRegistry sensorInfoRegistry;
         private final CustomMetricsService customMetricsService;
+        private final SensorDataBatchWriter sensorDataBatchWriter;
+        private final SensorReadingDeduplicator sensorReadingDeduplicator;
+        private final LatestReadingStore latestReadingStore;
+        private final SensorRollupService sensorRollupService;
+        private final SensorExportCache sensorExportCache;
 
+        /**
+         * 센서 데이터 저장 (write-behind)
+         * - 배치 저장기 버퍼에 넣고 바로 반환, 실제 INSERT는 배치로 처리
+         * - 버퍼가 가득 찬 경우에만 호출 스레드에서 직접 저장
+         */
         public void save(SensorDataDto dto) {
-                SensorInfo sensorInfo = sensorInfoRepository.findByDeviceId(dto.getDeviceId())
-                                .orElseGet(() -> {
-                                        // 2. 없으면 신규 등록
-                                        SensorInfo newInfo = SensorInfo.builder()
-                                                        .deviceId(dto.getDeviceId())
-                                                        .name("센서 이름 없음")
-                                                        .lat(0.0)
-                                                        .lon(0.0)
-                                                        .installedAt(LocalDateTime.now())
-                                                        .location("unknown")
-                                                        .build();
-                                        return sensorInfoRepository.save(newInfo);
-                                });
+                save(dto, null);
+        }
+
+        /**
+         * 센서 데이터 저장 (write-behind) - 실제 DB 반영 후 onPersisted 호출
+         */
+        public void save(SensorDataDto dto, Runnable onPersisted) {
+                // 레지스트리에서 조회 (없으면 신규 등록)
+                save(dto, sensorInfoRegistry.getOrRegister(dto.getDeviceId()).sensorInfo(), onPersisted);
+        }
+
+        /**
+         * 센서 데이터 저장 (write-behind) - 이미 조회한 센서 정보 사용
+         */
+        public void save(SensorDataDto dto, SensorInfo sensorInfo, Runnable onPersisted) {
 
                 SensorData entity = SensorData.builder()
                                 .sensorInfo(sensorInfo)
@@ -53,33 +64,46 @@ public class SensorDataService {
                                 .ss(dto.getSs())
                                 .chlorophyllA(dto.getChlorophyllA())
                                 .no3n(dto.getNo3n())
-                                .measuredAt(dto.getMeasuredAt())
+                                // 측정 시각이 없으면 수신 시각 사용 (파티션 키라 NOT NULL)
+                                .measuredAt(dto.getMeasuredAt() != null ? dto.getMeasuredAt() : LocalDateTime.now())
                                 .createdAt(LocalDateTime.now())
                                 .build();
 
-                sensorDataRepository.save(entity);
+                // 실제 DB 반영 후 집계 갱신 대상으로 표시, 늦게 도착한 과거 측정값이면 해당 기간 내보내기 캐시 무효화
+                Runnable persisted = () -> {
+                        sensorRollupService.markDirty(sensorInfo.getId(), entity.getMeasuredAt());
+                        sensorExportCache.invalidate(sensorInfo.getDeviceId(), entity.getMeasuredAt());
+                        if (onPersisted != null) {
+                                onPersisted.run();
+                        }
+                };
+
+                if (!sensorDataBatchWriter.enqueue(entity, persisted)) {
+                        try {
+                                sensorDataRepository.save(entity);
+                        } catch (DataIntegrityViolationException e) {
+                                // (device_id, measured_at) 유니크 키 위반 = 이미 저장된 측정값
+                                sensorReadingDeduplicator.countDbDuplicate();
+                        }
+                        persisted.run();
+                }
+
+                // 최신 측정값 저장소 갱신 (대시보드 조회용)
+                latestReadingStore.update(entity);
 
                 // 🆕 메트릭 증가
                 customMetricsService.incrementSensorDataReceived();
         }
 
+        /**
+         * 측정 데이터가 있는 디바이스의 센서 정보 (최신 측정값 저장소 + 레지스트리, DB 조회 없음)
+         */
         public List<SensorInfoDto> getLatestSensorInfoPerDevice() {
-                List<SensorData> allData = sensorDataRepository.findAll();
-
-                // deviceId 기준 최신 데이터만 추출
-                Map<String, SensorData> latestMap = allData.stream()
-                                .collect(Collectors.toMap(
-                                                sd -> sd.getSensorInfo().getDeviceId(),
-                                                sd -> sd,
-                                                (existing, replacement) -> existing.getMeasuredAt()
-                                                                .isAfter(replacement.getMeasuredAt())
-                                                                                ? existing
-                                                                                : replacement));
-
-                // SensorInfo만 DTO로 변환
-                return latestMap.values().stream()
-                                .map(sd -> {
-                                        SensorInfo info = sd.getSensorInfo();
+                return latestReadingStore.getAll().stream()
+                                .map(reading -> sensorInfoRegistry.find(reading.deviceId()).orElse(null))
+                                .filter(Objects::nonNull)
+                                .map(entry -> {
+                                        SensorInfo info = entry.sensorInfo();
                                         return new SensorInfoDto(
                                                         info.getDeviceId(),
                                                         info.getName(),
@@ -87,26 +111,14 @@ public class SensorDataService {
                                                         info.getLon());
                                 })
                                 .toList();
-
         }
 
+        /**
+         * 디바이스 최신 측정값 (최신 측정값 저장소, DB 조회 없음)
+         */
         public LatestSensorDto getLatestByDeviceId(String deviceId) {
-                return sensorDataRepository.findTopBySensorInfo_DeviceIdOrderByMeasuredAtDesc(deviceId)
-                                .map(entity -> new LatestSensorDto(
-                                                entity.getSensorInfo().getDeviceId(),
-                                                entity.getPh(),
-                                                entity.getDoValue(),
-                                                entity.getTemperature(),
-                                                entity.getEc(),
-                                                entity.getBod(),
-                                                entity.getCod(),
-                                                entity.getTp(),
-                                                entity.getTn(),
-                                                entity.getSs(),
-                                                entity.getChlorophyllA(),
-                                                entity.getNo3n(),
-                                                entity.getMeasuredAt()))
-                                .orElse(null);
+                LatestReadingStore.Reading reading = latestReadingStore.get(deviceId);
+                return reading != null ? reading.toDto() : null;
         }
 
         public List<HistoryDataDto> getHistory(LocalDateTime start, LocalDateTime end) {
@@ -0,0 +1,130 @@
+package kr.u_cube.www.WaterPollution.service.sensor;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * sensor_data (device_id, measured_at) 유니크 키 마이그레이션 (MySQL 전용)
+ * - 배치 저장기의 upsert(ON DUPLICATE KEY UPDATE)는 이 키가 있어야 중복을 막음
+ * - Hibernate ddl-auto=update는 기존 테이블에 중복 행이 있으면 키 추가에 실패하고 경고만 남기므로 시작 시 직접 처리
+ *   1. 같은 (device_id, measured_at) 행 중 가장 작은 id만 남기고 삭제
+ *   2. 유니크 키 추가
+ *   3. information_schema.STATISTICS로 키가 생겼는지 확인, 없으면 error 로그
+ * - 파티션 변환(SensorDataPartitionManager)은 키가 확인된 경우에만 진행
+ * - MySQL이 아니면(H2 등) Hibernate가 만든 스키마를 그대로 사용
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@Slf4j
+public class SensorDataUniqueKeyMigration {
+
+    static final String UNIQUE_KEY = "uk_sensor_data_device_measured";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final boolean enabled;
+
+    private boolean uniqueKeyPresent;
+
+    public SensorDataUniqueKeyMigration(JdbcTemplate jdbcTemplate,
+            DataSource dataSource,
+            @Value("${storage.sensor-data.unique-key-migration:true}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+        this.enabled = enabled;
+    }
+
+    @PostConstruct
+    public void migrate() {
+        if (!isMySql()) {
+            // Hibernate가 엔티티의 @UniqueConstraint로 테이블을 만듦
+            uniqueKeyPresent = true;
+            return;
+        }
+
+        try {
+            if (hasUniqueKey()) {
+                uniqueKeyPresent = true;
+                return;
+            }
+            if (!enabled) {
+                log.error("❌ sensor_data 유니크 키 {} 없음 (storage.sensor-data.unique-key-migration=false) - "
+                        + "upsert가 중복을 막지 못하고 파티션 변환도 하지 않습니다", UNIQUE_KEY);
+                return;
+            }
+
+            log.warn("🔧 sensor_data 유니크 키 {} 추가 시작 (중복 행 정리 후 추가)", UNIQUE_KEY);
+            long start = System.currentTimeMillis();
+
+            int deleted = jdbcTemplate.update("""
+                    DELETE sd FROM sensor_data sd
+                    JOIN (
+                        SELECT device_id, measured_at, MIN(id) AS keep_id
+                        FROM sensor_data
+                        GROUP BY device_id, measured_at
+                        HAVING COUNT(*) > 1
+                    ) dup
+                      ON sd.device_id = dup.device_id
+                     AND sd.measured_at = dup.measured_at
+                     AND sd.id <> dup.keep_id
+                    """);
+            log.info("🧹 sensor_data 중복 행 삭제: {}건", deleted);
+
+            jdbcTemplate.execute("ALTER TABLE sensor_data ADD UNIQUE KEY " + UNIQUE_KEY + " (device_id, measured_at)");
+            uniqueKeyPresent = hasUniqueKey();
+            log.info("✅ sensor_data 유니크 키 추가 완료: {}ms", System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("❌ sensor_data 유니크 키 추가 실패", e);
+            uniqueKeyPresent = hasUniqueKeyQuietly();
+        }
+
+        if (!uniqueKeyPresent) {
+            log.error("❌❌ sensor_data 유니크 키 {}가 없습니다 - 같은 측정값이 중복 저장될 수 있고 파티션 변환을 하지 않습니다 "
+                    + "(중복 정리 후 ALTER TABLE sensor_data ADD UNIQUE KEY {} (device_id, measured_at) 직접 실행 필요)",
+                    UNIQUE_KEY, UNIQUE_KEY);
+        }
+    }
+
+    /**
+     * (device_id, measured_at) 유니크 키가 확인되었는지 여부
+     */
+    public boolean isUniqueKeyPresent() {
+        return uniqueKeyPresent;
+    }
+
+    private boolean hasUniqueKey() {
+        Integer count = jdbcTemplate.queryForObject("""
+                SELECT COUNT(*)
+                FROM information_schema.STATISTICS
+                WHERE TABLE_SCHEMA = DATABASE()
+                  AND TABLE_NAME = 'sensor_data'
+                  AND INDEX_NAME = ?
+                  AND NON_UNIQUE = 0
+                """, Integer.class, UNIQUE_KEY);
+        return count != null && count > 0;
+    }
+
+    private boolean hasUniqueKeyQuietly() {
+        try {
+            return hasUniqueKey();
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private boolean isMySql() {
+        try (var connection = dataSource.getConnection()) {
+            return connection.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql");
+        } catch (Exception e) {
+            log.error("❌ DB 종류 확인 실패, 유니크 키 마이그레이션 생략", e);
+            return false;
+        }
+    }
+}
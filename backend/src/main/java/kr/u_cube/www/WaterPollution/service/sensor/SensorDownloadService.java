@@ -2,57 +2,296 @@ package kr.u_cube.www.WaterPollution.service.sensor;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
-import java.nio.charset.StandardCharsets;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.LongConsumer;
+import java.util.zip.GZIPOutputStream;
 
+import org.apache.poi.ss.SpreadsheetVersion;
 import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import com.opencsv.CSVWriter;
-
 import kr.u_cube.www.WaterPollution.dto.HistoryDataDto;
 import kr.u_cube.www.WaterPollution.service.monitoring.CustomMetricsService;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class SensorDownloadService {
 
+    private static final DateTimeFormatter MEASURED_AT_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final byte[] UTF8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+    private static final int CSV_COLUMNS = 20;
+    private static final String[] CSV_HEADER = {
+        "번호", "디바이스ID", "측정소코드", "측정소명", "측정망종류",
+        "위도", "경도", "위치", "측정시간",
+        "pH", "DO(mg/L)", "수온(°C)", "EC", "BOD(mg/L)",
+        "COD(mg/L)", "T-P(mg/L)", "T-N(mg/L)", "SS(mg/L)",
+        "Chlorophyll-a", "NO3-N(mg/L)"
+    };
+    private static final int WRITER_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_SLICES = 10_000;
+
+    // xlsx 시트당 최대 행 수 (헤더 1행 제외한 나머지가 데이터)
+    private static final int EXCEL_MAX_ROWS = SpreadsheetVersion.EXCEL2007.getMaxRows();
+    private static final int EXCEL_MIN_COLUMN_WIDTH = 2000;
+    private static final int EXCEL_MAX_COLUMN_WIDTH = 8000;
+
     private final SensorDataService sensorDataService;
+    private final SensorHistoryExportReader sensorHistoryExportReader;
     private final CustomMetricsService customMetricsService; // 🆕 추가
+    private final int excelRowWindow;
+    private final int excelWidthSampleRows;
+    private final int parallelism;
+    private final int parallelSliceRows;
+    private final int compressionLevel;
+    private final int parquetRowGroupRows;
+
+    public SensorDownloadService(SensorDataService sensorDataService,
+            SensorHistoryExportReader sensorHistoryExportReader,
+            CustomMetricsService customMetricsService,
+            @Value("${download.excel.row-window:500}") int excelRowWindow,
+            @Value("${download.excel.width-sample-rows:200}") int excelWidthSampleRows,
+            @Value("${download.parallelism:4}") int parallelism,
+            @Value("${download.parallel-slice-rows:50000}") int parallelSliceRows,
+            @Value("${download.compression-level:6}") int compressionLevel,
+            @Value("${download.parquet.row-group-rows:50000}") int parquetRowGroupRows) {
+        this.sensorDataService = sensorDataService;
+        this.sensorHistoryExportReader = sensorHistoryExportReader;
+        this.customMetricsService = customMetricsService;
+        this.excelRowWindow = excelRowWindow;
+        this.excelWidthSampleRows = excelWidthSampleRows;
+        this.parallelism = parallelism;
+        this.parallelSliceRows = parallelSliceRows;
+        this.compressionLevel = compressionLevel;
+        this.parquetRowGroupRows = parquetRowGroupRows;
+    }
 
     /**
-     * 지정된 기간의 센서 데이터를 CSV 형태로 생성
+     * 지정된 기간의 센서 데이터를 CSV로 바로 출력 (스트리밍)
+     * - 페이지 단위로 읽은 행을 즉시 인코딩해 out에 씀 → 힙 사용량이 행 수와 무관
+     * - 데이터 유무는 호출 전에 hasData()로 확인
+     *
+     * @return 출력한 행 수
      */
-    public byte[] generateCSVData(LocalDateTime startDate, LocalDateTime endDate) throws IOException {
-        log.info("📊 CSV 데이터 생성 시작: {} ~ {}", startDate, endDate);
-        
-        // 데이터 조회
-        List<HistoryDataDto> historyData = sensorDataService.getHistory(startDate, endDate);
-        
-        if (historyData.isEmpty()) {
-            log.warn("⚠️ 조회된 데이터가 없습니다");
-            throw new IllegalStateException("지정된 기간에 데이터가 없습니다.");
+    public long writeCSV(LocalDateTime startDate, LocalDateTime endDate, OutputStream out) throws IOException {
+        return writeCSV(startDate, endDate, out, null);
+    }
+
+    /**
+     * CSV 출력 - 디바이스 필터 (null이면 전체)
+     */
+    public long writeCSV(LocalDateTime startDate, LocalDateTime endDate, String deviceId, OutputStream out)
+            throws IOException {
+        return writeCSV(startDate, endDate, deviceId, out, null, parallelism);
+    }
+
+    /**
+     * CSV 출력 - 행마다 progress에 지금까지 쓴 행 수 전달 (내보내기 작업 진행률)
+     */
+    public long writeCSV(LocalDateTime startDate, LocalDateTime endDate, OutputStream out,
+            LongConsumer progress) throws IOException {
+        return writeCSV(startDate, endDate, out, progress, parallelism);
+    }
+
+    /**
+     * CSV 출력 - 병렬도 지정
+     * - 행이 많으면 기간을 시간 조각으로 나눠 조각별로 조회/인코딩을 병렬 실행하고, 인코딩된 조각을 순서대로 이어 씀
+     * - parallelism이 1 이하이거나 행이 한 조각 분량 이하면 순차 처리
+     * - 병렬 처리 시 progress는 조각 단위로 전달
+     */
+    public long writeCSV(LocalDateTime startDate, LocalDateTime endDate, OutputStream out,
+            LongConsumer progress, int parallelism) throws IOException {
+        return writeCSV(startDate, endDate, null, out, progress, parallelism);
+    }
+
+    private long writeCSV(LocalDateTime startDate, LocalDateTime endDate, String deviceId, OutputStream out,
+            LongConsumer progress, int parallelism) throws IOException {
+        List<ExportSlices.Slice> slices = planSlices(startDate, endDate, deviceId, parallelism);
+        log.info("📊 CSV 스트리밍 시작: {} ~ {}, device={} ({}개 조각)",
+                startDate, endDate, deviceId != null ? deviceId : "전체", slices.size());
+        long start = System.currentTimeMillis();
+
+        // BOM 추가 (Excel에서 한글 깨짐 방지)
+        out.write(UTF8_BOM);
+
+        CsvRowEncoder encoder = new CsvRowEncoder(out, WRITER_BUFFER_SIZE);
+        encoder.writeFields(CSV_HEADER);
+
+        long rows;
+        if (slices.size() == 1) {
+            rows = writeCSVRows(encoder, startDate, endDate, deviceId, true, 0, progress);
+        } else {
+            rows = writeCSVSlices(slices, deviceId, encoder, progress, parallelism);
         }
-        
-        // CSV 생성
-        byte[] csvBytes = createCSVBytes(historyData);
 
         // 🆕 메트릭 증가
         customMetricsService.incrementCsvDownload();
-        
-        log.info("✅ CSV 데이터 생성 완료: {} rows, {} bytes", historyData.size(), csvBytes.length);
-        return csvBytes;
+
+        log.info("✅ CSV 스트리밍 완료: {} rows, {}ms", rows, System.currentTimeMillis() - start);
+        return rows;
+    }
+
+    /**
+     * gzip 압축 CSV 출력 (.csv.gz) - 내용은 writeCSV와 같고, 인코딩한 바이트를 바로 압축해서 씀
+     */
+    public long writeCSVGzip(LocalDateTime startDate, LocalDateTime endDate, String deviceId, OutputStream out,
+            LongConsumer progress) throws IOException {
+        GZIPOutputStream gzip = new GZIPOutputStream(out, WRITER_BUFFER_SIZE) {
+            {
+                def.setLevel(compressionLevel);
+            }
+        };
+        long rows = writeCSV(startDate, endDate, deviceId, gzip, progress, parallelism);
+
+        // out은 호출한 쪽이 닫으므로 압축 스트림은 마무리만
+        gzip.finish();
+        out.flush();
+        return rows;
+    }
+
+    /**
+     * Parquet 출력 (분석용 컬럼 형식)
+     * - 측정소 정보 컬럼은 사전 인코딩 → 행마다 반복되던 측정소명/위치/좌표가 row group당 한 번만 저장됨
+     * - 측정값은 문자열 변환 없이 DOUBLE 그대로, 페이지 단위 GZIP 압축
+     * - row group(parquetRowGroupRows 행)마다 바로 출력하므로 메모리는 row group 크기만큼
+     *
+     * @return 출력한 행 수
+     */
+    public long writeParquet(LocalDateTime startDate, LocalDateTime endDate, String deviceId, OutputStream out,
+            LongConsumer progress) throws IOException {
+        log.info("📊 Parquet 스트리밍 시작: {} ~ {}, device={}",
+                startDate, endDate, deviceId != null ? deviceId : "전체");
+        long start = System.currentTimeMillis();
+
+        ParquetRowWriter writer = new ParquetRowWriter(out, parquetRowGroupRows, compressionLevel);
+        long rows = sensorHistoryExportReader.forEach(startDate, endDate, deviceId, true, 0, (rowNumber, data) -> {
+            writer.write(data);
+            if (progress != null) {
+                progress.accept(rowNumber);
+            }
+        });
+        writer.finish();
+
+        // 🆕 메트릭 증가
+        customMetricsService.incrementParquetDownload();
+
+        log.info("✅ Parquet 스트리밍 완료: {} rows, {} bytes, {}ms",
+                rows, writer.written(), System.currentTimeMillis() - start);
+        return rows;
+    }
+
+    /**
+     * 기간 내 데이터 존재 여부
+     */
+    public boolean hasData(LocalDateTime startDate, LocalDateTime endDate) {
+        return sensorHistoryExportReader.exists(startDate, endDate);
+    }
+
+    /**
+     * 기간 내 데이터 존재 여부 - 디바이스 필터 (null이면 전체)
+     */
+    public boolean hasData(LocalDateTime startDate, LocalDateTime endDate, String deviceId) {
+        return sensorHistoryExportReader.exists(startDate, endDate, deviceId);
+    }
+
+    /**
+     * 지정된 기간의 센서 데이터를 Excel로 바로 출력 (SXSSF 스트리밍)
+     * - 메모리에는 최근 excelRowWindow 행만 두고 나머지는 압축 임시 파일로 내보냄
+     * - 컬럼 너비는 앞쪽 excelWidthSampleRows 행만 보고 정함 (autoSizeColumn 없음)
+     * - 시트당 최대 행 수를 넘으면 다음 시트로 이어서 씀
+     *
+     * @return 출력한 행 수
+     */
+    public long writeExcel(LocalDateTime startDate, LocalDateTime endDate, OutputStream out) throws IOException {
+        return writeExcel(startDate, endDate, out, null);
+    }
+
+    /**
+     * Excel 출력 - 디바이스 필터 (null이면 전체)
+     */
+    public long writeExcel(LocalDateTime startDate, LocalDateTime endDate, String deviceId, OutputStream out)
+            throws IOException {
+        return writeExcel(startDate, endDate, deviceId, out, null, parallelism);
+    }
+
+    /**
+     * Excel 출력 - 행마다 progress에 지금까지 쓴 행 수 전달 (내보내기 작업 진행률)
+     */
+    public long writeExcel(LocalDateTime startDate, LocalDateTime endDate, OutputStream out,
+            LongConsumer progress) throws IOException {
+        return writeExcel(startDate, endDate, out, progress, parallelism);
     }
 
     /**
-     * 지정된 기간의 센서 데이터를 Excel 형태로 생성
+     * Excel 출력 - 병렬도 지정
+     * - 시트 작성은 한 스레드에서만 가능하므로 조각별 조회만 병렬로 미리 하고, 시트에는 조각 순서대로 씀
+     * - parallelism이 1 이하이거나 행이 한 조각 분량 이하면 순차 처리
+     */
+    public long writeExcel(LocalDateTime startDate, LocalDateTime endDate, OutputStream out,
+            LongConsumer progress, int parallelism) throws IOException {
+        return writeExcel(startDate, endDate, null, out, progress, parallelism);
+    }
+
+    private long writeExcel(LocalDateTime startDate, LocalDateTime endDate, String deviceId, OutputStream out,
+            LongConsumer progress, int parallelism) throws IOException {
+        List<ExportSlices.Slice> slices = planSlices(startDate, endDate, deviceId, parallelism);
+        log.info("📊 Excel 스트리밍 시작: {} ~ {}, device={} ({}개 조각)",
+                startDate, endDate, deviceId != null ? deviceId : "전체", slices.size());
+        long start = System.currentTimeMillis();
+
+        SXSSFWorkbook workbook = new SXSSFWorkbook(excelRowWindow);
+        workbook.setCompressTempFiles(true);
+
+        try {
+            StreamingSheetWriter sheetWriter = new StreamingSheetWriter(workbook);
+            long rows;
+            if (slices.size() == 1) {
+                rows = sensorHistoryExportReader.forEach(startDate, endDate, deviceId, true, 0, (rowNumber, data) -> {
+                    sheetWriter.write(rowNumber, data);
+                    if (progress != null) {
+                        progress.accept(rowNumber);
+                    }
+                });
+            } else {
+                long[] written = {0};
+                ExportSlices.runInOrder(slices, parallelism, slice -> fetchSlice(slice, deviceId), (slice, sliceRows) -> {
+                    for (HistoryDataDto data : sliceRows) {
+                        sheetWriter.write(++written[0], data);
+                    }
+                    if (progress != null) {
+                        progress.accept(written[0]);
+                    }
+                });
+                rows = written[0];
+            }
+            sheetWriter.applyColumnWidths();
+
+            workbook.write(out);
+            out.flush();
+
+            // 🆕 메트릭 증가
+            customMetricsService.incrementExcelDownload();
+
+            log.info("✅ Excel 스트리밍 완료: {} rows, {}ms", rows, System.currentTimeMillis() - start);
+            return rows;
+
+        } finally {
+            // 임시 파일 삭제
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    /**
+     * 지정된 기간의 센서 데이터를 Excel 형태로 생성 (기존 방식 - 전체를 메모리에 올림, 비교용)
      */
     public byte[] generateExcelData(LocalDateTime startDate, LocalDateTime endDate) throws IOException {
         log.info("📊 Excel 데이터 생성 시작: {} ~ {}", startDate, endDate);
@@ -86,40 +325,127 @@ public class SensorDownloadService {
         return String.format("sensor_data_%s_to_%s.%s", startDateStr, endDateStr, extension);
     }
 
+    /**
+     * 파일명 생성 - 내보내기 형식의 확장자 사용
+     */
+    public String generateFileName(ExportFormat format, LocalDateTime startDate, LocalDateTime endDate) {
+        String startDateStr = startDate.format(DateTimeFormatter.ofPattern("yyyyMMdd"));
+        String endDateStr = endDate.format(DateTimeFormatter.ofPattern("yyyyMMdd"));
+
+        return String.format("sensor_data_%s_to_%s.%s", startDateStr, endDateStr, format.getExtension());
+    }
+
     /**
      * 데이터 개수 조회 (미리 확인용)
      */
-    public int getDataCount(LocalDateTime startDate, LocalDateTime endDate) {
-        List<HistoryDataDto> historyData = sensorDataService.getHistory(startDate, endDate);
-        return historyData.size();
+    public long getDataCount(LocalDateTime startDate, LocalDateTime endDate) {
+        return sensorHistoryExportReader.count(startDate, endDate);
     }
 
     /**
-     * CSV 바이트 배열 생성
+     * 병렬 처리할 시간 조각 계획 (조각당 약 parallelSliceRows 행, 최소 parallelism개)
+     * - 시간 균등 분할이므로 측정 주기가 일정할수록 조각 크기가 고름
      */
-    private byte[] createCSVBytes(List<HistoryDataDto> dataList) throws IOException {
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        
-        // BOM 추가 (Excel에서 한글 깨짐 방지)
-        outputStream.write(0xEF);
-        outputStream.write(0xBB);
-        outputStream.write(0xBF);
-        
-        OutputStreamWriter writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
-        CSVWriter csvWriter = new CSVWriter(writer);
-        
-        try {
-            // 헤더 작성
-            writeCSVHeader(csvWriter);
-            
-            // 데이터 작성
-            writeCSVData(csvWriter, dataList);
-            
-        } finally {
-            csvWriter.close();
+    private List<ExportSlices.Slice> planSlices(LocalDateTime startDate, LocalDateTime endDate, String deviceId,
+            int parallelism) {
+        if (parallelism <= 1) {
+            return ExportSlices.split(startDate, endDate, 1);
+        }
+        long total = sensorHistoryExportReader.count(startDate, endDate, deviceId, true);
+        if (total <= parallelSliceRows) {
+            return ExportSlices.split(startDate, endDate, 1);
+        }
+        long sliceCount = Math.max(parallelism, (total + parallelSliceRows - 1) / parallelSliceRows);
+        return ExportSlices.split(startDate, endDate, (int) Math.min(sliceCount, MAX_SLICES));
+    }
+
+    /**
+     * 조각별 CSV 병렬 인코딩 후 순서대로 이어 쓰기
+     * - 조각은 번호 컬럼을 뺀 행만 인코딩하고, 번호는 이어 쓰는 스레드가 전체 기준으로 매김
+     *   (조각별 COUNT를 미리 돌리지 않음 - 조각 계획용 COUNT 한 번만)
+     */
+    private long writeCSVSlices(List<ExportSlices.Slice> slices, String deviceId, CsvRowEncoder encoder,
+            LongConsumer progress, int parallelism) throws IOException {
+        long[] written = {0};
+        ExportSlices.runInOrder(slices, parallelism,
+                slice -> encodeCSVSlice(slice, deviceId),
+                (slice, chunk) -> {
+                    byte[] bytes = chunk.buffer().array();
+                    int rowStart = 0;
+                    for (int i = 0; i < chunk.rows(); i++) {
+                        int rowEnd = chunk.rowEnds()[i];
+                        encoder.writeNumberedRow(++written[0], bytes, rowStart, rowEnd - rowStart);
+                        rowStart = rowEnd;
+                    }
+                    if (progress != null) {
+                        progress.accept(written[0]);
+                    }
+                });
+        encoder.flush();
+        return written[0];
+    }
+
+    /**
+     * 조각 하나를 메모리 버퍼에 CSV로 인코딩 (작업 스레드) - 번호 컬럼 없이, 행마다 끝 위치 기록
+     */
+    private CsvChunk encodeCSVSlice(ExportSlices.Slice slice, String deviceId) throws IOException {
+        SliceBuffer buffer = new SliceBuffer(WRITER_BUFFER_SIZE);
+        CsvRowEncoder encoder = new CsvRowEncoder(buffer, WRITER_BUFFER_SIZE);
+        int[][] rowEnds = {new int[1024]};
+        long rows = sensorHistoryExportReader.forEach(slice.from(), slice.to(), deviceId, slice.toInclusive(), 0,
+                (rowNumber, data) -> {
+                    encoder.writeRowTail(data);
+                    int index = (int) rowNumber - 1;
+                    if (index == rowEnds[0].length) {
+                        rowEnds[0] = Arrays.copyOf(rowEnds[0], index * 2);
+                    }
+                    rowEnds[0][index] = (int) encoder.written();
+                });
+        encoder.flush();
+        return new CsvChunk(buffer, rowEnds[0], (int) rows);
+    }
+
+    /**
+     * 조각 하나를 조회해 행 목록으로 보관 (작업 스레드, Excel용)
+     */
+    private List<HistoryDataDto> fetchSlice(ExportSlices.Slice slice, String deviceId) throws IOException {
+        List<HistoryDataDto> rows = new ArrayList<>();
+        sensorHistoryExportReader.forEach(slice.from(), slice.to(), deviceId, slice.toInclusive(), 0,
+                (rowNumber, data) -> rows.add(copyOf(data)));
+        return rows;
+    }
+
+    private record CsvChunk(SliceBuffer buffer, int[] rowEnds, int rows) {
+    }
+
+    /**
+     * 조각 인코딩 버퍼 (이어 쓸 때 복사 없이 내부 배열을 읽음)
+     */
+    private static final class SliceBuffer extends ByteArrayOutputStream {
+        SliceBuffer(int size) {
+            super(size);
+        }
+
+        byte[] array() {
+            return buf;
         }
-        
-        return outputStream.toByteArray();
+    }
+
+    /**
+     * 구간의 행을 CSV로 쓰고 flush
+     * - 클라이언트가 연결을 끊으면 버퍼를 내보낼 때 IOException이 나서 나머지를 읽지 않고 중단
+     */
+    private long writeCSVRows(CsvRowEncoder encoder, LocalDateTime from, LocalDateTime to, String deviceId,
+            boolean toInclusive, long rowOffset, LongConsumer progress) throws IOException {
+        long rows = sensorHistoryExportReader.forEach(from, to, deviceId, toInclusive, rowOffset, (rowNumber, data) -> {
+            encoder.writeRow(rowNumber, data);
+            if (progress != null) {
+                progress.accept(rowNumber);
+            }
+        });
+
+        encoder.flush();
+        return rows;
     }
 
     /**
@@ -155,54 +481,6 @@ public class SensorDownloadService {
         }
     }
 
-    /**
-     * CSV 헤더 작성
-     */
-    private void writeCSVHeader(CSVWriter csvWriter) {
-        String[] header = {
-            "번호", "디바이스ID", "측정소코드", "측정소명", "측정망종류", 
-            "위도", "경도", "위치", "측정시간",
-            "pH", "DO(mg/L)", "수온(°C)", "EC", "BOD(mg/L)", 
-            "COD(mg/L)", "T-P(mg/L)", "T-N(mg/L)", "SS(mg/L)", 
-            "Chlorophyll-a", "NO3-N(mg/L)"
-        };
-        csvWriter.writeNext(header);
-    }
-
-    /**
-     * CSV 데이터 작성
-     */
-    private void writeCSVData(CSVWriter csvWriter, List<HistoryDataDto> dataList) {
-        int index = 1;
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-        
-        for (HistoryDataDto data : dataList) {
-            String[] row = {
-                String.valueOf(index++),
-                nvl(data.getDeviceId()),
-                nvl(data.getPtno()),
-                nvl(data.getName()),
-                nvl(data.getType()),
-                String.valueOf(data.getLat()),
-                String.valueOf(data.getLon()),
-                nvl(data.getLocation()),
-                data.getMeasuredAt() != null ? data.getMeasuredAt().format(formatter) : "",
-                formatDouble(data.getPh()),
-                formatDouble(data.getDoValue()),
-                formatDouble(data.getTemperature()),
-                formatDouble(data.getEc()),
-                formatDouble(data.getBod()),
-                formatDouble(data.getCod()),
-                formatDouble(data.getTp()),
-                formatDouble(data.getTn()),
-                formatDouble(data.getSs()),
-                formatDouble(data.getChlorophyllA()),
-                formatDouble(data.getNo3n())
-            };
-            csvWriter.writeNext(row);
-        }
-    }
-
     /**
      * Excel 헤더 작성
      */
@@ -210,17 +488,9 @@ public class SensorDownloadService {
         Row headerRow = sheet.createRow(0);
         headerRow.setHeight((short) 600);
         
-        String[] headers = {
-            "번호", "디바이스ID", "측정소코드", "측정소명", "측정망종류", 
-            "위도", "경도", "위치", "측정시간",
-            "pH", "DO(mg/L)", "수온(°C)", "EC", "BOD(mg/L)", 
-            "COD(mg/L)", "T-P(mg/L)", "T-N(mg/L)", "SS(mg/L)", 
-            "Chlorophyll-a", "NO3-N(mg/L)"
-        };
-        
-        for (int i = 0; i < headers.length; i++) {
+        for (int i = 0; i < CSV_HEADER.length; i++) {
             Cell cell = headerRow.createCell(i);
-            cell.setCellValue(headers[i]);
+            cell.setCellValue(CSV_HEADER[i]);
             cell.setCellStyle(headerStyle);
         }
     }
@@ -231,45 +501,126 @@ public class SensorDownloadService {
     private void writeExcelData(Sheet sheet, List<HistoryDataDto> dataList, 
                                CellStyle dataStyle, CellStyle numberStyle) {
         int rowNum = 1;
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
         
         for (HistoryDataDto data : dataList) {
             Row row = sheet.createRow(rowNum);
-            
-            // 번호
-            createCell(row, 0, rowNum, dataStyle);
-            
-            // 문자열 데이터
-            createCell(row, 1, data.getDeviceId(), dataStyle);
-            createCell(row, 2, data.getPtno(), dataStyle);
-            createCell(row, 3, data.getName(), dataStyle);
-            createCell(row, 4, data.getType(), dataStyle);
-            
-            // 좌표 데이터
-            createCell(row, 5, data.getLat(), numberStyle);
-            createCell(row, 6, data.getLon(), numberStyle);
-            
-            // 위치 및 시간
-            createCell(row, 7, data.getLocation(), dataStyle);
-            createCell(row, 8, data.getMeasuredAt() != null ? data.getMeasuredAt().format(formatter) : "", dataStyle);
-            
-            // 센서 측정값들
-            createCell(row, 9, data.getPh(), numberStyle);
-            createCell(row, 10, data.getDoValue(), numberStyle);
-            createCell(row, 11, data.getTemperature(), numberStyle);
-            createCell(row, 12, data.getEc(), numberStyle);
-            createCell(row, 13, data.getBod(), numberStyle);
-            createCell(row, 14, data.getCod(), numberStyle);
-            createCell(row, 15, data.getTp(), numberStyle);
-            createCell(row, 16, data.getTn(), numberStyle);
-            createCell(row, 17, data.getSs(), numberStyle);
-            createCell(row, 18, data.getChlorophyllA(), numberStyle);
-            createCell(row, 19, data.getNo3n(), numberStyle);
-            
+            writeExcelRow(row, rowNum, data, dataStyle, numberStyle);
             rowNum++;
         }
     }
 
+    /**
+     * Excel 한 행 작성
+     */
+    private void writeExcelRow(Row row, long rowNum, HistoryDataDto data,
+                               CellStyle dataStyle, CellStyle numberStyle) {
+        // 번호
+        createCell(row, 0, rowNum, dataStyle);
+        
+        // 문자열 데이터
+        createCell(row, 1, data.getDeviceId(), dataStyle);
+        createCell(row, 2, data.getPtno(), dataStyle);
+        createCell(row, 3, data.getName(), dataStyle);
+        createCell(row, 4, data.getType(), dataStyle);
+        
+        // 좌표 데이터
+        createCell(row, 5, data.getLat(), numberStyle);
+        createCell(row, 6, data.getLon(), numberStyle);
+        
+        // 위치 및 시간
+        createCell(row, 7, data.getLocation(), dataStyle);
+        createCell(row, 8, data.getMeasuredAt() != null ? data.getMeasuredAt().format(MEASURED_AT_FORMATTER) : "", dataStyle);
+        
+        // 센서 측정값들
+        createCell(row, 9, data.getPh(), numberStyle);
+        createCell(row, 10, data.getDoValue(), numberStyle);
+        createCell(row, 11, data.getTemperature(), numberStyle);
+        createCell(row, 12, data.getEc(), numberStyle);
+        createCell(row, 13, data.getBod(), numberStyle);
+        createCell(row, 14, data.getCod(), numberStyle);
+        createCell(row, 15, data.getTp(), numberStyle);
+        createCell(row, 16, data.getTn(), numberStyle);
+        createCell(row, 17, data.getSs(), numberStyle);
+        createCell(row, 18, data.getChlorophyllA(), numberStyle);
+        createCell(row, 19, data.getNo3n(), numberStyle);
+    }
+
+    /**
+     * SXSSF 시트 작성기 (시트 넘김 + 앞쪽 행 기준 컬럼 너비)
+     */
+    private final class StreamingSheetWriter {
+        private final SXSSFWorkbook workbook;
+        private final CellStyle headerStyle;
+        private final CellStyle dataStyle;
+        private final CellStyle numberStyle;
+        private final int[] sampledChars = new int[CSV_COLUMNS];
+        private final List<Sheet> sheets = new ArrayList<>();
+
+        private Sheet sheet;
+        private int sheetRow;
+
+        StreamingSheetWriter(SXSSFWorkbook workbook) {
+            this.workbook = workbook;
+            this.headerStyle = createHeaderStyle(workbook);
+            this.dataStyle = createDataStyle(workbook);
+            this.numberStyle = createNumberStyle(workbook);
+            nextSheet();
+        }
+
+        void write(long rowNumber, HistoryDataDto data) {
+            if (sheetRow >= EXCEL_MAX_ROWS) {
+                nextSheet();
+            }
+            writeExcelRow(sheet.createRow(sheetRow++), rowNumber, data, dataStyle, numberStyle);
+
+            if (rowNumber <= excelWidthSampleRows) {
+                sample(0, String.valueOf(rowNumber));
+                sample(1, data.getDeviceId());
+                sample(2, data.getPtno());
+                sample(3, data.getName());
+                sample(4, data.getType());
+                sample(5, String.valueOf(data.getLat()));
+                sample(6, String.valueOf(data.getLon()));
+                sample(7, data.getLocation());
+                sample(8, data.getMeasuredAt() != null ? data.getMeasuredAt().format(MEASURED_AT_FORMATTER) : null);
+                for (SensorParameter parameter : SensorParameter.values()) {
+                    sample(9 + parameter.ordinal(), String.valueOf(parameter.get(data)));
+                }
+            }
+        }
+
+        /**
+         * 샘플링한 글자 수로 모든 시트의 컬럼 너비 설정 (한글 등은 2칸으로 계산)
+         */
+        void applyColumnWidths() {
+            for (Sheet target : sheets) {
+                for (int i = 0; i < CSV_COLUMNS; i++) {
+                    int width = (sampledChars[i] + 2) * 256;
+                    target.setColumnWidth(i, Math.max(EXCEL_MIN_COLUMN_WIDTH, Math.min(EXCEL_MAX_COLUMN_WIDTH, width)));
+                }
+            }
+        }
+
+        private void nextSheet() {
+            String name = sheets.isEmpty() ? "센서 데이터" : "센서 데이터 (" + (sheets.size() + 1) + ")";
+            sheet = workbook.createSheet(name);
+            sheets.add(sheet);
+            writeExcelHeader(sheet, headerStyle);
+            sheetRow = 1;
+        }
+
+        private void sample(int column, String value) {
+            if (value == null) {
+                return;
+            }
+            int chars = 0;
+            for (int i = 0; i < value.length(); i++) {
+                chars += value.charAt(i) < 0x80 ? 1 : 2;
+            }
+            sampledChars[column] = Math.max(sampledChars[column], chars);
+        }
+    }
+
     // === 스타일 생성 메서드들 ===
     
     private CellStyle createHeaderStyle(Workbook workbook) {
@@ -339,8 +690,11 @@ public class SensorDownloadService {
         }
     }
 
-    private String formatDouble(Double value) {
-        return value != null ? String.format("%.2f", value) : "";
+    private HistoryDataDto copyOf(HistoryDataDto data) {
+        return new HistoryDataDto(data.getDeviceId(), data.getPtno(), data.getName(), data.getType(),
+                data.getLat(), data.getLon(), data.getLocation(), data.getMeasuredAt(),
+                data.getPh(), data.getDoValue(), data.getTemperature(), data.getEc(), data.getBod(),
+                data.getCod(), data.getTp(), data.getTn(), data.getSs(), data.getChlorophyllA(), data.getNo3n());
     }
 
     private String nvl(String value) {
@@ -0,0 +1,416 @@
+package kr.u_cube.www.WaterPollution.service.sensor;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 과거 기간 내보내기 결과 디스크 캐시
+ * - 끝 시각이 settle-minutes 이전인 (더 이상 바뀌지 않는) 기간만 캐시
+ * - 키: 형식 + 초 단위로 정규화한 기간 + 디바이스 필터, 파일 내용의 SHA-256을 강한 ETag로 사용
+ * - 인덱스는 메모리 LRU, 전체 파일 크기가 max-bytes를 넘으면 가장 오래 안 쓴 항목부터 삭제
+ * - 늦게 도착한 측정값이 저장되면 그 시각을 포함하는 항목을 무효화 (생성 중이던 항목은 등록하지 않음)
+ */
+@Service
+@Slf4j
+public class SensorExportCache {
+
+    private static final int FILE_BUFFER_SIZE = 64 * 1024;
+    private static final String PART_SUFFIX = ".part";
+    private static final String ALL_DEVICES = "*";
+
+    /**
+     * 캐시 항목 (etag는 따옴표 포함)
+     */
+    public record Entry(String key, ExportFormat format, LocalDateTime start, LocalDateTime end, String deviceId,
+            Path file, long sizeBytes, String etag) {
+
+        /**
+         * If-None-Match 헤더와 일치 여부 (약한 비교 - W/ 접두사 무시)
+         */
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+                return false;
+            }
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean covers(String changedDeviceId, LocalDateTime measuredAt) {
+            return (deviceId == null || deviceId.equals(changedDeviceId))
+                    && !measuredAt.isBefore(start) && !measuredAt.isAfter(end);
+        }
+    }
+
+    private final boolean enabled;
+    private final Path cacheDir;
+    private final long maxBytes;
+    private final long settleMinutes;
+
+    // 접근 순서 LinkedHashMap = LRU (this로 동기화)
+    private final LinkedHashMap<String, Entry> index = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalBytes;
+
+    // 무효화가 일어날 때마다 증가 (this로 동기화) - 생성 시작 후 값이 바뀌면 결과를 등록하지 않음
+    private long invalidations;
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public SensorExportCache(MeterRegistry meterRegistry,
+            @Value("${download.cache.enabled:true}") boolean enabled,
+            @Value("${download.cache.dir:${java.io.tmpdir}/water-export-cache}") String cacheDir,
+            @Value("${download.cache.max-bytes:2147483648}") long maxBytes,
+            @Value("${download.cache.settle-minutes:60}") long settleMinutes) {
+        this.enabled = enabled;
+        this.cacheDir = Paths.get(cacheDir);
+        this.maxBytes = maxBytes;
+        this.settleMinutes = settleMinutes;
+
+        this.hitCounter = Counter.builder("export_cache_requests")
+                .tag("result", "hit")
+                .description("내보내기 캐시 적중 수")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("export_cache_requests")
+                .tag("result", "miss")
+                .description("내보내기 캐시 미스 수")
+                .register(meterRegistry);
+        Gauge.builder("export_cache_bytes", this, SensorExportCache::getTotalBytes)
+                .description("내보내기 캐시 파일 전체 크기")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 캐시 디렉토리 준비 (인덱스는 메모리에만 있으므로 이전 실행의 파일은 삭제)
+     */
+    @PostConstruct
+    public void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(cacheDir);
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(cacheDir)) {
+            for (Path file : leftovers) {
+                Files.deleteIfExists(file);
+            }
+        }
+        log.info("✅ 내보내기 캐시 디렉토리: {} (최대 {} MB)", cacheDir.toAbsolutePath(), maxBytes / 1048576);
+    }
+
+    /**
+     * 캐시 대상 기간인지 (끝 시각이 늦은 데이터 유예 시간보다 이전)
+     */
+    public boolean isCacheable(LocalDateTime endDate) {
+        return enabled && endDate.isBefore(LocalDateTime.now().minusMinutes(settleMinutes));
+    }
+
+    /**
+     * 정규화한 캐시 키 (형식|시작|끝|디바이스)
+     */
+    public String key(ExportFormat format, LocalDateTime startDate, LocalDateTime endDate, String deviceId) {
+        return format.name() + "|" + startDate.truncatedTo(ChronoUnit.SECONDS)
+                + "|" + endDate.truncatedTo(ChronoUnit.SECONDS)
+                + "|" + (deviceId != null ? deviceId : ALL_DEVICES);
+    }
+
+    /**
+     * 캐시 조회 (파일이 지워졌으면 항목도 제거)
+     */
+    public Optional<Entry> get(String key) {
+        Entry entry;
+        synchronized (this) {
+            entry = index.get(key);
+        }
+        if (entry != null && !Files.exists(entry.file())) {
+            remove(entry);
+            entry = null;
+        }
+        (entry != null ? hitCounter : missCounter).increment();
+        return Optional.ofNullable(entry);
+    }
+
+    /**
+     * 캐시 파일 열기 - 읽는 도중 삭제(축출/무효화)되어도 열린 스트림은 끝까지 읽힘
+     *
+     * @return 파일이 이미 없으면 empty
+     */
+    public Optional<InputStream> open(Entry entry) throws IOException {
+        try {
+            return Optional.of(Files.newInputStream(entry.file()));
+        } catch (NoSuchFileException e) {
+            remove(entry);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * 캐시 항목 생성 시작 - 클라이언트에 보내는 내용을 그대로 캐시 파일에도 씀
+     */
+    public PendingEntry begin(String key, ExportFormat format, LocalDateTime startDate, LocalDateTime endDate,
+            String deviceId) throws IOException {
+        return new PendingEntry(key, format, startDate.truncatedTo(ChronoUnit.SECONDS),
+                endDate.truncatedTo(ChronoUnit.SECONDS), deviceId);
+    }
+
+    /**
+     * 늦게 도착한 측정값 저장 시 호출 - 해당 시각을 포함하는 항목 삭제
+     */
+    public void invalidate(String deviceId, LocalDateTime measuredAt) {
+        if (!enabled || measuredAt == null || !isCacheable(measuredAt)) {
+            // 유예 시간 안의 측정값은 캐시된 기간에 포함될 수 없음
+            return;
+        }
+        int removed = 0;
+        synchronized (this) {
+            // 등록 검사와 같은 락 안에서 증가 - 검사 직후 무효화되어 지워질 항목이 등록되는 틈이 없음
+            invalidations++;
+            Iterator<Entry> it = index.values().iterator();
+            while (it.hasNext()) {
+                Entry entry = it.next();
+                if (entry.covers(deviceId, measuredAt)) {
+                    it.remove();
+                    totalBytes -= entry.sizeBytes();
+                    deleteQuietly(entry.file());
+                    removed++;
+                }
+            }
+        }
+        if (removed > 0) {
+            log.info("🧹 늦은 측정값으로 내보내기 캐시 무효화: device={}, {} → {}건", deviceId, measuredAt, removed);
+        }
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    private synchronized long getInvalidations() {
+        return invalidations;
+    }
+
+    /**
+     * 생성 시작 후 무효화가 없었을 때만 등록 (무효화 횟수 검사와 등록을 한 번에)
+     *
+     * @return 무효화가 있어 등록하지 않았으면 false
+     */
+    private synchronized boolean register(Entry entry, long invalidationsAtStart) {
+        if (invalidations != invalidationsAtStart) {
+            return false;
+        }
+        Entry previous = index.put(entry.key(), entry);
+        if (previous != null) {
+            totalBytes -= previous.sizeBytes();
+            if (!previous.file().equals(entry.file())) {
+                deleteQuietly(previous.file());
+            }
+        }
+        totalBytes += entry.sizeBytes();
+
+        // LRU 축출 (방금 넣은 항목은 남김)
+        Iterator<Map.Entry<String, Entry>> it = index.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Entry eldest = it.next().getValue();
+            if (eldest == entry) {
+                break;
+            }
+            it.remove();
+            totalBytes -= eldest.sizeBytes();
+            deleteQuietly(eldest.file());
+        }
+        return true;
+    }
+
+    private synchronized void remove(Entry entry) {
+        if (index.remove(entry.key(), entry)) {
+            totalBytes -= entry.sizeBytes();
+        }
+        deleteQuietly(entry.file());
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("⚠️ 내보내기 캐시 파일 삭제 실패: {}", file, e);
+        }
+    }
+
+    private static String sha256Hex(String value) {
+        return HexFormat.of().formatHex(sha256().digest(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 생성 중인 캐시 항목
+     * - tee()로 감싼 스트림에 쓰면 클라이언트와 임시 파일에 함께 기록
+     * - 캐시 파일 쓰기가 실패해도 클라이언트 응답은 계속 (캐시만 포기)
+     * - commit() 없이 close()되면 (클라이언트 연결 종료, 생성 실패) 임시 파일 삭제
+     */
+    public final class PendingEntry implements Closeable {
+        private final String key;
+        private final ExportFormat format;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private final String deviceId;
+        private final long invalidationsAtStart;
+        private final Path file;
+        private final Path part;
+        private final MessageDigest digest = sha256();
+
+        private OutputStream fileOut;
+        private long bytes;
+        private boolean done;
+
+        private PendingEntry(String key, ExportFormat format, LocalDateTime start, LocalDateTime end,
+                String deviceId) throws IOException {
+            this.key = key;
+            this.format = format;
+            this.start = start;
+            this.end = end;
+            this.deviceId = deviceId;
+            this.invalidationsAtStart = getInvalidations();
+
+            // 같은 키를 동시에 생성해도 서로 덮어쓰지 않도록 임시 파일은 항목마다 따로
+            this.file = cacheDir.resolve(sha256Hex(key) + "-" + System.nanoTime() + "." + format.getExtension());
+            this.part = cacheDir.resolve(file.getFileName() + PART_SUFFIX);
+            this.fileOut = new DigestOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(part), FILE_BUFFER_SIZE), digest);
+        }
+
+        public OutputStream tee(OutputStream client) {
+            return new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    client.write(b);
+                    writeFile(new byte[] {(byte) b}, 0, 1);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    client.write(b, off, len);
+                    writeFile(b, off, len);
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    client.flush();
+                }
+
+                @Override
+                public void close() throws IOException {
+                    client.close();
+                }
+            };
+        }
+
+        /**
+         * 생성 완료 - 그 사이 무효화가 없었으면 캐시에 등록
+         */
+        public void commit() {
+            if (done) {
+                return;
+            }
+            done = true;
+            if (fileOut == null) {
+                deleteQuietly(part);
+                return;
+            }
+
+            try {
+                fileOut.close();
+                fileOut = null;
+                Files.move(part, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                String etag = "\"" + HexFormat.of().formatHex(digest.digest()) + "\"";
+                if (!register(new Entry(key, format, start, end, deviceId, file, bytes, etag), invalidationsAtStart)) {
+                    log.info("⚠️ 생성 중 무효화 발생 - 캐시 등록 생략: {}", key);
+                    deleteQuietly(file);
+                    return;
+                }
+                log.info("💾 내보내기 캐시 저장: {} ({} bytes)", key, bytes);
+
+            } catch (IOException e) {
+                log.warn("⚠️ 내보내기 캐시 저장 실패: {}", key, e);
+                deleteQuietly(part);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (done) {
+                return;
+            }
+            done = true;
+            closeFileQuietly();
+            deleteQuietly(part);
+        }
+
+        private void writeFile(byte[] b, int off, int len) {
+            if (fileOut == null) {
+                return;
+            }
+            try {
+                fileOut.write(b, off, len);
+                bytes += len;
+            } catch (IOException e) {
+                log.warn("⚠️ 내보내기 캐시 파일 쓰기 실패 - 이번 요청은 캐시하지 않음: {}", key, e);
+                closeFileQuietly();
+            }
+        }
+
+        private void closeFileQuietly() {
+            if (fileOut == null) {
+                return;
+            }
+            try {
+                fileOut.close();
+            } catch (IOException e) {
+                log.debug("캐시 임시 파일 닫기 실패: {}", part, e);
+            }
+            fileOut = null;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package kr.u_cube.www.WaterPollution.service.sensor;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.LongConsumer;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 비동기 내보내기 작업 관리
+ * - 요청 시 작업 ID를 바로 돌려주고, 파일은 exportTaskExecutor에서 스풀 디렉토리에 생성
+ * - 진행률(쓴 행 수 / 요청 시점 행 수) 조회, 완료된 파일은 Range 요청 가능한 다운로드로 제공
+ * - 사용자당 동시 작업 수 제한, 완료 후 TTL이 지나면 파일과 작업 정보 삭제
+ */
+@Service
+@Slf4j
+public class SensorExportJobService {
+
+    private static final int FILE_BUFFER_SIZE = 64 * 1024;
+    private static final String PART_SUFFIX = ".part";
+
+    private final SensorDownloadService sensorDownloadService;
+    private final ThreadPoolTaskExecutor exportTaskExecutor;
+    private final Path spoolDir;
+    private final int maxJobsPerUser;
+    private final long ttlMinutes;
+
+    private final ConcurrentHashMap<String, ExportJob> jobs = new ConcurrentHashMap<>();
+
+    public SensorExportJobService(SensorDownloadService sensorDownloadService,
+            @Qualifier("exportTaskExecutor") ThreadPoolTaskExecutor exportTaskExecutor,
+            MeterRegistry meterRegistry,
+            @Value("${export.job.spool-dir:${java.io.tmpdir}/water-export}") String spoolDir,
+            @Value("${export.job.max-per-user:2}") int maxJobsPerUser,
+            @Value("${export.job.ttl-minutes:60}") long ttlMinutes) {
+        this.sensorDownloadService = sensorDownloadService;
+        this.exportTaskExecutor = exportTaskExecutor;
+        this.spoolDir = Paths.get(spoolDir);
+        this.maxJobsPerUser = maxJobsPerUser;
+        this.ttlMinutes = ttlMinutes;
+
+        Gauge.builder("export_jobs_active", jobs, j -> j.values().stream().filter(ExportJob::isActive).count())
+                .description("대기 중이거나 실행 중인 내보내기 작업 수")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 스풀 디렉토리 준비 (이전 실행에서 남은 파일은 작업 정보가 없으므로 삭제)
+     */
+    @PostConstruct
+    public void init() throws IOException {
+        Files.createDirectories(spoolDir);
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(spoolDir)) {
+            for (Path file : leftovers) {
+                Files.deleteIfExists(file);
+            }
+        }
+        log.info("✅ 내보내기 작업 스풀 디렉토리: {}", spoolDir.toAbsolutePath());
+    }
+
+    /**
+     * 내보내기 작업 등록
+     *
+     * @throws IllegalStateException      사용자당 동시 작업 수 초과
+     * @throws RejectedExecutionException 작업 대기열이 가득 참
+     */
+    public ExportJob submit(String owner, ExportFormat format, LocalDateTime startDate, LocalDateTime endDate) {
+        // 제한을 넘는 요청은 COUNT(*) 전에 거절
+        checkJobLimit(owner);
+
+        String fileName = sensorDownloadService.generateFileName(format, startDate, endDate);
+        long totalRows = sensorDownloadService.getDataCount(startDate, endDate);
+        ExportJob job = new ExportJob(UUID.randomUUID().toString(), owner, format, startDate, endDate, fileName, totalRows);
+
+        // 같은 사용자의 동시 요청이 제한을 함께 통과하지 않도록 확인과 등록을 묶음
+        synchronized (this) {
+            checkJobLimit(owner);
+            jobs.put(job.getId(), job);
+        }
+
+        try {
+            exportTaskExecutor.execute(() -> run(job));
+        } catch (TaskRejectedException e) {
+            jobs.remove(job.getId());
+            throw new RejectedExecutionException("내보내기 대기열이 가득 찼습니다. 잠시 후 다시 시도해 주세요.", e);
+        }
+
+        log.info("📥 내보내기 작업 등록: id={}, owner={}, {} {} ~ {} ({} rows)",
+                job.getId(), owner, format, startDate, endDate, totalRows);
+        return job;
+    }
+
+    private void checkJobLimit(String owner) {
+        long active = jobs.values().stream()
+                .filter(j -> j.isActive() && j.getOwner().equals(owner))
+                .count();
+        if (active >= maxJobsPerUser) {
+            throw new IllegalStateException("동시에 진행할 수 있는 내보내기 작업은 최대 " + maxJobsPerUser + "개입니다.");
+        }
+    }
+
+    public Optional<ExportJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    /**
+     * 작업 취소 (실행 중이면 다음 행에서 중단) 또는 완료된 작업의 파일 삭제
+     * - 취소한 작업은 작업 스레드가 실제로 끝날 때까지 active (사용자당 동시 작업 수에 포함)
+     */
+    public boolean cancel(String jobId) {
+        ExportJob job = jobs.get(jobId);
+        if (job == null) {
+            return false;
+        }
+        if (!job.requestCancel()) {
+            remove(job);
+        }
+        return true;
+    }
+
+    /**
+     * 파일 생성 (작업 스레드)
+     */
+    private void run(ExportJob job) {
+        if (!job.markRunning()) {
+            finishCancelled(job);
+            return;
+        }
+
+        Path target = spoolDir.resolve(job.getId() + "." + job.getFormat().getExtension());
+        Path part = spoolDir.resolve(target.getFileName() + PART_SUFFIX);
+        long start = System.currentTimeMillis();
+
+        // 취소되면 다음 행에서 중단
+        LongConsumer progress = rows -> {
+            if (job.isCancelRequested()) {
+                throw new CancellationException();
+            }
+            job.updateProgress(rows);
+        };
+
+        try {
+            long rows;
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(part), FILE_BUFFER_SIZE)) {
+                rows = switch (job.getFormat()) {
+                    case CSV -> sensorDownloadService.writeCSV(job.getStartDate(), job.getEndDate(), out, progress);
+                    case CSV_GZIP -> sensorDownloadService.writeCSVGzip(
+                            job.getStartDate(), job.getEndDate(), null, out, progress);
+                    case PARQUET -> sensorDownloadService.writeParquet(
+                            job.getStartDate(), job.getEndDate(), null, out, progress);
+                    case EXCEL -> sensorDownloadService.writeExcel(job.getStartDate(), job.getEndDate(), out, progress);
+                };
+            }
+
+            // 완성된 파일만 최종 이름으로 보임
+            Files.move(part, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            if (!job.markCompleted(target, Files.size(target), rows)) {
+                // 마지막 행 이후에 들어온 취소
+                deleteQuietly(target);
+                finishCancelled(job);
+                return;
+            }
+            log.info("✅ 내보내기 작업 완료: id={}, {} rows, {} bytes, {}ms",
+                    job.getId(), rows, job.getSizeBytes(), System.currentTimeMillis() - start);
+
+        } catch (CancellationException e) {
+            deleteQuietly(part);
+            finishCancelled(job);
+
+        } catch (Exception e) {
+            deleteQuietly(part);
+            if (job.markFailed(e.getMessage())) {
+                log.error("❌ 내보내기 작업 실패: id={}", job.getId(), e);
+            } else {
+                finishCancelled(job);
+            }
+        }
+    }
+
+    /**
+     * 취소된 작업의 작업 스레드 종료 처리 (여기서부터 active가 아님)
+     */
+    private void finishCancelled(ExportJob job) {
+        job.markCancelled();
+        remove(job);
+        log.info("🛑 내보내기 작업 취소: id={}", job.getId());
+    }
+
+    /**
+     * TTL이 지난 완료/실패 작업 정리
+     */
+    @Scheduled(fixedDelayString = "${export.job.cleanup-interval-ms:300000}")
+    public void cleanupExpired() {
+        LocalDateTime expiry = LocalDateTime.now().minusMinutes(ttlMinutes);
+        int removed = 0;
+        for (ExportJob job : jobs.values()) {
+            if (job.isFinished() && job.getFinishedAt() != null && job.getFinishedAt().isBefore(expiry)) {
+                remove(job);
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            log.info("🧹 만료된 내보내기 작업 정리: {}건", removed);
+        }
+    }
+
+    private void remove(ExportJob job) {
+        jobs.remove(job.getId());
+        if (job.getFile() != null) {
+            deleteQuietly(job.getFile());
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("⚠️ 내보내기 파일 삭제 실패: {}", file, e);
+        }
+    }
+}
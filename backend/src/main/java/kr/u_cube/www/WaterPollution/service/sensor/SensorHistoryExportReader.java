@@ -0,0 +1,263 @@
+package kr.u_cube.www.WaterPollution.service.sensor;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import kr.u_cube.www.WaterPollution.dto.HistoryDataDto;
+
+/**
+ * 다운로드용 이력 조회 (전진 전용, 고정 크기 페이지)
+ * - (measured_at, id) 키셋 페이징으로 fetchSize 행씩 재사용 행 버퍼에 읽음 → 힙 사용량은 페이지 크기만큼 (전체 행 수와 무관)
+ *   - 커서를 범위 하한으로 씀 (measured_at >= 커서 AND (measured_at > 커서 OR id > 마지막 id))
+ *     → 행 생성자 비교와 달리 measured_at 인덱스 범위 스캔이 커서 위치에서 시작 (뒤 페이지도 앞부분을 다시 훑지 않음)
+ * - 페이지/COUNT/존재 확인 쿼리가 같은 범위 조건(rangeCondition)을 씀
+ * - 핸들러(클라이언트로 쓰기)는 페이지를 다 읽고 커넥션과 permit을 돌려준 뒤 호출
+ *   → 느린 클라이언트가 DB 커넥션이나 동시 조회 자리를 잡고 있지 않음
+ * - 모든 내보내기(동기 다운로드, 비동기 작업, 병렬 조각)의 조회가 하나의 Semaphore(download.db-concurrency)를 공유
+ *   → 동시 다운로드 수 x 병렬도가 커져도 DB 커넥션 풀을 내보내기가 다 차지하지 않음
+ * - 핸들러에 넘기는 HistoryDataDto는 재사용 객체 (핸들러 안에서만 사용할 것)
+ */
+@Component
+public class SensorHistoryExportReader {
+
+    private static final String PAGE_SQL = """
+            SELECT sd.id, sd.measured_at,
+                   si.device_id, si.ptno, si.name, si.type, si.lat, si.lon, si.location,
+                   sd.ph, sd.do_value, sd.temperature, sd.ec, sd.bod, sd.cod,
+                   sd.tp, sd.tn, sd.ss, sd.chlorophylla, sd.no3n
+            FROM sensor_data sd
+            JOIN sensor_info si ON si.id = sd.device_id
+            WHERE %s
+              AND (sd.measured_at > ? OR sd.id > ?)
+            ORDER BY sd.measured_at, sd.id
+            LIMIT ?
+            """;
+
+    private static final String COUNT_SQL = """
+            SELECT COUNT(*)
+            FROM sensor_data sd%s
+            WHERE %s
+            """;
+
+    private static final String DEVICE_JOIN = " JOIN sensor_info si ON si.id = sd.device_id";
+    private static final String DEVICE_FILTER = " AND si.device_id = ?";
+
+    /**
+     * 행 처리 (rowNumber는 1부터)
+     */
+    @FunctionalInterface
+    public interface RowHandler {
+        void accept(long rowNumber, HistoryDataDto row) throws IOException;
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int fetchSize;
+    private final int dbConcurrency;
+    private final Semaphore dbPermits;
+
+    // 메트릭
+    private final Timer permitWaitTimer;
+
+    public SensorHistoryExportReader(JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${download.fetch-size:5000}") int fetchSize,
+            @Value("${download.db-concurrency:4}") int dbConcurrency) {
+        if (dbConcurrency < 1) {
+            throw new IllegalArgumentException("download.db-concurrency는 1 이상이어야 합니다: " + dbConcurrency);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.fetchSize = fetchSize;
+        this.dbConcurrency = dbConcurrency;
+        this.dbPermits = new Semaphore(dbConcurrency, true);
+
+        this.permitWaitTimer = Timer.builder("export_db_permit_wait")
+                .description("내보내기 조회가 DB 동시 실행 제한 때문에 대기한 시간")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        Gauge.builder("export_db_queries_in_flight", this, r -> r.dbConcurrency - r.dbPermits.availablePermits())
+                .description("실행 중인 내보내기 DB 조회 수")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 기간 내 행을 측정 시각 순으로 하나씩 처리
+     *
+     * @return 처리한 행 수
+     */
+    public long forEach(LocalDateTime start, LocalDateTime end, RowHandler handler) throws IOException {
+        return forEach(start, end, null, true, 0, handler);
+    }
+
+    /**
+     * 구간 내 행을 측정 시각 순으로 하나씩 처리 (병렬 내보내기의 시간 조각 단위)
+     *
+     * @param deviceId    디바이스 필터 (null이면 전체)
+     * @param toInclusive false면 [start, end) - 이웃 조각과 겹치지 않게
+     * @param rowOffset   앞 조각들의 행 수 (rowNumber = rowOffset + 1 부터)
+     * @return 처리한 행 수 (rowOffset 제외)
+     */
+    public long forEach(LocalDateTime start, LocalDateTime end, String deviceId, boolean toInclusive,
+            long rowOffset, RowHandler handler) throws IOException {
+        PageCursor cursor = new PageCursor(Timestamp.valueOf(start), rowOffset);
+        HistoryDataDto[] page = new HistoryDataDto[fetchSize];
+        String sql = PAGE_SQL.formatted(rangeCondition(toInclusive, deviceId));
+
+        int pageRows;
+        do {
+            pageRows = readPage(sql, end, deviceId, cursor, page);
+            for (int i = 0; i < pageRows; i++) {
+                handler.accept(++cursor.rowNumber, page[i]);
+            }
+        } while (pageRows == fetchSize);
+        return cursor.rowNumber - rowOffset;
+    }
+
+    /**
+     * 기간 내 행 수
+     */
+    public long count(LocalDateTime start, LocalDateTime end) {
+        return count(start, end, null, true);
+    }
+
+    /**
+     * 구간 내 행 수 (deviceId가 null이면 전체, toInclusive=false면 [start, end))
+     */
+    public long count(LocalDateTime start, LocalDateTime end, String deviceId, boolean toInclusive) {
+        String sql = COUNT_SQL.formatted(deviceId != null ? DEVICE_JOIN : "", rangeCondition(toInclusive, deviceId));
+        Long count = withPermit(() -> jdbcTemplate.queryForObject(sql, Long.class,
+                rangeArgs(Timestamp.valueOf(start), Timestamp.valueOf(end), deviceId)));
+        return count != null ? count : 0;
+    }
+
+    /**
+     * 기간 내 데이터 존재 여부 (첫 행만 확인)
+     */
+    public boolean exists(LocalDateTime start, LocalDateTime end) {
+        return exists(start, end, null);
+    }
+
+    /**
+     * 기간 내 데이터 존재 여부 - 디바이스 필터 (null이면 전체)
+     */
+    public boolean exists(LocalDateTime start, LocalDateTime end, String deviceId) {
+        String sql = "SELECT 1 FROM sensor_data sd" + (deviceId != null ? DEVICE_JOIN : "")
+                + " WHERE " + rangeCondition(true, deviceId) + " LIMIT 1";
+        return withPermit(() -> !jdbcTemplate.queryForList(sql, Integer.class,
+                rangeArgs(Timestamp.valueOf(start), Timestamp.valueOf(end), deviceId)).isEmpty());
+    }
+
+    /**
+     * 내보내기 DB 조회 동시 실행 수 제한 안에서 실행 (페이지 하나 = 커넥션 하나를 잡는 동안 permit 하나)
+     */
+    private <T> T withPermit(Supplier<T> query) {
+        long waitStart = System.nanoTime();
+        try {
+            dbPermits.acquire();
+        } catch (InterruptedException e) {
+            // 병렬 조각 취소 등
+            Thread.currentThread().interrupt();
+            throw new CancellationException("내보내기 DB 조회 대기 중 인터럽트");
+        }
+        permitWaitTimer.record(System.nanoTime() - waitStart, TimeUnit.NANOSECONDS);
+
+        try {
+            return query.get();
+        } finally {
+            dbPermits.release();
+        }
+    }
+
+    /**
+     * 기간 조건 ([from, to] 또는 [from, to)) + 디바이스 필터 - 인자 순서는 rangeArgs와 같음
+     */
+    private static String rangeCondition(boolean toInclusive, String deviceId) {
+        return "sd.measured_at >= ? AND sd.measured_at " + (toInclusive ? "<=" : "<") + " ?"
+                + (deviceId != null ? DEVICE_FILTER : "");
+    }
+
+    private Object[] rangeArgs(Timestamp from, Timestamp to, String deviceId) {
+        return deviceId != null
+                ? new Object[] {from, to, deviceId}
+                : new Object[] {from, to};
+    }
+
+    /**
+     * 다음 페이지를 page 버퍼에 채움 (행 객체는 처음 쓸 때 만들고 이후 페이지에서 재사용)
+     *
+     * @return 읽은 행 수
+     */
+    private int readPage(String sql, LocalDateTime end, String deviceId, PageCursor cursor, HistoryDataDto[] page) {
+        int[] pageRows = {0};
+        // 하한은 시작 시각 대신 커서 (첫 페이지는 커서 = 시작 시각, id 0)
+        Object[] range = rangeArgs(cursor.lastMeasuredAt, Timestamp.valueOf(end), deviceId);
+        Object[] args = new Object[range.length + 3];
+        System.arraycopy(range, 0, args, 0, range.length);
+        args[range.length] = cursor.lastMeasuredAt;
+        args[range.length + 1] = cursor.lastId;
+        args[range.length + 2] = fetchSize;
+
+        withPermit(() -> {
+            jdbcTemplate.query(sql, rs -> {
+                cursor.lastId = rs.getLong(1);
+                cursor.lastMeasuredAt = rs.getTimestamp(2);
+
+                HistoryDataDto row = page[pageRows[0]];
+                if (row == null) {
+                    row = new HistoryDataDto();
+                    page[pageRows[0]] = row;
+                }
+                row.setMeasuredAt(cursor.lastMeasuredAt.toLocalDateTime());
+                row.setDeviceId(rs.getString(3));
+                row.setPtno(rs.getString(4));
+                row.setName(rs.getString(5));
+                row.setType(rs.getString(6));
+                row.setLat(rs.getDouble(7));
+                row.setLon(rs.getDouble(8));
+                row.setLocation(rs.getString(9));
+                row.setPh(rs.getDouble(10));
+                row.setDoValue(rs.getDouble(11));
+                row.setTemperature(rs.getDouble(12));
+                row.setEc(rs.getDouble(13));
+                row.setBod(rs.getDouble(14));
+                row.setCod(rs.getDouble(15));
+                row.setTp(rs.getDouble(16));
+                row.setTn(rs.getDouble(17));
+                row.setSs(rs.getDouble(18));
+                row.setChlorophyllA(rs.getDouble(19));
+                row.setNo3n(rs.getDouble(20));
+                pageRows[0]++;
+            }, args);
+            return null;
+        });
+
+        return pageRows[0];
+    }
+
+    /**
+     * 마지막으로 읽은 (measured_at, id) 위치
+     */
+    private static final class PageCursor {
+        private Timestamp lastMeasuredAt;
+        private long lastId;
+        private long rowNumber;
+
+        PageCursor(Timestamp start, long rowOffset) {
+            this.lastMeasuredAt = start;
+            this.lastId = 0;
+            this.rowNumber = rowOffset;
+        }
+    }
+}
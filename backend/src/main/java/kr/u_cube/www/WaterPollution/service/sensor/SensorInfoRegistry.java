@@ -0,0 +1,163 @@
+package kr.u_cube.www.WaterPollution.service.sensor;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import kr.u_cube.www.WaterPollution.entity.SensorInfo;
+import kr.u_cube.www.WaterPollution.repository.SensorInfoRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 메모리 상주 센서 정보 레지스트리
+ * - 시작 시 sensor_info 전체를 읽어 deviceId → (SensorInfo, 수계명, 표시 이름) 으로 보관
+ * - 수집 경로의 조회는 DB를 거치지 않고 O(1)
+ * - 센서 정보 수정/삭제 시 SensorInfoService가 갱신, 변경마다 버전 증가
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SensorInfoRegistry {
+
+    private static final String DEFAULT_DISPLAY_NAME = "Unknown";
+
+    /**
+     * 레지스트리 항목 (불변, 변경 시 새 항목으로 교체)
+     */
+    public record Entry(SensorInfo sensorInfo, String sugyeName, String displayName, long version) {
+    }
+
+    private final SensorInfoRepository sensorInfoRepository;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    // 신규 등록 중인 deviceId별 잠금 (등록이 끝나면 제거)
+    private final ConcurrentHashMap<String, Object> registering = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+
+    @PostConstruct
+    public void load() {
+        int count = 0;
+        for (SensorInfo sensorInfo : sensorInfoRepository.findAll()) {
+            if (sensorInfo.getDeviceId() != null) {
+                entries.put(sensorInfo.getDeviceId(), toEntry(sensorInfo));
+                count++;
+            }
+        }
+        log.info("✅ 센서 정보 레지스트리 로드 완료: {}건", count);
+    }
+
+    /**
+     * deviceId로 등록된 센서 정보 조회 (DB 조회 없음)
+     */
+    public Optional<Entry> find(String deviceId) {
+        if (deviceId == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(entries.get(deviceId));
+    }
+
+    /**
+     * deviceId로 조회하고, 처음 보는 센서면 기본값으로 신규 등록
+     * - DB 조회/저장은 맵 연산 밖에서 수행 (computeIfAbsent 안에서 하면 JPA 호출 동안 같은 bin의 다른 센서까지 막힘)
+     * - 같은 deviceId에 대한 동시 요청은 센서별 잠금으로 묶어 등록은 한 번만 일어남
+     */
+    public Entry getOrRegister(String deviceId) {
+        Entry entry = entries.get(deviceId);
+        if (entry != null) {
+            return entry;
+        }
+
+        Object lock = registering.computeIfAbsent(deviceId, id -> new Object());
+        synchronized (lock) {
+            try {
+                entry = entries.get(deviceId);
+                if (entry != null) {
+                    return entry;
+                }
+                SensorInfo sensorInfo = sensorInfoRepository.findByDeviceId(deviceId)
+                        .orElseGet(() -> register(deviceId));
+                Entry created = toEntry(sensorInfo);
+                Entry existing = entries.putIfAbsent(deviceId, created);
+                return existing != null ? existing : created;
+            } finally {
+                // 항목을 넣은 뒤 제거 → 이후 요청은 잠금 없이 위의 entries.get에서 끝남
+                registering.remove(deviceId, lock);
+            }
+        }
+    }
+
+    /**
+     * deviceId의 수계명 (미등록 센서면 deviceId)
+     */
+    public String getSugyeName(String deviceId) {
+        return find(deviceId).map(Entry::sugyeName).orElse(deviceId);
+    }
+
+    /**
+     * 센서 정보가 수정된 경우 항목 교체
+     */
+    public void refresh(SensorInfo sensorInfo) {
+        if (sensorInfo.getDeviceId() != null) {
+            entries.put(sensorInfo.getDeviceId(), toEntry(sensorInfo));
+        }
+    }
+
+    /**
+     * 센서 정보가 삭제된 경우 항목 제거
+     */
+    public void evict(String deviceId) {
+        if (entries.remove(deviceId) != null) {
+            version.incrementAndGet();
+        }
+    }
+
+    /**
+     * 레지스트리 변경 버전 (등록/수정/삭제마다 증가)
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private SensorInfo register(String deviceId) {
+        SensorInfo newInfo = SensorInfo.builder()
+                .deviceId(deviceId)
+                .name("센서 이름 없음")
+                .lat(0.0)
+                .lon(0.0)
+                .installedAt(LocalDateTime.now())
+                .location("unknown")
+                .build();
+        SensorInfo saved = sensorInfoRepository.save(newInfo);
+        log.info("🆕 미등록 센서 자동 등록: deviceId={}", deviceId);
+        return saved;
+    }
+
+    private Entry toEntry(SensorInfo sensorInfo) {
+        String name = sensorInfo.getName();
+        return new Entry(
+                sensorInfo,
+                sugyeNameOf(sensorInfo.getDeviceId(), name),
+                name != null ? name : DEFAULT_DISPLAY_NAME,
+                version.incrementAndGet());
+    }
+
+    /**
+     * 수계명 추출 (예: "한강-서울" -> "한강", 구분자가 없으면 이름, 이름이 없으면 deviceId)
+     */
+    static String sugyeNameOf(String deviceId, String name) {
+        if (name == null) {
+            return deviceId;
+        }
+        int separator = name.indexOf('-');
+        return separator >= 0 ? name.substring(0, separator) : name;
+    }
+}
@@ -20,6 +20,8 @@ import java.util.stream.Collectors;
 public class SensorInfoService {
     
     private final SensorInfoRepository sensorInfoRepository;
+    private final SensorInfoRegistry sensorInfoRegistry;
+    private final LatestReadingStore latestReadingStore;
     
     /**
      * 모든 센서 정보 조회
@@ -66,6 +68,7 @@ public class SensorInfoService {
         }
         
         SensorInfo updatedSensor = sensorInfoRepository.save(sensorInfo);
+        sensorInfoRegistry.refresh(updatedSensor);
         
         log.info("✅ 센서 정보 업데이트 완료: {} -> {}", deviceId, updateDto);
         
@@ -97,6 +100,8 @@ public class SensorInfoService {
         Optional<SensorInfo> sensorInfo = sensorInfoRepository.findByDeviceId(deviceId);
         if (sensorInfo.isPresent()) {
             sensorInfoRepository.delete(sensorInfo.get());
+            sensorInfoRegistry.evict(deviceId);
+            latestReadingStore.evict(deviceId);
             log.info("🗑️ 센서 정보 삭제 완료: {}", deviceId);
             return true;
         }
@@ -0,0 +1,59 @@
+package kr.u_cube.www.WaterPollution.service.sensor;
+
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ToDoubleFunction;
+
+import kr.u_cube.www.WaterPollution.dto.HistoryDataDto;
+
+/**
+ * 수질 측정 항목
+ * - sensor_data 컬럼명, 표시 이름, HistoryDataDto 접근자를 한 곳에 모음
+ * - 롤업(항목별 min/max/avg/count), 차트 시계열 등 항목 단위 처리에서 사용
+ */
+public enum SensorParameter {
+    PH("ph", "pH", HistoryDataDto::getPh, HistoryDataDto::setPh),
+    DO("do_value", "DO", HistoryDataDto::getDoValue, HistoryDataDto::setDoValue),
+    TEMPERATURE("temperature", "Temperature", HistoryDataDto::getTemperature, HistoryDataDto::setTemperature),
+    EC("ec", "EC", HistoryDataDto::getEc, HistoryDataDto::setEc),
+    BOD("bod", "BOD", HistoryDataDto::getBod, HistoryDataDto::setBod),
+    COD("cod", "COD", HistoryDataDto::getCod, HistoryDataDto::setCod),
+    TP("tp", "TP", HistoryDataDto::getTp, HistoryDataDto::setTp),
+    TN("tn", "TN", HistoryDataDto::getTn, HistoryDataDto::setTn),
+    SS("ss", "SS", HistoryDataDto::getSs, HistoryDataDto::setSs),
+    CHLOROPHYLL_A("chlorophylla", "Chlorophyll-a", HistoryDataDto::getChlorophyllA, HistoryDataDto::setChlorophyllA),
+    NO3N("no3n", "NO3-N", HistoryDataDto::getNo3n, HistoryDataDto::setNo3n);
+
+    private final String column;
+    private final String label;
+    private final ToDoubleFunction<HistoryDataDto> getter;
+    private final ObjDoubleConsumer<HistoryDataDto> setter;
+
+    SensorParameter(String column, String label,
+            ToDoubleFunction<HistoryDataDto> getter,
+            ObjDoubleConsumer<HistoryDataDto> setter) {
+        this.column = column;
+        this.label = label;
+        this.getter = getter;
+        this.setter = setter;
+    }
+
+    /**
+     * sensor_data 테이블 컬럼명
+     * - 엔티티 필드명에서 Spring 기본 네이밍으로 만들어진 이름 (chlorophyllA → chlorophylla, 끝 대문자 앞에는 _ 없음)
+     */
+    public String getColumn() {
+        return column;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public double get(HistoryDataDto dto) {
+        return getter.applyAsDouble(dto);
+    }
+
+    public void set(HistoryDataDto dto, double value) {
+        setter.accept(dto, value);
+    }
+}
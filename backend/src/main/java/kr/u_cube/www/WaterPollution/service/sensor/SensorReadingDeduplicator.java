@@ -0,0 +1,124 @@
+package kr.u_cube.www.WaterPollution.service.sensor;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 센서 데이터 중복 제거 (deviceId, measuredAt 기준)
+ * - 게이트웨이 재연결 후 재전송된 데이터를 DB 저장, 알림, AI 요청 전에 걸러냄
+ * - 디바이스별로 최근 측정 시각 N개만 기억 (고정 크기 링)
+ * - 창을 벗어난 오래된 중복은 DB의 (device_id, measured_at) 유니크 키 + upsert가 처리
+ *   (배치 upsert는 드라이버가 행별 결과를 주지 않아 DB 중복은 직접 저장 경로에서만 셈)
+ */
+@Component
+@Slf4j
+public class SensorReadingDeduplicator {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private final int windowSize;
+    private final ConcurrentHashMap<String, Window> windows = new ConcurrentHashMap<>();
+
+    // 메트릭 (중복률 = duplicates / checked)
+    private final Counter checkedCounter;
+    private final Counter memoryDuplicateCounter;
+    private final Counter dbDuplicateCounter;
+
+    public SensorReadingDeduplicator(MeterRegistry meterRegistry,
+            @Value("${ingest.dedup.window:64}") int windowSize) {
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("ingest.dedup.window는 1 이상이어야 합니다: " + windowSize);
+        }
+        this.windowSize = windowSize;
+
+        this.checkedCounter = Counter.builder("sensor_ingest_dedup_checked_total")
+                .description("중복 검사한 센서 데이터 수")
+                .register(meterRegistry);
+
+        this.memoryDuplicateCounter = Counter.builder("sensor_ingest_duplicates_total")
+                .description("중복으로 걸러진 센서 데이터 수")
+                .tag("source", "memory")
+                .register(meterRegistry);
+
+        this.dbDuplicateCounter = Counter.builder("sensor_ingest_duplicates_total")
+                .description("중복으로 걸러진 센서 데이터 수")
+                .tag("source", "db")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 최근에 본 측정값인지 검사하고, 처음 보는 값이면 기억
+     *
+     * @return 중복이면 true (measuredAt이 없으면 판단할 수 없으므로 false)
+     */
+    public boolean checkAndRecord(String deviceId, LocalDateTime measuredAt) {
+        if (deviceId == null || measuredAt == null) {
+            return false;
+        }
+        checkedCounter.increment();
+
+        boolean duplicate = windowOf(deviceId).checkAndRecord(toKey(measuredAt));
+        if (duplicate) {
+            memoryDuplicateCounter.increment();
+            log.debug("🔁 중복 센서 데이터 무시: deviceId={}, measuredAt={}", deviceId, measuredAt);
+        }
+        return duplicate;
+    }
+
+    /**
+     * 검사 없이 기억만 함 (WAL replay처럼 이미 처리 중이던 데이터를 다시 넣을 때)
+     */
+    public void record(String deviceId, LocalDateTime measuredAt) {
+        if (deviceId != null && measuredAt != null) {
+            windowOf(deviceId).checkAndRecord(toKey(measuredAt));
+        }
+    }
+
+    /**
+     * DB 유니크 키에서 걸러진 중복 (직접 저장 경로)
+     */
+    public void countDbDuplicate() {
+        dbDuplicateCounter.increment();
+    }
+
+    private Window windowOf(String deviceId) {
+        return windows.computeIfAbsent(deviceId, id -> new Window(windowSize));
+    }
+
+    private static long toKey(LocalDateTime measuredAt) {
+        return measuredAt.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + measuredAt.getNano();
+    }
+
+    /**
+     * 디바이스별 최근 측정 시각 링 (디바이스 단위로 동기화)
+     */
+    private static final class Window {
+        private final long[] keys;
+        private int next;
+
+        Window(int size) {
+            this.keys = new long[size];
+            Arrays.fill(keys, EMPTY);
+        }
+
+        synchronized boolean checkAndRecord(long key) {
+            for (long existing : keys) {
+                if (existing == key) {
+                    return true;
+                }
+            }
+            keys[next] = key;
+            next = (next + 1) % keys.length;
+            return false;
+        }
+    }
+}
@@ -0,0 +1,373 @@
+package kr.u_cube.www.WaterPollution.service.sensor;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import kr.u_cube.www.WaterPollution.dto.HistoryDataDto;
+import kr.u_cube.www.WaterPollution.dto.HistoryRollupDto;
+import kr.u_cube.www.WaterPollution.entity.SensorInfo;
+import kr.u_cube.www.WaterPollution.repository.SensorDataRollupRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 센서 데이터 집계(롤업) 관리
+ * - 1분/1시간/1일 단위로 디바이스별, 항목별 min/max/sum/count 유지 (sensor_data_rollup)
+ * - 저장이 끝난 측정값의 (디바이스, 시간)을 변경 목록에 표시하고, 주기적으로 해당 시간만 다시 계산
+ *   sensor_data → MINUTE → HOUR → DAY 순서로 재계산하므로 replay/upsert로 같은 값이 다시 와도 중복 집계되지 않음
+ * - 이력 조회 시 요청한 포인트 수 안에 들어오는 가장 세밀한 해상도를 선택
+ */
+@Service
+@Slf4j
+public class SensorRollupService {
+
+    private static final String UPSERT = """
+            ON DUPLICATE KEY UPDATE
+                min_value = VALUES(min_value), max_value = VALUES(max_value),
+                sum_value = VALUES(sum_value), sample_count = VALUES(sample_count)
+            """;
+
+    /**
+     * 다시 계산해야 하는 (디바이스, 시간) - deviceId는 sensor_info PK
+     */
+    private record DirtyHour(Long deviceId, LocalDateTime hour) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SensorDataRollupRepository sensorDataRollupRepository;
+    private final SensorInfoRegistry sensorInfoRegistry;
+    private final boolean enabled;
+    private final int minuteRetentionDays;
+
+    private final Set<DirtyHour> dirtyHours = ConcurrentHashMap.newKeySet();
+
+    // 메트릭
+    private final Timer flushTimer;
+
+    public SensorRollupService(JdbcTemplate jdbcTemplate,
+            SensorDataRollupRepository sensorDataRollupRepository,
+            SensorInfoRegistry sensorInfoRegistry,
+            MeterRegistry meterRegistry,
+            @Value("${rollup.enabled:true}") boolean enabled,
+            @Value("${rollup.minute-retention-days:30}") int minuteRetentionDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sensorDataRollupRepository = sensorDataRollupRepository;
+        this.sensorInfoRegistry = sensorInfoRegistry;
+        this.enabled = enabled;
+        this.minuteRetentionDays = minuteRetentionDays;
+
+        this.flushTimer = Timer.builder("sensor_rollup_flush_latency")
+                .description("센서 데이터 집계 재계산 소요 시간")
+                .register(meterRegistry);
+
+        Gauge.builder("sensor_rollup_dirty_hours", dirtyHours, Set::size)
+                .description("집계 재계산 대기 중인 (디바이스, 시간) 수")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 저장 완료된 측정값 표시 (수집 경로에서 호출)
+     */
+    public void markDirty(Long deviceId, LocalDateTime measuredAt) {
+        if (!enabled || deviceId == null || measuredAt == null) {
+            return;
+        }
+        dirtyHours.add(new DirtyHour(deviceId, measuredAt.truncatedTo(ChronoUnit.HOURS)));
+    }
+
+    /**
+     * 변경된 시간의 MINUTE/HOUR 집계와 해당 날짜의 DAY 집계 재계산
+     */
+    @Scheduled(fixedDelayString = "${rollup.flush-interval-ms:10000}")
+    public void flush() {
+        if (!enabled || dirtyHours.isEmpty()) {
+            return;
+        }
+
+        // 꺼내는 동안 새로 표시된 항목은 다음 주기에 처리
+        List<DirtyHour> drained = new ArrayList<>();
+        for (Iterator<DirtyHour> it = dirtyHours.iterator(); it.hasNext();) {
+            drained.add(it.next());
+            it.remove();
+        }
+
+        long start = System.nanoTime();
+        try {
+            Map<LocalDateTime, Set<Long>> byHour = drained.stream()
+                    .collect(Collectors.groupingBy(DirtyHour::hour, TreeMap::new,
+                            Collectors.mapping(DirtyHour::deviceId, Collectors.toSet())));
+            Map<LocalDateTime, Set<Long>> byDay = drained.stream()
+                    .collect(Collectors.groupingBy(d -> d.hour().truncatedTo(ChronoUnit.DAYS), TreeMap::new,
+                            Collectors.mapping(DirtyHour::deviceId, Collectors.toSet())));
+
+            for (Map.Entry<LocalDateTime, Set<Long>> entry : byHour.entrySet()) {
+                LocalDateTime hour = entry.getKey();
+                rollUpRaw(entry.getValue(), hour, hour.plusHours(1));
+                rollUp(HistoryResolution.MINUTE, HistoryResolution.HOUR, entry.getValue(), hour, hour.plusHours(1));
+            }
+            for (Map.Entry<LocalDateTime, Set<Long>> entry : byDay.entrySet()) {
+                LocalDateTime day = entry.getKey();
+                rollUp(HistoryResolution.HOUR, HistoryResolution.DAY, entry.getValue(), day, day.plusDays(1));
+            }
+
+            log.debug("📊 센서 데이터 집계 갱신: {}개 (디바이스, 시간)", drained.size());
+        } catch (Exception e) {
+            // 실패한 항목은 다시 표시해 다음 주기에 재시도
+            dirtyHours.addAll(drained);
+            log.error("❌ 센서 데이터 집계 갱신 실패: {}개 (디바이스, 시간)", drained.size(), e);
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 집계 테이블이 비어 있으면 기존 sensor_data 전체를 하루 단위로 집계 (최초 1회, 백그라운드)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (!enabled) {
+            return;
+        }
+
+        Thread backfill = new Thread(() -> {
+            try {
+                if (sensorDataRollupRepository.count() > 0) {
+                    return;
+                }
+                Timestamp oldest = jdbcTemplate.queryForObject("SELECT MIN(measured_at) FROM sensor_data", Timestamp.class);
+                if (oldest == null) {
+                    return;
+                }
+
+                LocalDateTime from = oldest.toLocalDateTime().truncatedTo(ChronoUnit.DAYS);
+                LocalDateTime to = LocalDateTime.now().truncatedTo(ChronoUnit.DAYS);
+                log.info("📊 센서 데이터 집계 초기 생성 시작: {} ~ {}", from.toLocalDate(), to.toLocalDate());
+
+                long start = System.currentTimeMillis();
+                for (LocalDateTime day = from; !day.isAfter(to); day = day.plusDays(1)) {
+                    rollUpRaw(null, day, day.plusDays(1));
+                    rollUp(HistoryResolution.MINUTE, HistoryResolution.HOUR, null, day, day.plusDays(1));
+                    rollUp(HistoryResolution.HOUR, HistoryResolution.DAY, null, day, day.plusDays(1));
+                }
+                log.info("✅ 센서 데이터 집계 초기 생성 완료: {}ms", System.currentTimeMillis() - start);
+            } catch (Exception e) {
+                log.error("❌ 센서 데이터 집계 초기 생성 실패", e);
+            }
+        }, "SensorRollupBackfill");
+        backfill.setDaemon(true);
+        backfill.start();
+    }
+
+    /**
+     * 보존 기간이 지난 MINUTE 집계 삭제 (HOUR/DAY는 원본 보존 기간이 지나도 유지)
+     */
+    public void purgeExpired() {
+        if (!enabled || minuteRetentionDays <= 0) {
+            return;
+        }
+
+        LocalDateTime cutoff = minuteCutoff();
+        int total = 0;
+        int deleted;
+        do {
+            // 한 번에 지우는 양을 제한해 잠금 시간을 짧게 유지
+            deleted = jdbcTemplate.update("""
+                    DELETE FROM sensor_data_rollup
+                    WHERE resolution = 'MINUTE' AND bucket_start < ?
+                    LIMIT 10000
+                    """, Timestamp.valueOf(cutoff));
+            total += deleted;
+        } while (deleted > 0);
+
+        log.info("🧹 MINUTE 집계 정리: {}건 ({} 이전)", total, cutoff.toLocalDate());
+    }
+
+    /**
+     * 이 시각 이전의 MINUTE 집계는 purgeExpired()로 지워짐 (보존 기간 제한이 없으면 null)
+     */
+    private LocalDateTime minuteCutoff() {
+        if (minuteRetentionDays <= 0) {
+            return null;
+        }
+        return LocalDateTime.now().truncatedTo(ChronoUnit.DAYS).minusDays(minuteRetentionDays);
+    }
+
+    // === 조회 ===
+
+    /**
+     * 디바이스당 maxPoints 이하가 되는 가장 세밀한 해상도 (RAW → MINUTE → HOUR → DAY)
+     * - start가 MINUTE 보존 기간 밖이면 MINUTE는 건너뜀 (앞부분이 비어 보이지 않도록)
+     * - 어느 해상도도 만족하지 못하면 DAY
+     */
+    public HistoryResolution chooseResolution(LocalDateTime start, LocalDateTime end, int maxPoints) {
+        if (!enabled) {
+            return HistoryResolution.RAW;
+        }
+
+        Duration range = Duration.between(start, end);
+        if (estimateRawPoints(start, end, range) <= maxPoints) {
+            return HistoryResolution.RAW;
+        }
+        LocalDateTime minuteCutoff = minuteCutoff();
+        boolean minuteAvailable = minuteCutoff == null || !start.isBefore(minuteCutoff);
+        for (HistoryResolution resolution : List.of(HistoryResolution.MINUTE, HistoryResolution.HOUR)) {
+            if (resolution == HistoryResolution.MINUTE && !minuteAvailable) {
+                continue;
+            }
+            if (resolution.bucketCount(range) <= maxPoints) {
+                return resolution;
+            }
+        }
+        return HistoryResolution.DAY;
+    }
+
+    /**
+     * 버킷별 항목 min/max/avg/count
+     */
+    public List<HistoryRollupDto> getRollups(LocalDateTime start, LocalDateTime end,
+            HistoryResolution resolution, String deviceId) {
+        if (resolution == HistoryResolution.RAW) {
+            throw new IllegalArgumentException("RAW는 집계 해상도가 아닙니다");
+        }
+        return sensorDataRollupRepository.findRollups(resolution, start, end, deviceId);
+    }
+
+    /**
+     * 집계 이력을 원본과 같은 형태로 변환 (버킷 시작 시각 + 항목별 평균)
+     */
+    public List<HistoryDataDto> getHistory(LocalDateTime start, LocalDateTime end, HistoryResolution resolution) {
+        List<HistoryDataDto> result = new ArrayList<>();
+        HistoryDataDto current = null;
+
+        // (버킷, 디바이스) 순으로 정렬되어 있으므로 연속된 행을 한 건으로 합침
+        for (HistoryRollupDto rollup : getRollups(start, end, resolution, null)) {
+            if (current == null
+                    || !current.getMeasuredAt().equals(rollup.getBucketStart())
+                    || !Objects.equals(current.getDeviceId(), rollup.getDeviceId())) {
+                current = newHistoryRow(rollup);
+                result.add(current);
+            }
+            rollup.getParameter().set(current, rollup.getAvg());
+        }
+        return result;
+    }
+
+    private HistoryDataDto newHistoryRow(HistoryRollupDto rollup) {
+        HistoryDataDto row = new HistoryDataDto();
+        row.setDeviceId(rollup.getDeviceId());
+        row.setName(rollup.getName());
+        row.setMeasuredAt(rollup.getBucketStart());
+
+        sensorInfoRegistry.find(rollup.getDeviceId()).ifPresent(entry -> {
+            SensorInfo info = entry.sensorInfo();
+            row.setPtno(info.getPtno());
+            row.setType(info.getType());
+            row.setLat(info.getLat());
+            row.setLon(info.getLon());
+            row.setLocation(info.getLocation());
+        });
+        return row;
+    }
+
+    /**
+     * 디바이스당 원본 건수 상한 추정 (시간당 최대 건수 x 시간 수)
+     */
+    private long estimateRawPoints(LocalDateTime start, LocalDateTime end, Duration range) {
+        long maxHourly = sensorDataRollupRepository.findMaxHourlySampleCount(
+                start.truncatedTo(ChronoUnit.HOURS), end);
+        return maxHourly * HistoryResolution.HOUR.bucketCount(range);
+    }
+
+    // === 재계산 SQL ===
+
+    /**
+     * sensor_data → MINUTE (항목별로 세로로 펼친 뒤 분 단위 그룹)
+     */
+    private void rollUpRaw(Collection<Long> deviceIds, LocalDateTime from, LocalDateTime to) {
+        String deviceFilter = deviceFilter(deviceIds);
+        List<Object> args = new ArrayList<>();
+        StringBuilder unpivot = new StringBuilder();
+
+        for (SensorParameter parameter : SensorParameter.values()) {
+            if (!unpivot.isEmpty()) {
+                unpivot.append("    UNION ALL\n");
+            }
+            unpivot.append("    SELECT device_id, CAST(DATE_FORMAT(measured_at, '%Y-%m-%d %H:%i:00') AS DATETIME) AS bucket_start, '")
+                    .append(parameter.name()).append("' AS parameter, ")
+                    .append(parameter.getColumn()).append(" AS value\n")
+                    .append("    FROM sensor_data WHERE measured_at >= ? AND measured_at < ?")
+                    .append(deviceFilter).append('\n');
+            args.add(Timestamp.valueOf(from));
+            args.add(Timestamp.valueOf(to));
+        }
+
+        jdbcTemplate.update("""
+                INSERT INTO sensor_data_rollup (device_id, resolution, bucket_start, parameter,
+                    min_value, max_value, sum_value, sample_count)
+                SELECT device_id, 'MINUTE', bucket_start, parameter, MIN(value), MAX(value), SUM(value), COUNT(value)
+                FROM (
+                """ + unpivot + """
+                ) raw_values
+                WHERE value IS NOT NULL
+                GROUP BY device_id, bucket_start, parameter
+                """ + UPSERT, args.toArray());
+    }
+
+    /**
+     * 세밀한 집계 → 한 단계 거친 집계 ([from, to)가 target 버킷 하나 또는 여러 개)
+     */
+    private void rollUp(HistoryResolution source, HistoryResolution target,
+            Collection<Long> deviceIds, LocalDateTime from, LocalDateTime to) {
+        String bucket = target == HistoryResolution.DAY
+                ? "CAST(DATE(bucket_start) AS DATETIME)"
+                : "CAST(DATE_FORMAT(bucket_start, '%Y-%m-%d %H:00:00') AS DATETIME)";
+
+        jdbcTemplate.update("""
+                INSERT INTO sensor_data_rollup (device_id, resolution, bucket_start, parameter,
+                    min_value, max_value, sum_value, sample_count)
+                SELECT device_id, ?, %1$s, parameter, MIN(min_value), MAX(max_value), SUM(sum_value), SUM(sample_count)
+                FROM sensor_data_rollup
+                WHERE resolution = ? AND bucket_start >= ? AND bucket_start < ?%2$s
+                GROUP BY device_id, %1$s, parameter
+                """.formatted(bucket, deviceFilter(deviceIds)) + UPSERT,
+                target.name(), source.name(), Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+
+    /**
+     * 디바이스 조건 (sensor_info PK 숫자만 들어가므로 바로 SQL에 넣음, null이면 전체)
+     */
+    private static String deviceFilter(Collection<Long> deviceIds) {
+        if (deviceIds == null) {
+            return "";
+        }
+        return deviceIds.stream()
+                .map(String::valueOf)
+                .collect(Collectors.joining(", ", " AND device_id IN (", ")"));
+    }
+}
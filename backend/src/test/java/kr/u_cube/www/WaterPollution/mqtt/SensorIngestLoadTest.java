@@ -0,0 +1,460 @@
+package kr.u_cube.www.WaterPollution.mqtt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import kr.u_cube.www.WaterPollution.dto.sensor.SensorDataDto;
+import kr.u_cube.www.WaterPollution.dto.websocket.PredictionResultMessage;
+import kr.u_cube.www.WaterPollution.service.ai.AiPredictionBatcher;
+import kr.u_cube.www.WaterPollution.service.ai.AiPredictionExecutor;
+import kr.u_cube.www.WaterPollution.service.ai.ReactiveAiPredictionService;
+import kr.u_cube.www.WaterPollution.service.sensor.SensorDataBatchWriter;
+import kr.u_cube.www.WaterPollution.websocket.PredictionResultPublisher;
+
+/**
+ * 센서 수집 파이프라인 부하 테스트 (기본 test 태스크에서는 제외, ./gradlew loadTest 로 실행)
+ * - N개 디바이스가 보내는 센서 데이터를 단계별 목표 속도로 MQTT 콜백에 직접 전달 (브로커 대체)
+ * - DB는 H2(MySQL 호환 모드), AI 서버는 지연 시간을 흉내 내는 내장 HTTP 서버
+ * - 단계별 처리량(msgs/sec), 종단 간 지연(p50/p99), 단계별 포화 시점을 출력
+ *
+ * 설정 (시스템 속성)
+ * - load.devices: 디바이스 수 (기본 200)
+ * - load.rates: 단계별 목표 속도 msgs/sec (기본 250,500,1000,2000,4000)
+ * - load.step-seconds: 단계별 지속 시간 (기본 10)
+ * - load.ai-latency-ms: AI 서버 응답 지연 (기본 50)
+ */
+@Tag("load")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:ingest-load;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "MAIL_HOST=localhost",
+        "MAIL_PORT=2525",
+        "MAIL_USERNAME=load-test",
+        "MAIL_PASSWORD=load-test",
+        "MQTT_BROKER=tcp://localhost:1883",
+        "MQTT_TOPIC=" + SensorIngestLoadTest.TOPIC,
+        "mqtt.enabled=false",
+        "rollup.enabled=false",
+        // 메시지마다 남는 INFO 로그가 측정값을 좌우하지 않도록 낮춤
+        "logging.level.kr.u_cube.www.WaterPollution=WARN"
+})
+@Import(SensorIngestLoadTest.LoadTestConfig.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class SensorIngestLoadTest {
+
+    static final String TOPIC = "load/sensor";
+
+    private static final int DEVICES = Integer.getInteger("load.devices", 200);
+    private static final int[] RATES = Arrays.stream(System.getProperty("load.rates", "250,500,1000,2000,4000").split(","))
+            .map(String::trim)
+            .mapToInt(Integer::parseInt)
+            .toArray();
+    private static final int STEP_SECONDS = Integer.getInteger("load.step-seconds", 10);
+    private static final int AI_LATENCY_MS = Integer.getInteger("load.ai-latency-ms", 50);
+
+    // 단계 결과가 이 비율 아래로 떨어지거나 대기열이 용량의 절반을 넘으면 포화로 판단
+    private static final double SATURATION_RATIO = 0.95;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private static HttpServer aiStub;
+    private static Path walDir;
+
+    @Autowired
+    private MqttSensorSubscriber subscriber;
+
+    @Autowired
+    private SensorIngestPipeline pipeline;
+
+    @Autowired
+    private SensorDataBatchWriter batchWriter;
+
+    @Autowired
+    private AiPredictionExecutor aiExecutor;
+
+    @Autowired
+    private AiPredictionBatcher aiBatcher;
+
+    @Autowired
+    private ReactiveAiPredictionService reactiveAi;
+
+    @Autowired
+    private RecordingPredictionPublisher publisher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ConfigurableApplicationContext applicationContext;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) throws IOException {
+        aiStub = startAiStub();
+        walDir = Files.createTempDirectory("ingest-load-wal");
+        registry.add("AI_SERVER_URL", () -> "http://localhost:" + aiStub.getAddress().getPort());
+        registry.add("ingest.wal.dir", () -> walDir.toString());
+    }
+
+    /**
+     * 컨텍스트를 먼저 닫아 WAL이 마지막 checkpoint를 남긴 뒤 AI 서버 대체와 임시 WAL 디렉터리 정리
+     */
+    @AfterAll
+    void cleanUp() throws IOException {
+        applicationContext.close();
+        if (aiStub != null) {
+            aiStub.stop(0);
+        }
+        if (walDir != null) {
+            try (Stream<Path> files = Files.walk(walDir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    @Test
+    void sustainedIngestThroughput() throws Exception {
+        List<StepResult> results = new ArrayList<>();
+        LocalDateTime baseTime = LocalDateTime.now().minusDays(1).withNano(0);
+        AtomicInteger sequence = new AtomicInteger();
+
+        for (int rate : RATES) {
+            List<LoadMessage> payloads = generatePayloads(rate * STEP_SECONDS, baseTime, sequence);
+            results.add(runStep(rate, payloads));
+        }
+
+        long drainStart = System.nanoTime();
+        while (pipeline.getQueueDepth() > 0 || batchWriter.getPendingCount() > 0
+                || aiExecutor.getPendingCount() > 0 || aiBatcher.getPendingCount() > 0
+                || reactiveAi.getPendingCount() > 0) {
+            if (System.nanoTime() - drainStart > TimeUnit.SECONDS.toNanos(60)) {
+                break;
+            }
+            Thread.sleep(100);
+        }
+
+        printReport(results);
+
+        assertThat(counterSum("sensor_ingest_rows_written_total")).isPositive();
+    }
+
+    /**
+     * 한 단계 실행: 목표 속도로 전달하면서 각 단계 대기열을 100ms마다 측정
+     */
+    private StepResult runStep(int rate, List<LoadMessage> payloads) throws InterruptedException {
+        double rowsBefore = counterSum("sensor_ingest_rows_written_total");
+        double droppedBefore = counterSum("sensor_pipeline_dropped_total");
+        double writerRejectedBefore = counterSum("sensor_ingest_rows_rejected_total");
+        double aiRejectedBefore = counterSum("ai_prediction_rejected_total");
+        long publishedBefore = publisher.published.sum();
+        // 앞 단계에서 결과가 나오지 않은 측정값(생략, 거절)은 짝지을 대상에서 제외
+        publisher.sentAt.clear();
+        publisher.latencies.clear();
+
+        int[] maxDepth = new int[3];
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> {
+            maxDepth[0] = Math.max(maxDepth[0], pipeline.getQueueDepth());
+            maxDepth[1] = Math.max(maxDepth[1], batchWriter.getPendingCount());
+            maxDepth[2] = Math.max(maxDepth[2], aiExecutor.getPendingCount() + aiBatcher.getPendingCount());
+        }, 0, 100, TimeUnit.MILLISECONDS);
+
+        long start = System.nanoTime();
+        deliver(payloads, rate);
+        long deliveredAt = System.nanoTime();
+
+        sampler.shutdown();
+        sampler.awaitTermination(1, TimeUnit.SECONDS);
+
+        double seconds = (deliveredAt - start) / 1_000_000_000.0;
+        long[] latencies = publisher.latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+
+        return new StepResult(
+                rate,
+                payloads.size() / seconds,
+                (counterSum("sensor_ingest_rows_written_total") - rowsBefore) / seconds,
+                (publisher.published.sum() - publishedBefore) / seconds,
+                percentileMillis(latencies, 0.50),
+                percentileMillis(latencies, 0.99),
+                maxDepth[0],
+                pipeline.getQueueDepth(),
+                maxDepth[1],
+                maxDepth[2],
+                counterSum("sensor_pipeline_dropped_total") - droppedBefore,
+                counterSum("sensor_ingest_rows_rejected_total") - writerRejectedBefore,
+                counterSum("ai_prediction_rejected_total") - aiRejectedBefore);
+    }
+
+    /**
+     * 브로커 대체: Paho 콜백 스레드처럼 단일 스레드에서 순서대로 messageArrived 호출
+     * - 목표 속도에 맞춰 전송 시각을 정하고, 늦어지면 쉬지 않고 따라잡음
+     */
+    private void deliver(List<LoadMessage> payloads, int rate) {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+
+        for (int i = 0; i < payloads.size(); i++) {
+            long target = start + i * intervalNanos;
+            long now = System.nanoTime();
+            if (now < target) {
+                LockSupport.parkNanos(target - now);
+            }
+
+            LoadMessage payload = payloads.get(i);
+            publisher.sentAt.put(payload.key(), System.nanoTime());
+
+            MqttMessage message = new MqttMessage(payload.bytes());
+            message.setQos(1);
+            subscriber.messageArrived(TOPIC, message);
+        }
+    }
+
+    /**
+     * 실제와 비슷한 범위의 측정값으로 페이로드 생성 (약 1%는 pH 이상값)
+     * - measuredAt은 메시지마다 1초씩 증가시켜 겹치지 않게 함
+     */
+    private List<LoadMessage> generatePayloads(int count, LocalDateTime baseTime, AtomicInteger sequence) throws IOException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<LoadMessage> payloads = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            boolean abnormal = random.nextInt(100) == 0;
+            SensorDataDto dto = SensorDataDto.builder()
+                    .deviceId(deviceId(i % DEVICES))
+                    .ph(abnormal ? random.nextDouble(4.0, 4.9) : random.nextDouble(6.5, 8.5))
+                    .doValue(random.nextDouble(5.0, 11.0))
+                    .temperature(random.nextDouble(5.0, 25.0))
+                    .ec(random.nextDouble(100.0, 600.0))
+                    .turbidity(random.nextDouble(1.0, 20.0))
+                    .bod(random.nextDouble(0.5, 4.0))
+                    .cod(random.nextDouble(2.0, 8.0))
+                    .tp(random.nextDouble(0.01, 0.2))
+                    .tn(random.nextDouble(1.0, 5.0))
+                    .ss(random.nextDouble(1.0, 30.0))
+                    .chlorophyllA(random.nextDouble(1.0, 40.0))
+                    .no3n(random.nextDouble(0.5, 4.0))
+                    .measuredAt(baseTime.plusSeconds(sequence.getAndIncrement()))
+                    .build();
+            payloads.add(new LoadMessage(latencyKey(dto.getDeviceId(), dto.getMeasuredAt()), MAPPER.writeValueAsBytes(dto)));
+        }
+        return payloads;
+    }
+
+    private static String latencyKey(String deviceId, LocalDateTime measuredAt) {
+        return deviceId + "|" + measuredAt;
+    }
+
+    /**
+     * 전달할 페이로드와 종단 간 지연 계산용 키 (deviceId|measuredAt)
+     */
+    private record LoadMessage(String key, byte[] bytes) {
+    }
+
+    private static String deviceId(int index) {
+        return String.format("LOAD-%04d", index);
+    }
+
+    private double counterSum(String name) {
+        return meterRegistry.find(name).counters().stream().mapToDouble(Counter::count).sum();
+    }
+
+    private static double percentileMillis(long[] sortedNanos, double percentile) {
+        if (sortedNanos.length == 0) {
+            return Double.NaN;
+        }
+        int index = (int) Math.min(sortedNanos.length - 1, Math.ceil(percentile * sortedNanos.length) - 1);
+        return sortedNanos[Math.max(index, 0)] / 1_000_000.0;
+    }
+
+    private void printReport(List<StepResult> results) {
+        int pipelineCapacity = pipeline.getCapacity();
+
+        System.out.println();
+        System.out.printf("📊 수집 부하 테스트 결과 (devices=%d, step=%ds, ai-latency=%dms)%n",
+                DEVICES, STEP_SECONDS, AI_LATENCY_MS);
+        System.out.printf("%8s %10s %10s %10s %10s %10s %10s %10s %10s %10s %8s %8s %8s%n",
+                "target", "callback", "persisted", "published", "p50(ms)", "p99(ms)",
+                "pipeMax", "pipeEnd", "writerMax", "aiMax", "dropped", "wRej", "aiRej");
+        for (StepResult r : results) {
+            System.out.printf("%8d %10.0f %10.0f %10.0f %10.1f %10.1f %10d %10d %10d %10d %8.0f %8.0f %8.0f%n",
+                    r.targetRate(), r.callbackRate(), r.persistedRate(), r.publishedRate(),
+                    r.p50Millis(), r.p99Millis(), r.pipelineMaxDepth(), r.pipelineEndDepth(),
+                    r.writerMaxPending(), r.aiMaxPending(), r.dropped(), r.writerRejected(), r.aiRejected());
+        }
+
+        // 단계별 포화 시점: 처음으로 기준을 넘은 목표 속도
+        Map<String, String> saturation = new LinkedHashMap<>();
+        saturation.put("mqtt_callback", firstSaturated(results,
+                r -> r.callbackRate() < r.targetRate() * SATURATION_RATIO));
+        saturation.put("pipeline", firstSaturated(results,
+                r -> r.pipelineEndDepth() > pipelineCapacity / 2 || r.dropped() > 0));
+        saturation.put("db_writer", firstSaturated(results,
+                r -> r.persistedRate() < r.callbackRate() * SATURATION_RATIO || r.writerRejected() > 0));
+        saturation.put("ai_fanout", firstSaturated(results,
+                r -> r.publishedRate() < r.callbackRate() * SATURATION_RATIO || r.aiRejected() > 0));
+
+        StepResult sustained = results.stream()
+                .filter(r -> r.publishedRate() >= r.targetRate() * SATURATION_RATIO)
+                .reduce((first, second) -> second)
+                .orElse(null);
+
+        System.out.println();
+        System.out.printf("✅ 유지 가능한 최대 처리량: %s msgs/sec%n",
+                sustained != null ? String.format("%.0f", sustained.publishedRate()) : "첫 단계부터 포화");
+        saturation.forEach((stage, rate) -> System.out.printf("   %-14s 포화 시점: %s%n", stage, rate));
+        System.out.println();
+    }
+
+    private static String firstSaturated(List<StepResult> results, Predicate<StepResult> saturated) {
+        return results.stream()
+                .filter(saturated)
+                .findFirst()
+                .map(r -> r.targetRate() + " msgs/sec")
+                .orElse("포화 없음");
+    }
+
+    private record StepResult(
+            int targetRate,
+            double callbackRate,
+            double persistedRate,
+            double publishedRate,
+            double p50Millis,
+            double p99Millis,
+            int pipelineMaxDepth,
+            int pipelineEndDepth,
+            int writerMaxPending,
+            int aiMaxPending,
+            double dropped,
+            double writerRejected,
+            double aiRejected) {
+    }
+
+    /**
+     * AI 서버 대체: 요청에 포함된 수계마다 예측 결과 1건을 지연 후 반환
+     */
+    private static HttpServer startAiStub() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+
+        server.createContext("/predict/all_with_sensors", exchange -> {
+            try {
+                Map<?, ?> request = MAPPER.readValue(exchange.getRequestBody(), Map.class);
+                Map<?, ?> sensorData = (Map<?, ?>) request.get("all_sensor_data");
+
+                Map<String, Object> response = new LinkedHashMap<>();
+                String date = LocalDate.now().plusDays(1).toString();
+                for (Object sugye : sensorData.keySet()) {
+                    response.put(String.valueOf(sugye), List.of(Map.of("ds", date, "yhat", 72.5, "WQI_등급", "좋음")));
+                }
+
+                Thread.sleep(AI_LATENCY_MS);
+                respond(exchange, 200, MAPPER.writeValueAsBytes(response));
+            } catch (Exception e) {
+                respond(exchange, 500, String.valueOf(e.getMessage()).getBytes(StandardCharsets.UTF_8));
+            }
+        });
+        server.createContext("/health", exchange -> respond(exchange, 200, "ok".getBytes(StandardCharsets.UTF_8)));
+
+        server.start();
+        return server;
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * 예측 결과 전송 시각을 기록하는 Publisher
+     * - (deviceId, measuredAt)로 전송 시각과 짝지어 종단 간 지연 계산 (AI 결과 순서가 바뀌어도, 캐시 적중이어도 정확)
+     * - 생략/거절되어 결과가 없는 측정값은 짝이 남지 않으며 단계마다 비움
+     */
+    static class RecordingPredictionPublisher extends PredictionResultPublisher {
+
+        final Map<String, Long> sentAt = new ConcurrentHashMap<>();
+        final Queue<Long> latencies = new ConcurrentLinkedQueue<>();
+        final LongAdder published = new LongAdder();
+
+        RecordingPredictionPublisher(SimpMessagingTemplate messagingTemplate) {
+            super(messagingTemplate);
+        }
+
+        @Override
+        public void publishPredictionResult(PredictionResultMessage message) {
+            long now = System.nanoTime();
+            Long sent = sentAt.remove(latencyKey(message.getDeviceId(), message.getMeasuredAt()));
+            if (sent != null) {
+                latencies.add(now - sent);
+            }
+            published.increment();
+            super.publishPredictionResult(message);
+        }
+    }
+
+    @TestConfiguration
+    static class LoadTestConfig {
+
+        @Bean
+        @Primary
+        RecordingPredictionPublisher recordingPredictionPublisher(SimpMessagingTemplate messagingTemplate) {
+            return new RecordingPredictionPublisher(messagingTemplate);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package kr.u_cube.www.WaterPollution.mqtt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * WAL - 손상된 꼬리 복구, 세그먼트 교체/삭제, checkpoint와 append 순서
+ */
+class SensorIngestLogTest {
+
+    private static final int HEADER_BYTES = 8;
+
+    @TempDir
+    Path dir;
+
+    private SensorIngestLog open(int segmentBytes) throws IOException {
+        SensorIngestLog log = new SensorIngestLog(new SimpleMeterRegistry(), dir.toString(), segmentBytes, false);
+        log.open();
+        return log;
+    }
+
+    private static byte[] payload(int i) {
+        return ("{\"deviceId\":\"DEV-" + i + "\"}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(path -> path.toString().endsWith(".wal")).sorted().toList();
+        }
+    }
+
+    @Test
+    void recoveryStopsAtCrcCorruptedTail() throws IOException {
+        SensorIngestLog log = open(4096);
+        long first = log.append(payload(1));
+        long second = log.append(payload(2));
+        long third = log.append(payload(3));
+        log.close();
+
+        // 마지막 레코드 payload 1바이트 손상 (기록 도중 중단된 것과 같음)
+        try (FileChannel channel = FileChannel.open(segmentFiles().get(0), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {'X'}), third + HEADER_BYTES);
+        }
+
+        SensorIngestLog reopened = open(4096);
+        assertThat(reopened.getEndOffset()).isEqualTo(third);
+        assertThat(reopened.read(third)).isNull();
+        assertThat(reopened.read(second)).isEqualTo(payload(2));
+
+        List<Long> replayed = new ArrayList<>();
+        reopened.replayFrom(first, (offset, bytes) -> replayed.add(offset));
+        assertThat(replayed).containsExactly(first, second);
+
+        // 손상된 자리부터 다시 씀
+        assertThat(reopened.append(payload(4))).isEqualTo(third);
+        assertThat(reopened.read(third)).isEqualTo(payload(4));
+        reopened.close();
+    }
+
+    @Test
+    void rollsSegmentsAndDeletesAppliedOnes() throws IOException {
+        int segmentBytes = 256;
+        SensorIngestLog log = open(segmentBytes);
+        List<Long> offsets = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            offsets.add(log.append(payload(i)));
+        }
+        assertThat(segmentFiles().size()).isGreaterThan(3);
+
+        // 앞쪽 절반만 반영 → 반영되지 않은 첫 레코드가 들어 있는 세그먼트부터 남음
+        for (long offset : offsets.subList(0, 20)) {
+            log.markApplied(offset);
+        }
+        log.checkpoint();
+        assertThat(log.getCheckpoint()).isEqualTo(offsets.get(20));
+        assertThat(log.read(offsets.get(20))).isEqualTo(payload(20));
+        int remaining = segmentFiles().size();
+
+        for (long offset : offsets.subList(20, 40)) {
+            log.markApplied(offset);
+        }
+        log.checkpoint();
+        assertThat(log.getCheckpoint()).isEqualTo(log.getEndOffset());
+        assertThat(segmentFiles()).hasSize(1).hasSizeLessThan(remaining);
+        log.close();
+
+        // 다시 열면 checkpoint 이후 replay 대상 없음
+        SensorIngestLog reopened = open(segmentBytes);
+        List<Long> replayed = new ArrayList<>();
+        reopened.replayFrom(reopened.getCheckpoint(), (offset, bytes) -> replayed.add(offset));
+        assertThat(replayed).isEmpty();
+        reopened.close();
+    }
+
+    @Test
+    void checkpointNeverPassesUnappliedRecord() throws Exception {
+        SensorIngestLog log = open(64 * 1024);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicLong checkpoints = new AtomicLong();
+
+        Thread checkpointer = new Thread(() -> {
+            while (running.get()) {
+                log.checkpoint();
+                checkpoints.incrementAndGet();
+            }
+        });
+        checkpointer.start();
+
+        try {
+            for (int i = 0; i < 20_000 && failure.get() == null; i++) {
+                long offset = log.append(payload(i));
+                // 반영 전까지 checkpoint는 이 레코드를 넘으면 안 됨
+                for (int spin = 0; spin < 50; spin++) {
+                    Thread.onSpinWait();
+                }
+                if (log.getCheckpoint() > offset) {
+                    failure.set(new AssertionError("checkpoint " + log.getCheckpoint() + " > 미반영 " + offset));
+                }
+                log.markApplied(offset);
+            }
+        } finally {
+            running.set(false);
+            checkpointer.join();
+        }
+
+        assertThat(failure.get()).isNull();
+        assertThat(checkpoints.get()).isPositive();
+        log.close();
+    }
+}
@@ -0,0 +1,166 @@
+package kr.u_cube.www.WaterPollution.mqtt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import kr.u_cube.www.WaterPollution.dto.sensor.SensorDataDto;
+import kr.u_cube.www.WaterPollution.mqtt.SensorIngestPipeline.OverloadPolicy;
+import kr.u_cube.www.WaterPollution.service.monitoring.CustomMetricsService;
+
+/**
+ * 수집 파이프라인 링 버퍼 포화 시 정책별 동작
+ * - 워커 1개, 링 크기 2: 첫 데이터는 워커가 꺼내 처리 중에 멈춰 있고, 다음 2건이 버퍼를 채운 뒤 4번째부터 정책 적용
+ * - 측정값 구분은 ec 값(0, 1, 2, ...)으로, 이상 데이터 여부는 ph로 지정
+ */
+class SensorIngestPipelineTest {
+
+    private static final double NORMAL_PH = 7.0;
+    private static final double ABNORMAL_PH = 4.0;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Double> processed = new CopyOnWriteArrayList<>();
+    private final CountDownLatch firstTaken = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private SensorIngestPipeline pipeline;
+
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        if (pipeline != null) {
+            pipeline.shutdown();
+        }
+    }
+
+    private SensorIngestPipeline start(OverloadPolicy policy, long blockTimeoutMs) {
+        SensorMessageHandler handler = mock(SensorMessageHandler.class);
+        doAnswer(invocation -> {
+            SensorDataDto dto = invocation.getArgument(0);
+            firstTaken.countDown();
+            release.await();
+            processed.add(dto.getEc());
+            return null;
+        }).when(handler).process(any(SensorDataDto.class), any(), any());
+
+        pipeline = new SensorIngestPipeline(handler, null, mock(CustomMetricsService.class), meterRegistry,
+                1, 2, policy, blockTimeoutMs);
+        pipeline.start();
+        return pipeline;
+    }
+
+    private static SensorReading reading(int id, double ph) {
+        SensorReading reading = new SensorReading();
+        reading.deviceId = "DEV-1";
+        reading.ph = ph;
+        reading.doValue = 8.0;
+        reading.ec = id;
+        return reading;
+    }
+
+    /**
+     * 0번을 워커가 잡은 상태에서 1, 2번으로 버퍼를 채움
+     */
+    private void fillRing(double ph1, double ph2) throws InterruptedException {
+        assertThat(pipeline.publish(reading(0, NORMAL_PH))).isTrue();
+        assertThat(firstTaken.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(pipeline.publish(reading(1, ph1))).isTrue();
+        assertThat(pipeline.publish(reading(2, ph2))).isTrue();
+        assertThat(pipeline.getQueueDepth()).isEqualTo(2);
+    }
+
+    private List<Double> drain(int expected) throws InterruptedException {
+        release.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (processed.size() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        return List.copyOf(processed);
+    }
+
+    private double dropped(String reason) {
+        return meterRegistry.get("sensor_pipeline_dropped_total").tag("reason", reason).counter().count();
+    }
+
+    @Test
+    void dropOldestReplacesOldestQueuedReading() throws InterruptedException {
+        start(OverloadPolicy.DROP_OLDEST, 0);
+        fillRing(NORMAL_PH, NORMAL_PH);
+
+        assertThat(pipeline.publish(reading(3, NORMAL_PH))).isTrue();
+
+        assertThat(drain(3)).containsExactly(0.0, 2.0, 3.0);
+        assertThat(dropped("drop_oldest")).isEqualTo(1);
+    }
+
+    @Test
+    void shedLowPriorityRejectsNormalReadingWhenFull() throws InterruptedException {
+        start(OverloadPolicy.SHED_LOW_PRIORITY, 0);
+        fillRing(NORMAL_PH, NORMAL_PH);
+
+        assertThat(pipeline.publish(reading(3, NORMAL_PH))).isFalse();
+
+        assertThat(drain(3)).containsExactly(0.0, 1.0, 2.0);
+        assertThat(dropped("shed_low_priority")).isEqualTo(1);
+    }
+
+    @Test
+    void shedLowPriorityEvictsOldestNormalReadingAndKeepsOrder() throws InterruptedException {
+        start(OverloadPolicy.SHED_LOW_PRIORITY, 0);
+        fillRing(ABNORMAL_PH, NORMAL_PH);
+
+        // 이상 데이터는 정상 범위 데이터(2번)를 밀어내고 들어감, 1번(이상)은 유지
+        assertThat(pipeline.publish(reading(3, ABNORMAL_PH))).isTrue();
+
+        assertThat(drain(3)).containsExactly(0.0, 1.0, 3.0);
+        assertThat(dropped("shed_low_priority")).isEqualTo(1);
+    }
+
+    @Test
+    void blockGivesUpAfterTimeout() throws InterruptedException {
+        start(OverloadPolicy.BLOCK, 50);
+        fillRing(NORMAL_PH, NORMAL_PH);
+
+        long start = System.nanoTime();
+        assertThat(pipeline.publish(reading(3, NORMAL_PH))).isFalse();
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(40));
+
+        assertThat(drain(3)).containsExactly(0.0, 1.0, 2.0);
+        assertThat(dropped("block_timeout")).isEqualTo(1);
+    }
+
+    @Test
+    void blockWaitsForFreeSlot() throws Exception {
+        start(OverloadPolicy.BLOCK, 10_000);
+        fillRing(NORMAL_PH, NORMAL_PH);
+
+        CompletableFuture<Boolean> blocked = CompletableFuture.supplyAsync(() -> pipeline.publish(reading(3, NORMAL_PH)));
+        Thread.sleep(100);
+        assertThat(blocked).isNotDone();
+
+        assertThat(drain(4)).containsExactly(0.0, 1.0, 2.0, 3.0);
+        assertThat(blocked.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(dropped("block_timeout")).isZero();
+    }
+
+    @Test
+    void rejectsAfterShutdown() {
+        start(OverloadPolicy.BLOCK, 0);
+        release.countDown();
+        pipeline.shutdown();
+
+        assertThat(pipeline.publish(reading(0, NORMAL_PH))).isFalse();
+        assertThat(dropped("shutdown")).isEqualTo(1);
+    }
+}
@@ -0,0 +1,136 @@
+package kr.u_cube.www.WaterPollution.mqtt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import kr.u_cube.www.WaterPollution.WaterPollutionApplication;
+import kr.u_cube.www.WaterPollution.dto.sensor.SensorDataDto;
+
+/**
+ * 종료 순서 테스트
+ * - 배치 저장기 버퍼에 행이 남은 상태로 컨텍스트를 닫으면 저장기가 먼저 비운 뒤 WAL이 checkpoint를 남겨야 함
+ * - 다시 열었을 때 replay 대상(checkpoint ~ 로그 끝)이 없어야 함 (있으면 알림/AI 단계가 다시 실행됨)
+ */
+class SensorIngestShutdownTest {
+
+    private static final String DB_URL = "jdbc:h2:mem:ingest-shutdown;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    private static final int SEGMENT_BYTES = 1024 * 1024;
+    private static final int MESSAGES = 50;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private Path walDir;
+
+    @BeforeEach
+    void createWalDir() throws IOException {
+        walDir = Files.createTempDirectory("ingest-shutdown-wal");
+    }
+
+    @AfterEach
+    void deleteWalDir() throws IOException {
+        try (Stream<Path> files = Files.walk(walDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    void bufferedRowsAreCheckpointedOnShutdown() throws Exception {
+        // 명령행 인자로 넘김 (builder.properties()는 기본값이라 application.yml의 MySQL 설정에 덮임)
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(WaterPollutionApplication.class)
+                .run(args(
+                        "spring.datasource.url=" + DB_URL,
+                        "spring.datasource.driver-class-name=org.h2.Driver",
+                        "spring.datasource.username=sa",
+                        "spring.datasource.password=",
+                        // create-drop이면 종료 중 저장기보다 먼저 테이블이 지워질 수 있음
+                        "spring.jpa.hibernate.ddl-auto=create",
+                        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "MAIL_HOST=localhost",
+                        "MAIL_PORT=2525",
+                        "MAIL_USERNAME=shutdown-test",
+                        "MAIL_PASSWORD=shutdown-test",
+                        "MQTT_BROKER=tcp://localhost:1883",
+                        "MQTT_TOPIC=shutdown/sensor",
+                        "AI_SERVER_URL=http://localhost:1",
+                        "mqtt.enabled=false",
+                        "rollup.enabled=false",
+                        "ingest.wal.dir=" + walDir,
+                        "ingest.wal.segment-bytes=" + SEGMENT_BYTES,
+                        // 시간 창 안에 종료 → 모든 행이 저장기 버퍼에 남은 채로 종료 시작
+                        "ingest.batch.flush-interval-ms=5000",
+                        "ingest.batch.size=" + (MESSAGES * 2)))) {
+
+            MqttSensorSubscriber subscriber = context.getBean(MqttSensorSubscriber.class);
+            SensorIngestPipeline pipeline = context.getBean(SensorIngestPipeline.class);
+            SensorIngestLog ingestLog = context.getBean(SensorIngestLog.class);
+
+            LocalDateTime baseTime = LocalDateTime.now().minusHours(1).withNano(0);
+            for (int i = 0; i < MESSAGES; i++) {
+                SensorDataDto dto = SensorDataDto.builder()
+                        .deviceId("SHUTDOWN-" + (i % 5))
+                        .ph(7.2)
+                        .doValue(8.5)
+                        .bod(1.5)
+                        .cod(4.0)
+                        .measuredAt(baseTime.plusSeconds(i))
+                        .build();
+                MqttMessage message = new MqttMessage(MAPPER.writeValueAsBytes(dto));
+                message.setQos(1);
+                subscriber.messageArrived("shutdown/sensor", message);
+            }
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+            while (pipeline.getQueueDepth() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(20);
+            }
+
+            // 아직 한 건도 DB에 반영되지 않음
+            assertThat(ingestLog.getPending()).hasSize(MESSAGES);
+        }
+
+        assertThat(countRows()).isEqualTo(MESSAGES);
+
+        SensorIngestLog reopened = new SensorIngestLog(new SimpleMeterRegistry(), walDir.toString(), SEGMENT_BYTES, false);
+        reopened.open();
+        try {
+            assertThat(reopened.getCheckpoint()).isEqualTo(reopened.getEndOffset());
+        } finally {
+            reopened.close();
+        }
+    }
+
+    private static String[] args(String... properties) {
+        return Stream.of(properties).map(property -> "--" + property).toArray(String[]::new);
+    }
+
+    private static int countRows() throws Exception {
+        try (Connection connection = DriverManager.getConnection(DB_URL, "sa", "");
+                Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM sensor_data")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package kr.u_cube.www.WaterPollution.mqtt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import kr.u_cube.www.WaterPollution.dto.sensor.SensorDataDto;
+
+/**
+ * MQTT 페이로드 디코딩 - measuredAt 형식, 모르는/빠진 필드, 잘못된 JSON
+ * - 정상 페이로드는 기존 방식(ObjectMapper + JavaTimeModule → SensorDataDto)과 결과가 같아야 함
+ */
+class SensorPayloadDecoderTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private final SensorPayloadDecoder decoder = new SensorPayloadDecoder();
+    private final SensorReading reading = new SensorReading();
+
+    private static byte[] json(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String fullPayload(String measuredAt) {
+        return "{\"deviceId\":\"DEV-01\",\"ph\":7.21,\"doValue\":8.5,\"temperature\":15.25,\"ec\":350,"
+                + "\"turbidity\":3.1,\"bod\":2.1,\"cod\":4.3,\"tp\":0.051,\"tn\":2.2,\"ss\":5.5,"
+                + "\"chlorophyllA\":12.0,\"no3n\":1.4,\"measuredAt\":" + measuredAt + "}";
+    }
+
+    private SensorDataDto decode(String text) throws IOException {
+        decoder.decode(json(text), reading);
+        return reading.toDto();
+    }
+
+    @Test
+    void decodesIsoTimestampLikeObjectMapper() throws IOException {
+        String payload = fullPayload("\"2025-08-27T10:15:30\"");
+
+        SensorDataDto decoded = decode(payload);
+
+        assertThat(decoded).isEqualTo(MAPPER.readValue(payload, SensorDataDto.class));
+        assertThat(decoded.getDeviceId()).isEqualTo("DEV-01");
+        assertThat(decoded.getTp()).isEqualTo(0.051);
+        assertThat(decoded.getEc()).isEqualTo(350.0);
+        assertThat(decoded.getMeasuredAt()).isEqualTo(LocalDateTime.of(2025, 8, 27, 10, 15, 30));
+        assertThat(reading.getDecodeNanos()).isNotNegative();
+    }
+
+    @Test
+    void dropsTrailingZWithoutZoneConversion() throws IOException {
+        String payload = fullPayload("\"2025-08-27T10:15:30.250Z\"");
+
+        SensorDataDto decoded = decode(payload);
+
+        assertThat(decoded).isEqualTo(MAPPER.readValue(payload, SensorDataDto.class));
+        assertThat(decoded.getMeasuredAt()).isEqualTo(LocalDateTime.of(2025, 8, 27, 10, 15, 30, 250_000_000));
+    }
+
+    @Test
+    void decodesArrayTimestamps() throws IOException {
+        String withSeconds = fullPayload("[2025,8,27,10,15,30]");
+        assertThat(decode(withSeconds)).isEqualTo(MAPPER.readValue(withSeconds, SensorDataDto.class));
+
+        assertThat(decode(fullPayload("[2025,8,27,10,15]")).getMeasuredAt())
+                .isEqualTo(LocalDateTime.of(2025, 8, 27, 10, 15));
+        assertThat(decode(fullPayload("[2025,8,27,10,15,30,500]")).getMeasuredAt())
+                .isEqualTo(LocalDateTime.of(2025, 8, 27, 10, 15, 30, 500));
+    }
+
+    @Test
+    void skipsUnknownFields() throws IOException {
+        SensorDataDto decoded = decode("{\"firmware\":\"1.2.0\",\"deviceId\":\"DEV-02\","
+                + "\"meta\":{\"battery\":93,\"tags\":[\"a\",{\"b\":1}]},\"ph\":6.9,"
+                + "\"history\":[[1,2],[3,4]],\"measuredAt\":\"2025-01-01T00:00:00\",\"rssi\":-71}");
+
+        assertThat(decoded.getDeviceId()).isEqualTo("DEV-02");
+        assertThat(decoded.getPh()).isEqualTo(6.9);
+        assertThat(decoded.getMeasuredAt()).isEqualTo(LocalDateTime.of(2025, 1, 1, 0, 0));
+    }
+
+    @Test
+    void missingFieldsAreResetToDefaults() throws IOException {
+        decode(fullPayload("\"2025-08-27T10:15:30\""));
+
+        // 재사용 버퍼라도 이전 메시지 값이 남으면 안 됨
+        SensorDataDto decoded = decode("{\"ph\":7.0}");
+
+        assertThat(decoded).isEqualTo(MAPPER.readValue("{\"ph\":7.0}", SensorDataDto.class));
+        assertThat(decoded.getDeviceId()).isNull();
+        assertThat(decoded.getMeasuredAt()).isNull();
+        assertThat(decoded.getDoValue()).isZero();
+        assertThat(decoded.getNo3n()).isZero();
+    }
+
+    @Test
+    void acceptsNullsAndNumericStrings() throws IOException {
+        SensorDataDto decoded = decode("{\"deviceId\":null,\"ph\":\" 7.5 \",\"doValue\":\"\",\"bod\":null,"
+                + "\"measuredAt\":\"\"}");
+
+        assertThat(decoded.getDeviceId()).isNull();
+        assertThat(decoded.getPh()).isEqualTo(7.5);
+        assertThat(decoded.getDoValue()).isZero();
+        assertThat(decoded.getBod()).isZero();
+        assertThat(decoded.getMeasuredAt()).isNull();
+    }
+
+    @Test
+    void rejectsMalformedJson() {
+        assertThatThrownBy(() -> decode("not json")).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> decode("[1,2,3]")).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> decode("{\"ph\":7.0")).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> decode("{\"ph\":7.0,}")).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> decode("")).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void rejectsWrongValueTypes() {
+        assertThatThrownBy(() -> decode("{\"ph\":true}")).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> decode("{\"ph\":{\"value\":7}}")).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> decode("{\"measuredAt\":[2025,8,27]}")).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> decode("{\"measuredAt\":12345}")).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> decode("{\"ph\":\"abc\"}")).isInstanceOf(NumberFormatException.class);
+        assertThatThrownBy(() -> decode("{\"measuredAt\":\"27/08/2025\"}")).isInstanceOf(RuntimeException.class);
+    }
+}
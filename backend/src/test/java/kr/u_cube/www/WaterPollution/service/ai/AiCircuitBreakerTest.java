@@ -0,0 +1,183 @@
+package kr.u_cube.www.WaterPollution.service.ai;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import kr.u_cube.www.WaterPollution.service.ai.AiCircuitBreaker.CallNotPermittedException;
+import kr.u_cube.www.WaterPollution.service.ai.AiCircuitBreaker.Permit;
+import kr.u_cube.www.WaterPollution.service.ai.AiCircuitBreaker.State;
+
+/**
+ * AI 회로 차단기 상태 전환
+ */
+class AiCircuitBreakerTest {
+
+    private static final long LONG_OPEN_MS = 60_000;
+
+    /**
+     * window 10, 최소 4건, 실패율 50%, 시험 호출 2건, 상태 확인 3회 연속 실패 시 차단
+     */
+    private static AiCircuitBreaker breaker(long openDurationMs) {
+        return new AiCircuitBreaker(new SimpleMeterRegistry(), true, 10, 4, 50, openDurationMs, 2, 3, 8);
+    }
+
+    @Test
+    void probeFailuresOpenOnlyAfterConsecutiveThreshold() {
+        AiCircuitBreaker breaker = breaker(LONG_OPEN_MS);
+
+        breaker.recordProbe(false);
+        breaker.recordProbe(false);
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+
+        // 정상 응답이 끼면 연속 실패 수가 초기화됨
+        breaker.recordProbe(true);
+        breaker.recordProbe(false);
+        breaker.recordProbe(false);
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+
+        breaker.recordProbe(false);
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+        assertThatThrownBy(breaker::acquire).isInstanceOf(CallNotPermittedException.class);
+    }
+
+    @Test
+    void healthyProbeDoesNotShortenOpenDuration() {
+        AiCircuitBreaker breaker = breaker(LONG_OPEN_MS);
+        for (int i = 0; i < 3; i++) {
+            breaker.recordProbe(false);
+        }
+
+        breaker.recordProbe(true);
+
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+        assertThatThrownBy(breaker::acquire).isInstanceOf(CallNotPermittedException.class);
+    }
+
+    @Test
+    void healthyProbeMovesToHalfOpenAfterOpenDuration() {
+        AiCircuitBreaker breaker = breaker(0);
+        for (int i = 0; i < 3; i++) {
+            breaker.recordProbe(false);
+        }
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+
+        breaker.recordProbe(true);
+
+        assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+    }
+
+    @Test
+    void failuresBelowMinimumCallsDoNotOpen() {
+        AiCircuitBreaker breaker = breaker(LONG_OPEN_MS);
+
+        // 최소 4건 전에는 실패율 100%여도 차단하지 않음
+        for (int i = 0; i < 3; i++) {
+            breaker.acquire().onFailure();
+        }
+
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+        assertThat(breaker.getFailureRate()).isEqualTo(100.0);
+    }
+
+    @Test
+    void opensWhenFailureRateReachesThreshold() {
+        AiCircuitBreaker breaker = breaker(LONG_OPEN_MS);
+        for (int i = 0; i < 3; i++) {
+            breaker.acquire().onSuccess();
+        }
+        breaker.acquire().onFailure();
+        breaker.acquire().onFailure();
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+        assertThat(breaker.getFailureRate()).isEqualTo(40.0);
+
+        breaker.acquire().onFailure();
+
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+        assertThatThrownBy(breaker::acquire)
+                .isInstanceOf(CallNotPermittedException.class)
+                .hasMessageContaining("OPEN");
+    }
+
+    @Test
+    void halfOpenLimitsTrialCallsAndClosesWhenAllSucceed() {
+        AiCircuitBreaker breaker = breaker(0);
+        open(breaker);
+
+        Permit first = breaker.acquire();
+        assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+        Permit second = breaker.acquire();
+        assertThatThrownBy(breaker::acquire)
+                .isInstanceOf(CallNotPermittedException.class)
+                .hasMessageContaining("HALF_OPEN");
+
+        first.onSuccess();
+        assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+        second.onSuccess();
+
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+        assertThat(breaker.getFailureRate()).isZero();
+    }
+
+    @Test
+    void halfOpenFailureReopens() {
+        AiCircuitBreaker breaker = breaker(0);
+        open(breaker);
+
+        Permit trial = breaker.acquire();
+        assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+        trial.onFailure();
+
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+    }
+
+    @Test
+    void ignoresResultsOfPermitsIssuedBeforeTransition() {
+        AiCircuitBreaker breaker = breaker(0);
+        Permit stale = breaker.acquire();
+        open(breaker);
+
+        Permit trial = breaker.acquire();
+        assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+
+        // 차단 전에 받은 허가의 성공은 시험 호출 성공으로 세지 않음
+        stale.onSuccess();
+        trial.onSuccess();
+        assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+
+        breaker.acquire().onSuccess();
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+    }
+
+    @Test
+    void bulkheadRejectsWithoutWaitingAndFreesOnCompletion() {
+        AiCircuitBreaker breaker = breaker(LONG_OPEN_MS);
+        Permit[] permits = new Permit[8];
+        for (int i = 0; i < permits.length; i++) {
+            permits[i] = breaker.acquire();
+        }
+
+        assertThatThrownBy(breaker::acquire)
+                .isInstanceOf(CallNotPermittedException.class)
+                .hasMessageContaining("벌크헤드");
+
+        permits[0].onSuccess();
+        // 결과를 두 번 알려도 자리는 한 번만 반환
+        permits[0].onSuccess();
+        breaker.acquire();
+        assertThatThrownBy(breaker::acquire).isInstanceOf(CallNotPermittedException.class);
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+    }
+
+    /**
+     * 최소 호출 수만큼 실패시켜 OPEN으로
+     */
+    private static void open(AiCircuitBreaker breaker) {
+        for (int i = 0; i < 4; i++) {
+            breaker.acquire().onFailure();
+        }
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+    }
+}
@@ -0,0 +1,162 @@
+package kr.u_cube.www.WaterPollution.service.ai;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import kr.u_cube.www.WaterPollution.dto.ai.AiPredictionResponse;
+import kr.u_cube.www.WaterPollution.dto.sensor.SensorDataDto;
+import kr.u_cube.www.WaterPollution.service.monitoring.CustomMetricsService;
+import kr.u_cube.www.WaterPollution.service.sensor.SensorInfoRegistry;
+
+/**
+ * AI 예측 캐시 - 같은 키의 동시 요청은 한 번만 예측 (single-flight), 실패는 저장하지 않음
+ */
+class AiPredictionCacheTest {
+
+    private final CustomMetricsService metrics = mock(CustomMetricsService.class);
+    private AiPredictionCache cache;
+
+    @BeforeEach
+    void setUp() {
+        SensorInfoRegistry registry = mock(SensorInfoRegistry.class);
+        when(registry.getSugyeName(any())).thenReturn("한강");
+        cache = new AiPredictionCache(registry, metrics, new SimpleMeterRegistry(), true, 0.01, 300, 100);
+    }
+
+    private static SensorDataDto data(double ph) {
+        return SensorDataDto.builder()
+                .deviceId("DEV-1")
+                .ph(ph)
+                .doValue(8.0)
+                .temperature(20.0)
+                .measuredAt(LocalDateTime.of(2024, 1, 1, 0, 0))
+                .build();
+    }
+
+    private static AiPredictionResponse response(boolean success) {
+        return AiPredictionResponse.builder().success(success).build();
+    }
+
+    @Test
+    void concurrentRequestsForSameKeyShareOneLoad() throws Exception {
+        CompletableFuture<AiPredictionResponse> remote = new CompletableFuture<>();
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<CompletableFuture<AiPredictionResponse>> loader = () -> {
+            loads.incrementAndGet();
+            return remote;
+        };
+
+        int callers = 16;
+        CountDownLatch ready = new CountDownLatch(callers);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        List<Future<CompletableFuture<AiPredictionResponse>>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < callers; i++) {
+                // 정밀도(0.01) 안에서 조금씩 다른 값도 같은 키
+                double ph = 7.0 + (i % 4) * 0.001;
+                results.add(executor.submit(() -> {
+                    ready.countDown();
+                    ready.await();
+                    return cache.get(data(ph), loader);
+                }));
+            }
+
+            List<CompletableFuture<AiPredictionResponse>> futures = new ArrayList<>();
+            for (Future<CompletableFuture<AiPredictionResponse>> result : results) {
+                futures.add(result.get(5, TimeUnit.SECONDS));
+            }
+            assertThat(loads).hasValue(1);
+            assertThat(futures).noneMatch(CompletableFuture::isDone);
+
+            AiPredictionResponse response = response(true);
+            remote.complete(response);
+            for (CompletableFuture<AiPredictionResponse> future : futures) {
+                assertThat(future.get(5, TimeUnit.SECONDS)).isSameAs(response);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(metrics, times(1)).recordPredictionCacheMiss();
+        verify(metrics, times(callers - 1)).recordPredictionCacheShared();
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void completedSuccessIsServedFromCache() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<CompletableFuture<AiPredictionResponse>> loader = () -> {
+            loads.incrementAndGet();
+            return CompletableFuture.completedFuture(response(true));
+        };
+
+        cache.get(data(7.0), loader).get();
+        cache.get(data(7.0), loader).get();
+        cache.get(data(7.2), loader).get();
+
+        assertThat(loads).hasValue(2);
+        verify(metrics, times(1)).recordPredictionCacheHit();
+    }
+
+    @Test
+    void failedResponseIsDeliveredButNotStored() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CompletableFuture<AiPredictionResponse> remote = new CompletableFuture<>();
+        Supplier<CompletableFuture<AiPredictionResponse>> loader = () -> {
+            loads.incrementAndGet();
+            return loads.get() == 1 ? remote : CompletableFuture.completedFuture(response(true));
+        };
+
+        CompletableFuture<AiPredictionResponse> first = cache.get(data(7.0), loader);
+        CompletableFuture<AiPredictionResponse> waiter = cache.get(data(7.0), loader);
+        remote.complete(response(false));
+
+        assertThat(first.get().isSuccess()).isFalse();
+        assertThat(waiter.get().isSuccess()).isFalse();
+        assertThat(cache.size()).isZero();
+
+        assertThat(cache.get(data(7.0), loader).get().isSuccess()).isTrue();
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void loaderErrorsReachWaitersAndAreNotStored() {
+        CompletableFuture<AiPredictionResponse> remote = new CompletableFuture<>();
+        CompletableFuture<AiPredictionResponse> first = cache.get(data(7.0), () -> remote);
+        CompletableFuture<AiPredictionResponse> waiter = cache.get(data(7.0), () -> remote);
+
+        remote.completeExceptionally(new IllegalStateException("AI 서버 오류"));
+
+        assertThatThrownBy(first::get).isInstanceOf(ExecutionException.class).hasCauseInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(waiter::get).isInstanceOf(ExecutionException.class).hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(cache.size()).isZero();
+
+        // loader가 바로 던진 예외는 호출자에게 그대로
+        assertThatThrownBy(() -> cache.get(data(7.0), () -> {
+            throw new IllegalArgumentException("요청 생성 실패");
+        })).isInstanceOf(IllegalArgumentException.class);
+        assertThat(cache.size()).isZero();
+    }
+}
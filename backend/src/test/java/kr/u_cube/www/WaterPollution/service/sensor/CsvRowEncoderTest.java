@@ -0,0 +1,181 @@
+package kr.u_cube.www.WaterPollution.service.sensor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.opencsv.CSVWriter;
+
+import kr.u_cube.www.WaterPollution.dto.HistoryDataDto;
+
+/**
+ * CSV 행 인코딩 - 기존 방식(OpenCSV + String.format("%.2f"))과 바이트 단위로 같은지
+ * - 반올림 경계, 음수 0, NaN/Infinity, 빠른 경로 범위 밖 값, 따옴표가 든 이름, 측정 시각 없음
+ */
+class CsvRowEncoderTest {
+
+    private static final DateTimeFormatter MEASURED_AT_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static HistoryDataDto row(String deviceId, LocalDateTime measuredAt, double value) {
+        HistoryDataDto data = new HistoryDataDto();
+        data.setDeviceId(deviceId);
+        data.setPtno("P000001");
+        data.setName("한강-측정소");
+        data.setType("하천");
+        data.setLat(37.5);
+        data.setLon(127.0);
+        data.setLocation("서울특별시 측정로 1");
+        data.setMeasuredAt(measuredAt);
+        for (SensorParameter parameter : SensorParameter.values()) {
+            parameter.set(data, value);
+        }
+        return data;
+    }
+
+    /**
+     * 기존 다운로드 코드와 같은 방식 (null 문자열과 측정 시각 없음은 빈 필드)
+     */
+    private static String legacy(List<HistoryDataDto> rows) {
+        StringWriter text = new StringWriter();
+        CSVWriter csvWriter = new CSVWriter(text);
+        String[] fields = new String[20];
+        for (int i = 0; i < rows.size(); i++) {
+            HistoryDataDto data = rows.get(i);
+            fields[0] = String.valueOf(i + 1);
+            fields[1] = nvl(data.getDeviceId());
+            fields[2] = nvl(data.getPtno());
+            fields[3] = nvl(data.getName());
+            fields[4] = nvl(data.getType());
+            fields[5] = String.valueOf(data.getLat());
+            fields[6] = String.valueOf(data.getLon());
+            fields[7] = nvl(data.getLocation());
+            fields[8] = data.getMeasuredAt() != null ? data.getMeasuredAt().format(MEASURED_AT_FORMATTER) : "";
+            for (SensorParameter parameter : SensorParameter.values()) {
+                fields[9 + parameter.ordinal()] = String.format("%.2f", parameter.get(data));
+            }
+            csvWriter.writeNext(fields);
+        }
+        return text.toString();
+    }
+
+    private static String nvl(String value) {
+        return value != null ? value : "";
+    }
+
+    private static String encode(List<HistoryDataDto> rows, int bufferSize) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CsvRowEncoder encoder = new CsvRowEncoder(out, bufferSize);
+        for (int i = 0; i < rows.size(); i++) {
+            encoder.writeRow(i + 1, rows.get(i));
+        }
+        long written = encoder.written();
+        encoder.flush();
+        assertThat(written).isEqualTo(out.size());
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static String valueField(double value) throws IOException {
+        String line = encode(List.of(row("DEV", LocalDateTime.of(2024, 1, 1, 0, 0), value)), 1024);
+        String[] fields = line.trim().split(",");
+        return fields[fields.length - 1];
+    }
+
+    @Test
+    void roundsHalfUpLikeFormatter() throws IOException {
+        assertThat(valueField(1.005)).isEqualTo('"' + String.format("%.2f", 1.005) + '"').isEqualTo("\"1.01\"");
+        assertThat(valueField(0.125)).isEqualTo('"' + String.format("%.2f", 0.125) + '"').isEqualTo("\"0.13\"");
+        assertThat(valueField(2.675)).isEqualTo('"' + String.format("%.2f", 2.675) + '"');
+        assertThat(valueField(-1.005)).isEqualTo('"' + String.format("%.2f", -1.005) + '"');
+        assertThat(valueField(0.0)).isEqualTo("\"0.00\"");
+    }
+
+    @Test
+    void keepsSignOfNegativeZero() throws IOException {
+        assertThat(valueField(-0.001)).isEqualTo("\"-0.00\"").isEqualTo('"' + String.format("%.2f", -0.001) + '"');
+        assertThat(valueField(-0.0)).isEqualTo('"' + String.format("%.2f", -0.0) + '"');
+    }
+
+    @Test
+    void formatsNonFiniteAndLargeValuesLikeFormatter() throws IOException {
+        for (double value : new double[] {Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+                1e7, -1e7, 12_345_678.905, 9_999_999.995, 1e300}) {
+            assertThat(valueField(value)).as("%s", value).isEqualTo('"' + String.format("%.2f", value) + '"');
+        }
+    }
+
+    @Test
+    void escapesQuotesInStationFields() throws IOException {
+        HistoryDataDto data = row("DEV-\"Q\"", LocalDateTime.of(2024, 1, 1, 0, 0), 1.0);
+        data.setName("측정소 \"본관\"");
+        data.setLocation("\"수변\", 1번지");
+
+        String encoded = encode(List.of(data), 1024);
+
+        assertThat(encoded).isEqualTo(legacy(List.of(data)));
+        assertThat(encoded).contains("\"DEV-\"\"Q\"\"\"", "\"측정소 \"\"본관\"\"\"", "\"\"\"수변\"\", 1번지\"");
+    }
+
+    @Test
+    void writesEmptyFieldForMissingMeasuredAt() throws IOException {
+        HistoryDataDto data = row("DEV", null, 1.0);
+        data.setPtno(null);
+
+        String encoded = encode(List.of(data), 1024);
+
+        assertThat(encoded).isEqualTo(legacy(List.of(data)));
+        assertThat(encoded).contains("\"DEV\",\"\",\"한강-측정소\"", "\"서울특별시 측정로 1\",\"\",\"1.00\"");
+    }
+
+    @Test
+    void matchesLegacyOutputForRandomRowsAcrossMinuteAndBufferBoundaries() throws IOException {
+        Random random = new Random(7);
+        List<HistoryDataDto> rows = new ArrayList<>();
+        LocalDateTime time = LocalDateTime.of(2023, 12, 31, 23, 58, 30);
+        for (int i = 0; i < 5_000; i++) {
+            time = time.plusSeconds(random.nextInt(45));
+            HistoryDataDto data = row("DEV-" + (i % 7), time, 0);
+            for (SensorParameter parameter : SensorParameter.values()) {
+                // 반올림 경계(x.xx5)가 자주 나오도록 섞음
+                double value = random.nextBoolean()
+                        ? random.nextInt(2_000_000) / 1000.0 - 1000
+                        : (random.nextDouble() - 0.5) * 2e4;
+                parameter.set(data, value);
+            }
+            rows.add(data);
+        }
+
+        String expected = legacy(rows);
+        // 버퍼보다 긴 행(측정소 필드 포함)과 버퍼 경계에 걸치는 행을 모두 지나가도록 작은 버퍼도 사용
+        assertThat(encode(rows, 64 * 1024)).isEqualTo(expected);
+        assertThat(encode(rows, 61)).isEqualTo(expected);
+    }
+
+    @Test
+    void numberedRowReusesEncodedTail() throws IOException {
+        HistoryDataDto data = row("DEV", LocalDateTime.of(2024, 5, 6, 7, 8, 9), 3.14159);
+        ByteArrayOutputStream tailOut = new ByteArrayOutputStream();
+        CsvRowEncoder tailEncoder = new CsvRowEncoder(tailOut, 1024);
+        tailEncoder.writeRowTail(data);
+        tailEncoder.flush();
+        byte[] tail = tailOut.toByteArray();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CsvRowEncoder encoder = new CsvRowEncoder(out, 1024);
+        encoder.writeFields(new String[] {"번호", "디바이스 \"ID\""});
+        encoder.writeNumberedRow(42, tail, 0, tail.length);
+        encoder.flush();
+
+        String expectedRow = legacy(List.of(data)).replaceFirst("^\"1\"", "\"42\"");
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("\"번호\",\"디바이스 \"\"ID\"\"\"\n" + expectedRow);
+    }
+}
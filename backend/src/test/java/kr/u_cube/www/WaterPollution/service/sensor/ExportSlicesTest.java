@@ -0,0 +1,149 @@
+package kr.u_cube.www.WaterPollution.service.sensor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import kr.u_cube.www.WaterPollution.service.sensor.ExportSlices.Slice;
+
+/**
+ * 병렬 내보내기 조각 - 분할 경계, 순서대로 전달, 실패 시 남은 조각 취소
+ */
+class ExportSlicesTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Test
+    void splitCoversRangeWithoutOverlap() {
+        LocalDateTime end = START.plusDays(1).minusSeconds(1);
+
+        List<Slice> slices = ExportSlices.split(START, end, 7);
+
+        assertThat(slices).hasSize(7);
+        assertThat(slices.get(0).from()).isEqualTo(START);
+        assertThat(slices.get(6).to()).isEqualTo(end);
+        for (int i = 0; i < slices.size(); i++) {
+            Slice slice = slices.get(i);
+            assertThat(slice.index()).isEqualTo(i);
+            assertThat(slice.to()).isAfter(slice.from());
+            assertThat(slice.toInclusive()).isEqualTo(i == slices.size() - 1);
+            if (i > 0) {
+                assertThat(slice.from()).isEqualTo(slices.get(i - 1).to());
+            }
+        }
+    }
+
+    @Test
+    void splitShortRangeUsesFewerSlices() {
+        assertThat(ExportSlices.split(START, START.plusSeconds(3), 8)).hasSize(3);
+        assertThat(ExportSlices.split(START, START, 8))
+                .singleElement()
+                .isEqualTo(new Slice(0, START, START, true));
+    }
+
+    @Test
+    void deliversResultsInSliceOrderWithBoundedParallelism() throws IOException {
+        List<Slice> slices = ExportSlices.split(START, START.plusHours(1), 12);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Integer> delivered = new CopyOnWriteArrayList<>();
+
+        ExportSlices.runInOrder(slices, 3, slice -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                // 앞 조각일수록 늦게 끝나도록
+                Thread.sleep((slices.size() - slice.index()) * 3L);
+                return slice.index();
+            } finally {
+                running.decrementAndGet();
+            }
+        }, (slice, result) -> {
+            assertThat(result).isEqualTo(slice.index());
+            delivered.add(result);
+        });
+
+        assertThat(delivered).containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11);
+        assertThat(maxRunning.get()).isBetween(1, 3);
+    }
+
+    @Test
+    void taskFailureCancelsRemainingSlices() throws InterruptedException {
+        List<Slice> slices = ExportSlices.split(START, START.plusHours(1), 6);
+        CountDownLatch slowStarted = new CountDownLatch(1);
+        CountDownLatch slowInterrupted = new CountDownLatch(1);
+        AtomicInteger started = new AtomicInteger();
+        List<Integer> delivered = new CopyOnWriteArrayList<>();
+
+        assertThatThrownBy(() -> ExportSlices.runInOrder(slices, 3, slice -> {
+            started.incrementAndGet();
+            switch (slice.index()) {
+                case 1 -> {
+                    slowStarted.await();
+                    throw new IOException("조각 1 실패");
+                }
+                case 2 -> {
+                    slowStarted.countDown();
+                    try {
+                        Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                    } catch (InterruptedException e) {
+                        slowInterrupted.countDown();
+                        throw e;
+                    }
+                }
+                default -> {
+                }
+            }
+            return slice.index();
+        }, (slice, result) -> delivered.add(result)))
+                .isInstanceOf(IOException.class)
+                .hasMessage("조각 1 실패");
+
+        assertThat(delivered).containsExactly(0);
+        assertThat(slowInterrupted.await(5, TimeUnit.SECONDS)).isTrue();
+        // 실패 후에는 새 조각을 시작하지 않음 (0, 1, 2 + 0번 전달 후 채운 3번까지)
+        assertThat(started.get()).isLessThanOrEqualTo(4);
+    }
+
+    @Test
+    void consumerFailureCancelsInFlightSlices() throws InterruptedException {
+        List<Slice> slices = ExportSlices.split(START, START.plusHours(1), 4);
+        CountDownLatch slowStarted = new CountDownLatch(2);
+        CountDownLatch interrupted = new CountDownLatch(2);
+
+        assertThatThrownBy(() -> ExportSlices.runInOrder(slices, 3, slice -> {
+            if (slice.index() > 0) {
+                slowStarted.countDown();
+                try {
+                    Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                    throw e;
+                }
+            }
+            return slice.index();
+        }, (slice, result) -> {
+            // 1, 2번이 실행 중일 때 실패
+            awaitQuietly(slowStarted);
+            throw new IOException("클라이언트 연결 종료");
+        })).isInstanceOf(IOException.class).hasMessage("클라이언트 연결 종료");
+
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package kr.u_cube.www.WaterPollution.service.sensor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * LTTB 다운샘플링 - 첫/마지막 점 유지, 피크 유지, threshold >= length면 원본 그대로
+ */
+class LttbDownsamplerTest {
+
+    private static final long MINUTE = 60_000L;
+
+    private static long[] times(int length) {
+        long[] x = new long[length];
+        for (int i = 0; i < length; i++) {
+            x[i] = 1_700_000_000_000L + i * MINUTE;
+        }
+        return x;
+    }
+
+    @Test
+    void keepsFirstAndLastPoints() {
+        int length = 10_000;
+        long[] x = times(length);
+        double[] y = new double[length];
+        for (int i = 0; i < length; i++) {
+            y[i] = Math.sin(i / 50.0);
+        }
+
+        LttbDownsampler.Series series = LttbDownsampler.downsample(x, y, length, 100);
+
+        assertThat(series.x()).hasSize(100);
+        assertThat(series.y()).hasSize(100);
+        assertThat(series.x()[0]).isEqualTo(x[0]);
+        assertThat(series.y()[0]).isEqualTo(y[0]);
+        assertThat(series.x()[99]).isEqualTo(x[length - 1]);
+        assertThat(series.y()[99]).isEqualTo(y[length - 1]);
+    }
+
+    @Test
+    void outputIsInTimeOrder() {
+        int length = 5_000;
+        long[] x = times(length);
+        double[] y = new double[length];
+        for (int i = 0; i < length; i++) {
+            y[i] = (i * 7919) % 101;
+        }
+
+        long[] out = LttbDownsampler.downsample(x, y, length, 250).x();
+
+        for (int i = 1; i < out.length; i++) {
+            assertThat(out[i]).isGreaterThan(out[i - 1]);
+        }
+    }
+
+    @Test
+    void preservesSpike() {
+        int length = 10_000;
+        int spikeAt = 4_321;
+        long[] x = times(length);
+        double[] y = new double[length];
+        for (int i = 0; i < length; i++) {
+            y[i] = 8.0 + (i % 2) * 0.01;
+        }
+        y[spikeAt] = 0.5; // DO 급감
+        y[spikeAt + 3_000] = 14.0; // 급등
+
+        LttbDownsampler.Series series = LttbDownsampler.downsample(x, y, length, 50);
+
+        assertThat(series.y()).contains(0.5, 14.0);
+        assertThat(series.x()).contains(x[spikeAt], x[spikeAt + 3_000]);
+    }
+
+    @Test
+    void returnsCopyWhenThresholdAtLeastLength() {
+        long[] x = times(20);
+        double[] y = new double[20];
+        for (int i = 0; i < y.length; i++) {
+            y[i] = i;
+        }
+        // 버퍼처럼 유효 길이(15)보다 배열이 큰 경우
+        for (int threshold : new int[] {15, 16, 1000}) {
+            LttbDownsampler.Series series = LttbDownsampler.downsample(x, y, 15, threshold);
+
+            assertThat(series.x()).hasSize(15).containsExactly(Arrays.copyOf(x, 15));
+            assertThat(series.y()).hasSize(15).containsExactly(Arrays.copyOf(y, 15));
+            assertThat(series.x()).isNotSameAs(x);
+        }
+    }
+
+    @Test
+    void returnsCopyWhenThresholdBelowThree() {
+        long[] x = times(10);
+        double[] y = new double[10];
+
+        assertThat(LttbDownsampler.downsample(x, y, 10, 2).x()).hasSize(10);
+    }
+
+    @Test
+    void handlesEmptyInput() {
+        LttbDownsampler.Series series = LttbDownsampler.downsample(new long[0], new double[0], 0, 100);
+
+        assertThat(series.x()).isEmpty();
+        assertThat(series.y()).isEmpty();
+    }
+}
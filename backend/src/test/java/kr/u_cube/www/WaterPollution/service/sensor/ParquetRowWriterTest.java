@@ -0,0 +1,198 @@
+package kr.u_cube.www.WaterPollution.service.sensor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import kr.u_cube.www.WaterPollution.dto.HistoryDataDto;
+
+/**
+ * Parquet 파일 구조 - 앞뒤 PAR1, footer 길이, 빈 결과, CSV 대비 크기
+ * - 다른 구현(DuckDB)으로 다시 읽어 스키마, 사전 페이지, null, 측정 시각, 측정값이 그대로인지 확인
+ */
+class ParquetRowWriterTest {
+
+    private static final byte[] MAGIC = "PAR1".getBytes(StandardCharsets.US_ASCII);
+
+    @TempDir
+    Path dir;
+
+    private static HistoryDataDto row(int i) {
+        int station = i % 20;
+        return new HistoryDataDto("DEV-" + station, "3011A" + station, i % 101 == 0 ? null : "측정소 " + station, "하천",
+                37.5 + station * 0.01, 127.0 + station * 0.01, "서울특별시 " + station,
+                i % 97 == 0 ? null : LocalDateTime.of(2024, 1, 1, 0, 0).plusMinutes(i / 20).plusNanos((i % 1000) * 1_000_000L),
+                7 + (i % 10) * 0.1, 8.5 + i * 1e-7, 15.2, 350, 2.1, 4.3, 0.05, 2.2, 5.5, 12.0 - i, 1.4);
+    }
+
+    private static byte[] parquet(int rows, int rowGroupRows) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ParquetRowWriter writer = new ParquetRowWriter(out, rowGroupRows, 6);
+        for (int i = 0; i < rows; i++) {
+            writer.write(row(i));
+        }
+        writer.finish();
+        assertThat(writer.written()).isEqualTo(out.size());
+        return out.toByteArray();
+    }
+
+    private static int footerLength(byte[] file) {
+        return ByteBuffer.wrap(file, file.length - 8, 4).order(ByteOrder.LITTLE_ENDIAN).getInt();
+    }
+
+    @Test
+    void startsAndEndsWithMagic() throws Exception {
+        byte[] file = parquet(5_000, 1_000);
+
+        assertThat(Arrays.copyOfRange(file, 0, 4)).isEqualTo(MAGIC);
+        assertThat(Arrays.copyOfRange(file, file.length - 4, file.length)).isEqualTo(MAGIC);
+        assertThat(footerLength(file)).isPositive().isLessThan(file.length - 12);
+    }
+
+    @Test
+    void emptyExportIsHeaderAndFooterOnly() throws Exception {
+        byte[] file = parquet(0, 1_000);
+
+        assertThat(file.length).isEqualTo(4 + footerLength(file) + 8);
+    }
+
+    @Test
+    void smallerThanCsv() throws Exception {
+        int rows = 20_000;
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        CsvRowEncoder encoder = new CsvRowEncoder(csv, 64 * 1024);
+        for (int i = 0; i < rows; i++) {
+            encoder.writeRow(i + 1, row(i));
+        }
+        encoder.flush();
+
+        assertThat(parquet(rows, 5_000).length).isLessThan(csv.size() / 5);
+    }
+
+    private Path parquetFile(int rows, int rowGroupRows) throws Exception {
+        Path file = dir.resolve("history.parquet");
+        Files.write(file, parquet(rows, rowGroupRows));
+        return file;
+    }
+
+    private static Connection duckDb() throws Exception {
+        return DriverManager.getConnection("jdbc:duckdb:");
+    }
+
+    @Test
+    void duckDbReadsSchema() throws Exception {
+        Path file = parquetFile(10, 1_000);
+
+        Map<String, String> types = new LinkedHashMap<>();
+        Map<String, String> repetitions = new LinkedHashMap<>();
+        try (Connection connection = duckDb(); Statement statement = connection.createStatement()) {
+            try (ResultSet rs = statement.executeQuery("DESCRIBE SELECT * FROM read_parquet('" + file + "')")) {
+                while (rs.next()) {
+                    types.put(rs.getString("column_name"), rs.getString("column_type"));
+                }
+            }
+            try (ResultSet rs = statement.executeQuery(
+                    "SELECT name, repetition_type FROM parquet_schema('" + file + "') WHERE num_children IS NULL")) {
+                while (rs.next()) {
+                    repetitions.put(rs.getString(1), rs.getString(2));
+                }
+            }
+        }
+
+        assertThat(types).containsKeys("device_id", "ptno", "name", "type", "location", "lat", "lon", "measured_at");
+        assertThat(types).containsEntry("device_id", "VARCHAR").containsEntry("location", "VARCHAR")
+                .containsEntry("lat", "DOUBLE").containsEntry("lon", "DOUBLE")
+                .containsEntry("measured_at", "TIMESTAMP");
+        for (SensorParameter parameter : SensorParameter.values()) {
+            assertThat(types).containsEntry(parameter.getColumn(), "DOUBLE");
+            assertThat(repetitions).containsEntry(parameter.getColumn(), "REQUIRED");
+        }
+        assertThat(types).hasSize(8 + SensorParameter.values().length);
+        assertThat(repetitions).containsEntry("measured_at", "OPTIONAL").containsEntry("name", "OPTIONAL");
+    }
+
+    @Test
+    void metadataColumnsUseDictionaryPages() throws Exception {
+        Path file = parquetFile(2_500, 1_000);
+
+        int chunks = 0;
+        try (Connection connection = duckDb(); Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("""
+                        SELECT row_group_id, path_in_schema, encodings, compression, dictionary_page_offset, num_values
+                        FROM parquet_metadata('%s')
+                        """.formatted(file))) {
+            while (rs.next()) {
+                chunks++;
+                String column = rs.getString("path_in_schema");
+                boolean dictionary = switch (column) {
+                    case "device_id", "ptno", "name", "type", "location", "lat", "lon" -> true;
+                    default -> false;
+                };
+                assertThat(rs.getString("compression")).as(column).isEqualTo("GZIP");
+                assertThat(rs.getLong("num_values")).as(column).isEqualTo(rs.getLong("row_group_id") < 2 ? 1_000 : 500);
+                if (dictionary) {
+                    assertThat(rs.getString("encodings")).as(column).contains("DICTIONARY");
+                    assertThat(rs.getObject("dictionary_page_offset")).as(column).isNotNull();
+                } else {
+                    assertThat(rs.getString("encodings")).as(column).doesNotContain("DICTIONARY");
+                    assertThat(rs.getObject("dictionary_page_offset")).as(column).isNull();
+                }
+            }
+        }
+        assertThat(chunks).isEqualTo(3 * (8 + SensorParameter.values().length));
+    }
+
+    @Test
+    void duckDbReadsBackEveryValue() throws Exception {
+        int rows = 2_500;
+        Path file = parquetFile(rows, 1_000);
+
+        int read = 0;
+        try (Connection connection = duckDb(); Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("SELECT * FROM read_parquet('" + file
+                        + "', file_row_number = true) ORDER BY file_row_number")) {
+            while (rs.next()) {
+                HistoryDataDto expected = row(read);
+                assertThat(rs.getString("device_id")).isEqualTo(expected.getDeviceId());
+                assertThat(rs.getString("ptno")).isEqualTo(expected.getPtno());
+                assertThat(rs.getString("name")).isEqualTo(expected.getName());
+                assertThat(rs.getString("type")).isEqualTo(expected.getType());
+                assertThat(rs.getString("location")).isEqualTo(expected.getLocation());
+                assertThat(rs.getDouble("lat")).isEqualTo(expected.getLat());
+                assertThat(rs.getDouble("lon")).isEqualTo(expected.getLon());
+
+                Timestamp measuredAt = rs.getTimestamp("measured_at");
+                if (expected.getMeasuredAt() == null) {
+                    assertThat(measuredAt).as("row %d", read).isNull();
+                } else {
+                    assertThat(measuredAt.toLocalDateTime()).as("row %d", read).isEqualTo(expected.getMeasuredAt());
+                }
+
+                for (SensorParameter parameter : SensorParameter.values()) {
+                    // 반올림 없이 원래 double 그대로
+                    assertThat(rs.getDouble(parameter.getColumn())).as("row %d %s", read, parameter)
+                            .isEqualTo(parameter.get(expected));
+                }
+                read++;
+            }
+        }
+        assertThat(read).isEqualTo(rows);
+    }
+}
@@ -0,0 +1,143 @@
+package kr.u_cube.www.WaterPollution.service.sensor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import kr.u_cube.www.WaterPollution.service.sensor.SensorExportCache.Entry;
+import kr.u_cube.www.WaterPollution.service.sensor.SensorExportCache.PendingEntry;
+
+/**
+ * 내보내기 캐시 - 생성 중 무효화와 등록의 순서, 등록 후 무효화 범위
+ */
+class SensorExportCacheTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final LocalDateTime END = LocalDateTime.of(2024, 1, 31, 23, 59, 59);
+
+    @TempDir
+    Path dir;
+
+    private SensorExportCache cache;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        cache = new SensorExportCache(new SimpleMeterRegistry(), true, dir.toString(), 1024 * 1024, 60);
+        cache.init();
+    }
+
+    /**
+     * 캐시 항목 생성 (commit 전까지)
+     */
+    private PendingEntry write(String deviceId, String content) throws IOException {
+        PendingEntry pending = cache.begin(key(deviceId), ExportFormat.CSV, START, END, deviceId);
+        try (OutputStream out = pending.tee(new ByteArrayOutputStream())) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return pending;
+    }
+
+    private String key(String deviceId) {
+        return cache.key(ExportFormat.CSV, START, END, deviceId);
+    }
+
+    private long filesInCacheDir() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.count();
+        }
+    }
+
+    @Test
+    void committedEntryIsServedWithContentHashEtag() throws IOException {
+        PendingEntry pending = write(null, "a,b\n");
+        pending.commit();
+
+        Optional<Entry> entry = cache.get(key(null));
+        assertThat(entry).isPresent();
+        assertThat(entry.get().sizeBytes()).isEqualTo(4);
+        assertThat(entry.get().etag()).startsWith("\"").endsWith("\"").hasSize(66);
+        assertThat(entry.get().matches("W/" + entry.get().etag())).isTrue();
+        try (InputStream in = cache.open(entry.get()).orElseThrow()) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("a,b\n");
+        }
+        assertThat(cache.getTotalBytes()).isEqualTo(4);
+    }
+
+    @Test
+    void invalidationDuringGenerationSkipsRegistration() throws IOException {
+        PendingEntry pending = write(null, "stale");
+
+        // 생성 중 해당 기간의 늦은 측정값 저장
+        cache.invalidate("DEV-1", START.plusDays(3));
+        pending.commit();
+
+        assertThat(cache.get(key(null))).isEmpty();
+        assertThat(cache.getTotalBytes()).isZero();
+        assertThat(filesInCacheDir()).isZero();
+    }
+
+    @Test
+    void invalidationBeforeGenerationDoesNotBlockRegistration() throws IOException {
+        cache.invalidate("DEV-1", START.plusDays(3));
+
+        write(null, "fresh").commit();
+
+        assertThat(cache.get(key(null))).isPresent();
+    }
+
+    @Test
+    void invalidationRemovesOnlyEntriesCoveringTheReading() throws IOException {
+        write(null, "all").commit();
+        write("DEV-1", "dev1").commit();
+        write("DEV-2", "dev2").commit();
+
+        // 기간 밖 시각은 영향 없음
+        cache.invalidate("DEV-1", END.plusSeconds(1));
+        assertThat(cache.get(key(null))).isPresent();
+
+        cache.invalidate("DEV-1", START.plusDays(3));
+
+        assertThat(cache.get(key(null))).isEmpty();
+        assertThat(cache.get(key("DEV-1"))).isEmpty();
+        assertThat(cache.get(key("DEV-2"))).isPresent();
+        assertThat(cache.getTotalBytes()).isEqualTo(4);
+        assertThat(filesInCacheDir()).isEqualTo(1);
+    }
+
+    @Test
+    void recentReadingDoesNotInvalidate() throws IOException {
+        write(null, "all").commit();
+        PendingEntry pending = write("DEV-1", "dev1");
+
+        // 유예 시간(60분) 안의 측정값은 캐시 대상 기간에 포함될 수 없음 → 무효화로 세지 않음
+        cache.invalidate("DEV-1", LocalDateTime.now());
+        pending.commit();
+
+        assertThat(cache.get(key(null))).isPresent();
+        assertThat(cache.get(key("DEV-1"))).isPresent();
+    }
+
+    @Test
+    void closeWithoutCommitLeavesNothingBehind() throws IOException {
+        PendingEntry pending = write(null, "partial");
+        pending.close();
+        pending.commit();
+
+        assertThat(cache.get(key(null))).isEmpty();
+        assertThat(filesInCacheDir()).isZero();
+    }
+}
@@ -0,0 +1,163 @@
+package kr.u_cube.www.WaterPollution.service.sensor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import kr.u_cube.www.WaterPollution.dto.HistoryDataDto;
+import kr.u_cube.www.WaterPollution.dto.HistoryRollupDto;
+import kr.u_cube.www.WaterPollution.entity.SensorInfo;
+import kr.u_cube.www.WaterPollution.repository.SensorDataRollupRepository;
+
+/**
+ * 이력 해상도 선택과 집계 행 합치기 (DB 없이 repository mock)
+ */
+class SensorRollupServiceTest {
+
+    private static final int MINUTE_RETENTION_DAYS = 30;
+    private static final int MAX_POINTS = 1000;
+
+    private SensorDataRollupRepository repository;
+    private SensorInfoRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(SensorDataRollupRepository.class);
+        registry = mock(SensorInfoRegistry.class);
+        when(registry.find(anyString())).thenReturn(Optional.empty());
+    }
+
+    private SensorRollupService service(boolean enabled, int minuteRetentionDays) {
+        return new SensorRollupService(mock(JdbcTemplate.class), repository, registry, new SimpleMeterRegistry(),
+                enabled, minuteRetentionDays);
+    }
+
+    private void maxHourlySamples(long samples) {
+        when(repository.findMaxHourlySampleCount(any(), any())).thenReturn(samples);
+    }
+
+    private static LocalDateTime daysAgo(int days) {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).minusDays(days);
+    }
+
+    // === chooseResolution ===
+
+    @Test
+    void rawWhenSamplesFitInMaxPoints() {
+        maxHourlySamples(10);
+        LocalDateTime start = daysAgo(1);
+
+        assertThat(service(true, MINUTE_RETENTION_DAYS).chooseResolution(start, start.plusHours(6), MAX_POINTS))
+                .isEqualTo(HistoryResolution.RAW);
+    }
+
+    @Test
+    void rawWhenRollupDisabled() {
+        LocalDateTime start = daysAgo(400);
+
+        assertThat(service(false, MINUTE_RETENTION_DAYS).chooseResolution(start, start.plusDays(365), MAX_POINTS))
+                .isEqualTo(HistoryResolution.RAW);
+    }
+
+    @Test
+    void minuteWhenStartWithinRetention() {
+        maxHourlySamples(3600);
+        LocalDateTime start = daysAgo(1);
+
+        assertThat(service(true, MINUTE_RETENTION_DAYS).chooseResolution(start, start.plusHours(6), MAX_POINTS))
+                .isEqualTo(HistoryResolution.MINUTE);
+    }
+
+    @Test
+    void skipsMinuteWhenStartBeforeRetentionCutoff() {
+        maxHourlySamples(3600);
+        LocalDateTime start = daysAgo(MINUTE_RETENTION_DAYS + 10);
+
+        assertThat(service(true, MINUTE_RETENTION_DAYS).chooseResolution(start, start.plusHours(6), MAX_POINTS))
+                .isEqualTo(HistoryResolution.HOUR);
+    }
+
+    @Test
+    void skipsMinuteWhenRangeStartsBeforeCutoffAndEndsAfterIt() {
+        maxHourlySamples(3600);
+        LocalDateTime start = daysAgo(MINUTE_RETENTION_DAYS + 1).minusHours(2);
+
+        assertThat(service(true, MINUTE_RETENTION_DAYS).chooseResolution(start, start.plusHours(12), MAX_POINTS))
+                .isEqualTo(HistoryResolution.HOUR);
+    }
+
+    @Test
+    void minuteForOldStartWhenRetentionUnlimited() {
+        maxHourlySamples(3600);
+        LocalDateTime start = daysAgo(400);
+
+        assertThat(service(true, 0).chooseResolution(start, start.plusHours(6), MAX_POINTS))
+                .isEqualTo(HistoryResolution.MINUTE);
+    }
+
+    @Test
+    void dayWhenHourlyBucketsExceedMaxPoints() {
+        maxHourlySamples(3600);
+        LocalDateTime start = daysAgo(365);
+
+        assertThat(service(true, MINUTE_RETENTION_DAYS).chooseResolution(start, start.plusDays(365), MAX_POINTS))
+                .isEqualTo(HistoryResolution.DAY);
+    }
+
+    // === getHistory ===
+
+    @Test
+    void mergesParametersOfSameBucketAndDevice() {
+        LocalDateTime t0 = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime t1 = t0.plusHours(1);
+        LocalDateTime end = t0.plusHours(2);
+        when(repository.findRollups(eq(HistoryResolution.HOUR), eq(t0), eq(end), isNull())).thenReturn(List.of(
+                rollup("DEV-A", t0, SensorParameter.PH, 7.0),
+                rollup("DEV-A", t0, SensorParameter.DO, 8.5),
+                rollup("DEV-B", t0, SensorParameter.PH, 6.5),
+                rollup("DEV-A", t1, SensorParameter.PH, 7.1),
+                rollup("DEV-A", t1, SensorParameter.COD, 3.2)));
+
+        SensorInfo info = SensorInfo.builder().deviceId("DEV-A").ptno("3011A40").type("하천").lat(37.5).lon(127.0).build();
+        when(registry.find("DEV-A")).thenReturn(Optional.of(new SensorInfoRegistry.Entry(info, "한강", "DEV-A", 1)));
+
+        List<HistoryDataDto> history = service(true, MINUTE_RETENTION_DAYS).getHistory(t0, end, HistoryResolution.HOUR);
+
+        assertThat(history).hasSize(3);
+        assertThat(history).extracting(HistoryDataDto::getDeviceId).containsExactly("DEV-A", "DEV-B", "DEV-A");
+        assertThat(history).extracting(HistoryDataDto::getMeasuredAt).containsExactly(t0, t0, t1);
+
+        HistoryDataDto first = history.get(0);
+        assertThat(first.getPh()).isEqualTo(7.0);
+        assertThat(first.getDoValue()).isEqualTo(8.5);
+        assertThat(first.getPtno()).isEqualTo("3011A40");
+        assertThat(first.getLat()).isEqualTo(37.5);
+
+        HistoryDataDto second = history.get(1);
+        assertThat(second.getPh()).isEqualTo(6.5);
+        assertThat(second.getDoValue()).isZero();
+        assertThat(second.getPtno()).isNull();
+
+        HistoryDataDto third = history.get(2);
+        assertThat(third.getPh()).isEqualTo(7.1);
+        assertThat(third.getCod()).isEqualTo(3.2);
+    }
+
+    private static HistoryRollupDto rollup(String deviceId, LocalDateTime bucketStart, SensorParameter parameter, double avg) {
+        return new HistoryRollupDto(deviceId, deviceId, HistoryResolution.HOUR, bucketStart, parameter, avg, avg, avg, 1);
+    }
+}